@@ -313,6 +313,8 @@ dependencies {
     implementation(libs.coil)
     implementation(libs.androidx.paging.runtime)
     implementation("com.github.chrisbanes:PhotoView:2.3.0")
+    // Orientation carried over when resizing upload photos
+    implementation(libs.androidx.exifinterface)
 
     // CameraX
     implementation(libs.camerax.core)
@@ -75,6 +75,7 @@
 -keep class com.example.rocketplan_android.logging.PendingRemoteLog { *; }
 -keep class com.example.rocketplan_android.logging.RetryableLogBatch { *; }
 -keep class com.example.rocketplan_android.data.storage.StoredUploadData { *; }
+-keep class com.example.rocketplan_android.data.sync.SyncPerformanceStore$Persisted* { *; }
 
 # Keep Retrofit API interfaces
 -keep interface com.example.rocketplan_android.data.api.** { *; }
@@ -793,6 +793,7 @@ class MainActivity : AppCompatActivity() {
                 val rocketPlanApp = application as RocketPlanApplication
                 rocketPlanApp.photoSyncRealtimeManager.unsubscribe()
                 rocketPlanApp.notesRealtimeManager.clear()
+                rocketPlanApp.realtimeRefreshCoalescer.clear()
                 rocketPlanApp.imageProcessorRealtimeManager.clear()
                 rocketPlanApp.pusherService.disconnect()
 
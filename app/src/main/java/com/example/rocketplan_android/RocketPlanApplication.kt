@@ -10,6 +10,7 @@ import androidx.work.ExistingPeriodicWorkPolicy
 import androidx.work.NetworkType
 import androidx.work.PeriodicWorkRequestBuilder
 import androidx.work.WorkManager
+import java.io.File
 import java.util.concurrent.TimeUnit
 import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.api.RetrofitClient
@@ -29,16 +30,21 @@ import com.example.rocketplan_android.data.storage.ImageProcessorUploadStore
 import com.example.rocketplan_android.data.storage.OfflineRoomTypeCatalogStore
 import com.example.rocketplan_android.data.storage.SecureStorage
 import com.example.rocketplan_android.data.storage.SyncCheckpointStore
+import com.example.rocketplan_android.data.sync.SyncPerformanceStore
 import com.example.rocketplan_android.data.sync.SyncQueueManager
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
+import com.example.rocketplan_android.realtime.AppVisibilityTracker
 import com.example.rocketplan_android.realtime.ImageProcessorRealtimeManager
 import com.example.rocketplan_android.realtime.NotesRealtimeManager
 import com.example.rocketplan_android.realtime.ProjectRealtimeManager
 import com.example.rocketplan_android.realtime.PhotoSyncRealtimeManager
 import com.example.rocketplan_android.realtime.PusherService
+import com.example.rocketplan_android.realtime.RealtimeDeltaApplier
+import com.example.rocketplan_android.realtime.RealtimeRefreshCoalescer
 import com.example.rocketplan_android.data.network.SyncNetworkMonitor
 import com.example.rocketplan_android.work.PhotoCacheScheduler
+import com.example.rocketplan_android.work.SyncRetryScheduler
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -67,6 +73,9 @@ class RocketPlanApplication : Application() {
     lateinit var remoteLogger: RemoteLogger
         private set
 
+    lateinit var syncPerformanceStore: SyncPerformanceStore
+        private set
+
     lateinit var authRepository: AuthRepository
         private set
 
@@ -131,6 +140,8 @@ class RocketPlanApplication : Application() {
         private set
     lateinit var notesRealtimeManager: NotesRealtimeManager
         private set
+    lateinit var realtimeRefreshCoalescer: RealtimeRefreshCoalescer
+        private set
 
     lateinit var pusherService: PusherService
         private set
@@ -148,6 +159,9 @@ class RocketPlanApplication : Application() {
     override fun onCreate() {
         super.onCreate()
 
+        // Before anything touches RetrofitClient, so the API client is built with the cache.
+        RetrofitClient.installHttpCache(File(cacheDir, "http"))
+
         initSentry()
 
         // Initialize FLIR SDK early so discovery is ready when users enter thermal capture
@@ -166,6 +180,10 @@ class RocketPlanApplication : Application() {
             secureStorage = secureStorage
         )
         logDeviceInfo()
+        syncPerformanceStore = SyncPerformanceStore(
+            file = File(filesDir, SyncPerformanceStore.FILE_NAME),
+            remoteLogger = remoteLogger
+        )
         photoCacheManager = PhotoCacheManager(this, localDataService, remoteLogger)
         syncCheckpointStore = SyncCheckpointStore(this)
         imageProcessingConfigStore = ImageProcessingConfigStore.getInstance(this)
@@ -178,7 +196,8 @@ class RocketPlanApplication : Application() {
         roomTypeRepository = RoomTypeRepository(
             api = offlineSyncApi,
             localDataService = localDataService,
-            offlineRoomTypeCatalogStore = offlineRoomTypeCatalogStore
+            offlineRoomTypeCatalogStore = offlineRoomTypeCatalogStore,
+            httpValidators = RetrofitClient.httpValidators
         )
 
         // Note: syncQueueEnqueuer is provided as a lazy lambda since SyncQueueManager
@@ -215,7 +234,10 @@ class RocketPlanApplication : Application() {
             roomTypeRepository = roomTypeRepository,
             photoCacheManager = photoCacheManager,
             remoteLogger = remoteLogger,
-            isNetworkAvailable = isNetworkAvailable
+            performanceStore = syncPerformanceStore,
+            isNetworkAvailable = isNetworkAvailable,
+            concurrencyLimiter = RetrofitClient.concurrencyLimiter,
+            httpValidators = RetrofitClient.httpValidators
         )
 
         // Note: syncQueueManager is initialized here but photoSyncRealtimeManager
@@ -226,7 +248,9 @@ class RocketPlanApplication : Application() {
             localDataService = localDataService,
             photoCacheScheduler = photoCacheScheduler,
             remoteLogger = remoteLogger,
-            connectivityManager = connectivityManager
+            connectivityManager = connectivityManager,
+            retryHandoff = SyncRetryScheduler(this),
+            appForeground = AppVisibilityTracker.getInstance(this).foreground
         )
 
         val imageProcessorService = RetrofitClient.imageProcessorService
@@ -251,15 +275,20 @@ class RocketPlanApplication : Application() {
             remoteLogger = remoteLogger
         )
         photoSyncRealtimeManager = PhotoSyncRealtimeManager(pusherService)
+        // Shared so project and note events for the same project land in one batch
+        realtimeRefreshCoalescer = RealtimeRefreshCoalescer.forSyncQueue(syncQueueManager, remoteLogger)
+        val realtimeDeltaApplier = RealtimeDeltaApplier(localDataService, remoteLogger)
         projectRealtimeManager = ProjectRealtimeManager(
             pusherService = pusherService,
-            syncQueueManager = syncQueueManager,
+            refreshCoalescer = realtimeRefreshCoalescer,
+            deltaApplier = realtimeDeltaApplier,
             authRepository = authRepository,
             remoteLogger = remoteLogger
         )
         notesRealtimeManager = NotesRealtimeManager(
             pusherService = pusherService,
-            syncQueueManager = syncQueueManager,
+            refreshCoalescer = realtimeRefreshCoalescer,
+            deltaApplier = realtimeDeltaApplier,
             remoteLogger = remoteLogger
         )
         // Connect PhotoSyncRealtimeManager to SyncQueueManager to handle Pusher events
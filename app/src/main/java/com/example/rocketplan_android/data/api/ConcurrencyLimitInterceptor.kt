@@ -0,0 +1,56 @@
+package com.example.rocketplan_android.data.api
+
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter.Outcome
+import java.io.InterruptedIOException
+import okhttp3.Interceptor
+import okhttp3.Response
+
+/**
+ * Admits each request through the shared [AdaptiveConcurrencyLimiter] and reports how it went:
+ * 503/429 and timeouts are overload signals (with `Retry-After` honoured), any other response
+ * counts as a success whose latency feeds the limit.
+ *
+ * Latency is measured to the response headers; body streaming happens after the permit is
+ * released so large downloads don't hold back other requests.
+ */
+class ConcurrencyLimitInterceptor(
+    private val limiter: AdaptiveConcurrencyLimiter,
+    private val clock: () -> Long = System::currentTimeMillis
+) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val permit = limiter.acquire(isCanceled = { chain.call().isCanceled() })
+        val response = try {
+            chain.proceed(chain.request())
+        } catch (e: InterruptedIOException) {
+            // SocketTimeoutException and OkHttp call timeouts; a cancelled call is not overload.
+            permit.release(if (chain.call().isCanceled()) Outcome.IGNORE else Outcome.OVERLOAD)
+            throw e
+        } catch (e: Throwable) {
+            permit.release(Outcome.IGNORE)
+            throw e
+        }
+
+        when (response.code) {
+            HTTP_TOO_MANY_REQUESTS, HTTP_SERVICE_UNAVAILABLE ->
+                permit.release(Outcome.OVERLOAD, retryAfterMs(response, clock()))
+            else -> permit.release(Outcome.SUCCESS)
+        }
+        return response
+    }
+
+    companion object {
+        private const val HTTP_TOO_MANY_REQUESTS = 429
+        private const val HTTP_SERVICE_UNAVAILABLE = 503
+        private const val RETRY_AFTER_HEADER = "Retry-After"
+
+        /** Parses `Retry-After` as delta-seconds or an HTTP date; null when absent or in the past. */
+        fun retryAfterMs(response: Response, nowMs: Long): Long? {
+            val value = response.header(RETRY_AFTER_HEADER)?.trim() ?: return null
+            value.toLongOrNull()?.let { seconds -> return (seconds * 1_000).takeIf { it > 0 } }
+            val date = response.headers.getDate(RETRY_AFTER_HEADER) ?: return null
+            return (date.time - nowMs).takeIf { it > 0 }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.rocketplan_android.data.api
+
+import com.example.rocketplan_android.data.network.HttpValidatorStore
+import java.io.IOException
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import retrofit2.Invocation
+
+/**
+ * Opts a GET endpoint into conditional requests. Its callers must handle [NotModifiedException]
+ * by keeping what they already stored for the resource.
+ */
+@Target(AnnotationTarget.FUNCTION)
+@Retention(AnnotationRetention.RUNTIME)
+annotation class Conditional
+
+/**
+ * Thrown instead of returning a 304, so Retrofit never parses a body and callers can skip their
+ * database writes for a resource that has not changed.
+ */
+class NotModifiedException(val url: String) : IOException("Not modified: $url")
+
+/**
+ * Sends `If-None-Match` / `If-Modified-Since` for [Conditional] endpoints using the validators of
+ * the last 200 seen for the same URL, and turns a 304 into [NotModifiedException].
+ *
+ * Requests that carry their own conditions bypass OkHttp's cache, so a 304 reaches this
+ * interceptor instead of being replaced by the cached body. The cache still serves cold starts,
+ * when no validator has been stored yet. Add this interceptor before
+ * [ConcurrencyLimitInterceptor] so a 304 is counted as a healthy response.
+ */
+class ConditionalRequestInterceptor(
+    private val store: HttpValidatorStore
+) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        if (request.method != "GET" || !request.isConditional()) {
+            return chain.proceed(request)
+        }
+
+        val url = request.url.toString()
+        val stored = store.get(url)
+        val outgoing = stored?.let { validators ->
+            request.newBuilder()
+                .apply {
+                    validators.etag?.let { header(IF_NONE_MATCH, it) }
+                    validators.lastModified?.let { header(IF_MODIFIED_SINCE, it) }
+                }
+                .build()
+        } ?: request
+
+        val response = chain.proceed(outgoing)
+        when {
+            response.code == HTTP_NOT_MODIFIED && stored != null -> {
+                response.close()
+                throw NotModifiedException(url)
+            }
+            response.isSuccessful -> {
+                val etag = response.header(ETAG)
+                val lastModified = response.header(LAST_MODIFIED)
+                if (etag != null || lastModified != null) {
+                    store.put(url, request.url.encodedPath, HttpValidatorStore.Validators(etag, lastModified))
+                } else {
+                    store.remove(url)
+                }
+            }
+            else -> store.remove(url)
+        }
+        return response
+    }
+
+    private fun Request.isConditional(): Boolean =
+        tag(Invocation::class.java)?.method()?.isAnnotationPresent(Conditional::class.java) == true
+
+    companion object {
+        private const val HTTP_NOT_MODIFIED = 304
+        private const val ETAG = "ETag"
+        private const val LAST_MODIFIED = "Last-Modified"
+        private const val IF_NONE_MATCH = "If-None-Match"
+        private const val IF_MODIFIED_SINCE = "If-Modified-Since"
+    }
+}
@@ -79,6 +79,7 @@ interface OfflineSyncApi {
     @GET("/api/status")
     suspend fun getStatus(): StatusResponse
 
+    @Conditional
     @GET("/api/offline-room-types")
     suspend fun getOfflineRoomTypes(): OfflineRoomTypeCatalogResponse
 
@@ -318,6 +319,7 @@ interface OfflineSyncApi {
         @Query("include") include: String? = "photos"
     ): PaginatedResponse<AlbumDto>
 
+    @Conditional
     @GET("/api/rooms/{roomId}/photos")
     suspend fun getRoomPhotos(
         @Path("roomId") roomId: Long,
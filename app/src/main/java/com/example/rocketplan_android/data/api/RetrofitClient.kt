@@ -1,10 +1,15 @@
 package com.example.rocketplan_android.data.api
 
 import com.example.rocketplan_android.config.AppConfig
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.network.HttpValidatorStore
 import com.google.gson.GsonBuilder
+import java.io.File
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicReference
+import okhttp3.Cache
 import okhttp3.CertificatePinner
+import okhttp3.Dispatcher
 import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
@@ -30,7 +35,9 @@ object RetrofitClient {
      * Set the authentication token for API requests
      */
     fun setAuthToken(token: String?) {
-        authToken.set(token)
+        val previous = authToken.getAndSet(token)
+        // Restoring the stored session at launch keeps the cache; signing out or switching users clears it.
+        if (previous != null && previous != token) clearHttpCache()
     }
 
     /**
@@ -43,7 +50,8 @@ object RetrofitClient {
      * This is sent as X-Company-Id header on all authenticated requests.
      */
     fun setCompanyId(id: Long?) {
-        companyId.set(id)
+        val previous = companyId.getAndSet(id)
+        if (previous != null && previous != id) clearHttpCache()
     }
 
     /**
@@ -169,16 +177,61 @@ object RetrofitClient {
         response
     }
 
-    private val okHttpClient = OkHttpClient.Builder()
-        .addInterceptor(authInterceptor)
-        .addInterceptor(loggingInterceptor)
-        .addInterceptor(GzipRequestInterceptor())
-        .addInterceptor(unauthorizedInterceptor)
-        .apply { certificatePinner?.let { certificatePinner(it) } }
-        .connectTimeout(AppConfig.apiTimeout, TimeUnit.SECONDS)
-        .readTimeout(AppConfig.apiTimeout, TimeUnit.SECONDS)
-        .writeTimeout(AppConfig.apiTimeout, TimeUnit.SECONDS)
-        .build()
+    /**
+     * Shared AIMD limit on in-flight API requests. Sync services that fan out per room/location
+     * bound their parallelism with the same instance.
+     */
+    val concurrencyLimiter = AdaptiveConcurrencyLimiter()
+
+    /**
+     * Validators for [Conditional] endpoints. Sync services that fail to persist a fetched body
+     * forget its endpoint here so the next request downloads it again.
+     */
+    val httpValidators = HttpValidatorStore()
+
+    private val httpCache: AtomicReference<Cache?> = AtomicReference(null)
+
+    /**
+     * Enables the disk-backed HTTP cache. Must run before the first API client is created
+     * (i.e. early in Application.onCreate); later calls are ignored.
+     */
+    fun installHttpCache(directory: File, maxSizeBytes: Long = HTTP_CACHE_SIZE_BYTES) {
+        httpCache.compareAndSet(null, Cache(directory, maxSizeBytes))
+    }
+
+    /**
+     * Responses are cached by URL only, so they must not outlive the user or company they were
+     * fetched for.
+     */
+    private fun clearHttpCache() {
+        httpValidators.clear()
+        runCatching { httpCache.get()?.evictAll() }
+            .onFailure { android.util.Log.w("RetrofitClient", "Failed to clear HTTP cache", it) }
+    }
+
+    private const val HTTP_CACHE_SIZE_BYTES = 50L * 1024 * 1024
+
+    private val okHttpClient by lazy {
+        OkHttpClient.Builder()
+            // The limiter owns per-host concurrency; OkHttp's default of 5 would cap it silently.
+            .dispatcher(Dispatcher().apply {
+                maxRequests = concurrencyLimiter.maxLimit
+                maxRequestsPerHost = concurrencyLimiter.maxLimit
+            })
+            .apply { httpCache.get()?.let { cache(it) } }
+            // Ahead of the limiter so a 304 is counted as a healthy response before it is raised.
+            .addInterceptor(ConditionalRequestInterceptor(httpValidators))
+            .addInterceptor(ConcurrencyLimitInterceptor(concurrencyLimiter))
+            .addInterceptor(authInterceptor)
+            .addInterceptor(loggingInterceptor)
+            .addInterceptor(GzipRequestInterceptor())
+            .addInterceptor(unauthorizedInterceptor)
+            .apply { certificatePinner?.let { certificatePinner(it) } }
+            .connectTimeout(AppConfig.apiTimeout, TimeUnit.SECONDS)
+            .readTimeout(AppConfig.apiTimeout, TimeUnit.SECONDS)
+            .writeTimeout(AppConfig.apiTimeout, TimeUnit.SECONDS)
+            .build()
+    }
 
     /**
      * Gson converter with custom configurations
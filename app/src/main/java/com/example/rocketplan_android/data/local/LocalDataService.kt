@@ -9,6 +9,7 @@ import androidx.room.withTransaction
 import com.example.rocketplan_android.data.local.PhotoCacheStatus
 import com.example.rocketplan_android.data.local.dao.ImageProcessorDao
 import com.example.rocketplan_android.data.local.dao.OfflineDao
+import com.example.rocketplan_android.data.local.dao.SyncCursorDao
 import com.example.rocketplan_android.data.local.entity.OfflineAlbumEntity
 import com.example.rocketplan_android.data.local.entity.OfflineAlbumPhotoEntity
 import com.example.rocketplan_android.data.local.entity.OfflineAtmosphericLogEntity
@@ -50,6 +51,7 @@ import com.example.rocketplan_android.data.local.entity.preferredImageSource
 import com.example.rocketplan_android.data.local.entity.preferredThumbnailSource
 import com.example.rocketplan_android.data.local.model.RoomPhotoSummary
 import com.example.rocketplan_android.data.local.model.ProjectWithProperty
+import com.example.rocketplan_android.data.local.model.SyncOperationHeader
 import com.example.rocketplan_android.data.model.ProjectStatus
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
@@ -62,13 +64,13 @@ import java.util.Date
  * service so that the app can function fully while offline.
  */
 class LocalDataService private constructor(
-    context: Context,
+    private val database: OfflineDatabase,
     private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
 ) {
 
-    private val database: OfflineDatabase = OfflineDatabase.getInstance(context)
     private val dao: OfflineDao = database.offlineDao()
     private val imageProcessorDao: ImageProcessorDao = database.imageProcessorDao()
+    private val syncCursorDao: SyncCursorDao = database.syncCursorDao()
 
     @Volatile
     private var _currentCompanyId: Long? = null
@@ -509,13 +511,18 @@ class LocalDataService private constructor(
     suspend fun getPhoto(photoId: Long): OfflinePhotoEntity? =
         withContext(ioDispatcher) { dao.getPhotoById(photoId) }
 
-    suspend fun deleteLocalPendingRoomPhoto(
+    /**
+     * Removes local-only placeholders in a room that the server has now sent under the same file
+     * names (compared case-insensitively). Returns the number of rows removed.
+     */
+    suspend fun deleteLocalPendingRoomPhotos(
         projectId: Long,
         roomId: Long,
-        fileName: String
+        fileNames: Collection<String>
     ): Int = withContext(ioDispatcher) {
-        if (fileName.isBlank()) return@withContext 0
-        dao.deleteLocalPendingRoomPhoto(projectId, roomId, fileName)
+        val names = fileNames.filter { it.isNotBlank() }.distinct()
+        if (names.isEmpty()) return@withContext 0
+        names.chunked(SERVER_ID_LOOKUP_CHUNK).sumOf { dao.deleteLocalPendingRoomPhotos(projectId, roomId, it) }
     }
 
     fun observeAlbumsForProject(projectId: Long): Flow<List<OfflineAlbumEntity>> =
@@ -527,8 +534,27 @@ class LocalDataService private constructor(
     fun observePhotosForAlbum(albumId: Long): Flow<List<OfflinePhotoEntity>> =
         dao.observePhotosForAlbum(albumId)
 
-    suspend fun getPhotosNeedingCache(limit: Int = 25): List<OfflinePhotoEntity> =
-        withContext(ioDispatcher) { dao.getPhotosNeedingCache(limit = limit) }
+    /** Photos still to cache; those of [visibleRooms] first, then the rest of their projects. */
+    suspend fun getPhotosNeedingCache(
+        limit: Int = 25,
+        visibleRooms: List<OfflineRoomEntity> = emptyList()
+    ): List<OfflinePhotoEntity> = withContext(ioDispatcher) {
+        dao.getPhotosNeedingCache(
+            // Photos are keyed by the server room id when the room has one
+            visibleRoomIds = visibleRooms.map { it.serverId ?: it.roomId },
+            visibleProjectIds = visibleRooms.map { it.projectId }.distinct(),
+            limit = limit
+        )
+    }
+
+    /** Photos whose original is cached, and those still waiting for it (including failed ones). */
+    suspend fun getPhotoCacheCounts(): Pair<Int, Int> = withContext(ioDispatcher) {
+        val cached = dao.countPhotosByCacheStatus(listOf(PhotoCacheStatus.READY))
+        val remaining = dao.countPhotosByCacheStatus(
+            listOf(PhotoCacheStatus.PENDING, PhotoCacheStatus.FAILED, PhotoCacheStatus.DOWNLOADING)
+        )
+        cached to remaining
+    }
 
     suspend fun getCachedPhotos(): List<OfflinePhotoEntity> =
         withContext(ioDispatcher) { dao.getCachedPhotos() }
@@ -536,40 +562,71 @@ class LocalDataService private constructor(
     suspend fun getPendingPhotoDeletions(projectId: Long): List<OfflinePhotoEntity> =
         withContext(ioDispatcher) { dao.getPendingPhotoDeletions(projectId) }
 
+    /**
+     * Repair path: reconciles a room's snapshot with its photos, writing only the rows that
+     * differ. Photo writes keep the snapshot current on their own ([savePhotos] and the
+     * `OfflineDatabase` triggers), so this normally finds nothing to do and observers of the
+     * snapshot are not re-emitted.
+     */
     suspend fun refreshRoomPhotoSnapshot(roomId: Long) = withContext(ioDispatcher) {
         database.withTransaction {
-            val photos = dao.getPhotosForRoomSnapshot(roomId)
-                .filter { it.hasRenderableAsset() }
-            dao.clearRoomPhotoSnapshots(roomId)
-            if (photos.isEmpty()) return@withTransaction
-
-            // Log first 10 photos to verify ordering
-            Log.d("LocalDataService", "📸 Snapshot for room $roomId: ${photos.size} photos")
-            photos.take(10).forEachIndexed { index, photo ->
-                Log.d("LocalDataService", "  [$index] id=${photo.photoId}, capturedAt=${photo.capturedAt}, createdAt=${photo.createdAt}")
-            }
-
-            val snapshots = photos.mapIndexed { index, photo ->
-                OfflineRoomPhotoSnapshotEntity(
-                    roomId = roomId,
-                    photoId = photo.photoId,
-                    orderIndex = index,
-                    imageUrl = photo.preferredImageSource(),
-                    thumbnailUrl = photo.preferredThumbnailSource(),
-                    capturedOn = photo.capturedAt ?: photo.createdAt
-                )
-            }
-
-            // Log first 10 snapshot entries being inserted
-            Log.d("LocalDataService", "📝 Inserting ${snapshots.size} snapshot entries")
-            snapshots.take(10).forEach { snapshot ->
-                Log.d("LocalDataService", "  orderIndex=${snapshot.orderIndex}, photoId=${snapshot.photoId}, capturedOn=${snapshot.capturedOn}")
-            }
-
-            dao.insertRoomPhotoSnapshots(snapshots)
+            val desired = dao.getPhotosForRoomSnapshot(roomId).mapNotNull { it.toRoomPhotoSnapshot() }
+            val current = dao.getRoomPhotoSnapshots(roomId).associateBy { it.photoId }
+            val desiredIds = desired.mapTo(HashSet()) { it.photoId }
+            val stale = current.keys.filterNot { it in desiredIds }
+            val changed = desired.filter { current[it.photoId] != it }
+            if (stale.isEmpty() && changed.isEmpty()) return@withTransaction
+
+            stale.chunked(SERVER_ID_LOOKUP_CHUNK).forEach { dao.deleteRoomPhotoSnapshots(roomId, it) }
+            if (changed.isNotEmpty()) dao.upsertRoomPhotoSnapshots(changed)
+            Log.d(
+                "LocalDataService",
+                "📸 Snapshot for room $roomId repaired: ${desired.size} photos, " +
+                    "${changed.size} written, ${stale.size} removed"
+            )
         }
     }
 
+    /**
+     * Brings the snapshot rows of just-written [photos] up to date: adds or rewrites rows whose
+     * rendered sources changed and drops rows the photo no longer belongs in. Must run in the
+     * transaction that wrote the photos.
+     */
+    private suspend fun applyRoomPhotoSnapshotChanges(photos: List<OfflinePhotoEntity>) {
+        // Rows inserted with photoId = 0 only learn their generated key from the database.
+        val generated = photos.filter { it.photoId == 0L }.map { it.uuid }
+        val resolved = photos.filter { it.photoId != 0L } +
+            generated.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getPhotosByUuids(it) }
+        if (resolved.isEmpty()) return
+
+        val desired = resolved.associate { it.photoId to it.toRoomPhotoSnapshot() }
+        val current = desired.keys.chunked(SERVER_ID_LOOKUP_CHUNK)
+            .flatMap { dao.getRoomPhotoSnapshotsForPhotos(it) }
+            .groupBy { it.photoId }
+
+        val moved = desired.filter { (photoId, row) ->
+            current[photoId].orEmpty().any { it.roomId != row?.roomId }
+        }.keys
+        moved.chunked(SERVER_ID_LOOKUP_CHUNK).forEach { dao.deleteRoomPhotoSnapshotsForPhotos(it) }
+
+        val changed = desired.values.filterNotNull().filter { row ->
+            row.photoId in moved || current[row.photoId]?.singleOrNull() != row
+        }
+        if (changed.isNotEmpty()) dao.upsertRoomPhotoSnapshots(changed)
+    }
+
+    private fun OfflinePhotoEntity.toRoomPhotoSnapshot(): OfflineRoomPhotoSnapshotEntity? {
+        val roomId = roomId ?: return null
+        if (isDeleted || !hasRenderableAsset()) return null
+        return OfflineRoomPhotoSnapshotEntity(
+            roomId = roomId,
+            photoId = photoId,
+            imageUrl = preferredImageSource(),
+            thumbnailUrl = preferredThumbnailSource(),
+            capturedOn = capturedAt ?: createdAt
+        )
+    }
+
     suspend fun clearRoomPhotoSnapshot(roomId: Long) = withContext(ioDispatcher) {
         dao.clearRoomPhotoSnapshots(roomId)
     }
@@ -605,6 +662,43 @@ class LocalDataService private constructor(
         dao.getNote(noteId)
     }
 
+    suspend fun getNoteByServerId(serverId: Long): OfflineNoteEntity? = withContext(ioDispatcher) {
+        dao.getNotesByServerIds(listOf(serverId)).firstOrNull()
+    }
+
+    // Batched server-id lookups used to place /api/sync/updated records under their local parents
+    suspend fun getNotesByServerIds(serverIds: List<Long>): List<OfflineNoteEntity> = withContext(ioDispatcher) {
+        serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getNotesByServerIds(it) }
+    }
+
+    suspend fun getRoomsByServerIds(serverIds: List<Long>): List<OfflineRoomEntity> = withContext(ioDispatcher) {
+        serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getRoomsByServerIds(it) }
+    }
+
+    suspend fun getLocationsByServerIds(serverIds: List<Long>): List<OfflineLocationEntity> =
+        withContext(ioDispatcher) {
+            serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getLocationsByServerIds(it) }
+        }
+
+    suspend fun getPhotosByServerIds(serverIds: List<Long>): List<OfflinePhotoEntity> = withContext(ioDispatcher) {
+        serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getPhotosByServerIds(it) }
+    }
+
+    suspend fun getEquipmentByServerIds(serverIds: List<Long>): List<OfflineEquipmentEntity> =
+        withContext(ioDispatcher) {
+            serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getEquipmentByServerIds(it) }
+        }
+
+    suspend fun getAtmosphericLogsByServerIds(serverIds: List<Long>): List<OfflineAtmosphericLogEntity> =
+        withContext(ioDispatcher) {
+            serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getAtmosphericLogsByServerIds(it) }
+        }
+
+    suspend fun getMoistureLogsByServerIds(serverIds: List<Long>): List<OfflineMoistureLogEntity> =
+        withContext(ioDispatcher) {
+            serverIds.chunked(SERVER_ID_LOOKUP_CHUNK).flatMap { dao.getMoistureLogsByServerIds(it) }
+        }
+
     suspend fun getPendingNotes(projectId: Long): List<OfflineNoteEntity> = withContext(ioDispatcher) {
         dao.getPendingNotes(projectId)
     }
@@ -702,6 +796,24 @@ class LocalDataService private constructor(
             dao.hasPendingDelete(entityType, serverId, uuid)
         }
 
+    /** [dropUnchangedRows] with a trace line, so no-op refreshes show up in sync logs. */
+    private fun <K, T> withoutUnchangedRows(
+        entity: String,
+        rows: List<T>,
+        storedByKey: Map<K, T>,
+        keyOf: (T) -> K?,
+        contentOf: (T) -> Any,
+    ): List<T> {
+        val changed = dropUnchangedRows(rows, storedByKey, keyOf, contentOf)
+        if (changed.size < rows.size) {
+            Log.d(
+                "LocalDataService",
+                "♻️ pull_sync_skipped_unchanged: entity=$entity unchanged=${rows.size - changed.size} written=${changed.size}"
+            )
+        }
+        return changed
+    }
+
     // region Mutations
     suspend fun saveProjects(
         projects: List<OfflineProjectEntity>,
@@ -849,7 +961,8 @@ class LocalDataService private constructor(
                 local
             } else server
         }
-        dao.upsertLocations(merged)
+        val changed = withoutUnchangedRows("location", merged, existing, { it.serverId }, { it.pulledContent() })
+        if (changed.isNotEmpty()) dao.upsertLocations(changed)
     }
 
     suspend fun getLatestLocationUpdate(projectId: Long): Date? = withContext(ioDispatcher) {
@@ -938,18 +1051,36 @@ class LocalDataService private constructor(
         )
     }
 
-    suspend fun saveRooms(rooms: List<OfflineRoomEntity>) = withContext(ioDispatcher) {
+    /**
+     * @param skipUnchanged set by pull sync: rooms whose stored row already has the same content are
+     * not written, so a no-op refresh does not invalidate room observers.
+     */
+    suspend fun saveRooms(
+        rooms: List<OfflineRoomEntity>,
+        skipUnchanged: Boolean = false,
+    ) = withContext(ioDispatcher) {
         // Split into new rooms (roomId = 0) and existing rooms (roomId > 0)
         // This ensures auto-generated IDs work correctly for new rooms
         val (newRooms, existingRooms) = rooms.partition { it.roomId == 0L }
         if (newRooms.isNotEmpty()) {
             dao.insertRooms(newRooms)
         }
-        if (existingRooms.isNotEmpty()) {
-            dao.upsertRooms(existingRooms)
+        val changedRooms = if (skipUnchanged) withoutUnchangedRooms(existingRooms) else existingRooms
+        if (changedRooms.isNotEmpty()) {
+            dao.upsertRooms(changedRooms)
         }
     }
 
+    private suspend fun withoutUnchangedRooms(rooms: List<OfflineRoomEntity>): List<OfflineRoomEntity> {
+        val serverIds = rooms.mapNotNull { it.serverId }.distinct()
+        if (serverIds.isEmpty()) return rooms
+        // Pulled rooms already carry their resolved local roomId; compare against that row.
+        val stored = serverIds.chunked(SERVER_ID_LOOKUP_CHUNK)
+            .flatMap { dao.getRoomsByServerIds(it) }
+            .associateBy { it.roomId }
+        return withoutUnchangedRows("room", rooms, stored, { it.roomId }, { it.pulledContent() })
+    }
+
     // Room ID migration methods for IdRemapService
     suspend fun migrateNoteRoomIds(oldRoomId: Long, newRoomId: Long): Int =
         withContext(ioDispatcher) { dao.migrateNoteRoomIds(oldRoomId, newRoomId) }
@@ -1022,16 +1153,9 @@ class LocalDataService private constructor(
         }
 
         database.withTransaction {
+            // First, delete sync operations for all child entities to prevent orphaned sync ops
+            dao.deleteSyncOpsForRoomSubtrees(roomIds.toList())
             roomIds.forEach { id ->
-                // First, delete sync operations for all child entities to prevent orphaned sync ops
-                dao.deleteSyncOpsForEquipmentByRoom(id)
-                dao.deleteSyncOpsForNotesByRoom(id)
-                dao.deleteSyncOpsForDamagesByRoom(id)
-                dao.deleteSyncOpsForMoistureLogsByRoom(id)
-                dao.deleteSyncOpsForAtmosphericLogsByRoom(id)
-                dao.deleteSyncOpsForWorkScopesByRoom(id)
-                dao.deleteSyncOpsForPhotosByRoom(id)
-
                 // Then delete the actual entities
                 dao.deleteAlbumPhotosByRoomId(id)
                 dao.markAlbumsDeletedByRoomId(id)
@@ -1083,7 +1207,8 @@ class LocalDataService private constructor(
             onPreserveDirty = { Log.w("LocalDataService", "⚠️ pull_sync_preserved_dirty_row: entity=atmospheric_log serverId=$it") },
             adoptLocalIdentity = { server, local -> server.copy(logId = local.logId, uuid = local.uuid) },
         )
-        dao.upsertAtmosphericLogs(merged)
+        val changed = withoutUnchangedRows("atmospheric_log", merged, existing, { it.serverId }, { it.pulledContent() })
+        if (changed.isNotEmpty()) dao.upsertAtmosphericLogs(changed)
     }
 
     /**
@@ -1116,11 +1241,13 @@ class LocalDataService private constructor(
                             updatedAt = photo.updatedAt
                         )
                         dao.upsertPhotos(listOf(updated))
+                        applyRoomPhotoSnapshotChanges(listOf(updated))
                         Log.d("LocalDataService", "📸 Updated log photo ${existing.photoId} with new URL")
                     }
                 } else {
                     // Insert new photo entity
                     dao.upsertPhotos(listOf(photo))
+                    applyRoomPhotoSnapshotChanges(listOf(photo))
                     Log.d("LocalDataService", "📸 Created log photo for logId=${photo.logId}, moistureLogId=${photo.moistureLogId}")
                 }
             }
@@ -1146,16 +1273,24 @@ class LocalDataService private constructor(
         preserveDirty: Boolean = false,
     ) = withContext(ioDispatcher) {
         if (photos.isEmpty()) return@withContext
-        if (!preserveDirty) {
-            dao.upsertPhotos(photos)
-            return@withContext
+        database.withTransaction {
+            val written = if (preserveDirty) mergePulledPhotos(photos) else photos
+            if (written.isEmpty()) return@withTransaction
+            dao.upsertPhotos(written)
+            applyRoomPhotoSnapshotChanges(written)
         }
+    }
+
+    /**
+     * Keeps the local row for any incoming photo whose local copy has unsynced edits, and drops
+     * photos whose stored row already has the same content.
+     */
+    private suspend fun mergePulledPhotos(photos: List<OfflinePhotoEntity>): List<OfflinePhotoEntity> {
         val serverIds = photos.mapNotNull { it.serverId }
-        if (serverIds.isEmpty()) {
-            dao.upsertPhotos(photos)
-            return@withContext
-        }
-        val existing = dao.getPhotosByServerIds(serverIds).associateBy { it.serverId }
+        if (serverIds.isEmpty()) return photos
+        val existing = serverIds.chunked(SERVER_ID_LOOKUP_CHUNK)
+            .flatMap { dao.getPhotosByServerIds(it) }
+            .associateBy { it.serverId }
         val merged = photos.map { server ->
             val local = server.serverId?.let { existing[it] }
             if (local?.isDirty == true) {
@@ -1163,7 +1298,7 @@ class LocalDataService private constructor(
                 local
             } else server
         }
-        dao.upsertPhotos(merged)
+        return withoutUnchangedRows("photo", merged, existing, { it.serverId }, { it.pulledContent() })
     }
 
     suspend fun saveAlbums(albums: List<OfflineAlbumEntity>) = withContext(ioDispatcher) {
@@ -1197,7 +1332,8 @@ class LocalDataService private constructor(
             onPreserveDirty = { Log.w("LocalDataService", "⚠️ pull_sync_preserved_dirty_row: entity=equipment serverId=$it") },
             adoptLocalIdentity = { server, local -> server.copy(equipmentId = local.equipmentId, uuid = local.uuid) },
         )
-        dao.upsertEquipment(merged)
+        val changed = withoutUnchangedRows("equipment", merged, existing, { it.serverId }, { it.pulledContent() })
+        if (changed.isNotEmpty()) dao.upsertEquipment(changed)
     }
 
     suspend fun getEquipment(equipmentId: Long): OfflineEquipmentEntity? = withContext(ioDispatcher) {
@@ -1235,7 +1371,8 @@ class LocalDataService private constructor(
             onPreserveDirty = { Log.w("LocalDataService", "⚠️ pull_sync_preserved_dirty_row: entity=moisture_log serverId=$it") },
             adoptLocalIdentity = { server, local -> server.copy(logId = local.logId, uuid = local.uuid) },
         )
-        dao.upsertMoistureLogs(merged)
+        val changed = withoutUnchangedRows("moisture_log", merged, existing, { it.serverId }, { it.pulledContent() })
+        if (changed.isNotEmpty()) dao.upsertMoistureLogs(changed)
     }
 
     suspend fun saveNotes(
@@ -1261,7 +1398,8 @@ class LocalDataService private constructor(
             onPreserveDirty = { Log.w("LocalDataService", "⚠️ pull_sync_preserved_dirty_row: entity=note serverId=$it") },
             adoptLocalIdentity = { server, local -> server.copy(noteId = local.noteId, uuid = local.uuid) },
         )
-        dao.upsertNotes(merged)
+        val changed = withoutUnchangedRows("note", merged, existing, { it.serverId }, { it.pulledContent() })
+        if (changed.isNotEmpty()) dao.upsertNotes(changed)
     }
 
     suspend fun saveNote(note: OfflineNoteEntity) = withContext(ioDispatcher) {
@@ -1330,15 +1468,7 @@ class LocalDataService private constructor(
             if (propertyIds.isNotEmpty()) {
                 clearedOps += dao.deleteSyncOpsForProperties(propertyIds)
             }
-            clearedOps += dao.deleteSyncOpsForLocationsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForRoomsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForPhotosByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForNotesByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForEquipmentByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForAtmosphericLogsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForMoistureLogsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForDamagesByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForWorkScopesByProject(projectIds)
+            clearedOps += dao.deleteSyncOpsForProjectSubtrees(projectIds)
             if (clearedOps > 0) {
                 Log.d("LocalDataService", "🧹 Cleared $clearedOps sync queue operations")
             }
@@ -1381,6 +1511,8 @@ class LocalDataService private constructor(
                 )
             }
 
+            syncCursorDao.deleteForProjects(projectIds)
+
             // Force-mark only the filtered projects as deleted (scoped by companyId if provided)
             // IMPORTANT: Use serverIds from filtered projects, not the original list, to prevent
             // cross-tenant deletion when companyId is specified
@@ -1411,15 +1543,7 @@ class LocalDataService private constructor(
             if (propertyId != null) {
                 clearedOps += dao.deleteSyncOpsForProperties(listOf(propertyId))
             }
-            clearedOps += dao.deleteSyncOpsForLocationsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForRoomsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForPhotosByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForNotesByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForEquipmentByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForAtmosphericLogsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForMoistureLogsByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForDamagesByProject(projectIds)
-            clearedOps += dao.deleteSyncOpsForWorkScopesByProject(projectIds)
+            clearedOps += dao.deleteSyncOpsForProjectSubtrees(projectIds)
             if (clearedOps > 0) {
                 Log.d("LocalDataService", "🧹 [deleteProject] Cleared $clearedOps sync queue operations")
             }
@@ -1450,6 +1574,9 @@ class LocalDataService private constructor(
                 dao.clearDamageCauses(serverId)
             }
 
+            // Its pull cursors would skip everything if the project is ever pulled again
+            syncCursorDao.deleteForProjects(projectIds)
+
             // Mark the project itself as deleted
             dao.markProjectDeletedByLocalId(projectId)
 
@@ -1558,16 +1685,9 @@ class LocalDataService private constructor(
                 }
 
                 // Delete all room children and their sync operations
+                // First, delete sync operations for all child entities to prevent orphaned sync ops
+                dao.deleteSyncOpsForRoomSubtrees(ids.toList())
                 ids.forEach { id ->
-                    // First, delete sync operations for all child entities to prevent orphaned sync ops
-                    dao.deleteSyncOpsForEquipmentByRoom(id)
-                    dao.deleteSyncOpsForNotesByRoom(id)
-                    dao.deleteSyncOpsForDamagesByRoom(id)
-                    dao.deleteSyncOpsForMoistureLogsByRoom(id)
-                    dao.deleteSyncOpsForAtmosphericLogsByRoom(id)
-                    dao.deleteSyncOpsForWorkScopesByRoom(id)
-                    dao.deleteSyncOpsForPhotosByRoom(id)
-
                     // Then delete the actual entities
                     dao.deleteAlbumPhotosByRoomId(id)
                     dao.markAlbumsDeletedByRoomId(id)
@@ -1800,6 +1920,25 @@ class LocalDataService private constructor(
         dao.getSyncOperationsByStatus(SyncStatus.PENDING, now)
     }
 
+    /** Due PENDING operations in queue order, without payloads. */
+    suspend fun getPendingSyncOperationHeaders(): List<SyncOperationHeader> = withContext(ioDispatcher) {
+        val now = System.currentTimeMillis()
+        dao.getSyncOperationHeadersByStatus(SyncStatus.PENDING, now)
+    }
+
+    /** Full rows (payload included) for [operationIds]; operations removed since the scan are absent. */
+    suspend fun getSyncOperations(operationIds: List<String>): List<OfflineSyncQueueEntity> =
+        withContext(ioDispatcher) {
+            if (operationIds.isEmpty()) emptyList() else dao.getSyncOperationsByIds(operationIds)
+        }
+
+    fun observeSyncOperationHeaders(status: SyncStatus): Flow<List<SyncOperationHeader>> =
+        dao.observeSyncOperationHeadersByStatus(status)
+
+    /** Emits on every queue change; true while any operation has [status]. */
+    fun observeHasSyncOperations(status: SyncStatus): Flow<Boolean> =
+        dao.observeHasSyncOperations(status)
+
     /**
      * Gets all pending operations for a specific entity type.
      * Used for ID remapping when parent entities are synced.
@@ -1809,6 +1948,23 @@ class LocalDataService private constructor(
             dao.getPendingOperationsForEntityType(entityType)
         }
 
+    suspend fun getPendingOperationsByParentProject(projectId: Long): List<OfflineSyncQueueEntity> =
+        withContext(ioDispatcher) {
+            dao.getPendingOperationsByParentProject(projectId)
+        }
+
+    suspend fun getPendingOperationsByParentProperty(propertyId: Long): List<OfflineSyncQueueEntity> =
+        withContext(ioDispatcher) {
+            dao.getPendingOperationsByParentProperty(propertyId)
+        }
+
+    suspend fun getPendingOperationsByParentLocation(
+        locationId: Long,
+        uuid: String
+    ): List<OfflineSyncQueueEntity> = withContext(ioDispatcher) {
+        dao.getPendingOperationsByParentLocation(locationId, uuid)
+    }
+
     /**
      * Check if there are any scheduled operations that are now due for retry.
      * Used by the periodic retry ticker to wake up stalled backoff operations.
@@ -1818,6 +1974,15 @@ class LocalDataService private constructor(
         dao.countDueScheduledOperations(SyncStatus.PENDING, now) > 0
     }
 
+    /** Distinct backoff `scheduledAt` times (epoch ms, ascending) of pending operations; re-emits on queue changes. */
+    fun observeScheduledRetryTimes(): Flow<List<Long>> =
+        dao.observeScheduledAtTimes(SyncStatus.PENDING)
+
+    /** Earliest backoff `scheduledAt` of a pending operation that is still in the future, if any. */
+    suspend fun getNextScheduledRetryAt(): Long? = withContext(ioDispatcher) {
+        dao.getEarliestScheduledAtAfter(SyncStatus.PENDING, System.currentTimeMillis())
+    }
+
     suspend fun getSyncOperationForEntity(
         entityType: String,
         entityId: Long,
@@ -1834,6 +1999,30 @@ class LocalDataService private constructor(
         dao.deleteSyncOperationsForEntity(entityType, entityId)
     }
 
+    /**
+     * Removes queued operations for everything under a room (local and server ID). Called when a
+     * room DELETE is queued: the server cascades the delete, so pushing the children first is wasted work.
+     */
+    suspend fun pruneRoomSubtreeSyncOperations(room: OfflineRoomEntity): Int = withContext(ioDispatcher) {
+        dao.deleteSyncOpsForRoomSubtrees(listOfNotNull(room.roomId, room.serverId))
+    }
+
+    /** Removes queued operations for a location's rooms and everything scoped to them. */
+    suspend fun pruneLocationSubtreeSyncOperations(locationId: Long): Int = withContext(ioDispatcher) {
+        database.withTransaction {
+            val roomIds = dao.getRoomIdsForLocation(locationId).flatMap { roomId ->
+                listOfNotNull(roomId, dao.getRoom(roomId)?.serverId)
+            }
+            val children = if (roomIds.isEmpty()) 0 else dao.deleteSyncOpsForRoomSubtrees(roomIds)
+            children + dao.deleteSyncOpsForRoomsByLocation(locationId)
+        }
+    }
+
+    /** Removes queued operations for every child of a project (the project's own ops are kept). */
+    suspend fun pruneProjectSubtreeSyncOperations(projectId: Long): Int = withContext(ioDispatcher) {
+        dao.deleteSyncOpsForProjectSubtrees(listOf(projectId))
+    }
+
     /**
      * Gets all FAILED sync operations that can be retried.
      * These are operations that exhausted their skip count but may succeed now
@@ -1909,19 +2098,53 @@ class LocalDataService private constructor(
         originalPath: String,
         thumbnailPath: String?
     ) = withContext(ioDispatcher) {
-        dao.updatePhotoCachePaths(
-            photoId = photoId,
-            status = PhotoCacheStatus.READY,
-            originalPath = originalPath,
-            thumbnailPath = thumbnailPath,
-            timestamp = Date()
-        )
+        database.withTransaction {
+            dao.updatePhotoCachePaths(
+                photoId = photoId,
+                status = PhotoCacheStatus.READY,
+                originalPath = originalPath,
+                thumbnailPath = thumbnailPath,
+                timestamp = Date()
+            )
+            // Cached files take precedence over remote URLs in the snapshot.
+            dao.getPhotoById(photoId)?.let { applyRoomPhotoSnapshotChanges(listOf(it)) }
+        }
+    }
+
+    /** Records a prefetched thumbnail; the original is still to come, so the status is unchanged. */
+    suspend fun markPhotoThumbnailCached(photoId: Long, thumbnailPath: String) = withContext(ioDispatcher) {
+        database.withTransaction {
+            dao.updatePhotoCachedThumbnail(photoId, thumbnailPath)
+            dao.getPhotoById(photoId)?.let { applyRoomPhotoSnapshotChanges(listOf(it)) }
+        }
     }
 
     suspend fun markPhotoCacheFailed(photoId: Long) = withContext(ioDispatcher) {
         dao.updatePhotoCacheStatus(photoId, PhotoCacheStatus.FAILED, Date())
     }
 
+    /** Forgets the cached files of a photo, so they no longer count as referenced. */
+    suspend fun clearPhotoCache(photoId: Long) = withContext(ioDispatcher) {
+        database.withTransaction {
+            dao.updatePhotoCachePaths(
+                photoId = photoId,
+                status = PhotoCacheStatus.FAILED,
+                originalPath = null,
+                thumbnailPath = null,
+                timestamp = Date()
+            )
+            dao.getPhotoById(photoId)?.let { applyRoomPhotoSnapshotChanges(listOf(it)) }
+        }
+    }
+
+    /** A cached photo with the same [remoteUrl], whose files another photo can share. */
+    suspend fun findCachedPhotoByRemoteUrl(remoteUrl: String): OfflinePhotoEntity? =
+        withContext(ioDispatcher) { dao.getCachedPhotoByRemoteUrl(remoteUrl) }
+
+    /** Paths of cached files that photos or logs still refer to. */
+    suspend fun getPhotoCacheReferences(): Set<String> =
+        withContext(ioDispatcher) { dao.getPhotoCacheReferences().toHashSet() }
+
     suspend fun touchPhotoAccess(photoId: Long) = withContext(ioDispatcher) {
         dao.updatePhotoCacheStatus(photoId, PhotoCacheStatus.READY, Date())
     }
@@ -2246,12 +2469,22 @@ class LocalDataService private constructor(
         private const val DEFAULT_ROOM_PHOTO_PAGE_SIZE = 30
         private const val MAX_ROOM_PHOTO_PAGES = 5
         private const val DEFAULT_RECENT_ADDRESS_COUNT = 10
+        // Stays under SQLite's 999 bound-parameter limit for IN (...) queries
+        private const val SERVER_ID_LOOKUP_CHUNK = 900
 
         fun initialize(context: Context): LocalDataService =
             instance ?: synchronized(this) {
-                instance ?: LocalDataService(context.applicationContext).also { instance = it }
+                instance ?: LocalDataService(OfflineDatabase.getInstance(context.applicationContext))
+                    .also { instance = it }
             }
 
+        /** Unshared instance over [database], e.g. an in-memory database in Robolectric tests. */
+        @androidx.annotation.VisibleForTesting
+        internal fun createForTesting(
+            database: OfflineDatabase,
+            ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+        ): LocalDataService = LocalDataService(database, ioDispatcher)
+
         fun getInstance(): LocalDataService =
             instance ?: throw IllegalStateException("LocalDataService has not been initialized.")
     }
@@ -2312,3 +2545,31 @@ internal fun <T> mergePulledRowsByServerId(
         else -> adoptLocalIdentity(server, local)
     }
 }
+
+/**
+ * Drops pulled rows whose stored copy (looked up by [keyOf]) already has the same content, so a
+ * refresh that changes nothing issues no writes and observers of the table are not invalidated.
+ *
+ * [contentOf] must strip the bookkeeping a pull re-stamps on every row (see [pulledContent]); the
+ * rest of the row, identity included, is compared as is. The stored row is the reference rather
+ * than a persisted hash, so local edits, relinks and deletes can never be mistaken for "unchanged".
+ * Pure function, like [mergePulledRowsByServerId].
+ */
+internal fun <K, T> dropUnchangedRows(
+    rows: List<T>,
+    storedByKey: Map<K, T>,
+    keyOf: (T) -> K?,
+    contentOf: (T) -> Any,
+): List<T> = rows.filter { row ->
+    val stored = keyOf(row)?.let { storedByKey[it] }
+    stored == null || contentOf(stored) != contentOf(row)
+}
+
+// Row content minus the sync bookkeeping every pull re-stamps (sync time, version counter).
+internal fun OfflineLocationEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
+internal fun OfflineRoomEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
+internal fun OfflinePhotoEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
+internal fun OfflineNoteEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
+internal fun OfflineEquipmentEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
+internal fun OfflineMoistureLogEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
+internal fun OfflineAtmosphericLogEntity.pulledContent() = copy(syncVersion = 0, lastSyncedAt = null)
@@ -10,6 +10,7 @@ import androidx.sqlite.db.SupportSQLiteDatabase
 import com.example.rocketplan_android.BuildConfig
 import com.example.rocketplan_android.data.local.dao.ImageProcessorDao
 import com.example.rocketplan_android.data.local.dao.OfflineDao
+import com.example.rocketplan_android.data.local.dao.SyncCursorDao
 import com.example.rocketplan_android.data.local.entity.OfflineAlbumEntity
 import com.example.rocketplan_android.data.local.entity.OfflineAlbumPhotoEntity
 import com.example.rocketplan_android.data.local.entity.OfflineAtmosphericLogEntity
@@ -48,6 +49,8 @@ import com.example.rocketplan_android.data.local.entity.OfflineTimecardEntity
 import com.example.rocketplan_android.data.local.entity.OfflineTimecardTypeEntity
 import com.example.rocketplan_android.data.local.entity.OfflineClaimEntity
 import com.example.rocketplan_android.data.local.entity.OfflineProjectUserEntity
+import com.example.rocketplan_android.data.local.entity.SyncCursorEntity
+import com.google.gson.JsonParser
 import io.sentry.Sentry
 
 @Database(
@@ -89,9 +92,10 @@ import io.sentry.Sentry
         OfflineTimecardEntity::class,
         OfflineTimecardTypeEntity::class,
         OfflineClaimEntity::class,
-        OfflineProjectUserEntity::class
+        OfflineProjectUserEntity::class,
+        SyncCursorEntity::class
     ],
-    version = 30,
+    version = 34,
     exportSchema = false
 )
 @TypeConverters(OfflineTypeConverters::class)
@@ -99,6 +103,7 @@ abstract class OfflineDatabase : RoomDatabase() {
 
     abstract fun offlineDao(): OfflineDao
     abstract fun imageProcessorDao(): ImageProcessorDao
+    abstract fun syncCursorDao(): SyncCursorDao
 
     companion object {
         private const val DATABASE_NAME = "rocketplan_offline.db"
@@ -506,6 +511,160 @@ abstract class OfflineDatabase : RoomDatabase() {
             }
         }
 
+        @androidx.annotation.VisibleForTesting
+        internal val MIGRATION_30_31 = object : Migration(30, 31) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                // Parent references of queued CREATE payloads, indexed so ID remaps are a lookup
+                // instead of a scan that deserializes every pending payload.
+                SYNC_QUEUE_PARENT_COLUMNS.forEach { (column, type) ->
+                    database.execSQL("ALTER TABLE offline_sync_queue ADD COLUMN $column $type")
+                    database.execSQL(
+                        "CREATE INDEX IF NOT EXISTS index_offline_sync_queue_$column " +
+                            "ON offline_sync_queue($column)"
+                    )
+                }
+                backfillSyncQueueParentRefs(database)
+            }
+        }
+
+        @androidx.annotation.VisibleForTesting
+        internal val MIGRATION_31_32 = object : Migration(31, 32) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                // Sync cursors move out of EncryptedSharedPreferences; SyncCheckpointStore imports
+                // the old values on first use.
+                database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS sync_cursor (" +
+                        "cursorKey TEXT NOT NULL, projectId INTEGER, cursorAt INTEGER NOT NULL, " +
+                        "updatedAt INTEGER NOT NULL, PRIMARY KEY(cursorKey))"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_sync_cursor_projectId ON sync_cursor(projectId)"
+                )
+            }
+        }
+
+        @androidx.annotation.VisibleForTesting
+        internal val MIGRATION_32_33 = object : Migration(32, 33) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                // Snapshot rows are keyed by photo instead of position so single photos can be
+                // added, updated or removed in place. The table is derived data; it is rebuilt the
+                // next time each room is opened.
+                database.execSQL("DROP TABLE IF EXISTS offline_room_photo_snapshots")
+                database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS offline_room_photo_snapshots (" +
+                        "roomId INTEGER NOT NULL, photoId INTEGER NOT NULL, imageUrl TEXT NOT NULL, " +
+                        "thumbnailUrl TEXT NOT NULL, capturedOn INTEGER, PRIMARY KEY(roomId, photoId))"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_offline_room_photo_snapshots_photoId " +
+                        "ON offline_room_photo_snapshots(photoId)"
+                )
+            }
+        }
+
+        @androidx.annotation.VisibleForTesting
+        internal val MIGRATION_33_34 = object : Migration(33, 34) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                // Resumable uploads keep the server's Location URL; rows without one rebuild it
+                // from the upload id.
+                database.execSQL("ALTER TABLE image_processor_photos ADD COLUMN uploadUrl TEXT")
+            }
+        }
+
+        /**
+         * Snapshot upkeep that needs no Kotlin-side work: a photo that is deleted, soft-deleted or
+         * detached from its room leaves the snapshot, and a photo moved to another room takes its
+         * row along. Rows for new or re-rendered photos are written by LocalDataService, which
+         * resolves cached file paths. Created on every open so fresh, migrated and destructively
+         * rebuilt databases all have them.
+         */
+        private val ROOM_PHOTO_SNAPSHOT_TRIGGERS = listOf(
+            """
+            CREATE TRIGGER IF NOT EXISTS room_photo_snapshot_photo_deleted
+            AFTER DELETE ON offline_photos
+            BEGIN
+                DELETE FROM offline_room_photo_snapshots WHERE photoId = OLD.photoId;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS room_photo_snapshot_photo_hidden
+            AFTER UPDATE OF isDeleted, roomId ON offline_photos
+            WHEN NEW.isDeleted = 1 OR NEW.roomId IS NULL
+            BEGIN
+                DELETE FROM offline_room_photo_snapshots WHERE photoId = OLD.photoId;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS room_photo_snapshot_photo_moved
+            AFTER UPDATE OF roomId ON offline_photos
+            WHEN NEW.isDeleted = 0 AND NEW.roomId IS NOT NULL AND NEW.roomId IS NOT OLD.roomId
+            BEGIN
+                UPDATE OR REPLACE offline_room_photo_snapshots SET roomId = NEW.roomId
+                WHERE photoId = NEW.photoId;
+            END
+            """
+        )
+
+        private fun createRoomPhotoSnapshotTriggers(database: SupportSQLiteDatabase) {
+            ROOM_PHOTO_SNAPSHOT_TRIGGERS.forEach { database.execSQL(it.trimIndent()) }
+        }
+
+        private val ROOM_PHOTO_SNAPSHOT_CALLBACK = object : RoomDatabase.Callback() {
+            override fun onOpen(db: SupportSQLiteDatabase) = createRoomPhotoSnapshotTriggers(db)
+        }
+
+        private val SYNC_QUEUE_PARENT_COLUMNS = listOf(
+            "parentProjectId" to "INTEGER",
+            "parentPropertyId" to "INTEGER",
+            "parentLevelId" to "INTEGER",
+            "parentLocationId" to "INTEGER",
+            "parentLevelUuid" to "TEXT",
+            "parentLocationUuid" to "TEXT"
+        )
+
+        /**
+         * Copies parent references out of CREATE payloads that were queued before v31. Rows whose
+         * payload can't be parsed keep NULL columns; they are still pushed, just not remapped.
+         */
+        private fun backfillSyncQueueParentRefs(database: SupportSQLiteDatabase) {
+            val updates = mutableListOf<Pair<String, Array<Any?>>>()
+            database.query(
+                "SELECT operationId, entityType, payload FROM offline_sync_queue " +
+                    "WHERE operationType = 'CREATE' AND entityType IN ('property', 'location', 'room')"
+            ).use { cursor ->
+                while (cursor.moveToNext()) {
+                    val operationId = cursor.getString(0)
+                    val json = runCatching {
+                        JsonParser.parseString(String(cursor.getBlob(2), Charsets.UTF_8)).asJsonObject
+                    }.getOrNull() ?: continue
+                    fun long(key: String): Long? =
+                        json.get(key)?.takeUnless { it.isJsonNull }?.let { runCatching { it.asLong }.getOrNull() }
+                    fun string(key: String): String? =
+                        json.get(key)?.takeUnless { it.isJsonNull }?.let { runCatching { it.asString }.getOrNull() }
+                    val values: Array<Any?> = when (cursor.getString(1)) {
+                        "property" -> arrayOf(long("projectId"), null, null, null, null, null)
+                        "location" -> arrayOf(long("projectId"), long("propertyLocalId"), null, null, null, null)
+                        else -> arrayOf(
+                            long("projectId"),
+                            null,
+                            long("levelServerId"),
+                            long("locationServerId"),
+                            string("levelUuid"),
+                            string("locationUuid")
+                        )
+                    }
+                    updates += operationId to values
+                }
+            }
+            val assignments = SYNC_QUEUE_PARENT_COLUMNS.joinToString { (column, _) -> "$column = ?" }
+            updates.forEach { (operationId, values) ->
+                database.execSQL(
+                    "UPDATE offline_sync_queue SET $assignments WHERE operationId = ?",
+                    values + operationId
+                )
+            }
+        }
+
         private val MIGRATION_21_22 = object : Migration(21, 22) {
             override fun migrate(database: SupportSQLiteDatabase) {
                 // Add property info fields to offline_properties
@@ -577,12 +736,21 @@ abstract class OfflineDatabase : RoomDatabase() {
 
         private fun buildDatabase(context: Context): OfflineDatabase =
             Room.databaseBuilder(context, OfflineDatabase::class.java, DATABASE_NAME)
-                .addMigrations(MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18, MIGRATION_18_19, MIGRATION_19_20, MIGRATION_20_21, MIGRATION_21_22, MIGRATION_22_23, MIGRATION_23_24, MIGRATION_24_25, MIGRATION_25_26, MIGRATION_26_27, MIGRATION_27_28, MIGRATION_28_29, MIGRATION_29_30)
+                .addMigrations(MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18, MIGRATION_18_19, MIGRATION_19_20, MIGRATION_20_21, MIGRATION_21_22, MIGRATION_22_23, MIGRATION_23_24, MIGRATION_24_25, MIGRATION_25_26, MIGRATION_26_27, MIGRATION_27_28, MIGRATION_28_29, MIGRATION_29_30, MIGRATION_30_31, MIGRATION_31_32, MIGRATION_32_33, MIGRATION_33_34)
+                .addCallback(ROOM_PHOTO_SNAPSHOT_CALLBACK)
                 .apply {
                     if (BuildConfig.ALLOW_DESTRUCTIVE_MIGRATION) {
                         fallbackToDestructiveMigration()
                     }
                 }
                 .build()
+
+        /** In-memory database with the same callbacks as the app database, for Robolectric tests. */
+        @androidx.annotation.VisibleForTesting
+        internal fun createInMemoryForTesting(context: Context): OfflineDatabase =
+            Room.inMemoryDatabaseBuilder(context, OfflineDatabase::class.java)
+                .addCallback(ROOM_PHOTO_SNAPSHOT_CALLBACK)
+                .allowMainThreadQueries()
+                .build()
     }
 }
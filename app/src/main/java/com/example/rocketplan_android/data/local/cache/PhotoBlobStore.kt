@@ -0,0 +1,130 @@
+package com.example.rocketplan_android.data.local.cache
+
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.UUID
+
+/**
+ * Content-addressed storage for cached photo files.
+ *
+ * Each distinct file is stored once, as `blobs/<2 hex>/<sha256>.<ext>`, however many photos,
+ * projects or logs point at it. Content is written under `tmp/` and renamed into place, so a blob
+ * path only ever holds a complete file. Whether a blob is still needed is decided by the database
+ * rows that reference its path; see [PhotoCacheManager.collectGarbage].
+ */
+internal class PhotoBlobStore(
+    root: File,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private val blobDir = File(root, BLOB_DIR)
+    private val tmpDir = File(root, TMP_DIR)
+
+    /** Download target for [key] (e.g. a URL); the same key maps to the same file across runs. */
+    fun partialFile(key: String): File = File(ensureDir(tmpDir), sha256(key.toByteArray()) + PARTIAL_SUFFIX)
+
+    /**
+     * Holds the ETag or Last-Modified the server sent for [partial], so a resumed download only
+     * appends to it while the content behind the key is unchanged.
+     */
+    fun validatorFile(partial: File): File = File(partial.path + VALIDATOR_SUFFIX)
+
+    /** Scratch file for content produced locally, such as a generated thumbnail. */
+    fun newTempFile(): File = File(ensureDir(tmpDir), UUID.randomUUID().toString() + TEMP_SUFFIX)
+
+    /**
+     * Moves the complete [file] into the store and returns its blob. When the same content is
+     * already stored, [file] is deleted and the existing blob returned.
+     */
+    fun commit(file: File, extension: String): File = commit(file, sha256(file), extension)
+
+    /**
+     * Adds a copy of [source], a file the app keeps elsewhere (e.g. a photo captured on this
+     * device), and returns its blob. The blob never shares storage with [source], so later writes
+     * to [source] cannot change content stored under an older hash.
+     */
+    fun adopt(source: File, extension: String): File {
+        val temp = newTempFile()
+        try {
+            source.copyTo(temp, overwrite = true)
+        } catch (e: IOException) {
+            temp.delete()
+            throw e
+        }
+        return commit(temp, extension)
+    }
+
+    /** Every stored blob. */
+    fun blobs(): List<File> =
+        blobDir.listFiles()?.flatMap { shard -> shard.listFiles()?.toList().orEmpty() }.orEmpty()
+
+    /** Partial downloads and scratch files, including ones abandoned by earlier runs. */
+    fun tempFiles(): List<File> = tmpDir.listFiles()?.toList().orEmpty()
+
+    private fun commit(file: File, hash: String, extension: String): File {
+        val blob = blobFile(hash, extension)
+        synchronized(this) {
+            existing(hash, extension)?.let {
+                file.delete()
+                return it
+            }
+            ensureDir(blob.parentFile!!)
+            if (!file.renameTo(blob)) {
+                throw IOException("Unable to move ${file.name} into the photo cache")
+            }
+            // A fresh timestamp keeps the blob safe from garbage collection until its photo is recorded.
+            blob.setLastModified(clock())
+        }
+        return blob
+    }
+
+    private fun blobFile(hash: String, extension: String): File =
+        File(File(blobDir, hash.take(SHARD_LENGTH)), "$hash.$extension")
+
+    private fun existing(hash: String, extension: String): File? {
+        val blob = blobFile(hash, extension)
+        if (!blob.exists()) return null
+        blob.setLastModified(clock())
+        return blob
+    }
+
+    private fun ensureDir(directory: File): File {
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw IOException("Unable to create cache directory $directory")
+        }
+        return directory
+    }
+
+    companion object {
+        private const val BLOB_DIR = "blobs"
+        private const val TMP_DIR = "tmp"
+        private const val PARTIAL_SUFFIX = ".part"
+        private const val VALIDATOR_SUFFIX = ".validator"
+        private const val TEMP_SUFFIX = ".tmp"
+        private const val SHARD_LENGTH = 2
+        private const val BUFFER_BYTES = 64 * 1024
+
+        /**
+         * Whether [path] is a blob. Blobs can be shared between photos, so code removing a photo
+         * must leave them to garbage collection instead of deleting them.
+         */
+        fun isBlob(path: String): Boolean = File(path).parentFile?.parentFile?.name == BLOB_DIR
+
+        fun sha256(file: File): String {
+            val digest = MessageDigest.getInstance("SHA-256")
+            file.inputStream().use { input ->
+                val buffer = ByteArray(BUFFER_BYTES)
+                while (true) {
+                    val read = input.read(buffer)
+                    if (read < 0) break
+                    digest.update(buffer, 0, read)
+                }
+            }
+            return digest.digest().toHex()
+        }
+
+        private fun sha256(bytes: ByteArray): String = MessageDigest.getInstance("SHA-256").digest(bytes).toHex()
+
+        private fun ByteArray.toHex(): String = joinToString("") { "%02x".format(it) }
+    }
+}
@@ -7,10 +7,16 @@ import android.util.Log
 import com.example.rocketplan_android.data.api.RetrofitClient
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.example.rocketplan_android.data.network.SingleFlight
+import com.example.rocketplan_android.data.network.ThroughputConcurrencyController
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 import okhttp3.OkHttpClient
 import okhttp3.Request
@@ -18,111 +24,340 @@ import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
 import java.util.Date
+import java.util.concurrent.ConcurrentHashMap
 
+/**
+ * Downloads photos for offline use and keeps the cache within its budget.
+ *
+ * Downloads run in parallel, with the parallelism tuned by [downloadController] from measured
+ * throughput. Each file streams into a `.part` file that an interrupted run continues with a
+ * Range request (guarded by If-Range), so a worker stopped by WorkManager does not start large
+ * originals over.
+ *
+ * Files are kept in a [PhotoBlobStore], so identical content is stored once and shared by every
+ * photo that shows it. A URL that is already cached, or a photo still on the device that took it,
+ * is not downloaded again. Shared files are only deleted by [collectGarbage], once no photo or log
+ * refers to them.
+ */
 class PhotoCacheManager(
     context: Context,
     private val localDataService: LocalDataService,
     private val remoteLogger: RemoteLogger? = null,
     private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
-    private val httpClient: OkHttpClient = RetrofitClient.plainHttpClient
+    private val httpClient: OkHttpClient = RetrofitClient.plainHttpClient,
+    // Shared by every prefetch run, so the parallelism learned on this network carries over.
+    private val downloadController: ThroughputConcurrencyController = ThroughputConcurrencyController()
 ) {
 
     companion object {
         private const val TAG = "PhotoCacheManager"
         private const val THUMBNAIL_MAX_DIMENSION = 512
+        private const val THUMBNAIL_EXTENSION = "jpg"
+        private const val DOWNLOAD_BUFFER_BYTES = 64 * 1024
+        // Unreferenced blobs younger than this may belong to a photo that is about to be recorded.
+        private const val ORPHAN_GRACE_MS = 10 * 60 * 1000L
+        private const val ABANDONED_TEMP_FILE_MS = 7 * 24 * 60 * 60 * 1000L
+        // Originals are re-prioritised between chunks, so rooms opened mid-run are served next.
+        private const val ORIGINALS_PER_ROUND = 24
+        private const val HTTP_PARTIAL_CONTENT = 206
+        private const val HTTP_RANGE_NOT_SATISFIABLE = 416
     }
 
+    /** Progress of one [prefetch] run. */
+    data class PrefetchProgress(
+        val thumbnailsCached: Int = 0,
+        val originalsCached: Int = 0,
+        val failed: Int = 0,
+        val remaining: Int = 0,
+        val bytesDownloaded: Long = 0,
+        val parallelism: Int = 0
+    )
+
+    private class Fetched(val blob: File, val bytes: Long)
+
     private val cacheRoot: File = File(context.filesDir, "photo_cache").apply {
         if (!exists()) mkdirs()
     }
+    private val blobStore = PhotoBlobStore(cacheRoot)
+    // Photos that share a URL and are cached at the same time wait for a single download.
+    private val downloads = SingleFlight()
+    // Held while a blob is recorded against a photo and while garbage is collected, so a blob
+    // cannot be collected between the moment it is found and the moment it is referenced.
+    private val storeLock = Mutex()
 
     suspend fun cachePhotos(photos: List<OfflinePhotoEntity>) {
-        photos.toList().forEach { photo ->
-            runCatching { cachePhoto(photo) }.onFailure { error ->
-                Log.w(TAG, "Failed to cache photo ${photo.photoId}", error)
-                remoteLogger?.log(
-                    LogLevel.WARN,
-                    TAG,
-                    "Photo cache failed",
-                    mapOf(
-                        "photoId" to photo.photoId.toString(),
-                        "remoteUrl" to (photo.remoteUrl?.take(100) ?: "null"),
-                        "error" to (error.message ?: error.javaClass.simpleName)
-                    )
+        downloadController.mapConcurrently(photos.toList()) { photo ->
+            runCatching { cachePhoto(photo) }.onFailure { error -> logCacheFailure(photo, error) }
+        }
+    }
+
+    /**
+     * Caches [photos] for offline use: every missing thumbnail first, so whole rooms become
+     * browsable quickly, then the originals. [visibleRooms] (the rooms the user is looking at) is
+     * re-read between rounds of originals; see [orderForPrefetch]. Stops between downloads
+     * once [shouldStop] returns true; whatever finished stays cached and the rest is picked up by
+     * the next run.
+     */
+    suspend fun prefetch(
+        photos: List<OfflinePhotoEntity>,
+        visibleRooms: suspend () -> List<OfflineRoomEntity> = { emptyList() },
+        shouldStop: () -> Boolean = { false },
+        onProgress: suspend (PrefetchProgress) -> Unit = {}
+    ): PrefetchProgress {
+        val progressLock = Mutex()
+        var progress = PrefetchProgress(remaining = photos.size, parallelism = downloadController.limit.value)
+        suspend fun report(update: (PrefetchProgress) -> PrefetchProgress) {
+            progressLock.withLock {
+                progress = update(progress).copy(parallelism = downloadController.limit.value)
+                onProgress(progress)
+            }
+        }
+
+        downloadController.resetMeasurements()
+        val thumbnails = ConcurrentHashMap<Long, String>()
+        val needThumbnail = orderForPrefetch(photos, visibleRooms()).filter { photo ->
+            !photo.thumbnailUrl.isNullOrBlank() && photo.cachedThumbnailPath?.let { File(it).exists() } != true
+        }
+        downloadController.mapConcurrently(needThumbnail) { photo ->
+            if (shouldStop()) return@mapConcurrently
+            val thumbnail = cacheThumbnail(photo) ?: return@mapConcurrently
+            thumbnails[photo.photoId] = thumbnail.blob.absolutePath
+            report {
+                it.copy(
+                    thumbnailsCached = it.thumbnailsCached + 1,
+                    bytesDownloaded = it.bytesDownloaded + thumbnail.bytes
                 )
             }
         }
+
+        var pending = photos
+        while (pending.isNotEmpty() && !shouldStop()) {
+            val ordered = orderForPrefetch(pending, visibleRooms())
+            val round = ordered.take(ORIGINALS_PER_ROUND)
+            pending = ordered.drop(ORIGINALS_PER_ROUND)
+            downloadController.mapConcurrently(round) { photo ->
+                if (shouldStop()) return@mapConcurrently
+                val current = thumbnails[photo.photoId]?.let { photo.copy(cachedThumbnailPath = it) } ?: photo
+                val bytes = runCatching { cachePhoto(current) }
+                    .onFailure { error -> logCacheFailure(photo, error) }
+                    .getOrNull()
+                report {
+                    if (bytes != null) {
+                        it.copy(
+                            originalsCached = it.originalsCached + 1,
+                            remaining = it.remaining - 1,
+                            bytesDownloaded = it.bytesDownloaded + bytes
+                        )
+                    } else {
+                        it.copy(failed = it.failed + 1, remaining = it.remaining - 1)
+                    }
+                }
+            }
+        }
+        return progressLock.withLock { progress }
     }
 
-    suspend fun cachePhoto(photo: OfflinePhotoEntity) = withContext(ioDispatcher) {
-        val remoteUrl = photo.remoteUrl ?: return@withContext
+    /**
+     * Caches the original of [photo] and returns the bytes downloaded: 0 when it was already cached
+     * or could be taken from the cache or the device, null when there is nothing to download or
+     * caching failed.
+     */
+    suspend fun cachePhoto(photo: OfflinePhotoEntity): Long? = withContext(ioDispatcher) {
+        val remoteUrl = photo.remoteUrl ?: return@withContext null
 
         // If already cached and still on disk, just bump access timestamp.
         val existing = photo.cachedOriginalPath?.takeIf { File(it).exists() }
         if (existing != null) {
             localDataService.touchPhotoAccess(photo.photoId)
-            return@withContext
+            return@withContext 0L
         }
 
         localDataService.markPhotoCacheInProgress(photo.photoId)
 
-        val requestBuilder = Request.Builder().url(remoteUrl)
-        RetrofitClient.getAuthToken()?.takeIf { it.isNotBlank() }?.let { token ->
-            requestBuilder.addHeader("Authorization", "Bearer $token")
-        }
-        val request = requestBuilder.build()
+        // A thumbnail prefetched ahead of the original is kept rather than regenerated.
+        val prefetchedThumbnail = photo.cachedThumbnailPath?.let(::File)?.takeIf { it.exists() }
         try {
-            httpClient.newCall(request).execute().use { response ->
-                if (!response.isSuccessful) {
-                    throw IOException("HTTP ${response.code} while fetching $remoteUrl")
-                }
-                val body = response.body ?: throw IOException("Empty body for $remoteUrl")
-
-                val projectDir = File(cacheRoot, photo.projectId.toString())
-                if (!projectDir.exists() && !projectDir.mkdirs()) {
-                    throw IOException("Unable to create cache directory $projectDir")
-                }
-
-                val originalFile = File(projectDir, "${photo.uuid}.${fileExtension(photo.mimeType)}")
-                body.byteStream().use { input ->
-                    FileOutputStream(originalFile).use { output ->
-                        input.copyTo(output)
-                    }
-                }
-
-                val thumbnailFile = generateThumbnail(originalFile, photo.mimeType)
+            // Another photo with the same URL (e.g. in another project) already has the file.
+            val shared = localDataService.findCachedPhotoByRemoteUrl(remoteUrl)
+                ?.takeIf { it.photoId != photo.photoId }
+            // Only blobs are shared: files from before the blob store belong to a single photo.
+            val sharedOriginal = shared?.cachedOriginalPath
+                ?.takeIf { PhotoBlobStore.isBlob(it) }
+                ?.let(::File)
+                ?.takeIf { it.exists() }
+            val fetched = sharedOriginal?.let { Fetched(it, 0L) }
+                ?: adoptCapturedOriginal(photo)?.let { Fetched(it, 0L) }
+                ?: fetchBlob(remoteUrl, fileExtension(photo.mimeType))
+            val original = fetched.blob
+            val thumbnail = prefetchedThumbnail
+                ?: shared?.cachedThumbnailPath
+                    ?.takeIf { sharedOriginal != null && PhotoBlobStore.isBlob(it) }
+                    ?.let(::File)
+                    ?.takeIf { it.exists() }
+                ?: generateThumbnail(original, photo.mimeType)
 
+            storeLock.withLock {
+                // Checked under the lock: an unreferenced blob may have been collected meanwhile.
+                if (!original.exists()) throw IOException("Cached file disappeared: $original")
                 localDataService.markPhotoCacheSuccess(
                     photoId = photo.photoId,
-                    originalPath = originalFile.absolutePath,
-                    thumbnailPath = thumbnailFile?.absolutePath
+                    originalPath = original.absolutePath,
+                    thumbnailPath = thumbnail?.takeIf { it.exists() }?.absolutePath
                 )
+            }
 
-                // Sync cached path back to log entity so UI can use it for offline display
-                photo.logId?.let { logId ->
-                    localDataService.updateAtmosphericLogPhotoLocalPath(logId, originalFile.absolutePath)
-                    Log.d(TAG, "📸 Updated atmospheric log $logId with cached photo path")
-                }
-                photo.moistureLogId?.let { moistureLogId ->
-                    localDataService.updateMoistureLogPhotoLocalPath(moistureLogId, originalFile.absolutePath)
-                    Log.d(TAG, "📸 Updated moisture log $moistureLogId with cached photo path")
-                }
+            // Sync cached path back to log entity so UI can use it for offline display
+            photo.logId?.let { logId ->
+                localDataService.updateAtmosphericLogPhotoLocalPath(logId, original.absolutePath)
+                Log.d(TAG, "📸 Updated atmospheric log $logId with cached photo path")
+            }
+            photo.moistureLogId?.let { moistureLogId ->
+                localDataService.updateMoistureLogPhotoLocalPath(moistureLogId, original.absolutePath)
+                Log.d(TAG, "📸 Updated moisture log $moistureLogId with cached photo path")
             }
+            fetched.bytes
         } catch (t: Throwable) {
+            if (t is CancellationException) throw t
             Log.e(TAG, "Error caching photo ${photo.photoId}", t)
-            // Clean up any partial files written before the failure
-            val projectDir = File(cacheRoot, photo.projectId.toString())
-            val ext = fileExtension(photo.mimeType)
-            runCatching { File(projectDir, "${photo.uuid}.$ext").delete() }
-            runCatching { File(projectDir, "${photo.uuid}_thumb.jpg").delete() }
+            // Blobs may be shared and are left to collectGarbage; the .part file is kept for resuming.
             localDataService.markPhotoCacheFailed(photo.photoId)
+            null
+        }
+    }
+
+    /** Downloads the server thumbnail of [photo], or returns null on failure. */
+    private suspend fun cacheThumbnail(photo: OfflinePhotoEntity): Fetched? = withContext(ioDispatcher) {
+        val thumbnailUrl = photo.thumbnailUrl?.takeIf { it.isNotBlank() } ?: return@withContext null
+        try {
+            val fetched = fetchBlob(thumbnailUrl, THUMBNAIL_EXTENSION)
+            storeLock.withLock {
+                if (!fetched.blob.exists()) throw IOException("Cached file disappeared: ${fetched.blob}")
+                localDataService.markPhotoThumbnailCached(photo.photoId, fetched.blob.absolutePath)
+            }
+            fetched
+        } catch (t: Throwable) {
+            if (t is CancellationException) throw t
+            Log.w(TAG, "Failed to prefetch thumbnail for photo ${photo.photoId}", t)
+            null
+        }
+    }
+
+    /** Adds the file [photo] was captured from to the store, when it is still on this device. */
+    private fun adoptCapturedOriginal(photo: OfflinePhotoEntity): File? {
+        val captured = photo.localPath.takeIf { it.isNotBlank() }?.let(::File)?.takeIf { it.isFile } ?: return null
+        return runCatching { blobStore.adopt(captured, fileExtension(photo.mimeType)) }
+            .onFailure { Log.w(TAG, "Could not cache the captured file of photo ${photo.photoId}", it) }
+            .getOrNull()
+    }
+
+    /**
+     * Downloads [url] into the blob store, once for all photos asking for it at the same time. Only
+     * the caller that ran the download reports its bytes; the others got the blob for free.
+     */
+    private suspend fun fetchBlob(url: String, extension: String): Fetched {
+        var downloadedHere = false
+        val fetched = downloads.execute("photo-cache:$url") {
+            downloadedHere = true
+            val partial = blobStore.partialFile(url)
+            val bytes = download(url, partial)
+            blobStore.validatorFile(partial).delete()
+            Fetched(blobStore.commit(partial, extension), bytes)
+        }
+        return if (downloadedHere) fetched else Fetched(fetched.blob, 0L)
+    }
+
+    /**
+     * Streams [url] into [partial] and returns the bytes transferred; on return [partial] holds the
+     * whole file. A [partial] left by an interrupted attempt is continued with a Range request
+     * guarded by If-Range, so a server whose content changed since (or that ignores the range)
+     * answers 200 and the file is written from the start. A [partial] without a stored validator
+     * cannot be checked and is started over.
+     */
+    private fun download(url: String, partial: File): Long {
+        val validatorFile = blobStore.validatorFile(partial)
+        val validator = validatorFile.takeIf { it.isFile }?.readText()?.takeIf { it.isNotBlank() }
+        val resumeFrom = if (partial.exists() && validator != null) partial.length() else 0L
+
+        val requestBuilder = Request.Builder().url(url)
+        RetrofitClient.getAuthToken()?.takeIf { it.isNotBlank() }?.let { token ->
+            requestBuilder.addHeader("Authorization", "Bearer $token")
+        }
+        if (resumeFrom > 0 && validator != null) {
+            requestBuilder.addHeader("Range", "bytes=$resumeFrom-")
+            requestBuilder.addHeader("If-Range", validator)
+        }
+
+        httpClient.newCall(requestBuilder.build()).execute().use { response ->
+            if (response.code == HTTP_RANGE_NOT_SATISFIABLE) {
+                partial.delete()
+                validatorFile.delete()
+                throw IOException("Stale partial download of $url")
+            }
+            if (!response.isSuccessful) {
+                throw IOException("HTTP ${response.code} while fetching $url")
+            }
+            val body = response.body ?: throw IOException("Empty body for $url")
+            if (response.code != HTTP_PARTIAL_CONTENT) {
+                // A fresh copy: remember what it is so an interruption can be resumed safely.
+                // Weak ETags are not allowed in If-Range.
+                val fresh = response.header("ETag")?.takeUnless { it.startsWith("W/") }
+                    ?: response.header("Last-Modified")
+                if (fresh != null) validatorFile.writeText(fresh) else validatorFile.delete()
+            }
+
+            var transferred = 0L
+            body.byteStream().use { input ->
+                FileOutputStream(partial, response.code == HTTP_PARTIAL_CONTENT).use { output ->
+                    val buffer = ByteArray(DOWNLOAD_BUFFER_BYTES)
+                    while (true) {
+                        val read = input.read(buffer)
+                        if (read < 0) break
+                        output.write(buffer, 0, read)
+                        transferred += read
+                        downloadController.onTransferred(read.toLong())
+                    }
+                }
+            }
+            return transferred
+        }
+    }
+
+    private fun deletePartialDownloads(photo: OfflinePhotoEntity) {
+        listOfNotNull(photo.remoteUrl, photo.thumbnailUrl?.takeIf { it.isNotBlank() }).forEach { url ->
+            runCatching {
+                val partial = blobStore.partialFile(url)
+                blobStore.validatorFile(partial).delete()
+                partial.delete()
+            }
         }
     }
 
+    /** Deletes the files of [photo] that only it uses; shared blobs are left to [collectGarbage]. */
+    private fun deleteOwnFiles(photo: OfflinePhotoEntity) {
+        listOfNotNull(photo.cachedOriginalPath, photo.cachedThumbnailPath)
+            .filterNot { PhotoBlobStore.isBlob(it) }
+            .forEach { File(it).delete() }
+    }
+
+    private fun logCacheFailure(photo: OfflinePhotoEntity, error: Throwable) {
+        Log.w(TAG, "Failed to cache photo ${photo.photoId}", error)
+        remoteLogger?.log(
+            LogLevel.WARN,
+            TAG,
+            "Photo cache failed",
+            mapOf(
+                "photoId" to photo.photoId.toString(),
+                "remoteUrl" to (photo.remoteUrl?.take(100) ?: "null"),
+                "error" to (error.message ?: error.javaClass.simpleName)
+            )
+        )
+    }
+
     suspend fun removeCachedPhoto(photo: OfflinePhotoEntity) = withContext(ioDispatcher) {
-        photo.cachedOriginalPath?.let { runCatching { File(it).delete() } }
-        photo.cachedThumbnailPath?.let { runCatching { File(it).delete() } }
-        localDataService.markPhotoCacheFailed(photo.photoId)
+        runCatching { deleteOwnFiles(photo) }
+        deletePartialDownloads(photo)
+        localDataService.clearPhotoCache(photo.photoId)
+        collectGarbage()
     }
 
     /**
@@ -133,18 +368,39 @@ class PhotoCacheManager(
         var deleted = 0
         photos.forEach { photo ->
             runCatching {
-                photo.cachedOriginalPath?.let { File(it).delete() }
-                photo.cachedThumbnailPath?.let { File(it).delete() }
+                deleteOwnFiles(photo)
+                deletePartialDownloads(photo)
                 deleted++
             }
         }
         if (deleted > 0) {
             Log.d(TAG, "🧹 Removed $deleted cached photo files")
         }
+        collectGarbage()
+    }
+
+    /**
+     * Deletes blobs that no photo or log refers to any more, and temporary files abandoned by
+     * earlier runs. Returns the number of files deleted.
+     */
+    suspend fun collectGarbage(): Int = withContext(ioDispatcher) {
+        storeLock.withLock {
+            val referenced = localDataService.getPhotoCacheReferences()
+            val now = System.currentTimeMillis()
+            val orphans = blobStore.blobs().filter { blob ->
+                blob.absolutePath !in referenced && now - blob.lastModified() > ORPHAN_GRACE_MS
+            }
+            val abandoned = blobStore.tempFiles().filter { now - it.lastModified() > ABANDONED_TEMP_FILE_MS }
+            val deleted = (orphans + abandoned).count { it.delete() }
+            if (deleted > 0) {
+                Log.d(TAG, "🧹 Collected $deleted unreferenced photo cache files")
+            }
+            deleted
+        }
     }
 
     /**
-     * Generates a downscaled JPEG thumbnail alongside the cached original bytes.
+     * Generates a downscaled JPEG thumbnail of the cached original and adds it to the blob store.
      */
     private fun generateThumbnail(originalFile: File, mimeType: String): File? {
         if (!mimeType.lowercase().startsWith("image")) return null
@@ -175,11 +431,16 @@ class PhotoCacheManager(
                     sampled
                 }
 
-                val thumbnailFile = File(originalFile.parentFile, "${originalFile.nameWithoutExtension}_thumb.jpg")
-                FileOutputStream(thumbnailFile).use { output ->
-                    scaled.compress(Bitmap.CompressFormat.JPEG, 85, output)
+                val thumbnailFile = blobStore.newTempFile()
+                try {
+                    FileOutputStream(thumbnailFile).use { output ->
+                        scaled.compress(Bitmap.CompressFormat.JPEG, 85, output)
+                    }
+                    blobStore.commit(thumbnailFile, THUMBNAIL_EXTENSION)
+                } catch (e: Exception) {
+                    thumbnailFile.delete()
+                    throw e
                 }
-                thumbnailFile
             } finally {
                 if (scaled != null && scaled !== sampled) {
                     scaled.recycle()
@@ -196,26 +457,39 @@ class PhotoCacheManager(
         if (cached.isEmpty()) return@withContext
 
         val entries = cached.map { photo ->
-            val original = photo.cachedOriginalPath?.let(::File)
-            val thumb = photo.cachedThumbnailPath?.let(::File)
-            val originalSize = original?.takeIf { it.exists() }?.length() ?: 0L
-            val thumbSize = thumb?.takeIf { it.exists() }?.length() ?: 0L
-            CachedFiles(photo, original, thumb, originalSize + thumbSize)
+            val files = listOfNotNull(photo.cachedOriginalPath, photo.cachedThumbnailPath).distinct().map(::File)
+            CachedFiles(photo, files, files.sumOf { file -> file.takeIf { it.exists() }?.length() ?: 0L })
         }
 
+        // Photos sharing a blob share its bytes: each file counts once and is freed with its last user.
+        val users = HashMap<String, Int>()
+        val sizes = HashMap<String, Long>()
+        entries.forEach { entry ->
+            entry.files.forEach { file ->
+                users[file.path] = (users[file.path] ?: 0) + 1
+                sizes.getOrPut(file.path) { file.takeIf { it.exists() }?.length() ?: 0L }
+            }
+        }
         val victims = LinkedHashSet<CachedFiles>()
+        var totalBytes = sizes.values.sum()
+        fun evict(entry: CachedFiles) {
+            if (!victims.add(entry)) return
+            entry.files.forEach { file ->
+                val remaining = (users[file.path] ?: 1) - 1
+                users[file.path] = remaining
+                if (remaining == 0) totalBytes -= sizes[file.path] ?: 0L
+            }
+        }
 
         // Expire old or missing files first
         entries.forEach { entry ->
             val lastAccess = entry.photo.lastAccessedAt ?: entry.photo.updatedAt
             val expired = lastAccess?.before(threshold) == true
             if (expired || entry.totalBytes == 0L) {
-                victims.add(entry)
+                evict(entry)
             }
         }
 
-        var totalBytes = entries.sumOf { it.totalBytes } - victims.sumOf { it.totalBytes }
-
         // Enforce maxBytes using LRU (oldest lastAccessedAt first)
         if (totalBytes > maxBytes) {
             val lru = entries
@@ -224,20 +498,27 @@ class PhotoCacheManager(
 
             for (entry in lru) {
                 if (totalBytes <= maxBytes) break
-                victims.add(entry)
-                totalBytes -= entry.totalBytes
+                evict(entry)
             }
         }
 
+        // Evicted rows only drop their paths; files from before the blob store are theirs alone and
+        // deleted here. Blobs can also be referenced by logs, uncached rows or a photo recorded
+        // since the snapshot above, so deleting them is left to collectGarbage, which checks every
+        // reference under the store lock.
         victims.forEach { entry ->
-            val originalDeleted = entry.original?.takeIf { it.exists() }?.delete() ?: true
-            val thumbDeleted = entry.thumbnail?.takeIf { it.exists() }?.delete() ?: true
-            if (originalDeleted && thumbDeleted) {
-                localDataService.markPhotoCacheFailed(entry.photo.photoId)
+            val released = entry.files
+                .filterNot { PhotoBlobStore.isBlob(it.path) }
+                .all { file -> !file.exists() || file.delete() }
+            if (released) {
+                localDataService.clearPhotoCache(entry.photo.photoId)
             } else {
                 Log.w(TAG, "Cache cleanup could not fully delete files for photo ${entry.photo.photoId}")
             }
         }
+        if (victims.isNotEmpty()) {
+            collectGarbage()
+        }
     }
 
     private fun calculateInSampleSize(width: Int, height: Int, maxDimension: Int): Int {
@@ -250,8 +531,7 @@ class PhotoCacheManager(
 
     private data class CachedFiles(
         val photo: OfflinePhotoEntity,
-        val original: File?,
-        val thumbnail: File?,
+        val files: List<File>,
         val totalBytes: Long
     )
 
@@ -0,0 +1,26 @@
+package com.example.rocketplan_android.data.local.cache
+
+import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+
+/**
+ * Orders photos for prefetch by how likely the user is to open them: photos of [visibleRooms]
+ * first (in the order given), then the other photos of those rooms' projects, then the rest.
+ * The incoming order is kept within each group.
+ */
+internal fun orderForPrefetch(
+    photos: List<OfflinePhotoEntity>,
+    visibleRooms: List<OfflineRoomEntity>
+): List<OfflinePhotoEntity> {
+    if (visibleRooms.isEmpty()) return photos
+    val roomRank = HashMap<Long, Int>()
+    // Photos carry the server room id once the room has one (rooms created offline differ).
+    visibleRooms.forEachIndexed { index, room -> roomRank.putIfAbsent(room.serverId ?: room.roomId, index) }
+    val projects = visibleRooms.mapTo(HashSet()) { it.projectId }
+    return photos.sortedWith(
+        compareBy<OfflinePhotoEntity>(
+            { photo -> photo.roomId?.let(roomRank::get) ?: Int.MAX_VALUE },
+            { photo -> if (photo.projectId in projects) 0 else 1 }
+        )
+    )
+}
@@ -195,6 +195,22 @@ interface ImageProcessorDao {
     @Update
     suspend fun updatePhoto(photo: ImageProcessorPhotoEntity)
 
+    @Query(
+        """
+        UPDATE image_processor_photos
+        SET uploadTaskId = :uploadTaskId, uploadUrl = :uploadUrl, bytesUploaded = :bytesUploaded,
+            lastUpdatedAt = :updatedAt
+        WHERE photoId = :photoId
+        """
+    )
+    suspend fun updatePhotoUploadProgress(
+        photoId: String,
+        uploadTaskId: String,
+        uploadUrl: String,
+        bytesUploaded: Long,
+        updatedAt: Long
+    )
+
     @Query(
         """
         SELECT * FROM image_processor_photos
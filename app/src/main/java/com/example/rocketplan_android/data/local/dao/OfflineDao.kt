@@ -46,6 +46,7 @@ import com.example.rocketplan_android.data.local.entity.OfflineTimecardEntity
 import com.example.rocketplan_android.data.local.entity.OfflineTimecardTypeEntity
 import com.example.rocketplan_android.data.local.entity.OfflineClaimEntity
 import com.example.rocketplan_android.data.local.model.RoomPhotoSummary
+import com.example.rocketplan_android.data.local.model.SyncOperationHeader
 import com.example.rocketplan_android.data.local.model.ProjectWithProperty
 import kotlinx.coroutines.flow.Flow
 import java.util.Date
@@ -176,6 +177,9 @@ interface OfflineDao {
     @Query("SELECT * FROM offline_rooms WHERE serverId = :serverId LIMIT 1")
     suspend fun getRoomByServerId(serverId: Long): OfflineRoomEntity?
 
+    @Query("SELECT * FROM offline_rooms WHERE serverId IN (:serverIds)")
+    suspend fun getRoomsByServerIds(serverIds: List<Long>): List<OfflineRoomEntity>
+
     @Query("SELECT * FROM offline_rooms WHERE uuid = :uuid LIMIT 1")
     suspend fun getRoomByUuid(uuid: String): OfflineRoomEntity?
 
@@ -435,6 +439,9 @@ interface OfflineDao {
     @Query("SELECT * FROM offline_photos WHERE serverId IN (:serverIds)")
     suspend fun getPhotosByServerIds(serverIds: List<Long>): List<OfflinePhotoEntity>
 
+    @Query("SELECT * FROM offline_photos WHERE uuid IN (:uuids)")
+    suspend fun getPhotosByUuids(uuids: List<String>): List<OfflinePhotoEntity>
+
     @Query("SELECT * FROM offline_photos WHERE photoId = :photoId LIMIT 1")
     fun observePhoto(photoId: Long): Flow<OfflinePhotoEntity?>
 
@@ -473,13 +480,13 @@ interface OfflineDao {
           AND serverId IS NULL
           AND uploadStatus = 'local_pending'
           AND isDeleted = 0
-          AND LOWER(fileName) = LOWER(:fileName)
+          AND fileName COLLATE NOCASE IN (:fileNames)
         """
     )
-    suspend fun deleteLocalPendingRoomPhoto(
+    suspend fun deleteLocalPendingRoomPhotos(
         projectId: Long,
         roomId: Long,
-        fileName: String
+        fileNames: List<String>
     ): Int
 
     @Query(
@@ -540,17 +547,38 @@ interface OfflineDao {
         SELECT * FROM offline_photos 
         WHERE isDeleted = 0
           AND remoteUrl IS NOT NULL
-          AND (cacheStatus = :pending OR cacheStatus = :failed)
-        ORDER BY updatedAt DESC
+          AND (cacheStatus = :pending OR cacheStatus = :failed OR cacheStatus = :downloading)
+        ORDER BY
+          CASE
+            WHEN roomId IN (:visibleRoomIds) THEN 0
+            WHEN projectId IN (:visibleProjectIds) THEN 1
+            ELSE 2
+          END,
+          updatedAt DESC
         LIMIT :limit
         """
     )
     suspend fun getPhotosNeedingCache(
         pending: PhotoCacheStatus = PhotoCacheStatus.PENDING,
         failed: PhotoCacheStatus = PhotoCacheStatus.FAILED,
+        // Left behind by a prefetch run that was stopped mid-download.
+        downloading: PhotoCacheStatus = PhotoCacheStatus.DOWNLOADING,
+        // Photos of these rooms come first, then the rest of these projects.
+        visibleRoomIds: List<Long> = emptyList(),
+        visibleProjectIds: List<Long> = emptyList(),
         limit: Int = 25
     ): List<OfflinePhotoEntity>
 
+    @Query(
+        """
+        SELECT COUNT(*) FROM offline_photos
+        WHERE isDeleted = 0
+          AND remoteUrl IS NOT NULL
+          AND cacheStatus IN (:statuses)
+        """
+    )
+    suspend fun countPhotosByCacheStatus(statuses: List<PhotoCacheStatus>): Int
+
     @Query(
         """
         SELECT * FROM offline_photos
@@ -613,6 +641,41 @@ interface OfflineDao {
         timestamp: Date
     )
 
+    @Query("UPDATE offline_photos SET cachedThumbnailPath = :thumbnailPath WHERE photoId = :photoId")
+    suspend fun updatePhotoCachedThumbnail(photoId: Long, thumbnailPath: String)
+
+    @Query(
+        """
+        SELECT * FROM offline_photos
+        WHERE cacheStatus = :status
+          AND isDeleted = 0
+          AND remoteUrl = :remoteUrl
+          AND cachedOriginalPath IS NOT NULL
+        ORDER BY lastAccessedAt DESC
+        LIMIT 1
+        """
+    )
+    suspend fun getCachedPhotoByRemoteUrl(
+        remoteUrl: String,
+        status: PhotoCacheStatus = PhotoCacheStatus.READY
+    ): OfflinePhotoEntity?
+
+    /** Every cached file path still referenced by a photo or a log. */
+    @Query(
+        """
+        SELECT cachedOriginalPath FROM offline_photos
+        WHERE isDeleted = 0 AND cachedOriginalPath IS NOT NULL
+        UNION
+        SELECT cachedThumbnailPath FROM offline_photos
+        WHERE isDeleted = 0 AND cachedThumbnailPath IS NOT NULL
+        UNION
+        SELECT photoLocalPath FROM offline_atmospheric_logs WHERE photoLocalPath IS NOT NULL
+        UNION
+        SELECT photoLocalPath FROM offline_moisture_logs WHERE photoLocalPath IS NOT NULL
+        """
+    )
+    suspend fun getPhotoCacheReferences(): List<String>
+
     @Query("UPDATE offline_photos SET isDeleted = 1 WHERE serverId IN (:serverIds) AND isDirty = 0")
     suspend fun markPhotosDeleted(serverIds: List<Long>)
 
@@ -636,8 +699,20 @@ interface OfflineDao {
     @Query("DELETE FROM offline_room_photo_snapshots WHERE roomId IN (:roomIds)")
     suspend fun clearRoomPhotoSnapshots(roomIds: List<Long>): Int
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertRoomPhotoSnapshots(snapshots: List<OfflineRoomPhotoSnapshotEntity>)
+    @Upsert
+    suspend fun upsertRoomPhotoSnapshots(snapshots: List<OfflineRoomPhotoSnapshotEntity>)
+
+    @Query("SELECT * FROM offline_room_photo_snapshots WHERE roomId = :roomId")
+    suspend fun getRoomPhotoSnapshots(roomId: Long): List<OfflineRoomPhotoSnapshotEntity>
+
+    @Query("SELECT * FROM offline_room_photo_snapshots WHERE photoId IN (:photoIds)")
+    suspend fun getRoomPhotoSnapshotsForPhotos(photoIds: List<Long>): List<OfflineRoomPhotoSnapshotEntity>
+
+    @Query("DELETE FROM offline_room_photo_snapshots WHERE roomId = :roomId AND photoId IN (:photoIds)")
+    suspend fun deleteRoomPhotoSnapshots(roomId: Long, photoIds: List<Long>): Int
+
+    @Query("DELETE FROM offline_room_photo_snapshots WHERE photoId IN (:photoIds)")
+    suspend fun deleteRoomPhotoSnapshotsForPhotos(photoIds: List<Long>): Int
 
     @Query(
         """
@@ -1201,6 +1276,35 @@ interface OfflineDao {
     @Query("SELECT * FROM offline_sync_queue WHERE status = :status ORDER BY priority ASC, createdAt ASC")
     suspend fun getSyncOperationsByStatus(status: SyncStatus): List<OfflineSyncQueueEntity>
 
+    @Query(
+        """
+        SELECT operationId, entityType, entityId, entityUuid, operationType, status, priority,
+               scheduledAt, parentProjectId
+        FROM offline_sync_queue
+        WHERE status = :status
+          AND (scheduledAt IS NULL OR scheduledAt <= :now)
+        ORDER BY priority ASC, createdAt ASC
+        """
+    )
+    suspend fun getSyncOperationHeadersByStatus(status: SyncStatus, now: Long): List<SyncOperationHeader>
+
+    @Query(
+        """
+        SELECT operationId, entityType, entityId, entityUuid, operationType, status, priority,
+               scheduledAt, parentProjectId
+        FROM offline_sync_queue
+        WHERE status = :status
+        ORDER BY priority ASC, createdAt ASC
+        """
+    )
+    fun observeSyncOperationHeadersByStatus(status: SyncStatus): Flow<List<SyncOperationHeader>>
+
+    @Query("SELECT EXISTS(SELECT 1 FROM offline_sync_queue WHERE status = :status)")
+    fun observeHasSyncOperations(status: SyncStatus): Flow<Boolean>
+
+    @Query("SELECT * FROM offline_sync_queue WHERE operationId IN (:operationIds)")
+    suspend fun getSyncOperationsByIds(operationIds: List<String>): List<OfflineSyncQueueEntity>
+
     @Query(
         """
         SELECT COUNT(*) FROM offline_sync_queue
@@ -1211,6 +1315,19 @@ interface OfflineDao {
     )
     suspend fun countDueScheduledOperations(status: SyncStatus, now: Long): Int
 
+    @Query(
+        """
+        SELECT DISTINCT scheduledAt FROM offline_sync_queue
+        WHERE status = :status
+          AND scheduledAt IS NOT NULL
+        ORDER BY scheduledAt ASC
+        """
+    )
+    fun observeScheduledAtTimes(status: SyncStatus): Flow<List<Long>>
+
+    @Query("SELECT MIN(scheduledAt) FROM offline_sync_queue WHERE status = :status AND scheduledAt > :after")
+    suspend fun getEarliestScheduledAtAfter(status: SyncStatus, after: Long): Long?
+
     @Query(
         """
         SELECT * FROM offline_sync_queue
@@ -1229,6 +1346,22 @@ interface OfflineDao {
     @Query("SELECT * FROM offline_sync_queue WHERE entityType = :entityType AND status = 'PENDING'")
     suspend fun getPendingOperationsForEntityType(entityType: String): List<OfflineSyncQueueEntity>
 
+    @Query("SELECT * FROM offline_sync_queue WHERE parentProjectId = :projectId AND status = 'PENDING'")
+    suspend fun getPendingOperationsByParentProject(projectId: Long): List<OfflineSyncQueueEntity>
+
+    @Query("SELECT * FROM offline_sync_queue WHERE parentPropertyId = :propertyId AND status = 'PENDING'")
+    suspend fun getPendingOperationsByParentProperty(propertyId: Long): List<OfflineSyncQueueEntity>
+
+    @Query(
+        """
+        SELECT * FROM offline_sync_queue
+        WHERE status = 'PENDING'
+          AND (parentLevelId = :locationId OR parentLocationId = :locationId
+               OR parentLevelUuid = :uuid OR parentLocationUuid = :uuid)
+        """
+    )
+    suspend fun getPendingOperationsByParentLocation(locationId: Long, uuid: String): List<OfflineSyncQueueEntity>
+
     @Query("DELETE FROM offline_sync_queue WHERE operationId = :operationId")
     suspend fun deleteSyncOperation(operationId: String)
 
@@ -1248,60 +1381,49 @@ interface OfflineDao {
     @Query("DELETE FROM offline_sync_queue WHERE entityType = 'property' AND entityId IN (:propertyIds)")
     suspend fun deleteSyncOpsForPropertyIds(propertyIds: List<Long>): Int
 
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'location' AND entityId IN (SELECT locationId FROM offline_locations WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForLocationsByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'room' AND entityId IN (SELECT roomId FROM offline_rooms WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForRoomsByProject(projectIds: List<Long>): Int
-
     @Query("DELETE FROM offline_sync_queue WHERE entityType = 'room' AND entityId IN (SELECT roomId FROM offline_rooms WHERE locationId = :locationId)")
     suspend fun deleteSyncOpsForRoomsByLocation(locationId: Long): Int
 
     @Query("SELECT roomId FROM offline_rooms WHERE locationId = :locationId")
     suspend fun getRoomIdsForLocation(locationId: Long): List<Long>
 
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'photo' AND entityId IN (SELECT photoId FROM offline_photos WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForPhotosByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'note' AND entityId IN (SELECT noteId FROM offline_notes WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForNotesByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'equipment' AND entityId IN (SELECT equipmentId FROM offline_equipment WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForEquipmentByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'atmospheric_log' AND entityId IN (SELECT logId FROM offline_atmospheric_logs WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForAtmosphericLogsByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'moisture_log' AND entityId IN (SELECT logId FROM offline_moisture_logs WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForMoistureLogsByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'damage' AND entityId IN (SELECT damageId FROM offline_damages WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForDamagesByProject(projectIds: List<Long>): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'work_scope' AND entityId IN (SELECT workScopeId FROM offline_work_scopes WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForWorkScopesByProject(projectIds: List<Long>): Int
-
-    // Room-based sync queue deletion methods - for cascade delete when room is deleted
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'equipment' AND entityId IN (SELECT equipmentId FROM offline_equipment WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForEquipmentByRoom(roomId: Long): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'note' AND entityId IN (SELECT noteId FROM offline_notes WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForNotesByRoom(roomId: Long): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'damage' AND entityId IN (SELECT damageId FROM offline_damages WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForDamagesByRoom(roomId: Long): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'moisture_log' AND entityId IN (SELECT logId FROM offline_moisture_logs WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForMoistureLogsByRoom(roomId: Long): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'atmospheric_log' AND entityId IN (SELECT logId FROM offline_atmospheric_logs WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForAtmosphericLogsByRoom(roomId: Long): Int
-
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'work_scope' AND entityId IN (SELECT workScopeId FROM offline_work_scopes WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForWorkScopesByRoom(roomId: Long): Int
+    /**
+     * Subtree pruning: removes queued operations for every child of the given projects
+     * (locations, rooms, and everything scoped to them). The server cascades a project DELETE,
+     * and a never-synced project's children can never be pushed, so these ops are redundant.
+     * The project's own and its property's operations are not touched.
+     */
+    @Query("""
+        DELETE FROM offline_sync_queue WHERE
+            (entityType = 'location' AND entityId IN (SELECT locationId FROM offline_locations WHERE projectId IN (:projectIds))) OR
+            (entityType = 'room' AND entityId IN (SELECT roomId FROM offline_rooms WHERE projectId IN (:projectIds))) OR
+            (entityType = 'photo' AND entityId IN (SELECT photoId FROM offline_photos WHERE projectId IN (:projectIds))) OR
+            (entityType = 'note' AND entityId IN (SELECT noteId FROM offline_notes WHERE projectId IN (:projectIds))) OR
+            (entityType = 'equipment' AND entityId IN (SELECT equipmentId FROM offline_equipment WHERE projectId IN (:projectIds))) OR
+            (entityType = 'atmospheric_log' AND entityId IN (SELECT logId FROM offline_atmospheric_logs WHERE projectId IN (:projectIds))) OR
+            (entityType = 'moisture_log' AND entityId IN (SELECT logId FROM offline_moisture_logs WHERE projectId IN (:projectIds))) OR
+            (entityType = 'damage' AND entityId IN (SELECT damageId FROM offline_damages WHERE projectId IN (:projectIds))) OR
+            (entityType = 'work_scope' AND entityId IN (SELECT workScopeId FROM offline_work_scopes WHERE projectId IN (:projectIds))) OR
+            (entityType = 'timecard' AND entityId IN (SELECT timecardId FROM offline_timecards WHERE projectId IN (:projectIds)))
+    """)
+    suspend fun deleteSyncOpsForProjectSubtrees(projectIds: List<Long>): Int
 
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'photo' AND entityId IN (SELECT photoId FROM offline_photos WHERE roomId = :roomId)")
-    suspend fun deleteSyncOpsForPhotosByRoom(roomId: Long): Int
+    /**
+     * Subtree pruning for room deletes: removes queued operations for everything scoped to the
+     * given rooms. Child rows may reference a room by local or server ID, so callers pass both.
+     * The rooms' own operations are not touched.
+     */
+    @Query("""
+        DELETE FROM offline_sync_queue WHERE
+            (entityType = 'equipment' AND entityId IN (SELECT equipmentId FROM offline_equipment WHERE roomId IN (:roomIds))) OR
+            (entityType = 'note' AND entityId IN (SELECT noteId FROM offline_notes WHERE roomId IN (:roomIds))) OR
+            (entityType = 'damage' AND entityId IN (SELECT damageId FROM offline_damages WHERE roomId IN (:roomIds))) OR
+            (entityType = 'moisture_log' AND entityId IN (SELECT logId FROM offline_moisture_logs WHERE roomId IN (:roomIds))) OR
+            (entityType = 'atmospheric_log' AND entityId IN (SELECT logId FROM offline_atmospheric_logs WHERE roomId IN (:roomIds))) OR
+            (entityType = 'work_scope' AND entityId IN (SELECT workScopeId FROM offline_work_scopes WHERE roomId IN (:roomIds))) OR
+            (entityType = 'photo' AND entityId IN (SELECT photoId FROM offline_photos WHERE roomId IN (:roomIds)))
+    """)
+    suspend fun deleteSyncOpsForRoomSubtrees(roomIds: List<Long>): Int
 
     /** Counts unsynced operations (PENDING or FAILED) for a project, its property, and children */
     @Query("""
@@ -1567,8 +1689,6 @@ interface OfflineDao {
     )
     suspend fun getTimecardsForWeek(userId: Long, startOfWeek: Long, endOfWeek: Long): List<OfflineTimecardEntity>
 
-    @Query("DELETE FROM offline_sync_queue WHERE entityType = 'timecard' AND entityId IN (SELECT timecardId FROM offline_timecards WHERE projectId IN (:projectIds))")
-    suspend fun deleteSyncOpsForTimecardsByProject(projectIds: List<Long>): Int
     // endregion
 
     // region Timecard Types
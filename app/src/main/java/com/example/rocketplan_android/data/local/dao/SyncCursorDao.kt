@@ -0,0 +1,46 @@
+package com.example.rocketplan_android.data.local.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Upsert
+import com.example.rocketplan_android.data.local.entity.SyncCursorEntity
+import java.util.Date
+
+/**
+ * Incremental sync cursors. Reads and writes are blocking so `SyncCheckpointStore` keeps its
+ * synchronous API; called from a Room transaction they join it, so a cursor commits with the page
+ * it describes.
+ */
+@Dao
+interface SyncCursorDao {
+
+    @Query("SELECT cursorAt FROM sync_cursor WHERE cursorKey = :cursorKey LIMIT 1")
+    fun getCursorAt(cursorKey: String): Date?
+
+    @Query("SELECT * FROM sync_cursor WHERE projectId = :projectId")
+    fun getCursorsForProject(projectId: Long): List<SyncCursorEntity>
+
+    @Upsert
+    fun upsert(cursor: SyncCursorEntity)
+
+    /** Used by the one-time prefs import; never overwrites a cursor already written to the table. */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    fun insertIfAbsent(cursors: List<SyncCursorEntity>)
+
+    @Query("DELETE FROM sync_cursor WHERE cursorKey = :cursorKey")
+    fun delete(cursorKey: String)
+
+    @Query("DELETE FROM sync_cursor")
+    fun clear()
+
+    @Query("DELETE FROM sync_cursor WHERE projectId IN (:projectIds)")
+    suspend fun deleteForProjects(projectIds: List<Long>): Int
+
+    @Query("SELECT projectId FROM offline_rooms WHERE serverId = :serverRoomId LIMIT 1")
+    fun getProjectIdForServerRoom(serverRoomId: Long): Long?
+
+    @Query("SELECT projectId FROM offline_projects WHERE serverId = :serverProjectId LIMIT 1")
+    fun getProjectIdForServerProject(serverProjectId: Long): Long?
+}
@@ -76,6 +76,8 @@ data class ImageProcessorPhotoEntity(
     val fileSize: Long,
     val bytesUploaded: Long = 0,
     val uploadTaskId: String? = null,
+    /** The resumable upload's URL as the server returned it in `Location`; PATCH and HEAD go here. */
+    val uploadUrl: String? = null,
     val lastUpdatedAt: Long,
     val errorMessage: String? = null
 )
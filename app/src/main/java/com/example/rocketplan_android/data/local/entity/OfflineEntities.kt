@@ -362,23 +362,42 @@ data class OfflineDamageCauseEntity(
     val fetchedAt: Date = Date()
 )
 
+/**
+ * Render-ready row for one photo of a room. Rows are maintained incrementally as photos change
+ * (see `LocalDataService.savePhotos` and the triggers in `OfflineDatabase`); display order comes
+ * from [capturedOn] and [photoId].
+ */
 @Entity(
     tableName = "offline_room_photo_snapshots",
-    primaryKeys = ["roomId", "orderIndex"],
+    primaryKeys = ["roomId", "photoId"],
     indices = [
-        Index(value = ["roomId"]),
         Index(value = ["photoId"])
     ]
 )
 data class OfflineRoomPhotoSnapshotEntity(
     val roomId: Long,
     val photoId: Long,
-    val orderIndex: Int,
     val imageUrl: String,
     val thumbnailUrl: String,
     val capturedOn: Date?
 )
 
+/**
+ * Incremental pull cursor (`updated_since` high-water mark) for one endpoint scope.
+ * [projectId] is the local project the scope belongs to, null for global scopes.
+ */
+@Entity(
+    tableName = "sync_cursor",
+    indices = [Index(value = ["projectId"])]
+)
+data class SyncCursorEntity(
+    @PrimaryKey
+    val cursorKey: String,
+    val projectId: Long?,
+    val cursorAt: Date,
+    val updatedAt: Date = Date()
+)
+
 @Entity(
     tableName = "offline_atmospheric_logs",
     indices = [
@@ -737,7 +756,13 @@ data class OfflineWorkScopeEntity(
         Index(value = ["status", "priority", "createdAt"]),
         Index(value = ["status", "scheduledAt"]),
         Index(value = ["entityType", "entityId", "status"]),
-        Index(value = ["entityType", "operationType", "status"])
+        Index(value = ["entityType", "operationType", "status"]),
+        Index(value = ["parentProjectId"]),
+        Index(value = ["parentPropertyId"]),
+        Index(value = ["parentLevelId"]),
+        Index(value = ["parentLocationId"]),
+        Index(value = ["parentLevelUuid"]),
+        Index(value = ["parentLocationUuid"])
     ]
 )
 data class OfflineSyncQueueEntity(
@@ -758,7 +783,14 @@ data class OfflineSyncQueueEntity(
     val lastAttemptAt: Date? = null,
     val completedAt: Date? = null,
     val status: SyncStatus = SyncStatus.PENDING,
-    val errorMessage: String? = null
+    val errorMessage: String? = null,
+    // Parent references copied out of CREATE payloads so ID remaps can find dependents by index.
+    val parentProjectId: Long? = null,
+    val parentPropertyId: Long? = null,
+    val parentLevelId: Long? = null,
+    val parentLocationId: Long? = null,
+    val parentLevelUuid: String? = null,
+    val parentLocationUuid: String? = null
 ) {
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
@@ -779,7 +811,13 @@ data class OfflineSyncQueueEntity(
             lastAttemptAt == other.lastAttemptAt &&
             completedAt == other.completedAt &&
             status == other.status &&
-            errorMessage == other.errorMessage
+            errorMessage == other.errorMessage &&
+            parentProjectId == other.parentProjectId &&
+            parentPropertyId == other.parentPropertyId &&
+            parentLevelId == other.parentLevelId &&
+            parentLocationId == other.parentLocationId &&
+            parentLevelUuid == other.parentLevelUuid &&
+            parentLocationUuid == other.parentLocationUuid
     }
 
     override fun hashCode(): Int {
@@ -800,6 +838,12 @@ data class OfflineSyncQueueEntity(
         result = 31 * result + (completedAt?.hashCode() ?: 0)
         result = 31 * result + status.hashCode()
         result = 31 * result + (errorMessage?.hashCode() ?: 0)
+        result = 31 * result + (parentProjectId?.hashCode() ?: 0)
+        result = 31 * result + (parentPropertyId?.hashCode() ?: 0)
+        result = 31 * result + (parentLevelId?.hashCode() ?: 0)
+        result = 31 * result + (parentLocationId?.hashCode() ?: 0)
+        result = 31 * result + (parentLevelUuid?.hashCode() ?: 0)
+        result = 31 * result + (parentLocationUuid?.hashCode() ?: 0)
         return result
     }
 }
@@ -0,0 +1,22 @@
+package com.example.rocketplan_android.data.local.model
+
+import com.example.rocketplan_android.data.local.SyncOperationType
+import com.example.rocketplan_android.data.local.SyncPriority
+import com.example.rocketplan_android.data.local.SyncStatus
+import java.util.Date
+
+/**
+ * Payload-free projection of an offline_sync_queue row. Used to schedule and observe the queue
+ * without reading payload BLOBs; the full row is loaded only when the operation is about to run.
+ */
+data class SyncOperationHeader(
+    val operationId: String,
+    val entityType: String,
+    val entityId: Long,
+    val entityUuid: String,
+    val operationType: SyncOperationType,
+    val status: SyncStatus,
+    val priority: SyncPriority,
+    val scheduledAt: Date?,
+    val parentProjectId: Long?
+)
@@ -10,7 +10,14 @@ data class ImageProcessingConfiguration(
     val service: String,
     val url: String,
     @SerializedName("api_key")
-    val apiKey: String?
+    val apiKey: String?,
+    /**
+     * True when the processing endpoint accepts TUS resumable uploads (creation POST, then
+     * offset-checked PATCH/HEAD). Absent from older responses and cached configurations, which
+     * keep the single multipart POST.
+     */
+    @SerializedName("resumable_uploads")
+    val resumableUploads: Boolean? = null
 )
 
 data class ImageProcessingConfigurationResponse(
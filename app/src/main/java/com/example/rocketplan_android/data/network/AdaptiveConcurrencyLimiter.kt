@@ -0,0 +1,163 @@
+package com.example.rocketplan_android.data.network
+
+import android.util.Log
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * AIMD (additive increase, multiplicative decrease) limit on in-flight API requests, shared by
+ * every Retrofit client and by the sync services that fan out per room/location.
+ *
+ * - Each healthy completion (latency <= [healthyLatencyMs]) while the limit is actually in use
+ *   grows the limit by `1 / limit`, i.e. roughly +1 per round of requests.
+ * - 503, 429 and timeouts multiply the limit by [decreaseFactor]. Only requests that started after
+ *   the previous decrease count, so one burst of failures from the same round cuts the limit once.
+ * - A `Retry-After` on an overload response holds back all new requests until it elapses
+ *   (capped at [maxRetryAfterMs]).
+ *
+ * HTTP traffic acquires permits through [ConcurrencyLimitInterceptor][com.example.rocketplan_android.data.api.ConcurrencyLimitInterceptor];
+ * coroutine fan-outs use [mapConcurrently] so they don't park more calls in OkHttp than the
+ * limit admits.
+ */
+class AdaptiveConcurrencyLimiter(
+    private val minLimit: Int = DEFAULT_MIN_LIMIT,
+    val maxLimit: Int = DEFAULT_MAX_LIMIT,
+    initialLimit: Int = DEFAULT_INITIAL_LIMIT,
+    private val healthyLatencyMs: Long = DEFAULT_HEALTHY_LATENCY_MS,
+    private val decreaseFactor: Double = DEFAULT_DECREASE_FACTOR,
+    private val maxRetryAfterMs: Long = DEFAULT_MAX_RETRY_AFTER_MS,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    init {
+        require(minLimit in 1..maxLimit) { "minLimit must be in 1..maxLimit" }
+        require(decreaseFactor > 0.0 && decreaseFactor < 1.0) { "decreaseFactor must be in (0, 1)" }
+    }
+
+    enum class Outcome {
+        /** The server answered; latency decides whether the limit may grow. */
+        SUCCESS,
+
+        /** 503, 429 or a timeout: shrink the limit. */
+        OVERLOAD,
+
+        /** Failures that say nothing about server load (offline, cancelled, 4xx...). */
+        IGNORE
+    }
+
+    /** One admitted request. Release exactly once; further calls are no-ops. */
+    inner class Permit internal constructor(val startedAtMs: Long) {
+        private val released = AtomicBoolean(false)
+
+        fun release(outcome: Outcome, retryAfterMs: Long? = null) {
+            if (released.compareAndSet(false, true)) onRelease(this, outcome, retryAfterMs)
+        }
+    }
+
+    private val lock = ReentrantLock()
+    private val changed = lock.newCondition()
+    private var limitValue = initialLimit.coerceIn(minLimit, maxLimit).toDouble()
+    private var inFlightCount = 0
+    private var blockedUntil = 0L
+    private var lastDecreaseAt = Long.MIN_VALUE
+
+    private val _limit = MutableStateFlow(limitValue.toInt())
+
+    /** Current number of requests allowed in flight. */
+    val limit: StateFlow<Int> = _limit.asStateFlow()
+
+    val inFlight: Int
+        get() = lock.withLock { inFlightCount }
+
+    /** Milliseconds left on the current `Retry-After` hold, or 0. */
+    fun retryAfterRemainingMs(): Long = lock.withLock { (blockedUntil - clock()).coerceAtLeast(0L) }
+
+    /** Admits a request if the limit and any `Retry-After` hold allow it, without waiting. */
+    fun tryAcquire(): Permit? = lock.withLock { tryAcquireLocked() }
+
+    /**
+     * Blocks the calling (OkHttp dispatcher) thread until a permit is available.
+     * [isCanceled] is polled so a cancelled call stops waiting.
+     */
+    @Throws(IOException::class)
+    fun acquire(isCanceled: () -> Boolean = { false }): Permit {
+        lock.lock()
+        try {
+            while (true) {
+                if (isCanceled()) throw IOException("Canceled")
+                tryAcquireLocked()?.let { return it }
+                val waitMs = (blockedUntil - clock()).coerceIn(1L, WAIT_POLL_MS)
+                try {
+                    changed.await(waitMs, TimeUnit.MILLISECONDS)
+                } catch (e: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    throw InterruptedIOException("Interrupted waiting for a request permit")
+                }
+            }
+        } finally {
+            lock.unlock()
+        }
+    }
+
+    /**
+     * Maps [items] concurrently, keeping at most [limit] transforms running at once. The limit is
+     * re-read as it adapts, and results keep the order of [items].
+     */
+    suspend fun <T, R> mapConcurrently(items: Iterable<T>, transform: suspend (T) -> R): List<R> =
+        items.mapConcurrently(limit, transform)
+
+    private fun tryAcquireLocked(): Permit? {
+        val now = clock()
+        if (now < blockedUntil || inFlightCount >= limitValue.toInt()) return null
+        inFlightCount++
+        return Permit(now)
+    }
+
+    private fun onRelease(permit: Permit, outcome: Outcome, retryAfterMs: Long?) {
+        lock.withLock {
+            val now = clock()
+            val wasInFlight = inFlightCount
+            inFlightCount = (inFlightCount - 1).coerceAtLeast(0)
+            when (outcome) {
+                Outcome.SUCCESS -> {
+                    val healthy = now - permit.startedAtMs <= healthyLatencyMs
+                    // Only grow when the current limit is actually being used.
+                    if (healthy && wasInFlight * 2 >= limitValue.toInt()) {
+                        limitValue = (limitValue + 1.0 / limitValue).coerceAtMost(maxLimit.toDouble())
+                    }
+                }
+                Outcome.OVERLOAD -> {
+                    if (permit.startedAtMs > lastDecreaseAt) {
+                        val previous = limitValue.toInt()
+                        limitValue = (limitValue * decreaseFactor).coerceAtLeast(minLimit.toDouble())
+                        lastDecreaseAt = now
+                        Log.w(TAG, "Server overload signal; concurrency limit $previous -> ${limitValue.toInt()}")
+                    }
+                    retryAfterMs?.takeIf { it > 0 }?.let { delayMs ->
+                        blockedUntil = maxOf(blockedUntil, now + delayMs.coerceAtMost(maxRetryAfterMs))
+                    }
+                }
+                Outcome.IGNORE -> Unit
+            }
+            _limit.value = limitValue.toInt()
+            changed.signalAll()
+        }
+    }
+
+    companion object {
+        private const val TAG = "ConcurrencyLimiter"
+        private const val WAIT_POLL_MS = 250L
+        const val DEFAULT_MIN_LIMIT = 2
+        const val DEFAULT_MAX_LIMIT = 16
+        const val DEFAULT_INITIAL_LIMIT = 4
+        const val DEFAULT_HEALTHY_LATENCY_MS = 2_000L
+        const val DEFAULT_DECREASE_FACTOR = 0.5
+        const val DEFAULT_MAX_RETRY_AFTER_MS = 60_000L
+    }
+}
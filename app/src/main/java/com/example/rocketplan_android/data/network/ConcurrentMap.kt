@@ -0,0 +1,32 @@
+package com.example.rocketplan_android.data.network
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+
+/**
+ * Maps the items concurrently, keeping at most [limit] transforms running at once. The limit is
+ * re-read as it changes, and results keep the order of the items.
+ */
+suspend fun <T, R> Iterable<T>.mapConcurrently(
+    limit: StateFlow<Int>,
+    transform: suspend (T) -> R
+): List<R> = coroutineScope {
+    val running = MutableStateFlow(0)
+    map { item ->
+        combine(running, limit) { active, allowed -> active < allowed }.first { it }
+        running.update { it + 1 }
+        async {
+            try {
+                transform(item)
+            } finally {
+                running.update { it - 1 }
+            }
+        }
+    }.awaitAll()
+}
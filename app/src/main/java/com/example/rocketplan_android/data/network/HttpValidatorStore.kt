@@ -0,0 +1,58 @@
+package com.example.rocketplan_android.data.network
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Remembers the `ETag` / `Last-Modified` validators of the last successful response per URL, so
+ * [ConditionalRequestInterceptor][com.example.rocketplan_android.data.api.ConditionalRequestInterceptor]
+ * can revalidate instead of downloading the body again.
+ *
+ * A stored validator says "the caller already has this body". Callers that fail to persist a body
+ * they fetched must [forget] its endpoint, otherwise the next request is answered with a 304 and
+ * the data never arrives. Entries live in memory only and are cleared when the signed-in user or
+ * company changes.
+ */
+class HttpValidatorStore(
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES
+) {
+    data class Validators(val etag: String?, val lastModified: String?)
+
+    private class Entry(val path: String, val validators: Validators)
+
+    private val lock = Any()
+    private val clearListeners = CopyOnWriteArrayList<() -> Unit>()
+    private val entries = object : LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?): Boolean =
+            size > maxEntries
+    }
+
+    fun get(url: String): Validators? = synchronized(lock) { entries[url]?.validators }
+
+    /** Stores [validators] for [url]; [path] is the URL's path, used by [forget]. */
+    fun put(url: String, path: String, validators: Validators) {
+        synchronized(lock) { entries[url] = Entry(path, validators) }
+    }
+
+    fun remove(url: String) {
+        synchronized(lock) { entries.remove(url) }
+    }
+
+    /** Drops the validators of every URL whose path starts with [pathPrefix], whatever its query. */
+    fun forget(pathPrefix: String) {
+        synchronized(lock) { entries.values.removeAll { it.path.startsWith(pathPrefix) } }
+    }
+
+    fun clear() {
+        synchronized(lock) { entries.clear() }
+        clearListeners.forEach { it() }
+    }
+
+    /** Runs [listener] after every [clear], for state that is only valid alongside the validators. */
+    fun addOnClearListener(listener: () -> Unit) {
+        clearListeners += listener
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 2_048
+    }
+}
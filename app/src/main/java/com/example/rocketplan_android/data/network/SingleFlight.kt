@@ -0,0 +1,111 @@
+package com.example.rocketplan_android.data.network
+
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+
+/**
+ * Collapses identical concurrent requests into one execution.
+ *
+ * Callers pass a key describing the endpoint and its parameters (e.g.
+ * `rooms/42/photos?since=...`). While a call for that key is running, later callers await the
+ * same [CompletableDeferred] and get its result or error instead of issuing their own request.
+ *
+ * With `freshForMs > 0`, a successful result is also handed to callers that arrive within
+ * `freshForMs` of when that execution *started*. A refresh requested well after a fetch began
+ * therefore still refetches, and changes made while a fetch was running are not hidden for long.
+ *
+ * If the executing caller is cancelled, waiters that are still active retry and one of them
+ * becomes the new executor.
+ */
+class SingleFlight(
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val maxRememberedResults: Int = DEFAULT_MAX_REMEMBERED_RESULTS
+) {
+    private class Flight(val startedAt: Long) {
+        val result = CompletableDeferred<Any?>()
+    }
+
+    private class Completed(val startedAt: Long, val value: Any?)
+
+    private val lock = Any()
+    private val inFlight = HashMap<String, Flight>()
+    private val completed = object : LinkedHashMap<String, Completed>() {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Completed>?): Boolean =
+            size > maxRememberedResults
+    }
+
+    /**
+     * Runs [block] for [key] unless an identical call is running or, when [freshForMs] is set,
+     * recently succeeded. [reuseResult] decides which results may be served from the freshness
+     * window; failures are typically excluded so the next caller retries.
+     */
+    @Suppress("UNCHECKED_CAST")
+    suspend fun <T> execute(
+        key: String,
+        freshForMs: Long = 0L,
+        reuseResult: (T) -> Boolean = { true },
+        block: suspend () -> T
+    ): T {
+        while (true) {
+            var owner = false
+            val flight = synchronized(lock) {
+                val now = clock()
+                if (freshForMs > 0) {
+                    completed[key]?.takeIf { now - it.startedAt <= freshForMs }?.let {
+                        Log.d(TAG, "♻️ Reusing result for $key (${now - it.startedAt}ms old)")
+                        return it.value as T
+                    }
+                }
+                inFlight[key]?.also {
+                    Log.d(TAG, "🔗 Joining in-flight $key")
+                } ?: Flight(now).also {
+                    inFlight[key] = it
+                    owner = true
+                }
+            }
+
+            if (!owner) {
+                try {
+                    return flight.result.await() as T
+                } catch (e: CancellationException) {
+                    // Either we were cancelled (rethrow) or the executing caller was (retry).
+                    currentCoroutineContext().ensureActive()
+                    continue
+                }
+            }
+
+            val value = try {
+                block()
+            } catch (e: Throwable) {
+                synchronized(lock) {
+                    if (inFlight[key] === flight) inFlight.remove(key)
+                }
+                if (e is CancellationException) flight.result.cancel(e) else flight.result.completeExceptionally(e)
+                throw e
+            }
+            synchronized(lock) {
+                if (inFlight[key] === flight) inFlight.remove(key)
+                if (reuseResult(value)) {
+                    completed[key] = Completed(flight.startedAt, value)
+                } else {
+                    completed.remove(key)
+                }
+            }
+            flight.result.complete(value)
+            return value
+        }
+    }
+
+    /** Forgets any remembered result for [key] so the next call executes (or joins) a fresh request. */
+    fun invalidate(key: String) {
+        synchronized(lock) { completed.remove(key) }
+    }
+
+    companion object {
+        private const val TAG = "SingleFlight"
+        private const val DEFAULT_MAX_REMEMBERED_RESULTS = 256
+    }
+}
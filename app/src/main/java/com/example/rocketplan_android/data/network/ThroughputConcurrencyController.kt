@@ -0,0 +1,102 @@
+package com.example.rocketplan_android.data.network
+
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * Picks how many bulk downloads to run at once by hill climbing on measured throughput.
+ *
+ * Downloads report bytes as they stream through [onTransferred]. At the end of each window of at
+ * least [windowMs] the aggregate bytes/second is compared with the previous window: a gain of
+ * more than [minGain] keeps the limit moving in the same direction, a loss of more than [minGain]
+ * turns it around, and anything in between steps it down, since fewer connections moving the same
+ * bytes is better. On a link that a few connections already saturate, the limit hovers around
+ * that point instead of opening connections that only split the same bandwidth; on a fast link it
+ * climbs to [maxLimit].
+ *
+ * Unlike [AdaptiveConcurrencyLimiter], which keeps request latency healthy, this maximises bytes
+ * moved and suits large, latency-insensitive transfers such as photo prefetch.
+ */
+class ThroughputConcurrencyController(
+    private val minLimit: Int = DEFAULT_MIN_LIMIT,
+    val maxLimit: Int = DEFAULT_MAX_LIMIT,
+    initialLimit: Int = DEFAULT_INITIAL_LIMIT,
+    private val windowMs: Long = DEFAULT_WINDOW_MS,
+    private val minGain: Double = DEFAULT_MIN_GAIN,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    init {
+        require(minLimit in 1..maxLimit) { "minLimit must be in 1..maxLimit" }
+    }
+
+    private val lock = Any()
+    private val _limit = MutableStateFlow(initialLimit.coerceIn(minLimit, maxLimit))
+    val limit: StateFlow<Int> = _limit.asStateFlow()
+
+    private var windowStart = -1L
+    private var windowBytes = 0L
+    private var previousThroughput = -1.0
+    private var direction = 1
+
+    /** Bytes/second of the last completed window, or 0 before the first one. */
+    @Volatile
+    var throughputBytesPerSecond: Double = 0.0
+        private set
+
+    fun onTransferred(bytes: Long) {
+        if (bytes <= 0) return
+        synchronized(lock) {
+            val now = clock()
+            if (windowStart < 0) windowStart = now
+            windowBytes += bytes
+            val elapsed = now - windowStart
+            if (elapsed < windowMs) return
+            adjustLocked(windowBytes * 1_000.0 / elapsed)
+            windowStart = now
+            windowBytes = 0
+        }
+    }
+
+    /** Starts measuring afresh, e.g. when a new prefetch run begins on a possibly different network. */
+    fun resetMeasurements() {
+        synchronized(lock) {
+            windowStart = -1L
+            windowBytes = 0
+            previousThroughput = -1.0
+            direction = 1
+        }
+    }
+
+    /** Maps [items] concurrently within the current [limit]; see [mapConcurrently]. */
+    suspend fun <T, R> mapConcurrently(items: Iterable<T>, transform: suspend (T) -> R): List<R> =
+        items.mapConcurrently(limit, transform)
+
+    private fun adjustLocked(throughput: Double) {
+        throughputBytesPerSecond = throughput
+        if (previousThroughput >= 0) {
+            direction = when {
+                throughput > previousThroughput * (1 + minGain) -> direction
+                throughput < previousThroughput * (1 - minGain) -> -direction
+                else -> -1
+            }
+        }
+        previousThroughput = throughput
+
+        val current = _limit.value
+        val next = (current + direction).coerceIn(minLimit, maxLimit)
+        if (next == current) {
+            // Pinned at a bound: hold here, and probe the other way once the rate stops improving.
+            direction = -direction
+        }
+        _limit.value = next
+    }
+
+    companion object {
+        const val DEFAULT_MIN_LIMIT = 1
+        const val DEFAULT_MAX_LIMIT = 6
+        const val DEFAULT_INITIAL_LIMIT = 2
+        const val DEFAULT_WINDOW_MS = 2_000L
+        const val DEFAULT_MIN_GAIN = 0.1
+    }
+}
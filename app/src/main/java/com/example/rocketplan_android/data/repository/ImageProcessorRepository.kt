@@ -4,6 +4,7 @@ import android.content.Context
 import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.net.Uri
+import androidx.exifinterface.media.ExifInterface
 import com.example.rocketplan_android.data.api.ImageProcessorApi
 import com.example.rocketplan_android.data.local.dao.ImageProcessorDao
 import com.example.rocketplan_android.data.local.dao.OfflineDao
@@ -27,6 +28,7 @@ import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
 import java.io.ByteArrayOutputStream
 import java.io.File
+import com.example.rocketplan_android.util.PhotoResizeUtils
 import com.example.rocketplan_android.util.UuidUtils
 import java.io.FileOutputStream
 import java.util.Locale
@@ -47,11 +49,9 @@ class ImageProcessorRepository(
     companion object {
         private const val TAG = "ImageProcessorRepository"
         private const val MAX_PHOTO_UPLOAD_BYTES = 6L * 1024L * 1024L
-        private const val JPEG_QUALITY_START = 95
-        private const val JPEG_QUALITY_MIN = 45
-        private const val JPEG_QUALITY_STEP = 5
-        private const val BITMAP_SCALE_FACTOR = 0.85f
-        private const val MAX_COMPRESSION_PASSES = 20
+        // Each fallback pass keeps ~half the pixels, for photos that won't fit at any JPEG quality.
+        private const val FALLBACK_SCALE_FACTOR = 0.7f
+        private const val MAX_DOWNSCALE_PASSES = 2
     }
 
     suspend fun createAssembly(
@@ -506,14 +506,13 @@ class ImageProcessorRepository(
     }
 
     private fun resizePhoto(file: FileToUpload): FileToUpload? {
-        val bitmap = context.contentResolver.openInputStream(file.uri)?.use { input ->
-            BitmapFactory.decodeStream(input)
-        } ?: return null
+        val bitmap = decodeForUpload(file.uri) ?: return null
 
         return try {
             val compressedBytes = compressBitmap(bitmap, MAX_PHOTO_UPLOAD_BYTES) ?: return null
             val tempFile = File.createTempFile("rp_image_processor_", ".jpg", context.cacheDir)
             FileOutputStream(tempFile).use { output -> output.write(compressedBytes) }
+            copyExifOrientation(file, tempFile)
             file.copy(
                 uri = Uri.fromFile(tempFile),
                 deleteOnCompletion = true
@@ -534,44 +533,100 @@ class ImageProcessorRepository(
         }
     }
 
+    /**
+     * Decodes [uri] at no more than [PhotoResizeUtils.TARGET_PIXELS]: the bounds pick a power-of-two
+     * sample size so the full-resolution pixels are never held, then one filtered downscale
+     * trims the rest.
+     */
+    private fun decodeForUpload(uri: Uri): Bitmap? {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        context.contentResolver.openInputStream(uri)?.use { input ->
+            BitmapFactory.decodeStream(input, null, bounds)
+        } ?: return null
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null
+
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = PhotoResizeUtils.sampleSizeFor(bounds.outWidth, bounds.outHeight)
+        }
+        val sampled = context.contentResolver.openInputStream(uri)?.use { input ->
+            BitmapFactory.decodeStream(input, null, options)
+        } ?: return null
+
+        val (width, height) = PhotoResizeUtils.scaledSize(sampled.width, sampled.height)
+        if (width == sampled.width && height == sampled.height) return sampled
+        val scaled = Bitmap.createScaledBitmap(sampled, width, height, true)
+        if (scaled !== sampled) {
+            sampled.recycle()
+        }
+        return scaled
+    }
+
     private fun compressBitmap(bitmap: Bitmap, maxBytes: Long): ByteArray? {
         var currentBitmap = bitmap
-        var quality = JPEG_QUALITY_START
         val outputStream = ByteArrayOutputStream()
 
-        for (attempt in 0 until MAX_COMPRESSION_PASSES) {
-            outputStream.reset()
-            currentBitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream)
-            if (outputStream.size() <= maxBytes) {
-                val result = outputStream.toByteArray()
-                if (currentBitmap !== bitmap) {
-                    currentBitmap.recycle()
+        try {
+            for (pass in 0..MAX_DOWNSCALE_PASSES) {
+                val pixels = currentBitmap.width.toLong() * currentBitmap.height
+                val quality = PhotoResizeUtils.encodeWithinBudget(pixels, maxBytes) { jpegQuality ->
+                    outputStream.reset()
+                    currentBitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, outputStream)
+                    outputStream.size()
                 }
-                return result
-            }
-
-            if (quality > JPEG_QUALITY_MIN) {
-                quality -= JPEG_QUALITY_STEP
-            } else {
-                val newWidth = (currentBitmap.width * BITMAP_SCALE_FACTOR).toInt().coerceAtLeast(1)
-                val newHeight = (currentBitmap.height * BITMAP_SCALE_FACTOR).toInt().coerceAtLeast(1)
-                if (newWidth == currentBitmap.width && newHeight == currentBitmap.height) {
-                    break
+                if (quality != null) {
+                    return outputStream.toByteArray()
                 }
+                if (pass == MAX_DOWNSCALE_PASSES) break
+
+                // Even the lowest quality is too large; shed about half the pixels and try again.
+                val newWidth = (currentBitmap.width * FALLBACK_SCALE_FACTOR).toInt().coerceAtLeast(1)
+                val newHeight = (currentBitmap.height * FALLBACK_SCALE_FACTOR).toInt().coerceAtLeast(1)
                 val scaled = Bitmap.createScaledBitmap(currentBitmap, newWidth, newHeight, true)
                 if (scaled !== currentBitmap && currentBitmap !== bitmap) {
                     currentBitmap.recycle()
                 }
                 currentBitmap = scaled
-                quality = JPEG_QUALITY_START
+            }
+            return null
+        } finally {
+            if (currentBitmap !== bitmap) {
+                currentBitmap.recycle()
             }
         }
+    }
 
-        if (currentBitmap !== bitmap) {
-            currentBitmap.recycle()
+    /**
+     * The resized pixels are written as decoded (unrotated), so the original's orientation tag
+     * has to travel with them for the photo to display upright.
+     */
+    private fun copyExifOrientation(source: FileToUpload, target: File) {
+        runCatching {
+            val orientation = context.contentResolver.openInputStream(source.uri)?.use { input ->
+                ExifInterface(input).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_UNDEFINED
+                )
+            } ?: return
+            if (orientation == ExifInterface.ORIENTATION_UNDEFINED ||
+                orientation == ExifInterface.ORIENTATION_NORMAL
+            ) {
+                return
+            }
+            ExifInterface(target.absolutePath).apply {
+                setAttribute(ExifInterface.TAG_ORIENTATION, orientation.toString())
+                saveAttributes()
+            }
+        }.onFailure { error ->
+            remoteLogger?.log(
+                level = LogLevel.WARN,
+                tag = TAG,
+                message = "Unable to carry EXIF orientation over to resized photo",
+                metadata = mapOf(
+                    "filename" to source.filename,
+                    "reason" to (error.message ?: "unknown")
+                )
+            )
         }
-
-        return null
     }
 
     private fun getFileSize(uri: Uri): Long {
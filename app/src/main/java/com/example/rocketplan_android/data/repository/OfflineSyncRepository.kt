@@ -5,6 +5,7 @@ import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.local.DeletionTombstoneCache
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.SyncStatus
+import com.example.rocketplan_android.data.local.cache.PhotoBlobStore
 import com.example.rocketplan_android.data.local.cache.PhotoCacheManager
 import com.example.rocketplan_android.data.local.entity.OfflineAtmosphericLogEntity
 import com.example.rocketplan_android.data.local.entity.OfflineEquipmentEntity
@@ -19,14 +20,18 @@ import com.example.rocketplan_android.data.model.CreateAddressRequest
 import com.example.rocketplan_android.data.model.CreateCompanyProjectRequest
 import com.example.rocketplan_android.data.model.ProjectStatus
 import com.example.rocketplan_android.data.model.PropertyMutationRequest
-import com.example.rocketplan_android.data.model.offline.PaginatedResponse
 import com.example.rocketplan_android.data.model.offline.ProjectAddressDto
 import com.example.rocketplan_android.data.repository.RoomTypeRepository
 import com.example.rocketplan_android.data.model.offline.WorkScopeSheetDto
 import com.example.rocketplan_android.data.model.offline.WorkScopeItemRequest
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.network.HttpValidatorStore
+import com.example.rocketplan_android.data.network.SingleFlight
 import com.example.rocketplan_android.data.repository.mapper.*
 import com.example.rocketplan_android.data.repository.sync.DeletedRecordsSyncService
 import com.example.rocketplan_android.data.repository.sync.UpdatedRecordsSyncService
+import com.example.rocketplan_android.data.repository.sync.IncrementalPullPlan
+import com.example.rocketplan_android.data.repository.sync.IncrementalPullPlanner
 import com.example.rocketplan_android.data.repository.sync.EquipmentSyncService
 import com.example.rocketplan_android.data.repository.sync.MoistureLogSyncService
 import com.example.rocketplan_android.data.repository.sync.NoteSyncService
@@ -39,8 +44,10 @@ import com.example.rocketplan_android.data.repository.sync.RoomSyncService
 import com.example.rocketplan_android.data.repository.sync.SyncQueueEnqueuer
 import com.example.rocketplan_android.data.repository.sync.SyncQueueProcessor
 import com.example.rocketplan_android.data.repository.sync.WorkScopeSyncService
+import com.example.rocketplan_android.data.repository.sync.fetchAllPages
 import com.example.rocketplan_android.data.storage.SyncCheckpointStore
 import com.example.rocketplan_android.data.sync.ProjectSyncOrchestrator
+import com.example.rocketplan_android.data.sync.SyncPerformanceStore
 import com.example.rocketplan_android.data.queue.ImageProcessorQueueManager
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
@@ -51,7 +58,6 @@ import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
-import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.ensureActive
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -87,8 +93,11 @@ class OfflineSyncRepository(
     private val roomTypeRepository: RoomTypeRepository,
     private val photoCacheManager: PhotoCacheManager? = null,
     private val remoteLogger: RemoteLogger? = null,
+    private val performanceStore: SyncPerformanceStore? = null,
     private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
-    private val isNetworkAvailable: () -> Boolean = { false } // Default to offline for safety
+    private val isNetworkAvailable: () -> Boolean = { false }, // Default to offline for safety
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter,
+    private val httpValidators: HttpValidatorStore? = null
 ) {
     private var imageProcessorQueueManager: ImageProcessorQueueManager? = null
     private var imageProcessorRepository: ImageProcessorRepository? = null
@@ -97,6 +106,9 @@ class OfflineSyncRepository(
     private val _activeIncomingSync = MutableStateFlow<IncomingProjectSync?>(null)
     val activeIncomingSync: StateFlow<IncomingProjectSync?> = _activeIncomingSync.asStateFlow()
 
+    /** Shares identical in-flight pulls (same room photos, same project metadata) between callers. */
+    private val singleFlight = SingleFlight()
+
     // Lazily initialized services for delegation
     private val photoSyncService by lazy {
         PhotoSyncService(
@@ -105,7 +117,10 @@ class OfflineSyncRepository(
             syncCheckpointStore = syncCheckpointStore,
             photoCacheScheduler = photoCacheScheduler,
             remoteLogger = remoteLogger,
-            ioDispatcher = ioDispatcher
+            ioDispatcher = ioDispatcher,
+            concurrencyLimiter = concurrencyLimiter,
+            singleFlight = singleFlight,
+            httpValidators = httpValidators
         )
     }
 
@@ -173,7 +188,8 @@ class OfflineSyncRepository(
         WorkScopeSyncService(
             api = api,
             localDataService = localDataService,
-            ioDispatcher = ioDispatcher
+            ioDispatcher = ioDispatcher,
+            concurrencyLimiter = concurrencyLimiter
         )
     }
 
@@ -184,7 +200,8 @@ class OfflineSyncRepository(
             syncCheckpointStore = syncCheckpointStore,
             workScopeSyncService = workScopeSyncService,
             resolveServerProjectId = ::resolveServerProjectId,
-            ioDispatcher = ioDispatcher
+            ioDispatcher = ioDispatcher,
+            singleFlight = singleFlight
         )
     }
 
@@ -204,7 +221,8 @@ class OfflineSyncRepository(
             api = api,
             syncCheckpointStore = syncCheckpointStore,
             remoteLogger = remoteLogger,
-            ioDispatcher = ioDispatcher
+            ioDispatcher = ioDispatcher,
+            pullPlanner = IncrementalPullPlanner(localDataService)
         )
     }
 
@@ -231,7 +249,8 @@ class OfflineSyncRepository(
             imageProcessorRepositoryProvider = { imageProcessorRepository },
             remoteLogger = remoteLogger,
             ioDispatcher = ioDispatcher,
-            isNetworkAvailable = isNetworkAvailable
+            isNetworkAvailable = isNetworkAvailable,
+            performanceStore = performanceStore
         )
     }
 
@@ -348,9 +367,6 @@ class OfflineSyncRepository(
 
         val lockUpdatedAt = (project.serverUpdatedAt ?: project.updatedAt).toApiTimestamp()
 
-        // Cascade delete child entities and clear sync ops (runs in transaction)
-        localDataService.deleteProject(localProjectId)
-
         // Use the original project data to avoid race condition from re-fetching
         val marked = project.copy(
             isDeleted = true,
@@ -358,23 +374,31 @@ class OfflineSyncRepository(
             syncStatus = SyncStatus.PENDING,
             updatedAt = now()
         )
-        localDataService.saveProjects(listOf(marked))
 
         val serverId = project.serverId
+        // Cascade, clear the subtree's sync ops and queue (or locally resolve) the delete atomically,
+        // so a never-synced project costs no network calls and no child op can slip out first.
+        localDataService.runInTransaction {
+            localDataService.deleteProject(localProjectId)
+            localDataService.saveProjects(listOf(marked))
+            if (serverId == null) {
+                localDataService.removeSyncOperationsForEntity(entityType = "project", entityId = project.projectId)
+                val cleaned = marked.copy(
+                    isDirty = false,
+                    syncStatus = SyncStatus.SYNCED,
+                    lastSyncedAt = now()
+                )
+                localDataService.saveProjects(listOf(cleaned))
+            } else {
+                syncQueueProcessor.enqueueProjectDeletion(marked, lockUpdatedAt)
+            }
+        }
+
         if (serverId == null) {
-            localDataService.removeSyncOperationsForEntity(entityType = "project", entityId = project.projectId)
             logLocalDeletion("project", project.projectId, project.uuid)
-            val cleaned = marked.copy(
-                isDirty = false,
-                syncStatus = SyncStatus.SYNCED,
-                lastSyncedAt = now()
-            )
-            localDataService.saveProjects(listOf(cleaned))
             Log.d("API", "✅ [deleteProject] Deleted local-only project $localProjectId")
             return@withContext
         }
-
-        syncQueueProcessor.enqueueProjectDeletion(marked, lockUpdatedAt)
         Log.d("API", "🗑️ [deleteProject] Queued delete for project serverId=$serverId (local=$localProjectId)")
     }
 
@@ -603,7 +627,7 @@ class OfflineSyncRepository(
                     }
                     room.toEntity(existing, projectId = detail.id, locationId = room.locationId)
                 }
-                localDataService.saveRooms(resolvedRooms)
+                localDataService.saveRooms(resolvedRooms, skipUnchanged = true)
                 itemCount += resolvedRooms.size
             }
             ensureActive()
@@ -727,15 +751,10 @@ class OfflineSyncRepository(
         ensureActive()
 
         // 3. Rooms for each location (only nested locations have rooms, not levels)
-        // Fetch rooms in parallel for all locations (matching iOS DispatchGroup pattern)
+        // Fetch rooms in parallel for all locations, bounded by the shared API limiter
         val locationIds = nestedLocations.map { it.id }.distinct()
-        val roomResults = coroutineScope {
-            locationIds.map { locationId ->
-                async {
-                    val rooms = roomSyncService.fetchRoomsForLocation(locationId)
-                    locationId to rooms
-                }
-            }.awaitAll()
+        val roomResults = concurrencyLimiter.mapConcurrently(locationIds) { locationId ->
+            locationId to roomSyncService.fetchRoomsForLocation(locationId)
         }
         // Process and save rooms (must be sequential for DB consistency)
         for ((locationId, rooms) in roomResults) {
@@ -761,7 +780,7 @@ class OfflineSyncRepository(
                         locationId = room.locationId ?: locationId
                     )
                 }
-                localDataService.saveRooms(resolvedRooms)
+                localDataService.saveRooms(resolvedRooms, skipUnchanged = true)
                 itemCount += resolvedRooms.size
             }
         }
@@ -959,13 +978,6 @@ class OfflineSyncRepository(
         localDataService.savePhotos(listOf(marked))
         removePhotoFiles(photo)
 
-        photo.roomId?.let { roomId ->
-            runCatching { localDataService.refreshRoomPhotoSnapshot(roomId) }
-                .onFailure {
-                    Log.w("API", "⚠️ [deletePhoto] Failed to refresh photo snapshot for room $roomId", it)
-                }
-        }
-
         val serverId = photo.serverId
         if (serverId == null) {
             localDataService.removeSyncOperationsForEntity(entityType = "photo", entityId = photo.photoId)
@@ -996,8 +1008,10 @@ class OfflineSyncRepository(
         }
 
         deleteIfExists(photo.localPath)
-        deleteIfExists(photo.cachedOriginalPath)
-        deleteIfExists(photo.cachedThumbnailPath)
+        // Cache blobs may be shared with other photos; PhotoCacheManager collects them once unreferenced.
+        listOfNotNull(photo.cachedOriginalPath, photo.cachedThumbnailPath)
+            .filterNot { PhotoBlobStore.isBlob(it) }
+            .forEach(::deleteIfExists)
     }
 
     /**
@@ -1052,8 +1066,15 @@ class OfflineSyncRepository(
                 }
             }
             results += result
+            performanceStore?.recordSegment(
+                segment = result.segment,
+                durationMs = result.durationMs,
+                itemsSynced = result.itemsSynced,
+                failed = result is SyncResult.Failure
+            )
             coroutineContext.ensureActive()
         }
+        performanceStore?.persist()
 
         val duration = System.currentTimeMillis() - startTime
         Log.d(
@@ -1342,6 +1363,12 @@ class OfflineSyncRepository(
     suspend fun syncProjectMetadata(projectId: Long): SyncResult =
         projectMetadataSyncService.syncProjectMetadata(projectId)
 
+    /**
+     * Syncs only a project's notes (realtime note events).
+     */
+    suspend fun syncProjectNotes(projectId: Long): SyncResult =
+        projectMetadataSyncService.syncProjectNotes(projectId)
+
     suspend fun syncRoomWorkScopes(projectId: Long, roomId: Long): Int =
         workScopeSyncService.syncRoomWorkScopes(projectId, roomId)
 
@@ -1371,6 +1398,18 @@ class OfflineSyncRepository(
     suspend fun getUpdatedProjectIds(): Result<Set<Long>> =
         updatedRecordsSyncService.getUpdatedProjectIds()
 
+    /**
+     * Plans targeted refreshes for records updated since the last checkpoint (notes, room photos,
+     * moisture logs, ...) instead of resyncing every changed project. The checkpoint stays put
+     * until [commitIncrementalPull].
+     */
+    suspend fun planIncrementalPull(): Result<IncrementalPullPlan> =
+        updatedRecordsSyncService.planIncrementalPull()
+
+    /** Advances the updated-records checkpoint past [plan] once its pulls succeeded. */
+    suspend fun commitIncrementalPull(plan: IncrementalPullPlan) =
+        updatedRecordsSyncService.commitIncrementalPull(plan)
+
     /**
      * Checks if a project has any updates on the server since the given timestamp.
      * Uses the /api/sync/updated endpoint with project_id filter to efficiently check
@@ -1488,6 +1527,16 @@ class OfflineSyncRepository(
     suspend fun refreshRoomPhotos(projectId: Long, roomId: Long) =
         photoSyncService.refreshRoomPhotos(projectId, roomId)
 
+    /**
+     * Reports the server room ids a screen ([source]) currently shows. Room photo backfills start
+     * these rooms first; pass an empty list when the screen goes away.
+     */
+    fun setVisibleRooms(source: String, roomIds: Collection<Long>) =
+        photoSyncService.setVisibleRooms(source, roomIds)
+
+    /** Server ids of the rooms screens currently show; photo prefetch caches these first. */
+    fun visibleRoomIds(): Set<Long> = photoSyncService.visibleRoomIds()
+
     /**
      * Syncs photos only for rooms where server photo count exceeds local count.
      * Much faster than full photo sync when only a few rooms have new photos.
@@ -1522,39 +1571,38 @@ class OfflineSyncRepository(
 
         Log.d("API", "📷 [syncMismatched] Syncing ${roomsToSync.size} rooms with photo count mismatches (parallel)")
 
-        // Sync all mismatched rooms in parallel (matching iOS DispatchGroup pattern)
-        val results = coroutineScope {
-            roomsToSync.mapNotNull { room ->
-                val roomServerId = room.serverId ?: return@mapNotNull null
-                async {
-                    try {
-                        // Get server IDs of photos pending local deletion for this room.
-                        // These will be filtered out during sync to prevent resurrection,
-                        // while still allowing new photos from other clients to be fetched.
-                        val pendingDeletionServerIds = localDataService.getPendingPhotoServerIdsForRoom(roomServerId)
-                        if (pendingDeletionServerIds.isNotEmpty()) {
-                            Log.d("API", "📷 [syncMismatched] Room ${room.title} has ${pendingDeletionServerIds.size} photos pending deletion - will filter during sync")
-                        }
+        // Sync all mismatched rooms in parallel, bounded by the shared API limiter
+        val roomsWithServerIds = roomsToSync.mapNotNull { room -> room.serverId?.let { room to it } }
+        val results = concurrencyLimiter.mapConcurrently(roomsWithServerIds) { (room, roomServerId) ->
+            try {
+                // Get server IDs of photos pending local deletion for this room.
+                // These will be filtered out during sync to prevent resurrection,
+                // while still allowing new photos from other clients to be fetched.
+                val pendingDeletionServerIds = localDataService.getPendingPhotoServerIdsForRoom(roomServerId)
+                if (pendingDeletionServerIds.isNotEmpty()) {
+                    Log.d("API", "📷 [syncMismatched] Room ${room.title} has ${pendingDeletionServerIds.size} photos pending deletion - will filter during sync")
+                }
 
-                        // Use ignoreCheckpoint=true to fetch all photos, not just since last checkpoint.
-                        // This handles cases where local photos were lost due to partial sync or DB reset.
-                        val result = photoSyncService.syncRoomPhotos(
-                            projectId = projectId,
-                            roomId = roomServerId,
-                            ignoreCheckpoint = true,
-                            source = "mismatch-sync",
-                            excludedPhotoServerIds = pendingDeletionServerIds
-                        )
-                        if (result.success) {
-                            Log.d("API", "📷 [syncMismatched] Synced room ${room.title} (${room.serverId})")
-                        }
-                        result.success
-                    } catch (e: Exception) {
-                        Log.w("API", "📷 [syncMismatched] Failed to sync room ${room.title}", e)
-                        false
-                    }
+                // Use ignoreCheckpoint=true to fetch all photos, not just since last checkpoint.
+                // This handles cases where local photos were lost due to partial sync or DB reset.
+                // Runs as a backfill so a room the user opens meanwhile isn't stuck behind it.
+                val result = photoSyncService.backfillRoom(roomServerId) {
+                    photoSyncService.syncRoomPhotos(
+                        projectId = projectId,
+                        roomId = roomServerId,
+                        ignoreCheckpoint = true,
+                        source = "mismatch-sync",
+                        excludedPhotoServerIds = pendingDeletionServerIds
+                    )
+                }
+                if (result.success) {
+                    Log.d("API", "📷 [syncMismatched] Synced room ${room.title} (${room.serverId})")
                 }
-            }.awaitAll()
+                result.success
+            } catch (e: Exception) {
+                Log.w("API", "📷 [syncMismatched] Failed to sync room ${room.title}", e)
+                false
+            }
         }
 
         val syncedCount = results.count { it }
@@ -1576,26 +1624,6 @@ class OfflineSyncRepository(
         return photoSyncService.syncProjectLevelPhotos(projectId, serverProjectId)
     }
 
-    private suspend fun <T> fetchAllPages(
-        fetch: suspend (page: Int) -> PaginatedResponse<T>
-    ): List<T> {
-        val results = mutableListOf<T>()
-        var page = 1
-        while (true) {
-            coroutineContext.ensureActive()
-            val response = fetch(page)
-            results += response.data
-            val current = response.meta?.currentPage ?: page
-            val last = response.meta?.lastPage ?: current
-            val hasMore = current < last && response.data.isNotEmpty()
-            if (!hasMore) {
-                break
-            }
-            page = current + 1
-        }
-        return results
-    }
-
     private fun logLocalDeletion(entityType: String, entityId: Long, entityUuid: String?) {
         remoteLogger?.log(
             level = LogLevel.INFO,
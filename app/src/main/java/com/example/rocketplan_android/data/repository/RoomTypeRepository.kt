@@ -2,6 +2,7 @@ package com.example.rocketplan_android.data.repository
 
 import android.util.Log
 import com.example.rocketplan_android.config.AppConfig
+import com.example.rocketplan_android.data.api.NotModifiedException
 import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.entity.OfflineCatalogLevelEntity
@@ -12,6 +13,7 @@ import com.example.rocketplan_android.data.model.offline.OfflinePropertyTypeDto
 import com.example.rocketplan_android.data.model.offline.OfflineRoomTypeCatalogItemDto
 import com.example.rocketplan_android.data.model.offline.OfflineRoomTypeCatalogResponse
 import com.example.rocketplan_android.data.model.offline.RoomTypeDto
+import com.example.rocketplan_android.data.network.HttpValidatorStore
 import com.example.rocketplan_android.data.storage.OfflineRoomTypeCatalogStore
 import com.google.gson.GsonBuilder
 import java.util.Date
@@ -20,7 +22,8 @@ import java.util.Locale
 class RoomTypeRepository(
     private val api: OfflineSyncApi,
     private val localDataService: LocalDataService,
-    private val offlineRoomTypeCatalogStore: OfflineRoomTypeCatalogStore
+    private val offlineRoomTypeCatalogStore: OfflineRoomTypeCatalogStore,
+    private val httpValidators: HttpValidatorStore? = null
 ) {
 
     enum class RequestType {
@@ -74,13 +77,33 @@ class RoomTypeRepository(
         val cached = localDataService.getOfflineCatalogRoomTypes()
         if (cached.isNotEmpty() && !forceRefresh) return@runCatching
 
-        val response = api.getOfflineRoomTypes()
+        val response = fetchOfflineCatalog(hasCachedRows = cached.isNotEmpty()) ?: return@runCatching
         logOfflineCatalog(response)
         offlineRoomTypeCatalogStore.write(response)
         persistOfflineCatalog(response)
         Unit
+    }.onFailure {
+        httpValidators?.forget(OFFLINE_ROOM_TYPES_PATH)
     }
 
+    /**
+     * Fetches the catalog, or returns null when the server reports it unchanged (304) and the
+     * local catalog rows are still there to use.
+     */
+    private suspend fun fetchOfflineCatalog(hasCachedRows: Boolean): OfflineRoomTypeCatalogResponse? =
+        try {
+            api.getOfflineRoomTypes()
+        } catch (e: NotModifiedException) {
+            if (hasCachedRows) {
+                Log.d("RoomTypeRepository", "♻️ Offline room type catalog unchanged (304)")
+                null
+            } else {
+                // The rows the validator vouched for are gone; download the catalog again.
+                httpValidators?.forget(OFFLINE_ROOM_TYPES_PATH)
+                api.getOfflineRoomTypes()
+            }
+        }
+
     private suspend fun getOfflineRoomTypes(
         requestType: RequestType,
         propertyTypeId: Long?,
@@ -92,7 +115,8 @@ class RoomTypeRepository(
         }
 
         return runCatching {
-            val response = api.getOfflineRoomTypes()
+            val response = fetchOfflineCatalog(hasCachedRows = cached.isNotEmpty())
+                ?: return@runCatching filterOfflineRoomTypes(cached, requestType, propertyTypeId)
             logOfflineCatalog(response)
             offlineRoomTypeCatalogStore.write(response)
             Log.d(
@@ -103,6 +127,7 @@ class RoomTypeRepository(
             filterOfflineRoomTypes(response.toRoomTypeEntities(Date()), requestType, propertyTypeId)
         }.getOrElse { error ->
             Log.w("RoomTypeRepository", "⚠️ Failed to fetch offline room type catalog", error)
+            httpValidators?.forget(OFFLINE_ROOM_TYPES_PATH)
             if (cached.isNotEmpty()) {
                 filterOfflineRoomTypes(cached, requestType, propertyTypeId)
             } else {
@@ -215,6 +240,8 @@ class RoomTypeRepository(
     }
 
     companion object {
+        private const val OFFLINE_ROOM_TYPES_PATH = "/api/offline-room-types"
+
         /**
          * Normalizes property type strings for comparison.
          * Converts to lowercase, replaces non-alphanumeric chars with underscores.
@@ -0,0 +1,542 @@
+package com.example.rocketplan_android.data.repository.mapper
+
+import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
+import com.example.rocketplan_android.data.model.CreateAddressRequest
+import com.example.rocketplan_android.data.model.PropertyMutationRequest
+import com.google.gson.Gson
+import com.google.gson.JsonParser
+import java.io.ByteArrayOutputStream
+
+/**
+ * Versioned binary format for [OfflineSyncQueueEntity.payload].
+ *
+ * Layout: `MAGIC, VERSION, tag, fields...`. Integers are zigzag varints, strings are a varint
+ * UTF-8 length (+1, with 0 meaning null), nullable scalars carry a presence byte and doubles are
+ * 8 raw bytes. Fields are written in declaration order by hand-written serializers, so the push
+ * path never touches reflection. New fields may only be appended, guarded by a [VERSION] bump.
+ *
+ * Rows queued before this format are Gson JSON. `0xF5` never occurs in UTF-8, so [decode]
+ * recognises them by their first byte and falls back to Gson; they drain without a migration.
+ */
+internal object SyncPayloadCodec {
+
+    const val MAGIC: Byte = 0xF5.toByte()
+    const val VERSION = 1
+
+    private val gson = Gson()
+
+    fun encode(payload: Any): ByteArray {
+        val schema = schemasByType[payload.javaClass]
+            // Unregistered payloads stay JSON; decode() reads both.
+            ?: return gson.toJson(payload).toByteArray(Charsets.UTF_8)
+        val writer = PayloadWriter()
+        writer.byte(MAGIC.toInt())
+        writer.byte(VERSION)
+        writer.byte(schema.tag)
+        try {
+            schema.writeUnchecked(writer, payload)
+        } catch (e: MissingRequiredFieldException) {
+            // A legacy row decoded by Gson with null in a non-null field; the binary reader would
+            // reject it, so it is rewritten as JSON, the format it came from.
+            return gson.toJson(payload).toByteArray(Charsets.UTF_8)
+        }
+        return writer.toByteArray()
+    }
+
+    fun isBinary(bytes: ByteArray): Boolean = bytes.isNotEmpty() && bytes[0] == MAGIC
+
+    /** Decodes [bytes] as [type]; throws if they hold a different payload or are malformed. */
+    fun <T : Any> decode(bytes: ByteArray, type: Class<T>): T {
+        if (!isBinary(bytes)) {
+            return gson.fromJson(String(bytes, Charsets.UTF_8), type)
+                ?: throw IllegalArgumentException("Empty ${type.simpleName} payload")
+        }
+        val payload = decodeBinary(bytes)
+        require(type.isInstance(payload)) {
+            "Payload holds ${payload.javaClass.simpleName}, expected ${type.simpleName}"
+        }
+        return type.cast(payload)
+    }
+
+    /**
+     * The optimistic-lock timestamp carried by any lock-bearing payload (deletes and updates),
+     * or null when the payload has none.
+     */
+    fun lockUpdatedAt(bytes: ByteArray): String? {
+        if (!isBinary(bytes)) {
+            return gson.fromJson(String(bytes, Charsets.UTF_8), PendingLockPayload::class.java)?.lockUpdatedAt
+        }
+        return when (val payload = decodeBinary(bytes)) {
+            is PendingLockPayload -> payload.lockUpdatedAt
+            is PendingPropertyUpdatePayload -> payload.lockUpdatedAt
+            is PendingLocationUpdatePayload -> payload.lockUpdatedAt
+            is PendingRoomUpdatePayload -> payload.lockUpdatedAt
+            else -> null
+        }
+    }
+
+    /** The `projectId` field of payloads that carry one, or null. */
+    fun projectId(bytes: ByteArray): Long? {
+        if (!isBinary(bytes)) {
+            return JsonParser.parseString(String(bytes, Charsets.UTF_8))
+                .asJsonObject
+                .get("projectId")
+                ?.takeIf { it.isJsonPrimitive }
+                ?.asLong
+        }
+        return when (val payload = decodeBinary(bytes)) {
+            is PendingPropertyCreationPayload -> payload.projectId
+            is PendingPropertyUpdatePayload -> payload.projectId
+            is PendingLocationCreationPayload -> payload.projectId
+            is PendingRoomCreationPayload -> payload.projectId
+            is PendingRoomUpdatePayload -> payload.projectId
+            is PendingAtmosphericLogCreationPayload -> payload.projectId
+            else -> null
+        }
+    }
+
+    private fun decodeBinary(bytes: ByteArray): Any {
+        val reader = PayloadReader(bytes, offset = 1)
+        val version = reader.byte()
+        require(version in 1..VERSION) { "Unsupported payload version $version" }
+        val tag = reader.byte()
+        val schema = schemasByTag.getOrNull(tag)
+            ?: throw IllegalArgumentException("Unknown payload tag $tag")
+        return schema.read(reader)
+    }
+
+    // ============================================================================
+    // Schemas. Tags are persisted: never reuse or renumber them.
+    // ============================================================================
+
+    private class Schema<T : Any>(
+        val tag: Int,
+        val type: Class<T>,
+        val write: PayloadWriter.(T) -> Unit,
+        val read: PayloadReader.() -> T
+    ) {
+        @Suppress("UNCHECKED_CAST")
+        fun writeUnchecked(writer: PayloadWriter, payload: Any) = writer.write(payload as T)
+    }
+
+    private val schemas: List<Schema<*>> = listOf(
+        Schema(1, PendingProjectCreationPayload::class.java, { p ->
+            long(p.localProjectId)
+            requiredString(p.projectUuid)
+            long(p.companyId)
+            int(p.projectStatusId)
+            address(p.addressRequest)
+            string(p.idempotencyKey)
+        }) {
+            PendingProjectCreationPayload(
+                localProjectId = long(),
+                projectUuid = requiredString(),
+                companyId = long(),
+                projectStatusId = int(),
+                addressRequest = address(),
+                idempotencyKey = string()
+            )
+        },
+        Schema(2, PendingPropertyCreationPayload::class.java, { p ->
+            long(p.localPropertyId)
+            requiredString(p.propertyUuid)
+            long(p.projectId)
+            int(p.propertyTypeId)
+            string(p.propertyTypeValue)
+            string(p.idempotencyKey)
+        }) {
+            PendingPropertyCreationPayload(
+                localPropertyId = long(),
+                propertyUuid = requiredString(),
+                projectId = long(),
+                propertyTypeId = int(),
+                propertyTypeValue = string(),
+                idempotencyKey = string()
+            )
+        },
+        Schema(3, PendingPropertyUpdatePayload::class.java, { p ->
+            long(p.projectId)
+            long(p.propertyId)
+            propertyRequest(p.request)
+            string(p.propertyTypeValue)
+            string(p.lockUpdatedAt)
+        }) {
+            PendingPropertyUpdatePayload(
+                projectId = long(),
+                propertyId = long(),
+                request = propertyRequest(),
+                propertyTypeValue = string(),
+                lockUpdatedAt = string()
+            )
+        },
+        Schema(4, PendingLockPayload::class.java, { p ->
+            string(p.lockUpdatedAt)
+        }) {
+            PendingLockPayload(lockUpdatedAt = string())
+        },
+        Schema(5, PendingLocationCreationPayload::class.java, { p ->
+            long(p.localLocationId)
+            requiredString(p.locationUuid)
+            long(p.projectId)
+            long(p.propertyLocalId)
+            requiredString(p.locationName)
+            long(p.locationTypeId)
+            requiredString(p.type)
+            int(p.floorNumber)
+            bool(p.isCommon)
+            bool(p.isAccessible)
+            bool(p.isCommercial)
+            string(p.idempotencyKey)
+        }) {
+            PendingLocationCreationPayload(
+                localLocationId = long(),
+                locationUuid = requiredString(),
+                projectId = long(),
+                propertyLocalId = long(),
+                locationName = requiredString(),
+                locationTypeId = long(),
+                type = requiredString(),
+                floorNumber = int(),
+                isCommon = bool(),
+                isAccessible = bool(),
+                isCommercial = bool(),
+                idempotencyKey = string()
+            )
+        },
+        Schema(6, PendingRoomCreationPayload::class.java, { p ->
+            long(p.localRoomId)
+            string(p.roomUuid)
+            long(p.projectId)
+            requiredString(p.roomName)
+            long(p.roomTypeId)
+            string(p.roomTypeName)
+            bool(p.isSource)
+            bool(p.isExterior)
+            long(p.levelServerId)
+            long(p.locationServerId)
+            requiredString(p.levelUuid)
+            requiredString(p.locationUuid)
+            string(p.idempotencyKey)
+        }) {
+            PendingRoomCreationPayload(
+                localRoomId = long(),
+                roomUuid = string(),
+                projectId = long(),
+                roomName = requiredString(),
+                roomTypeId = long(),
+                roomTypeName = string(),
+                isSource = bool(),
+                isExterior = bool(),
+                levelServerId = nullableLong(),
+                locationServerId = nullableLong(),
+                levelUuid = requiredString(),
+                locationUuid = requiredString(),
+                idempotencyKey = string()
+            )
+        },
+        Schema(7, PendingLocationUpdatePayload::class.java, { p ->
+            long(p.locationId)
+            requiredString(p.locationUuid)
+            string(p.name)
+            int(p.floorNumber)
+            bool(p.isAccessible)
+            string(p.lockUpdatedAt)
+        }) {
+            PendingLocationUpdatePayload(
+                locationId = long(),
+                locationUuid = requiredString(),
+                name = string(),
+                floorNumber = nullableInt(),
+                isAccessible = nullableBool(),
+                lockUpdatedAt = string()
+            )
+        },
+        Schema(8, PendingRoomUpdatePayload::class.java, { p ->
+            long(p.roomId)
+            string(p.roomUuid)
+            long(p.projectId)
+            long(p.locationId)
+            bool(p.isSource)
+            long(p.levelId)
+            long(p.roomTypeId)
+            string(p.lockUpdatedAt)
+        }) {
+            PendingRoomUpdatePayload(
+                roomId = long(),
+                roomUuid = string(),
+                projectId = long(),
+                locationId = nullableLong(),
+                isSource = bool(),
+                levelId = nullableLong(),
+                roomTypeId = nullableLong(),
+                lockUpdatedAt = string()
+            )
+        },
+        Schema(9, PendingAtmosphericLogCreationPayload::class.java, { p ->
+            long(p.localLogId)
+            requiredString(p.logUuid)
+            long(p.projectId)
+            string(p.projectUuid)
+            long(p.roomId)
+            string(p.roomUuid)
+            string(p.idempotencyKey)
+        }) {
+            PendingAtmosphericLogCreationPayload(
+                localLogId = long(),
+                logUuid = requiredString(),
+                projectId = long(),
+                projectUuid = string(),
+                roomId = nullableLong(),
+                roomUuid = string(),
+                idempotencyKey = string()
+            )
+        },
+        Schema(10, PendingProjectUserPayload::class.java, { p ->
+            long(p.projectServerId)
+            long(p.userServerId)
+        }) {
+            PendingProjectUserPayload(projectServerId = long(), userServerId = long())
+        },
+        Schema(11, PendingSupportConversationPayload::class.java, { p ->
+            long(p.localConversationId)
+            requiredString(p.conversationUuid)
+            long(p.categoryId)
+            requiredString(p.subject)
+            requiredString(p.initialMessageBody)
+            requiredString(p.idempotencyKey)
+        }) {
+            PendingSupportConversationPayload(
+                localConversationId = long(),
+                conversationUuid = requiredString(),
+                categoryId = long(),
+                subject = requiredString(),
+                initialMessageBody = requiredString(),
+                idempotencyKey = requiredString()
+            )
+        },
+        Schema(12, PendingSupportMessagePayload::class.java, { p ->
+            long(p.localMessageId)
+            requiredString(p.messageUuid)
+            long(p.conversationId)
+            long(p.conversationServerId)
+            requiredString(p.body)
+            requiredString(p.idempotencyKey)
+        }) {
+            PendingSupportMessagePayload(
+                localMessageId = long(),
+                messageUuid = requiredString(),
+                conversationId = long(),
+                conversationServerId = nullableLong(),
+                body = requiredString(),
+                idempotencyKey = requiredString()
+            )
+        }
+    )
+
+    private val schemasByType: Map<Class<*>, Schema<*>> = schemas.associateBy { it.type }
+
+    private val schemasByTag: List<Schema<*>?> =
+        List(schemas.maxOf { it.tag } + 1) { tag -> schemas.firstOrNull { it.tag == tag } }
+
+    // Nested requests are non-null in Kotlin but absent from some legacy JSON rows; refusing the
+    // null sends the row back to JSON (see encode) instead of throwing a NullPointerException.
+    private fun PayloadWriter.address(value: CreateAddressRequest?) {
+        if (value == null) throw MissingRequiredFieldException()
+        requiredString(value.address)
+        string(value.address2)
+        string(value.city)
+        string(value.state)
+        string(value.zip)
+        string(value.country)
+        double(value.latitude)
+        double(value.longitude)
+    }
+
+    private fun PayloadReader.address() = CreateAddressRequest(
+        address = requiredString(),
+        address2 = string(),
+        city = string(),
+        state = string(),
+        zip = string(),
+        country = string(),
+        latitude = nullableDouble(),
+        longitude = nullableDouble()
+    )
+
+    private fun PayloadWriter.propertyRequest(value: PropertyMutationRequest?) {
+        if (value == null) throw MissingRequiredFieldException()
+        string(value.uuid)
+        int(value.propertyTypeId)
+        string(value.projectUuid)
+        bool(value.isCommercial)
+        bool(value.isResidential)
+        int(value.yearBuilt)
+        string(value.name)
+        string(value.idempotencyKey)
+        int(value.damageCategory)
+        int(value.lossClass)
+        string(value.lossDate)
+        string(value.callReceived)
+        string(value.crewDispatched)
+        string(value.arrivedOnSite)
+        int(value.damageCauseId)
+        string(value.referredByName)
+        string(value.referredByPhone)
+        bool(value.isPlatinumAgent)
+        int(value.asbestosStatusId)
+        string(value.updatedAt)
+    }
+
+    private fun PayloadReader.propertyRequest() = PropertyMutationRequest(
+        uuid = string(),
+        propertyTypeId = int(),
+        projectUuid = string(),
+        isCommercial = nullableBool(),
+        isResidential = nullableBool(),
+        yearBuilt = nullableInt(),
+        name = string(),
+        idempotencyKey = string(),
+        damageCategory = nullableInt(),
+        lossClass = nullableInt(),
+        lossDate = string(),
+        callReceived = string(),
+        crewDispatched = string(),
+        arrivedOnSite = string(),
+        damageCauseId = nullableInt(),
+        referredByName = string(),
+        referredByPhone = string(),
+        isPlatinumAgent = nullableBool(),
+        asbestosStatusId = nullableInt(),
+        updatedAt = string()
+    )
+
+    // ============================================================================
+    // Primitive encoding
+    // ============================================================================
+
+    private class PayloadWriter {
+        private val out = ByteArrayOutputStream(64)
+
+        fun byte(value: Int) = out.write(value)
+
+        fun long(value: Long) {
+            var zigzag = (value shl 1) xor (value shr 63)
+            while (zigzag and 0x7FL.inv() != 0L) {
+                out.write(((zigzag and 0x7F) or 0x80).toInt())
+                zigzag = zigzag ushr 7
+            }
+            out.write(zigzag.toInt())
+        }
+
+        fun int(value: Int) = long(value.toLong())
+
+        fun bool(value: Boolean) = out.write(if (value) 1 else 0)
+
+        fun long(value: Long?) {
+            if (value == null) {
+                out.write(0)
+            } else {
+                out.write(1)
+                long(value)
+            }
+        }
+
+        fun int(value: Int?) = long(value?.toLong())
+
+        fun bool(value: Boolean?) = out.write(
+            when (value) {
+                null -> 0
+                false -> 1
+                true -> 2
+            }
+        )
+
+        fun double(value: Double?) {
+            if (value == null) {
+                out.write(0)
+                return
+            }
+            out.write(1)
+            val bits = java.lang.Double.doubleToRawLongBits(value)
+            for (shift in 56 downTo 0 step 8) {
+                out.write((bits ushr shift).toInt() and 0xFF)
+            }
+        }
+
+        fun string(value: String?) {
+            if (value == null) {
+                long(0L)
+                return
+            }
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            long(bytes.size + 1L)
+            out.write(bytes, 0, bytes.size)
+        }
+
+        /**
+         * A field the reader takes as non-null. Gson can hand back null for a non-null Kotlin
+         * field from an old JSON row, so the null is refused here instead of being written into
+         * a payload that would not decode.
+         */
+        fun requiredString(value: String?) = string(value ?: throw MissingRequiredFieldException())
+
+        fun toByteArray(): ByteArray = out.toByteArray()
+    }
+
+    private class MissingRequiredFieldException : IllegalArgumentException("Missing required field")
+
+    private class PayloadReader(private val bytes: ByteArray, offset: Int) {
+        private var position = offset
+
+        fun byte(): Int {
+            if (position >= bytes.size) throw IllegalArgumentException("Truncated payload")
+            return bytes[position++].toInt() and 0xFF
+        }
+
+        fun long(): Long {
+            var result = 0L
+            var shift = 0
+            while (true) {
+                val b = byte()
+                result = result or ((b and 0x7F).toLong() shl shift)
+                if (b and 0x80 == 0) break
+                shift += 7
+                if (shift > 63) throw IllegalArgumentException("Malformed varint")
+            }
+            return (result ushr 1) xor -(result and 1)
+        }
+
+        fun int(): Int = long().toInt()
+
+        fun bool(): Boolean = byte() != 0
+
+        fun nullableLong(): Long? = if (byte() == 0) null else long()
+
+        fun nullableInt(): Int? = nullableLong()?.toInt()
+
+        fun nullableBool(): Boolean? = when (byte()) {
+            0 -> null
+            1 -> false
+            else -> true
+        }
+
+        fun nullableDouble(): Double? {
+            if (byte() == 0) return null
+            var bits = 0L
+            repeat(8) { bits = (bits shl 8) or byte().toLong() }
+            return java.lang.Double.longBitsToDouble(bits)
+        }
+
+        fun string(): String? {
+            val length = long().toInt() - 1
+            if (length < 0) return null
+            if (length > bytes.size - position) throw IllegalArgumentException("Truncated payload")
+            val value = String(bytes, position, length, Charsets.UTF_8)
+            position += length
+            return value
+        }
+
+        fun requiredString(): String =
+            string() ?: throw IllegalArgumentException("Missing required string field")
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.rocketplan_android.data.repository.mapper
 
+import com.example.rocketplan_android.data.local.SyncOperationType
+import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
 import com.example.rocketplan_android.data.model.CreateAddressRequest
 import com.example.rocketplan_android.data.model.PropertyMutationRequest
 
 /**
  * Payload data classes used for serializing/deserializing pending sync operations.
  * Extracted from OfflineSyncRepository to reduce file size and improve maintainability.
+ * Stored via [SyncPayloadCodec]; a new field must also be added to its schema.
  */
 
 internal data class PendingProjectCreationPayload(
@@ -129,3 +132,36 @@ internal data class PendingSupportMessagePayload(
     val body: String,
     val idempotencyKey: String
 )
+
+// Parent reference columns. CREATE operations mirror the parent IDs/UUIDs held in their payload
+// onto indexed columns of the queue row so IdRemapService can find dependents without a scan.
+
+internal fun OfflineSyncQueueEntity.withParentRefs(payload: PendingPropertyCreationPayload) = copy(
+    parentProjectId = payload.projectId
+)
+
+internal fun OfflineSyncQueueEntity.withParentRefs(payload: PendingLocationCreationPayload) = copy(
+    parentProjectId = payload.projectId,
+    parentPropertyId = payload.propertyLocalId
+)
+
+internal fun OfflineSyncQueueEntity.withParentRefs(payload: PendingRoomCreationPayload) = copy(
+    parentProjectId = payload.projectId,
+    parentLevelId = payload.levelServerId,
+    parentLocationId = payload.locationServerId,
+    parentLevelUuid = payload.levelUuid,
+    parentLocationUuid = payload.locationUuid
+)
+
+/** Re-derives the parent columns from the serialized payload after it was rewritten in place. */
+internal fun OfflineSyncQueueEntity.withParentRefs(): OfflineSyncQueueEntity {
+    if (operationType != SyncOperationType.CREATE) return this
+    return runCatching {
+        when (entityType) {
+            "property" -> withParentRefs(SyncPayloadCodec.decode(payload, PendingPropertyCreationPayload::class.java))
+            "location" -> withParentRefs(SyncPayloadCodec.decode(payload, PendingLocationCreationPayload::class.java))
+            "room" -> withParentRefs(SyncPayloadCodec.decode(payload, PendingRoomCreationPayload::class.java))
+            else -> this
+        }
+    }.getOrDefault(this)
+}
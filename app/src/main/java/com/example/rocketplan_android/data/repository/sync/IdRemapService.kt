@@ -2,11 +2,12 @@ package com.example.rocketplan_android.data.repository.sync
 
 import android.util.Log
 import com.example.rocketplan_android.data.local.LocalDataService
-import com.example.rocketplan_android.data.local.SyncStatus
+import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
 import com.example.rocketplan_android.data.repository.mapper.PendingLocationCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingPropertyCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingRoomCreationPayload
-import com.google.gson.Gson
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
+import com.example.rocketplan_android.data.repository.mapper.withParentRefs
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
@@ -33,10 +34,13 @@ data class RemapResult(
  * - Property → Location
  * - Location → Room
  * - Room → Note, Equipment, MoistureLog, AtmosphericLog
+ *
+ * Queued CREATE operations carry their parent references in indexed columns (see
+ * [withParentRefs]), so a payload remap only decodes the operations that actually reference the
+ * parent, and each remap rewrites them in a single transaction.
  */
 class IdRemapService(
     private val localDataService: LocalDataService,
-    private val gson: Gson,
     private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
 ) {
     /**
@@ -50,17 +54,35 @@ class IdRemapService(
     suspend fun remapProjectId(localProjectId: Long, serverId: Long): Int = withContext(ioDispatcher) {
         if (localProjectId == serverId) return@withContext 0
 
-        var totalUpdated = 0
         Log.d(TAG, "🔄 Remapping project ID: local=$localProjectId → server=$serverId")
 
-        // Update property creation payloads that reference this project
-        totalUpdated += remapPropertyPayloads(localProjectId, serverId)
-
-        // Update location creation payloads
-        totalUpdated += remapLocationPayloads(localProjectId, serverId)
-
-        // Update room creation payloads
-        totalUpdated += remapRoomPayloads(localProjectId, serverId)
+        // Property, location and room creation payloads that reference this project
+        val totalUpdated = localDataService.runInTransaction {
+            var updated = 0
+            for (op in localDataService.getPendingOperationsByParentProject(localProjectId)) {
+                val rewritten = when (op.entityType) {
+                    "property" -> op.rewrite(PendingPropertyCreationPayload::class.java) { payload ->
+                        if (payload.projectId != localProjectId) return@rewrite null
+                        val updatedPayload = payload.copy(projectId = serverId)
+                        op.withPayload(updatedPayload).withParentRefs(updatedPayload)
+                    }
+                    "location" -> op.rewrite(PendingLocationCreationPayload::class.java) { payload ->
+                        if (payload.projectId != localProjectId) return@rewrite null
+                        val updatedPayload = payload.copy(projectId = serverId)
+                        op.withPayload(updatedPayload).withParentRefs(updatedPayload)
+                    }
+                    "room" -> op.rewrite(PendingRoomCreationPayload::class.java) { payload ->
+                        if (payload.projectId != localProjectId) return@rewrite null
+                        val updatedPayload = payload.copy(projectId = serverId)
+                        op.withPayload(updatedPayload).withParentRefs(updatedPayload)
+                    }
+                    else -> null
+                } ?: continue
+                localDataService.enqueueSyncOperation(rewritten)
+                updated++
+            }
+            updated
+        }
 
         Log.d(TAG, "✅ Project ID remap complete: updated $totalUpdated operations")
         totalUpdated
@@ -77,27 +99,21 @@ class IdRemapService(
     suspend fun remapPropertyId(localPropertyId: Long, serverId: Long): Int = withContext(ioDispatcher) {
         if (localPropertyId == serverId) return@withContext 0
 
-        var totalUpdated = 0
         Log.d(TAG, "🔄 Remapping property ID: local=$localPropertyId → server=$serverId")
 
-        // Get all pending location operations
-        val pendingOps = localDataService.getPendingOperationsForEntityType("location")
-        for (op in pendingOps) {
-            val payload = runCatching {
-                gson.fromJson(
-                    String(op.payload, Charsets.UTF_8),
-                    PendingLocationCreationPayload::class.java
-                )
-            }.getOrNull() ?: continue
-
-            if (payload.propertyLocalId == localPropertyId) {
-                val updatedPayload = payload.copy(propertyLocalId = serverId)
-                val updatedOp = op.copy(
-                    payload = gson.toJson(updatedPayload).toByteArray(Charsets.UTF_8)
-                )
-                localDataService.enqueueSyncOperation(updatedOp)
-                totalUpdated++
+        val totalUpdated = localDataService.runInTransaction {
+            var updated = 0
+            for (op in localDataService.getPendingOperationsByParentProperty(localPropertyId)) {
+                if (op.entityType != "location") continue
+                val rewritten = op.rewrite(PendingLocationCreationPayload::class.java) { payload ->
+                    if (payload.propertyLocalId != localPropertyId) return@rewrite null
+                    val updatedPayload = payload.copy(propertyLocalId = serverId)
+                    op.withPayload(updatedPayload).withParentRefs(updatedPayload)
+                } ?: continue
+                localDataService.enqueueSyncOperation(rewritten)
+                updated++
             }
+            updated
         }
 
         Log.d(TAG, "✅ Property ID remap complete: updated $totalUpdated location operations")
@@ -120,41 +136,32 @@ class IdRemapService(
     ): Int = withContext(ioDispatcher) {
         if (localLocationId == serverId) return@withContext 0
 
-        var totalUpdated = 0
         Log.d(TAG, "🔄 Remapping location ID: local=$localLocationId → server=$serverId (uuid=$uuid)")
 
-        // Get all pending room operations
-        val pendingOps = localDataService.getPendingOperationsForEntityType("room")
-        for (op in pendingOps) {
-            val payload = runCatching {
-                gson.fromJson(
-                    String(op.payload, Charsets.UTF_8),
-                    PendingRoomCreationPayload::class.java
-                )
-            }.getOrNull() ?: continue
-
-            var updated = false
-            var updatedPayload = payload
-
-            // Update levelServerId if it matches
-            if (payload.levelServerId == localLocationId || payload.levelUuid == uuid) {
-                updatedPayload = updatedPayload.copy(levelServerId = serverId)
-                updated = true
-            }
-
-            // Update locationServerId if it matches
-            if (payload.locationServerId == localLocationId || payload.locationUuid == uuid) {
-                updatedPayload = updatedPayload.copy(locationServerId = serverId)
-                updated = true
-            }
-
-            if (updated) {
-                val updatedOp = op.copy(
-                    payload = gson.toJson(updatedPayload).toByteArray(Charsets.UTF_8)
-                )
-                localDataService.enqueueSyncOperation(updatedOp)
-                totalUpdated++
+        val totalUpdated = localDataService.runInTransaction {
+            var updated = 0
+            for (op in localDataService.getPendingOperationsByParentLocation(localLocationId, uuid)) {
+                if (op.entityType != "room") continue
+                val rewritten = op.rewrite(PendingRoomCreationPayload::class.java) { payload ->
+                    var updatedPayload = payload
+
+                    // Update levelServerId if it matches
+                    if (payload.levelServerId == localLocationId || payload.levelUuid == uuid) {
+                        updatedPayload = updatedPayload.copy(levelServerId = serverId)
+                    }
+
+                    // Update locationServerId if it matches
+                    if (payload.locationServerId == localLocationId || payload.locationUuid == uuid) {
+                        updatedPayload = updatedPayload.copy(locationServerId = serverId)
+                    }
+
+                    if (updatedPayload == payload) return@rewrite null
+                    op.withPayload(updatedPayload).withParentRefs(updatedPayload)
+                } ?: continue
+                localDataService.enqueueSyncOperation(rewritten)
+                updated++
             }
+            updated
         }
 
         Log.d(TAG, "✅ Location ID remap complete: updated $totalUpdated room operations")
@@ -231,80 +238,22 @@ class IdRemapService(
 
     // Private helpers for payload remapping
 
-    private suspend fun remapPropertyPayloads(localProjectId: Long, serverId: Long): Int {
-        var updated = 0
-        val pendingOps = localDataService.getPendingOperationsForEntityType("property")
-
-        for (op in pendingOps) {
-            val payload = runCatching {
-                gson.fromJson(
-                    String(op.payload, Charsets.UTF_8),
-                    PendingPropertyCreationPayload::class.java
-                )
-            }.getOrNull() ?: continue
-
-            if (payload.projectId == localProjectId) {
-                val updatedPayload = payload.copy(projectId = serverId)
-                val updatedOp = op.copy(
-                    payload = gson.toJson(updatedPayload).toByteArray(Charsets.UTF_8)
-                )
-                localDataService.enqueueSyncOperation(updatedOp)
-                updated++
-            }
-        }
-
-        return updated
-    }
-
-    private suspend fun remapLocationPayloads(localProjectId: Long, serverId: Long): Int {
-        var updated = 0
-        val pendingOps = localDataService.getPendingOperationsForEntityType("location")
-
-        for (op in pendingOps) {
-            val payload = runCatching {
-                gson.fromJson(
-                    String(op.payload, Charsets.UTF_8),
-                    PendingLocationCreationPayload::class.java
-                )
-            }.getOrNull() ?: continue
-
-            if (payload.projectId == localProjectId) {
-                val updatedPayload = payload.copy(projectId = serverId)
-                val updatedOp = op.copy(
-                    payload = gson.toJson(updatedPayload).toByteArray(Charsets.UTF_8)
-                )
-                localDataService.enqueueSyncOperation(updatedOp)
-                updated++
-            }
-        }
-
-        return updated
+    /**
+     * Decodes only an operation already selected by the parent-column lookup. The payload is
+     * re-checked in [remap] so a stale column can never rewrite an unrelated operation.
+     */
+    private inline fun <P : Any> OfflineSyncQueueEntity.rewrite(
+        type: Class<P>,
+        remap: (P) -> OfflineSyncQueueEntity?
+    ): OfflineSyncQueueEntity? {
+        val decoded = runCatching {
+            SyncPayloadCodec.decode(payload, type)
+        }.getOrNull() ?: return null
+        return remap(decoded)
     }
 
-    private suspend fun remapRoomPayloads(localProjectId: Long, serverId: Long): Int {
-        var updated = 0
-        val pendingOps = localDataService.getPendingOperationsForEntityType("room")
-
-        for (op in pendingOps) {
-            val payload = runCatching {
-                gson.fromJson(
-                    String(op.payload, Charsets.UTF_8),
-                    PendingRoomCreationPayload::class.java
-                )
-            }.getOrNull() ?: continue
-
-            if (payload.projectId == localProjectId) {
-                val updatedPayload = payload.copy(projectId = serverId)
-                val updatedOp = op.copy(
-                    payload = gson.toJson(updatedPayload).toByteArray(Charsets.UTF_8)
-                )
-                localDataService.enqueueSyncOperation(updatedOp)
-                updated++
-            }
-        }
-
-        return updated
-    }
+    private fun OfflineSyncQueueEntity.withPayload(payload: Any): OfflineSyncQueueEntity =
+        copy(payload = SyncPayloadCodec.encode(payload))
 
     companion object {
         private const val TAG = "IdRemapService"
@@ -0,0 +1,172 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import android.util.Log
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.model.offline.UpdatedRecord
+import com.example.rocketplan_android.data.model.offline.UpdatedRecordsResponse
+import java.util.Date
+
+private const val MAX_TARGETED_PHOTO_ROOMS = 5
+
+/**
+ * Narrowest refreshes that cover one local project's changes.
+ *
+ * [metadata] already re-pulls notes and per-room moisture logs, and [allRoomPhotos] already
+ * covers individual rooms and project-level photos, so [normalized] drops the finer entries
+ * those imply.
+ */
+data class ProjectPullPlan(
+    val projectId: Long,
+    /** Rooms or locations changed: project essentials. */
+    val rooms: Boolean = false,
+    val metadata: Boolean = false,
+    val notes: Boolean = false,
+    val allRoomPhotos: Boolean = false,
+    /** Server room ids once planned. */
+    val photoRoomIds: Set<Long> = emptySet(),
+    val projectPhotos: Boolean = false,
+    /** Server room ids once planned. */
+    val moistureRoomIds: Set<Long> = emptySet()
+) {
+    fun normalized(): ProjectPullPlan {
+        val allPhotos = allRoomPhotos || photoRoomIds.size > MAX_TARGETED_PHOTO_ROOMS
+        return copy(
+            notes = notes && !metadata,
+            moistureRoomIds = if (metadata) emptySet() else moistureRoomIds,
+            allRoomPhotos = allPhotos,
+            photoRoomIds = if (allPhotos) emptySet() else photoRoomIds,
+            projectPhotos = projectPhotos && !allPhotos
+        )
+    }
+}
+
+data class IncrementalPullPlan(
+    val projects: List<ProjectPullPlan>,
+    /** Changed projects (server ids) that still need the broad project resync. */
+    val broadResyncProjectServerIds: Set<Long>,
+    /** Updated records that couldn't be placed under a local project. */
+    val unresolvedRecords: Int,
+    /** Server time of the response; the checkpoint to commit once the planned pulls succeeded. */
+    val serverTime: Date? = null
+)
+
+/**
+ * Turns an /api/sync/updated response into per-project [ProjectPullPlan]s.
+ *
+ * The response only carries ids and `updated_at`, so each record is placed through the local
+ * row with the same server id. Records that can't be placed (created elsewhere and not pulled
+ * yet, or types without a local parent lookup) mean some project changed in a way we can't see,
+ * so every changed project then falls back to the broad resync. Likewise when the response hit
+ * its limit and may be incomplete.
+ */
+class IncrementalPullPlanner(
+    private val localDataService: LocalDataService
+) {
+    suspend fun plan(updates: UpdatedRecordsResponse, truncated: Boolean = false): IncrementalPullPlan {
+        val changedProjectServerIds = updates.projects.map { it.id }.toSet()
+        if (truncated) {
+            Log.w(TAG, "⚠️ [plan] Updated records truncated; broad resync for ${changedProjectServerIds.size} projects")
+            return IncrementalPullPlan(emptyList(), changedProjectServerIds, unresolvedRecords = 0)
+        }
+
+        val plans = LinkedHashMap<Long, ProjectPullPlan>()
+        fun update(projectId: Long, change: (ProjectPullPlan) -> ProjectPullPlan) {
+            plans[projectId] = change(plans[projectId] ?: ProjectPullPlan(projectId))
+        }
+
+        var unresolved = 0
+        suspend fun <E> place(
+            records: List<UpdatedRecord>,
+            lookup: suspend (List<Long>) -> List<E>,
+            serverIdOf: (E) -> Long?,
+            onFound: (E) -> Unit
+        ) {
+            val ids = records.map { it.id }.distinct()
+            if (ids.isEmpty()) return
+            val found = lookup(ids)
+            unresolved += ids.size - found.mapNotNull(serverIdOf).distinct().size
+            found.forEach(onFound)
+        }
+
+        place(updates.rooms, localDataService::getRoomsByServerIds, { it.serverId }) { room ->
+            update(room.projectId) { it.copy(rooms = true) }
+        }
+        place(updates.locations, localDataService::getLocationsByServerIds, { it.serverId }) { location ->
+            update(location.projectId) { it.copy(rooms = true) }
+        }
+        place(updates.notes, localDataService::getNotesByServerIds, { it.serverId }) { note ->
+            update(note.projectId) { it.copy(notes = true) }
+        }
+        place(updates.photos, localDataService::getPhotosByServerIds, { it.serverId }) { photo ->
+            val roomId = photo.roomId
+            update(photo.projectId) {
+                if (roomId != null) it.copy(photoRoomIds = it.photoRoomIds + roomId) else it.copy(projectPhotos = true)
+            }
+        }
+        place(updates.equipment, localDataService::getEquipmentByServerIds, { it.serverId }) { equipment ->
+            update(equipment.projectId) { it.copy(metadata = true) }
+        }
+        place(updates.atmosphericLogs, localDataService::getAtmosphericLogsByServerIds, { it.serverId }) { log ->
+            update(log.projectId) { it.copy(metadata = true) }
+        }
+        place(updates.moistureLogs, localDataService::getMoistureLogsByServerIds, { it.serverId }) { log ->
+            update(log.projectId) { it.copy(moistureRoomIds = it.moistureRoomIds + log.roomId) }
+        }
+        // No local parent lookup for these; they count against placement.
+        unresolved += listOf(
+            updates.damageMaterials,
+            updates.damageMaterialRoomLogs,
+            updates.workScopeActions,
+            updates.claims
+        ).sumOf { records -> records.map { it.id }.distinct().size }
+
+        val serverIdByProjectId = localDataService.getAllProjects()
+            .filter { it.serverId != null && !it.isDeleted }
+            .associate { it.projectId to it.serverId!! }
+        val localChangedProjects = serverIdByProjectId.filterValues { it in changedProjectServerIds }.keys
+
+        val broad = if (unresolved > 0) {
+            changedProjectServerIds
+        } else {
+            // Projects not stored locally yet are created by the list sync and need the broad pass.
+            changedProjectServerIds - serverIdByProjectId.values.toSet()
+        }
+        if (unresolved == 0) {
+            // The project row itself changed; the list sync refreshes it, essentials pick up the rest.
+            localChangedProjects.filterNot(plans::containsKey).forEach { projectId ->
+                update(projectId) { it.copy(rooms = true) }
+            }
+        }
+
+        // Room-level pulls are addressed by server room id. Rows store the room's local id, or its
+        // server id where they were written from a server response; rooms not on the server yet
+        // have nothing to pull.
+        val serverRoomIds = HashMap<Long, Long?>()
+        suspend fun toServerRoomIds(roomKeys: Set<Long>): Set<Long> = roomKeys.mapNotNull { roomKey ->
+            if (!serverRoomIds.containsKey(roomKey)) {
+                val room = localDataService.getRoom(roomKey) ?: localDataService.getRoomByServerId(roomKey)
+                serverRoomIds[roomKey] = room?.serverId
+            }
+            serverRoomIds[roomKey]
+        }.toSet()
+
+        val projectPlans = plans.values
+            .filter { plan -> serverIdByProjectId[plan.projectId]?.let { it !in broad } == true }
+            .map { plan ->
+                plan.copy(
+                    photoRoomIds = toServerRoomIds(plan.photoRoomIds),
+                    moistureRoomIds = toServerRoomIds(plan.moistureRoomIds)
+                ).normalized()
+            }
+
+        Log.d(
+            TAG,
+            "📋 [plan] ${projectPlans.size} targeted project plans, ${broad.size} broad resyncs, $unresolved unresolved records"
+        )
+        return IncrementalPullPlan(projectPlans, broad, unresolved)
+    }
+
+    companion object {
+        private const val TAG = "API"
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import com.example.rocketplan_android.data.model.offline.PaginatedResponse
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+
+// Pages fetched ahead of the one being consumed. Requests still pass through the shared
+// AdaptiveConcurrencyLimiter, so this only bounds how much one walk buffers in memory.
+internal const val DEFAULT_PAGE_PREFETCH = 3
+
+/**
+ * Walks a paginated endpoint with a bounded prefetch window.
+ *
+ * Page 1 is fetched alone to learn the page count. Pages 2..last are then fetched with up to
+ * [prefetch] requests in flight while earlier pages are handed to [consume], strictly in page
+ * order. A new fetch starts only when [consume] takes a page, so a slow consumer (parsing,
+ * persisting) holds at most [prefetch] pages in memory instead of the whole listing.
+ *
+ * Like the sequential loops this replaces, an empty page ends the walk; fetches already in flight
+ * past it are cancelled. A failed fetch or consume cancels the outstanding fetches and is rethrown.
+ */
+internal suspend fun <P> pipelinePages(
+    prefetch: Int = DEFAULT_PAGE_PREFETCH,
+    fetch: suspend (page: Int) -> P,
+    lastPage: (firstPage: P) -> Int,
+    isEmpty: (P) -> Boolean,
+    consume: suspend (page: Int, response: P) -> Unit
+) {
+    require(prefetch >= 1) { "prefetch must be at least 1" }
+
+    val first = fetch(1)
+    val last = lastPage(first)
+    if (last <= 1 || isEmpty(first)) {
+        consume(1, first)
+        return
+    }
+
+    coroutineScope {
+        val inFlight = ArrayDeque<Pair<Int, Deferred<P>>>()
+        var nextPage = 2
+        fun launchNext() {
+            val page = nextPage++
+            inFlight.addLast(page to async { fetch(page) })
+        }
+
+        while (nextPage <= last && inFlight.size < prefetch) launchNext()
+        consume(1, first)
+
+        while (inFlight.isNotEmpty()) {
+            val (page, pending) = inFlight.removeFirst()
+            val response = pending.await()
+            if (isEmpty(response)) {
+                inFlight.forEach { (_, rest) -> rest.cancel() }
+                consume(page, response)
+                break
+            }
+            if (nextPage <= last) launchNext()
+            consume(page, response)
+        }
+    }
+}
+
+/**
+ * Fetches every page of a [PaginatedResponse] listing through [pipelinePages] and returns the
+ * items in page order.
+ */
+internal suspend fun <T> fetchAllPages(
+    prefetch: Int = DEFAULT_PAGE_PREFETCH,
+    fetch: suspend (page: Int) -> PaginatedResponse<T>
+): List<T> {
+    val results = mutableListOf<T>()
+    pipelinePages(
+        prefetch = prefetch,
+        fetch = fetch,
+        lastPage = { it.meta?.lastPage ?: it.meta?.currentPage ?: 1 },
+        isEmpty = { it.data.isEmpty() }
+    ) { _, response ->
+        results += response.data
+    }
+    return results
+}
@@ -0,0 +1,139 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import android.util.Log
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+
+/**
+ * Position of a queued operation in the project → property → location → room hierarchy.
+ *
+ * Example paths:
+ * - project / property operation: `[project:12]`
+ * - location operation: `[project:12, location:4]`
+ * - room, or a note/equipment/log scoped to that room: `[project:12, location:4, room:88]`
+ *
+ * Two operations are related when one path is a prefix of the other. Related operations
+ * must run in queue order; unrelated operations (e.g. two rooms in the same project, or two
+ * different projects) can be pushed concurrently.
+ */
+data class OperationLineage(val path: List<String>) {
+    val key: String = path.joinToString("/")
+
+    fun isRelatedTo(other: OperationLineage): Boolean =
+        path.startsWith(other.path) || other.path.startsWith(path)
+
+    private fun List<String>.startsWith(prefix: List<String>): Boolean =
+        size >= prefix.size && prefix.indices.all { this[it] == prefix[it] }
+
+    override fun toString(): String = key
+
+    companion object {
+        fun of(vararg segments: String?): OperationLineage = OperationLineage(segments.filterNotNull())
+    }
+}
+
+/**
+ * An operation with the indices (into the planned list) of the operations it must wait for.
+ * [T] is the queue row or a lighter projection of it (see [PendingOperationExecutor.executeWindowed]).
+ */
+data class PlannedOperation<T>(
+    val operation: T,
+    val lineage: OperationLineage,
+    val dependsOn: List<Int>
+)
+
+/**
+ * Executes pending sync queue operations in parallel while preserving parent/child ordering.
+ *
+ * Operations arrive in queue order (priority, then createdAt). [plan] links each operation to
+ * the most recent earlier operation on every related lineage, so a room CREATE always finishes
+ * before the notes queued for that room, while rooms in other locations or projects proceed
+ * independently. [execute] starts each operation as soon as its dependencies finish, bounded by
+ * [maxConcurrency] in-flight operations.
+ *
+ * A failed or skipped parent does not cancel its children: they still run and resolve their own
+ * outcome (typically SKIP while the parent has no server ID), matching the serial behaviour.
+ *
+ * Large queues are planned from payload-free headers and run through [executeWindowed], so only
+ * one window of payloads is in memory at a time.
+ */
+class PendingOperationExecutor(
+    private val maxConcurrency: Int,
+    private val tag: String = TAG
+) {
+    init {
+        require(maxConcurrency > 0) { "maxConcurrency must be positive" }
+    }
+
+    fun <T> plan(operations: List<Pair<T, OperationLineage>>): List<PlannedOperation<T>> {
+        val latestByLineage = LinkedHashMap<String, Pair<OperationLineage, Int>>()
+        return operations.mapIndexed { index, (operation, lineage) ->
+            val dependsOn = latestByLineage.values
+                .filter { (other, _) -> other.isRelatedTo(lineage) }
+                .map { (_, otherIndex) -> otherIndex }
+                .sorted()
+            latestByLineage[lineage.key] = lineage to index
+            PlannedOperation(operation, lineage, dependsOn)
+        }
+    }
+
+    suspend fun <T> execute(
+        planned: List<PlannedOperation<T>>,
+        block: suspend (T) -> Unit
+    ) {
+        if (planned.isEmpty()) return
+        val chains = planned.count { it.dependsOn.isEmpty() }
+        Log.d(tag, "🧵 Executing ${planned.size} operations across $chains independent chains (max $maxConcurrency in flight)")
+
+        val permits = Semaphore(maxConcurrency)
+        val finished = List(planned.size) { CompletableDeferred<Unit>() }
+        coroutineScope {
+            planned.forEachIndexed { index, item ->
+                launch {
+                    try {
+                        item.dependsOn.forEach { finished[it].await() }
+                        permits.withPermit { block(item.operation) }
+                    } finally {
+                        finished[index].complete(Unit)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs [planned] in consecutive windows of [windowSize], materialising each window with [load]
+     * just before it starts. Dependencies always point to earlier operations, so once a window
+     * has finished every cross-window dependency of the next one is satisfied. [load] returns one
+     * entry per requested operation, or null for an operation that no longer exists; null
+     * entries are skipped but still release their dependents.
+     */
+    suspend fun <T, R : Any> executeWindowed(
+        planned: List<PlannedOperation<T>>,
+        windowSize: Int,
+        load: suspend (List<T>) -> List<R?>,
+        block: suspend (R) -> Unit
+    ) {
+        require(windowSize > 0) { "windowSize must be positive" }
+        planned.chunked(windowSize).forEachIndexed { windowIndex, window ->
+            val offset = windowIndex * windowSize
+            val loaded = load(window.map { it.operation })
+            check(loaded.size == window.size) { "load must return one entry per operation" }
+            val localPlan = window.mapIndexed { index, item ->
+                PlannedOperation(
+                    operation = loaded[index],
+                    lineage = item.lineage,
+                    dependsOn = item.dependsOn.filter { it >= offset }.map { it - offset }
+                )
+            }
+            execute(localPlan) { operation -> operation?.let { block(it) } }
+        }
+    }
+
+    companion object {
+        private const val TAG = "API"
+    }
+}
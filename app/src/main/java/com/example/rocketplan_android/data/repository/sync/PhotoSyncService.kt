@@ -1,15 +1,18 @@
 package com.example.rocketplan_android.data.repository.sync
 
 import android.util.Log
+import com.example.rocketplan_android.data.api.NotModifiedException
 import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.entity.OfflineAlbumEntity
 import com.example.rocketplan_android.data.local.entity.OfflineAlbumPhotoEntity
 import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
-import com.example.rocketplan_android.data.model.offline.PaginatedResponse
 import com.example.rocketplan_android.data.model.offline.PaginationMeta
 import com.example.rocketplan_android.data.model.offline.PhotoDto
 import com.example.rocketplan_android.data.model.offline.RoomPhotoDto
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.network.HttpValidatorStore
+import com.example.rocketplan_android.data.network.SingleFlight
 import com.example.rocketplan_android.data.repository.SyncResult
 import com.example.rocketplan_android.data.repository.SyncSegment
 import com.example.rocketplan_android.data.repository.mapper.latestTimestamp
@@ -28,14 +31,20 @@ import com.google.gson.JsonElement
 import com.google.gson.JsonObject
 import com.google.gson.reflect.TypeToken
 import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.withContext
+import java.util.Collections
+import java.util.Date
 
 // API include parameter for room photo requests - fetches related data in single call
 private const val ROOM_PHOTO_INCLUDE = "photo,albums,notes_count,creator"
@@ -43,6 +52,15 @@ private const val ROOM_PHOTO_INCLUDE = "photo,albums,notes_count,creator"
 // Pagination limits - balance between network efficiency and memory usage
 private const val ROOM_PHOTO_PAGE_LIMIT = 30
 
+// A room photo sync that started this recently is reused instead of refetched
+private const val ROOM_PHOTOS_FRESH_MS = 3_000L
+
+// Remembered room listing page counts; the least recently used are dropped beyond this
+private const val MAX_ROOM_PHOTO_PAGE_COUNTS = 512
+
+// Endpoint path whose conditional-request validators are dropped when a room walk fails
+private fun roomPhotosPath(roomId: Long) = "/api/rooms/$roomId/photos"
+
 // Checkpoint key functions for incremental sync
 private fun roomPhotosKey(roomId: Long) = "room_photos_$roomId"
 private fun floorPhotosKey(projectId: Long) = "project_floor_photos_$projectId"
@@ -61,21 +79,42 @@ class PhotoSyncService(
     private val syncCheckpointStore: SyncCheckpointStore,
     private val photoCacheScheduler: PhotoCacheScheduler,
     private val remoteLogger: RemoteLogger? = null,
-    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter,
+    private val singleFlight: SingleFlight = SingleFlight(),
+    private val roomScheduler: RoomPhotoSyncScheduler = RoomPhotoSyncScheduler(),
+    private val httpValidators: HttpValidatorStore? = null
 ) {
     private val gson = Gson()
     private val roomPhotoListType = object : TypeToken<List<RoomPhotoDto>>() {}.type
 
+    // Page count of the last parsed first page per room listing, so a walk whose first page comes
+    // back 304 (no body, no meta) still knows which later pages to revalidate. Only meaningful
+    // while the page's validator is stored, so it is bounded and cleared along with the validators.
+    private val roomPhotoPageCounts: MutableMap<String, Int> = Collections.synchronizedMap(
+        object : LinkedHashMap<String, Int>(16, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Int>?): Boolean =
+                size > MAX_ROOM_PHOTO_PAGE_COUNTS
+        }
+    )
+
+    init {
+        httpValidators?.addOnClearListener { roomPhotoPageCounts.clear() }
+    }
+
     private data class RoomPhotoPageResult(
         val photos: List<PhotoDto>,
-        val hasMore: Boolean,
-        val nextPage: Int?
+        val lastPage: Int,
+        val notModified: Boolean = false
     )
 
     /**
      * Syncs photos for all rooms in a project.
      * Fetches room list from database and syncs photos for each room in parallel.
      * Matches iOS DispatchGroup pattern for concurrent room photo fetching.
+     *
+     * Rooms the UI currently shows (see [RoomPhotoSyncScheduler]) are started first; the rest run
+     * as background work that pauses between pages while a foreground room is syncing.
      */
     suspend fun syncAllRoomPhotos(
         projectId: Long,
@@ -105,11 +144,8 @@ class PhotoSyncService(
         var lastFailedRoomId: Long? = null
         var attempt = 0
         while (true) {
-            val results = coroutineScope {
-                pendingRoomIds.map { roomId ->
-                    async { roomId to syncRoomPhotos(projectId, roomId) }
-                }.awaitAll()
-            }
+            // Bounded by the shared API limiter so large projects don't flood the backend.
+            val results = syncRoomsByPriority(projectId, pendingRoomIds)
 
             val stillFailed = mutableListOf<Long>()
             for ((roomId, result) in results) {
@@ -174,9 +210,40 @@ class PhotoSyncService(
         )
     }
 
+    /**
+     * Runs [syncRoomPhotos] for [roomIds] with at most `concurrencyLimiter.limit` rooms in flight.
+     * The next room is chosen when a slot frees up rather than upfront, so a room opened mid-backfill
+     * is started next instead of waiting behind every room listed before it.
+     */
+    private suspend fun syncRoomsByPriority(
+        projectId: Long,
+        roomIds: List<Long>
+    ): List<Pair<Long, SyncResult>> = coroutineScope {
+        val pending = LinkedHashSet(roomIds)
+        val running = MutableStateFlow(0)
+        val syncs = ArrayList<Deferred<Pair<Long, SyncResult>>>(roomIds.size)
+        while (pending.isNotEmpty()) {
+            combine(running, concurrencyLimiter.limit) { active, allowed -> active < allowed }.first { it }
+            val roomId = roomScheduler.nextRoom(pending) ?: break
+            pending.remove(roomId)
+            running.update { it + 1 }
+            syncs += async {
+                try {
+                    roomId to roomScheduler.backfill(roomId) { syncRoomPhotos(projectId, roomId) }
+                } finally {
+                    running.update { it - 1 }
+                }
+            }
+        }
+        syncs.awaitAll()
+    }
+
     /**
      * Syncs photos for a single room. Returns SyncResult for composability.
      *
+     * Unless called from a backfill ([RoomPhotoSyncScheduler.backfill]), this counts as a foreground
+     * sync and background room walks hold between pages until it completes.
+     *
      * @param source Optional caller identifier for telemetry (e.g., "RoomDetailFragment")
      * @param excludedPhotoServerIds Server IDs of photos pending local deletion to skip during sync
      */
@@ -187,12 +254,46 @@ class PhotoSyncService(
         source: String? = null,
         excludedPhotoServerIds: Set<Long> = emptySet()
     ): SyncResult = withContext(ioDispatcher) {
+        val checkpointKey = roomPhotosKey(roomId)
+        val updatedSince = if (ignoreCheckpoint) null else syncCheckpointStore.updatedSinceParam(checkpointKey)
+        // UI refreshes, Pusher-driven syncs and background project syncs often ask for the same
+        // room at once; share one fetch (and one DB write) between them. Incremental callers all
+        // read the same checkpoint, so the key is the fetch mode rather than the `since` value.
+        val mode = if (ignoreCheckpoint) "full" else "incremental"
+        val flightKey = "rooms/$roomId/photos?mode=$mode" +
+            "&excluded=${excludedPhotoServerIds.sorted().joinToString(",")}"
+        val fetch: suspend () -> SyncResult = {
+            singleFlight.execute(flightKey, freshForMs = ROOM_PHOTOS_FRESH_MS, reuseResult = { it.success }) {
+                fetchAndPersistRoomPhotos(projectId, roomId, ignoreCheckpoint, updatedSince, source, excludedPhotoServerIds)
+            }
+        }
+        if (roomScheduler.isBackground()) fetch() else roomScheduler.foreground(roomId, fetch)
+    }
+
+    /** Reports the rooms [source] shows so their photo syncs are started and served first. */
+    fun setVisibleRooms(source: String, roomIds: Collection<Long>) =
+        roomScheduler.setVisibleRooms(source, roomIds)
+
+    /** Server ids of the rooms on screen, most recently reported first. */
+    fun visibleRoomIds(): Set<Long> = roomScheduler.visibleRoomIds()
+
+    /** Runs [block] as a room photo backfill for [roomId]; see [RoomPhotoSyncScheduler.backfill]. */
+    suspend fun <T> backfillRoom(roomId: Long, block: suspend () -> T): T =
+        roomScheduler.backfill(roomId, block)
+
+    private suspend fun fetchAndPersistRoomPhotos(
+        projectId: Long,
+        roomId: Long,
+        ignoreCheckpoint: Boolean,
+        updatedSince: String?,
+        source: String?,
+        excludedPhotoServerIds: Set<Long>
+    ): SyncResult {
         val startTime = System.currentTimeMillis()
         val checkpointKey = roomPhotosKey(roomId)
         val checkpointValue = syncCheckpointStore.getCheckpoint(checkpointKey)
             ?.let { DateUtils.formatApiDate(it) }
             ?: "none"
-        val updatedSince = if (ignoreCheckpoint) null else syncCheckpointStore.updatedSinceParam(checkpointKey)
         if (ignoreCheckpoint) {
             Log.d(
                 TAG,
@@ -213,43 +314,63 @@ class PhotoSyncService(
             )
         }
 
-        val photos = runCatching {
+        // Pages are persisted in order as they arrive while the next ones download. The checkpoint
+        // only moves once every page is committed, so an interrupted walk resumes from the old
+        // cursor and re-applies the (idempotent) pages it already saved.
+        var photoCount = 0
+        var savedAny = false
+        var latest: Date? = null
+        // A full sync is a recovery path for rooms missing local photos; never let it be answered
+        // with "unchanged".
+        if (updatedSince == null) httpValidators?.forget(roomPhotosPath(roomId))
+        runCatching {
             fetchRoomPhotoPages(
                 roomId = roomId,
                 projectId = projectId,
                 updatedSince = updatedSince
-            )
+            ) { photos ->
+                photoCount += photos.size
+                photos.latestTimestamp { it.serverBackedTimestamp() }
+                    ?.let { pageLatest -> latest = latest?.takeIf { it >= pageLatest } ?: pageLatest }
+                val saved = localDataService.runInTransaction {
+                    persistPhotos(photos, defaultRoomId = roomId, defaultProjectId = projectId, excludedPhotoServerIds = excludedPhotoServerIds, preserveDirty = true)
+                }
+                savedAny = savedAny || saved
+            }
+        }.onSuccess {
+            latest?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
         }.onFailure { error ->
             if (error is retrofit2.HttpException && error.code() == 404) {
                 Log.d(TAG, "INFO [syncRoomPhotos] Room $roomId has no photos (404)")
             } else {
                 Log.e(TAG, "❌ [syncRoomPhotos] Failed to fetch photos for room $roomId", error)
+                // Pages fetched but not committed must be downloaded again, not answered with a 304.
+                httpValidators?.forget(roomPhotosPath(roomId))
+                if (savedAny) photoCacheScheduler.schedulePrefetch()
                 val duration = System.currentTimeMillis() - startTime
                 val failureResult = SyncResult.failure(SyncSegment.ROOM_PHOTOS, error, duration)
                 logSegmentTelemetry(failureResult, projectId, roomId, source)
-                return@withContext failureResult
+                return failureResult
             }
-        }.getOrElse { emptyList() }
+        }
 
-        if (photos.isEmpty()) {
+        if (photoCount == 0) {
             Log.d(TAG, "ℹ️ [syncRoomPhotos] No photos returned for room $roomId")
             val duration = System.currentTimeMillis() - startTime
             val emptyResult = SyncResult.success(SyncSegment.ROOM_PHOTOS, 0, duration)
             logSegmentTelemetry(emptyResult, projectId, roomId, source)
-            return@withContext emptyResult
+            return emptyResult
         }
 
-        if (persistPhotos(photos, defaultRoomId = roomId, defaultProjectId = projectId, excludedPhotoServerIds = excludedPhotoServerIds, preserveDirty = true)) {
-            Log.d(TAG, "💾 [syncRoomPhotos] Saved ${photos.size} photos for room $roomId")
+        if (savedAny) {
+            Log.d(TAG, "💾 [syncRoomPhotos] Saved $photoCount photos for room $roomId")
             photoCacheScheduler.schedulePrefetch()
         }
-        photos.latestTimestamp { it.serverBackedTimestamp() }
-            ?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
 
         val duration = System.currentTimeMillis() - startTime
-        val result = SyncResult.success(SyncSegment.ROOM_PHOTOS, photos.size, duration)
+        val result = SyncResult.success(SyncSegment.ROOM_PHOTOS, photoCount, duration)
         logSegmentTelemetry(result, projectId, roomId, source)
-        result
+        return result
     }
 
     private fun logSegmentTelemetry(result: SyncResult, projectId: Long, roomId: Long?, source: String?) {
@@ -303,8 +424,11 @@ class PhotoSyncService(
         var totalPhotos = 0
         var failedCount = 0
 
+        val checkpoints = syncCheckpointStore.getProjectCheckpoints(projectId)
+        fun sinceParam(key: String) = checkpoints[key]?.let { DateUtils.formatApiDate(it) }
+
         val floorKey = floorPhotosKey(projectId)
-        val floorSince = syncCheckpointStore.updatedSinceParam(floorKey)
+        val floorSince = sinceParam(floorKey)
         // Floor photos
         runCatching {
             fetchAllPages { page ->
@@ -312,12 +436,10 @@ class PhotoSyncService(
             }
                 .map { it.toPhotoDto(projectId) }
         }.onSuccess { photos ->
-            if (persistPhotos(photos, preserveDirty = true)) {
+            if (persistPhotosWithCheckpoint(photos, floorKey)) {
                 totalPhotos += photos.size
                 Log.d(TAG, "📸 [syncProjectLevelPhotos] Saved ${photos.size} floor photos")
             }
-            photos.latestTimestamp { it.updatedAt }
-                ?.let { syncCheckpointStore.updateCheckpoint(floorKey, it) }
         }.onFailure { error ->
             failedCount++
             Log.e(TAG, "❌ [syncProjectLevelPhotos] Failed to fetch floor photos", error)
@@ -326,19 +448,17 @@ class PhotoSyncService(
 
         // Location photos (THE SLOW ONE that was blocking room loading)
         val locationKey = locationPhotosKey(projectId)
-        val locationSince = syncCheckpointStore.updatedSinceParam(locationKey)
+        val locationSince = sinceParam(locationKey)
         runCatching {
             fetchAllPages { page ->
                 api.getProjectLocationPhotos(serverProjectId, page, updatedSince = locationSince)
             }
                 .map { it.toPhotoDto(projectId) }
         }.onSuccess { photos ->
-            if (persistPhotos(photos, preserveDirty = true)) {
+            if (persistPhotosWithCheckpoint(photos, locationKey)) {
                 totalPhotos += photos.size
                 Log.d(TAG, "📸 [syncProjectLevelPhotos] Saved ${photos.size} location photos")
             }
-            photos.latestTimestamp { it.updatedAt }
-                ?.let { syncCheckpointStore.updateCheckpoint(locationKey, it) }
         }.onFailure { error ->
             failedCount++
             Log.e(TAG, "❌ [syncProjectLevelPhotos] Failed to fetch location photos", error)
@@ -347,19 +467,17 @@ class PhotoSyncService(
 
         // Unit photos
         val unitKey = unitPhotosKey(projectId)
-        val unitSince = syncCheckpointStore.updatedSinceParam(unitKey)
+        val unitSince = sinceParam(unitKey)
         runCatching {
             fetchAllPages { page ->
                 api.getProjectUnitPhotos(serverProjectId, page, updatedSince = unitSince)
             }
                 .map { it.toPhotoDto(projectId) }
         }.onSuccess { photos ->
-            if (persistPhotos(photos, preserveDirty = true)) {
+            if (persistPhotosWithCheckpoint(photos, unitKey)) {
                 totalPhotos += photos.size
                 Log.d(TAG, "📸 [syncProjectLevelPhotos] Saved ${photos.size} unit photos")
             }
-            photos.latestTimestamp { it.updatedAt }
-                ?.let { syncCheckpointStore.updateCheckpoint(unitKey, it) }
         }.onFailure { error ->
             failedCount++
             Log.e(TAG, "❌ [syncProjectLevelPhotos] Failed to fetch unit photos", error)
@@ -384,36 +502,19 @@ class PhotoSyncService(
     }
 
     /**
-     * Fetches all pages of a paginated API response.
+     * Streams a room's photo pages to [onPage] in page order. Parsing happens on the fetching
+     * coroutine, so later pages are downloaded and decoded while [onPage] persists earlier ones.
+     *
+     * Pages answered with a 304 ([NotModifiedException]) are neither parsed nor passed to [onPage].
      */
-    internal suspend fun <T> fetchAllPages(
-        fetch: suspend (page: Int) -> PaginatedResponse<T>
-    ): List<T> {
-        val results = mutableListOf<T>()
-        var page = 1
-        while (true) {
-            val response = fetch(page)
-            results += response.data
-            val current = response.meta?.currentPage ?: page
-            val last = response.meta?.lastPage ?: current
-            val hasMore = current < last && response.data.isNotEmpty()
-            if (!hasMore) {
-                break
-            }
-            page = current + 1
-        }
-        return results
-    }
-
     private suspend fun fetchRoomPhotoPages(
         roomId: Long,
         projectId: Long,
-        updatedSince: String?
-    ): List<PhotoDto> {
-        val collected = mutableListOf<PhotoDto>()
-        var page = 1
-
-        while (true) {
+        updatedSince: String?,
+        onPage: suspend (photos: List<PhotoDto>) -> Unit
+    ) {
+        val listingKey = "$roomId?since=${updatedSince.orEmpty()}"
+        suspend fun fetchPage(page: Int): RoomPhotoPageResult {
             val json = api.getRoomPhotos(
                 roomId = roomId,
                 page = page,
@@ -421,20 +522,38 @@ class PhotoSyncService(
                 include = ROOM_PHOTO_INCLUDE,
                 updatedSince = updatedSince
             )
-
-            val parsed = parseRoomPhotoResponse(json, projectId, roomId)
-            collected += parsed.photos
-
-            if (!parsed.hasMore || parsed.nextPage == null || parsed.photos.isEmpty()) {
-                break
-            }
-            if (parsed.nextPage == page) {
-                break
-            }
-            page = parsed.nextPage
+            return parseRoomPhotoResponse(json, projectId, roomId)
+                .also { if (page == 1) roomPhotoPageCounts[listingKey] = it.lastPage }
         }
 
-        return collected
+        var unchangedPages = 0
+        pipelinePages(
+            fetch = { page ->
+                // Page 1 always goes out so the room shows something; later pages of a background
+                // backfill yield to foreground rooms here.
+                if (page > 1) roomScheduler.awaitPageTurn(roomId)
+                try {
+                    fetchPage(page)
+                } catch (e: NotModifiedException) {
+                    val lastPage = if (page == 1) roomPhotoPageCounts[listingKey] else 0
+                    if (page == 1 && lastPage == null) {
+                        // Validator outlived the page count we need to walk on; fetch in full.
+                        httpValidators?.forget(roomPhotosPath(roomId))
+                        fetchPage(page)
+                    } else {
+                        RoomPhotoPageResult(photos = emptyList(), lastPage = lastPage ?: 0, notModified = true)
+                    }
+                }
+            },
+            lastPage = { it.lastPage },
+            isEmpty = { it.photos.isEmpty() && !it.notModified }
+        ) { _, parsed ->
+            if (parsed.notModified) unchangedPages++
+            if (parsed.photos.isNotEmpty()) onPage(parsed.photos)
+        }
+        if (unchangedPages > 0) {
+            Log.d(TAG, "♻️ [syncRoomPhotos] $unchangedPages unchanged page(s) for room $roomId skipped (304)")
+        }
     }
 
     private fun parseRoomPhotoResponse(
@@ -477,13 +596,10 @@ class PhotoSyncService(
 
         val current = currentFromMeta ?: currentFromData ?: -1
         val last = lastFromMeta ?: lastFromData ?: current
-        val hasMore = current > 0 && last > current
-        val nextPage = if (hasMore) current + 1 else null
 
         return RoomPhotoPageResult(
             photos = photos,
-            hasMore = hasMore,
-            nextPage = nextPage
+            lastPage = if (current > 0) maxOf(last, current) else 1
         )
     }
 
@@ -498,18 +614,18 @@ class PhotoSyncService(
             return false
         }
 
+        // Resolve the whole page with set-based lookups instead of one query per photo: existing
+        // rows by server id, then local placeholders per room by file name.
+        val incoming = photos.filterNot { it.id in excludedPhotoServerIds }
+        val skippedPendingDeletionCount = photos.size - incoming.size
+        val existingByServerId = localDataService.getPhotosByServerIds(incoming.map { it.id }.distinct())
+            .associateBy { it.serverId }
+
         val entities = mutableListOf<OfflinePhotoEntity>()
+        val placeholderNamesByRoom = mutableMapOf<Pair<Long, Long>, MutableSet<String>>()
         var mismatchCount = 0
-        var skippedPendingDeletionCount = 0
-        val roomsNeedingSnapshotRefresh = mutableMapOf<Long, Int>()
-        for (photo in photos) {
-            // Skip photos that are pending local deletion to avoid resurrecting them
-            if (photo.id in excludedPhotoServerIds) {
-                skippedPendingDeletionCount++
-                continue
-            }
-
-            val existing = localDataService.getPhotoByServerId(photo.id)
+        for (photo in incoming) {
+            val existing = existingByServerId[photo.id]
             val preservedRoom = existing?.roomId
 
             // Always use provided defaults to maintain sync context integrity
@@ -525,14 +641,9 @@ class PhotoSyncService(
                 Log.w(TAG, "⚠️ [persistPhotos] Photo ${photo.id} has roomId=${photo.roomId} but syncing for room $defaultRoomId - using $defaultRoomId")
             }
 
-            val resolvedFileName = photo.fileName ?: "photo_${photo.id}.jpg"
-            val removedCount = pruneLocalPlaceholderForIncomingPhoto(
-                projectId = resolvedProjectId,
-                roomId = resolvedRoomId,
-                fileName = resolvedFileName
-            )
-            if (removedCount > 0 && resolvedRoomId != null) {
-                roomsNeedingSnapshotRefresh.merge(resolvedRoomId, removedCount, Int::plus)
+            if (resolvedProjectId != null && resolvedRoomId != null) {
+                placeholderNamesByRoom.getOrPut(resolvedProjectId to resolvedRoomId) { mutableSetOf() } +=
+                    photo.fileName ?: "photo_${photo.id}.jpg"
             }
 
             entities += photo.toEntity(
@@ -549,8 +660,46 @@ class PhotoSyncService(
             Log.d(TAG, "🗑️ [persistPhotos] Skipped $skippedPendingDeletionCount photos pending local deletion")
         }
 
-        localDataService.savePhotos(entities, preserveDirty = preserveDirty)
+        val placeholdersRemovedByRoom = mutableMapOf<Long, Int>()
+        localDataService.runInTransaction {
+            placeholderNamesByRoom.forEach { (key, fileNames) ->
+                val (projectId, roomId) = key
+                val removed = localDataService.deleteLocalPendingRoomPhotos(projectId, roomId, fileNames)
+                if (removed > 0) {
+                    placeholdersRemovedByRoom.merge(roomId, removed, Int::plus)
+                    Log.d(
+                        TAG,
+                        "🧹 [persistPhotos] Removed $removed local pending photo(s) for roomId=$roomId " +
+                            "projectId=$projectId before applying server update"
+                    )
+                }
+            }
+
+            localDataService.savePhotos(entities, preserveDirty = preserveDirty)
+            saveAlbumsFromPhotos(photos, defaultRoomId, defaultProjectId)
+        }
+
+        if (placeholdersRemovedByRoom.isNotEmpty()) {
+            val totalRemoved = placeholdersRemovedByRoom.values.sum()
+            remoteLogger?.log(
+                level = LogLevel.INFO,
+                tag = "PhotoSyncService",
+                message = "Removed local pending placeholders before applying server photos",
+                metadata = mapOf(
+                    "total_removed" to totalRemoved.toString(),
+                    "rooms" to placeholdersRemovedByRoom.entries.joinToString { "${it.key}:${it.value}" }
+                )
+            )
+        }
 
+        return true
+    }
+
+    private suspend fun saveAlbumsFromPhotos(
+        photos: List<PhotoDto>,
+        defaultRoomId: Long?,
+        defaultProjectId: Long?
+    ) {
         // Extract and save albums from photos
         val albums = buildList<OfflineAlbumEntity> {
             photos.forEach { photo ->
@@ -588,57 +737,17 @@ class PhotoSyncService(
             localDataService.saveAlbumPhotos(albumPhotoRelationships)
             Log.d(TAG, "📸 [persistPhotos] Saved ${albumPhotoRelationships.size} album-photo relationships")
         }
-
-        roomsNeedingSnapshotRefresh.forEach { (roomId, _) ->
-            runCatching { localDataService.refreshRoomPhotoSnapshot(roomId) }
-                .onFailure {
-                    Log.w(TAG, "⚠️ [persistPhotos] Failed to refresh snapshot after placeholder cleanup for room $roomId", it)
-                    remoteLogger?.log(
-                        level = LogLevel.WARN,
-                        tag = "PhotoSyncService",
-                        message = "Failed to refresh snapshot after placeholder cleanup",
-                        metadata = mapOf(
-                            "room_id" to roomId.toString(),
-                            "error" to (it.message ?: "unknown")
-                        )
-                    )
-                }
-        }
-
-        if (roomsNeedingSnapshotRefresh.isNotEmpty()) {
-            val totalRemoved = roomsNeedingSnapshotRefresh.values.sum()
-            remoteLogger?.log(
-                level = LogLevel.INFO,
-                tag = "PhotoSyncService",
-                message = "Removed local pending placeholders before applying server photos",
-                metadata = mapOf(
-                    "total_removed" to totalRemoved.toString(),
-                    "rooms" to roomsNeedingSnapshotRefresh.entries.joinToString { "${it.key}:${it.value}" }
-                )
-            )
-        }
-
-        return true
     }
 
-    private suspend fun pruneLocalPlaceholderForIncomingPhoto(
-        projectId: Long?,
-        roomId: Long?,
-        fileName: String
-    ): Int {
-        if (projectId == null || roomId == null) return 0
-
-        val removed = localDataService.deleteLocalPendingRoomPhoto(projectId, roomId, fileName)
-        if (removed <= 0) return 0
-
-        Log.d(
-            TAG,
-            "🧹 [persistPhotos] Removed $removed local pending photo(s) named '$fileName' " +
-                "for roomId=$roomId projectId=$projectId before applying server update"
-        )
+    /** Saves one listing and advances its checkpoint in the same transaction. */
+    private suspend fun persistPhotosWithCheckpoint(photos: List<PhotoDto>, checkpointKey: String): Boolean =
+        localDataService.runInTransaction {
+            persistPhotos(photos, preserveDirty = true).also {
+                photos.latestTimestamp { it.updatedAt }
+                    ?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
+            }
+        }
 
-        return removed
-    }
 
     companion object {
         private const val TAG = "API"
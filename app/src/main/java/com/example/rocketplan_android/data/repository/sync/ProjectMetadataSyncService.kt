@@ -4,7 +4,7 @@ import android.util.Log
 import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.model.offline.MoistureLogDto
-import com.example.rocketplan_android.data.model.offline.PaginatedResponse
+import com.example.rocketplan_android.data.network.SingleFlight
 import com.example.rocketplan_android.data.repository.SyncResult
 import com.example.rocketplan_android.data.repository.SyncSegment
 import com.example.rocketplan_android.data.repository.mapper.latestTimestamp
@@ -22,6 +22,9 @@ import java.util.concurrent.atomic.AtomicInteger
 
 private const val NOTES_PAGE_LIMIT = 30
 
+// A metadata sync that started this recently is reused instead of refetched (Pusher bursts)
+private const val PROJECT_METADATA_FRESH_MS = 2_000L
+
 private fun projectNotesKey(projectId: Long) = "project_notes_$projectId"
 private fun projectDamagesKey(projectId: Long) = "project_damages_$projectId"
 private fun projectAtmosLogsKey(projectId: Long) = "project_atmos_logs_$projectId"
@@ -36,7 +39,8 @@ class ProjectMetadataSyncService(
     private val syncCheckpointStore: SyncCheckpointStore,
     private val workScopeSyncService: WorkScopeSyncService,
     private val resolveServerProjectId: suspend (Long) -> Long?,
-    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val singleFlight: SingleFlight = SingleFlight()
 ) {
     private val gson = Gson()
 
@@ -55,8 +59,71 @@ class ProjectMetadataSyncService(
      *              [room_moisture_1..N] ───────────┤
      *              [room_workscopes_1..N] ─────────┘
      * ```
+     *
+     * Concurrent calls for the same project (Pusher refreshes overlapping a queued project sync)
+     * share one run.
+     */
+    suspend fun syncProjectMetadata(projectId: Long): SyncResult =
+        singleFlight.execute(
+            key = "projects/$projectId/metadata",
+            freshForMs = PROJECT_METADATA_FRESH_MS,
+            reuseResult = { it.success }
+        ) {
+            fetchProjectMetadata(projectId)
+        }
+
+    /**
+     * Sync only the project's notes. Used for realtime note events, which don't need the
+     * equipment/damages/logs passes of [syncProjectMetadata].
      */
-    suspend fun syncProjectMetadata(projectId: Long): SyncResult = withContext(ioDispatcher) {
+    suspend fun syncProjectNotes(projectId: Long): SyncResult =
+        singleFlight.execute(
+            key = "projects/$projectId/notes",
+            freshForMs = PROJECT_METADATA_FRESH_MS,
+            reuseResult = { it.success }
+        ) {
+            withContext(ioDispatcher) {
+                val serverProjectId = resolveServerProjectId(projectId)
+                    ?: return@withContext SyncResult.failure(
+                        SyncSegment.PROJECT_METADATA,
+                        IllegalStateException("Project $projectId has not been synced to server"),
+                        0
+                    )
+                val startTime = System.currentTimeMillis()
+                runCatching { syncNotes(projectId, serverProjectId) }
+                    .fold(
+                        onSuccess = { count ->
+                            val duration = System.currentTimeMillis() - startTime
+                            Log.d(TAG, "[syncProjectNotes] Synced $count notes for project $projectId in ${duration}ms")
+                            SyncResult.success(SyncSegment.PROJECT_METADATA, count, duration)
+                        },
+                        onFailure = { error ->
+                            Log.e(TAG, "[syncProjectNotes] Failed for project $projectId", error)
+                            SyncResult.failure(
+                                SyncSegment.PROJECT_METADATA,
+                                error,
+                                System.currentTimeMillis() - startTime
+                            )
+                        }
+                    )
+            }
+        }
+
+    private suspend fun syncNotes(projectId: Long, serverProjectId: Long): Int {
+        val notesCheckpointKey = projectNotesKey(projectId)
+        val notesSince = syncCheckpointStore.updatedSinceParam(notesCheckpointKey)
+        val notes = fetchAllPages { page ->
+            api.getProjectNotes(serverProjectId, page, NOTES_PAGE_LIMIT, notesSince)
+        }
+        localDataService.runInTransaction {
+            localDataService.saveNotes(notes.mapNotNull { it.toEntity() }, preserveDirty = true)
+            notes.latestTimestamp { it.updatedAt }
+                ?.let { syncCheckpointStore.updateCheckpoint(notesCheckpointKey, it) }
+        }
+        return notes.size
+    }
+
+    private suspend fun fetchProjectMetadata(projectId: Long): SyncResult = withContext(ioDispatcher) {
         val serverProjectId = resolveServerProjectId(projectId)
             ?: return@withContext SyncResult.failure(
                 SyncSegment.PROJECT_METADATA,
@@ -76,18 +143,9 @@ class ProjectMetadataSyncService(
 
         // Notes (paginated, independent)
         queue.addItem("notes") {
-            val notesCheckpointKey = projectNotesKey(projectId)
-            val notesSince = syncCheckpointStore.updatedSinceParam(notesCheckpointKey)
-            runCatching {
-                fetchAllPages { page ->
-                    api.getProjectNotes(serverProjectId, page, NOTES_PAGE_LIMIT, notesSince)
-                }
-            }.onSuccess { notes ->
-                localDataService.saveNotes(notes.mapNotNull { it.toEntity() }, preserveDirty = true)
-                itemCount.addAndGet(notes.size)
-                notes.latestTimestamp { it.updatedAt }
-                    ?.let { syncCheckpointStore.updateCheckpoint(notesCheckpointKey, it) }
-            }.isSuccess
+            runCatching { syncNotes(projectId, serverProjectId) }
+                .onSuccess { itemCount.addAndGet(it) }
+                .isSuccess
         }
 
         // Equipment (single request, independent)
@@ -106,27 +164,29 @@ class ProjectMetadataSyncService(
             runCatching { api.getProjectAtmosphericLogs(serverProjectId, atmosSince) }
                 .onSuccess { response ->
                     val dtos = response.data
-                    localDataService.saveAtmosphericLogs(
-                        dtos.map {
-                            it.toEntity(
-                                defaultRoomId = null,
-                                defaultProjectId = projectId,
-                                defaultIsExternal = true
-                            )
-                        },
-                        preserveDirty = true
-                    )
-                    itemCount.addAndGet(dtos.size)
+                    localDataService.runInTransaction {
+                        localDataService.saveAtmosphericLogs(
+                            dtos.map {
+                                it.toEntity(
+                                    defaultRoomId = null,
+                                    defaultProjectId = projectId,
+                                    defaultIsExternal = true
+                                )
+                            },
+                            preserveDirty = true
+                        )
+
+                        // Create photo entities for logs with photos (enables offline caching)
+                        val logPhotos = dtos.mapNotNull { it.toPhotoEntity() }
+                        if (logPhotos.isNotEmpty()) {
+                            localDataService.saveOrUpdateLogPhotos(logPhotos)
+                            Log.d(TAG, "[atmospheric_logs] Created ${logPhotos.size} photo entities for offline caching")
+                        }
 
-                    // Create photo entities for logs with photos (enables offline caching)
-                    val logPhotos = dtos.mapNotNull { it.toPhotoEntity() }
-                    if (logPhotos.isNotEmpty()) {
-                        localDataService.saveOrUpdateLogPhotos(logPhotos)
-                        Log.d(TAG, "[atmospheric_logs] Created ${logPhotos.size} photo entities for offline caching")
+                        dtos.latestTimestamp { it.updatedAt }
+                            ?.let { syncCheckpointStore.updateCheckpoint(atmosCheckpointKey, it) }
                     }
-
-                    dtos.latestTimestamp { it.updatedAt }
-                        ?.let { syncCheckpointStore.updateCheckpoint(atmosCheckpointKey, it) }
+                    itemCount.addAndGet(dtos.size)
                 }.isSuccess
         }
 
@@ -151,12 +211,14 @@ class ProjectMetadataSyncService(
                     val (scopedDamages, unscopedDamages) = entities.partition { it.roomId != null }
 
                     if (scopedDamages.isNotEmpty()) {
-                        localDataService.saveDamages(scopedDamages)
-                        localDataService.saveMaterials(damages.map { it.toMaterialEntity() }, reconcileByServerId = true)
+                        localDataService.runInTransaction {
+                            localDataService.saveDamages(scopedDamages)
+                            localDataService.saveMaterials(damages.map { it.toMaterialEntity() }, reconcileByServerId = true)
+                            damages.latestTimestamp { it.updatedAt }
+                                ?.let { syncCheckpointStore.updateCheckpoint(damagesCheckpointKey, it) }
+                        }
                         itemCount.addAndGet(scopedDamages.size)
                         projectDamagesHaveRoomIds = true
-                        damages.latestTimestamp { it.updatedAt }
-                            ?.let { syncCheckpointStore.updateCheckpoint(damagesCheckpointKey, it) }
                     }
 
                     if (unscopedDamages.isNotEmpty()) {
@@ -347,25 +409,6 @@ class ProjectMetadataSyncService(
         entities.size
     }
 
-    private suspend fun <T> fetchAllPages(
-        fetch: suspend (page: Int) -> PaginatedResponse<T>
-    ): List<T> {
-        val results = mutableListOf<T>()
-        var page = 1
-        while (true) {
-            val response = fetch(page)
-            results += response.data
-            val current = response.meta?.currentPage ?: page
-            val last = response.meta?.lastPage ?: current
-            val hasMore = current < last && response.data.isNotEmpty()
-            if (!hasMore) {
-                break
-            }
-            page = current + 1
-        }
-        return results
-    }
-
     companion object {
         private const val TAG = "API"
     }
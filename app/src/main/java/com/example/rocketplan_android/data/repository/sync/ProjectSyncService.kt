@@ -2,7 +2,6 @@ package com.example.rocketplan_android.data.repository.sync
 
 import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.local.LocalDataService
-import com.example.rocketplan_android.data.model.offline.PaginatedResponse
 import com.example.rocketplan_android.data.repository.mapper.latestTimestamp
 import com.example.rocketplan_android.data.repository.mapper.toEntity
 import com.example.rocketplan_android.data.repository.mapper.updatedSinceParam
@@ -52,21 +51,23 @@ class ProjectSyncService(
                 assignedToMe = if (assignedToMe) "1" else null
             )
         }
-        localDataService.saveProjects(
-            projects.map { dto ->
-                val existing = existingByServerId[dto.id]
-                    ?: existingByUuid[dto.uuid ?: dto.uid]?.firstOrNull { it.companyId == companyId }
-                dto.toEntity(existing = existing, fallbackCompanyId = companyId)
-            },
-            preserveDirty = true
-        )
+        localDataService.runInTransaction {
+            localDataService.saveProjects(
+                projects.map { dto ->
+                    val existing = existingByServerId[dto.id]
+                        ?: existingByUuid[dto.uuid ?: dto.uid]?.firstOrNull { it.companyId == companyId }
+                    dto.toEntity(existing = existing, fallbackCompanyId = companyId)
+                },
+                preserveDirty = true
+            )
 
-        // Note: Deletion sync is handled separately by DeletedRecordsSyncService
-        // which uses the /api/sync/deleted endpoint to get explicit deletions from the server.
-        // We no longer infer deletions from absence in the project list response.
+            // Note: Deletion sync is handled separately by DeletedRecordsSyncService
+            // which uses the /api/sync/deleted endpoint to get explicit deletions from the server.
+            // We no longer infer deletions from absence in the project list response.
 
-        projects.latestTimestamp { it.updatedAt }
-            ?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
+            projects.latestTimestamp { it.updatedAt }
+                ?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
+        }
         projects.map { it.id }.toSet()
     }
 
@@ -82,39 +83,19 @@ class ProjectSyncService(
         val projects = fetchAllPages { page ->
             api.getUserProjects(userId = userId, page = page, updatedSince = updatedSince)
         }
-        localDataService.saveProjects(
-            projects.map { dto ->
-                val uuidCandidates = existingByUuid[dto.uuid ?: dto.uid]
-                val existing = existingByServerId[dto.id]
-                    ?: uuidCandidates?.firstOrNull { dto.companyId != null && it.companyId == dto.companyId }
-                    ?: uuidCandidates?.singleOrNull()  // only safe when exactly one match
-                dto.toEntity(existing = existing, fallbackCompanyId = dto.companyId)
-            },
-            preserveDirty = true
-        )
-        projects.latestTimestamp { it.updatedAt }
-            ?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
-    }
-
-    /**
-     * Fetches all pages of a paginated API response.
-     */
-    internal suspend fun <T> fetchAllPages(
-        fetch: suspend (page: Int) -> PaginatedResponse<T>
-    ): List<T> {
-        val results = mutableListOf<T>()
-        var page = 1
-        while (true) {
-            val response = fetch(page)
-            results += response.data
-            val current = response.meta?.currentPage ?: page
-            val last = response.meta?.lastPage ?: current
-            val hasMore = current < last && response.data.isNotEmpty()
-            if (!hasMore) {
-                break
-            }
-            page = current + 1
+        localDataService.runInTransaction {
+            localDataService.saveProjects(
+                projects.map { dto ->
+                    val uuidCandidates = existingByUuid[dto.uuid ?: dto.uid]
+                    val existing = existingByServerId[dto.id]
+                        ?: uuidCandidates?.firstOrNull { dto.companyId != null && it.companyId == dto.companyId }
+                        ?: uuidCandidates?.singleOrNull()  // only safe when exactly one match
+                    dto.toEntity(existing = existing, fallbackCompanyId = dto.companyId)
+                },
+                preserveDirty = true
+            )
+            projects.latestTimestamp { it.updatedAt }
+                ?.let { syncCheckpointStore.updateCheckpoint(checkpointKey, it) }
         }
-        return results
     }
 }
@@ -0,0 +1,89 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import kotlin.coroutines.CoroutineContext
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.withContext
+
+/**
+ * Orders room photo syncs by what the user is looking at.
+ *
+ * Screens report the server room ids they show through [setVisibleRooms]. Backfills such as
+ * [PhotoSyncService.syncAllRoomPhotos] ask [nextRoom] which pending room to start next, so visible
+ * rooms jump the queue and the remaining rooms fill whatever capacity is left.
+ *
+ * Rooms synced through [backfill] are background work: before each page after the first they call
+ * [awaitPageTurn], which holds them while a foreground room sync (Room Detail, realtime pulls, or a
+ * visible room in the backfill) is running. A room's checkpoint only advances after its last page,
+ * so a walk that is held or interrupted resumes from the old cursor.
+ */
+class RoomPhotoSyncScheduler {
+
+    // Insertion order tracks recency: the screen that reported last is served first.
+    private val visibleBySource = MutableStateFlow<Map<String, List<Long>>>(emptyMap())
+    private val foregroundSyncs = MutableStateFlow<Map<Long, Int>>(emptyMap())
+
+    /** Replaces the rooms [source] shows. An empty list clears the source. */
+    fun setVisibleRooms(source: String, roomIds: Collection<Long>) {
+        visibleBySource.update { current ->
+            val others = current - source
+            if (roomIds.isEmpty()) others else others + (source to roomIds.distinct())
+        }
+    }
+
+    fun clearVisibleRooms(source: String) = setVisibleRooms(source, emptyList())
+
+    /** Visible rooms, most recently reported screen first. */
+    fun visibleRoomIds(): Set<Long> =
+        visibleBySource.value.values.reversed().flatten().toCollection(LinkedHashSet())
+
+    fun isVisible(roomId: Long): Boolean = visibleBySource.value.values.any { roomId in it }
+
+    /** Picks the next room to start from [pending]: the first visible one, else the first in order. */
+    fun nextRoom(pending: Collection<Long>): Long? {
+        if (pending.isEmpty()) return null
+        val visible = visibleRoomIds()
+        return visible.firstOrNull { it in pending } ?: pending.first()
+    }
+
+    /** Runs a foreground sync for [roomId]; background walks hold between pages until it finishes. */
+    suspend fun <T> foreground(roomId: Long, block: suspend () -> T): T {
+        foregroundSyncs.update { it + (roomId to (it[roomId] ?: 0) + 1) }
+        try {
+            return block()
+        } finally {
+            foregroundSyncs.update { current ->
+                val remaining = (current[roomId] ?: 1) - 1
+                if (remaining <= 0) current - roomId else current + (roomId to remaining)
+            }
+        }
+    }
+
+    /**
+     * Runs [block] as background work unless [roomId] is visible, in which case it stays foreground
+     * and the backfill serves it like the screen showing it would.
+     */
+    suspend fun <T> backfill(roomId: Long, block: suspend () -> T): T =
+        if (isVisible(roomId)) block() else withContext(BackgroundSync) { block() }
+
+    suspend fun isBackground(): Boolean = currentCoroutineContext()[BackgroundSync] != null
+
+    /**
+     * Preemption point between pages. Returns at once for foreground work; a background walk waits
+     * until no foreground room sync is running, or until its own room becomes prioritized (it was
+     * opened, or a foreground caller joined the same fetch).
+     */
+    suspend fun awaitPageTurn(roomId: Long) {
+        if (!isBackground()) return
+        combine(foregroundSyncs, visibleBySource) { foreground, visible ->
+            foreground.isEmpty() || roomId in foreground || visible.values.any { roomId in it }
+        }.first { it }
+    }
+
+    private object BackgroundSync : CoroutineContext.Element, CoroutineContext.Key<BackgroundSync> {
+        override val key: CoroutineContext.Key<*> get() = this
+    }
+}
@@ -203,30 +203,36 @@ class RoomSyncService(
             syncStatus = SyncStatus.PENDING,
             updatedAt = timestamp
         )
-        localDataService.saveRooms(listOf(marked))
-
         val snapshotRoomId = room.serverId ?: room.roomId
         runCatching { localDataService.clearRoomPhotoSnapshot(snapshotRoomId) }
             .onFailure {
                 Log.w(TAG, "[deleteRoom] Failed to clear photo snapshot for roomId=$snapshotRoomId", it)
             }
 
-        val photosToDelete = localDataService.cascadeDeleteRoom(room)
+        // Mark, cascade and queue in one transaction so the sync processor never sees the room's
+        // children still queued next to (or instead of) the room DELETE.
+        val (photosToDelete, synced) = localDataService.runInTransaction {
+            localDataService.saveRooms(listOf(marked))
+            val photos = localDataService.cascadeDeleteRoom(room)
+            if (room.serverId == null) {
+                localDataService.removeSyncOperationsForEntity(entityType = "room", entityId = room.roomId)
+                val cleaned = marked.copy(
+                    isDirty = false,
+                    syncStatus = SyncStatus.SYNCED,
+                    lastSyncedAt = now()
+                )
+                localDataService.saveRooms(listOf(cleaned))
+                photos to true
+            } else {
+                syncQueueEnqueuer().enqueueRoomDeletion(marked, lockUpdatedAt)
+                photos to false
+            }
+        }
         photosToDelete.forEach { photo -> removePhotoFiles(photo) }
-
-        if (room.serverId == null) {
-            localDataService.removeSyncOperationsForEntity(entityType = "room", entityId = room.roomId)
+        if (synced) {
             logLocalDeletion("room", room.roomId, room.uuid)
-            val cleaned = marked.copy(
-                isDirty = false,
-                syncStatus = SyncStatus.SYNCED,
-                lastSyncedAt = now()
-            )
-            localDataService.saveRooms(listOf(cleaned))
-            return@withContext RoomDeletionResult(synced = true)
         }
-        syncQueueEnqueuer().enqueueRoomDeletion(marked, lockUpdatedAt)
-        RoomDeletionResult(synced = false)
+        RoomDeletionResult(synced = synced)
     }
 
     suspend fun fetchRoomsForLocation(locationId: Long): List<RoomDto> {
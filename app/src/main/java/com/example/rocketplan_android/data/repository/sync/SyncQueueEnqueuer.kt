@@ -23,6 +23,10 @@ import com.example.rocketplan_android.data.model.PropertyMutationRequest
  *
  * Services that need to queue operations for background sync should depend on
  * this interface rather than the processor directly.
+ *
+ * Parent deletions (project, location, room) are subtree-aware: queued operations for the
+ * parent's children are dropped because the server cascades the delete, and a parent that was
+ * never synced is resolved locally without queueing a DELETE at all.
  */
 interface SyncQueueEnqueuer {
 
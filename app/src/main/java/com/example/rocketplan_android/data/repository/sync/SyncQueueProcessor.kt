@@ -7,6 +7,7 @@ import com.example.rocketplan_android.data.local.SyncOperationType
 import com.example.rocketplan_android.data.local.SyncPriority
 import com.example.rocketplan_android.data.local.SyncStatus
 import com.example.rocketplan_android.data.sync.SyncOperationOutcome
+import com.example.rocketplan_android.data.sync.SyncPerformanceStore
 import com.example.rocketplan_android.data.sync.SyncQueueLogger
 import com.example.rocketplan_android.data.local.entity.OfflineAtmosphericLogEntity
 import com.example.rocketplan_android.data.local.entity.OfflineEquipmentEntity
@@ -21,6 +22,7 @@ import com.example.rocketplan_android.data.local.entity.OfflineSupportConversati
 import com.example.rocketplan_android.data.local.entity.OfflineSupportMessageEntity
 import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
 import com.example.rocketplan_android.data.local.entity.OfflineTimecardEntity
+import com.example.rocketplan_android.data.local.model.SyncOperationHeader
 import com.example.rocketplan_android.data.model.CreateAddressRequest
 import com.example.rocketplan_android.data.model.ProjectStatus
 import com.example.rocketplan_android.data.model.PropertyMutationRequest
@@ -40,6 +42,8 @@ import com.example.rocketplan_android.data.repository.mapper.PendingAtmosphericL
 import com.example.rocketplan_android.data.repository.mapper.PendingProjectUserPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingSupportConversationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingSupportMessagePayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
+import com.example.rocketplan_android.data.repository.mapper.withParentRefs
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
 import com.google.gson.Gson
@@ -50,6 +54,7 @@ import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 import com.example.rocketplan_android.util.UuidUtils
+import java.util.Collections
 import java.util.Date
 import java.util.UUID
 import kotlin.math.min
@@ -89,17 +94,26 @@ class SyncQueueProcessor(
     private val imageProcessorRepositoryProvider: () -> ImageProcessorRepository?,
     private val remoteLogger: RemoteLogger? = null,
     private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
-    private val isNetworkAvailable: () -> Boolean = { false } // Default to offline for safety
+    private val isNetworkAvailable: () -> Boolean = { false }, // Default to offline for safety
+    maxConcurrentOperations: Int = DEFAULT_MAX_CONCURRENT_OPERATIONS,
+    performanceStore: SyncPerformanceStore? = null
 ) : SyncQueueEnqueuer {
     private val gson = Gson()
-    private val syncQueueLogger = SyncQueueLogger(remoteLogger)
+    private val syncQueueLogger = SyncQueueLogger(remoteLogger, performanceStore = performanceStore)
+    private val operationExecutor = PendingOperationExecutor(maxConcurrentOperations)
 
     /**
-     * Mutex to protect operation execution from race conditions.
-     * Ensures isEntityDeleted check and operation execution are atomic,
-     * preventing race where entity is deleted between check and sync.
+     * Striped mutexes protecting operation execution from race conditions.
+     * Ensures isEntityDeleted check and operation execution are atomic per entity,
+     * preventing race where entity is deleted between check and sync, while
+     * operations on unrelated entities run concurrently.
      */
-    private val operationMutex = Mutex()
+    private val operationLocks = Array(OPERATION_LOCK_STRIPES) { Mutex() }
+
+    private fun operationLockFor(operation: OfflineSyncQueueEntity): Mutex {
+        val key = "${operation.entityType}:${operation.entityId}"
+        return operationLocks[Math.floorMod(key.hashCode(), operationLocks.size)]
+    }
 
     // Handler context and handlers for extracted push logic
     private val handlerContext by lazy {
@@ -156,6 +170,69 @@ class SyncQueueProcessor(
         }
     }
 
+    /**
+     * Resolve where each operation sits in the project → location → room hierarchy so that
+     * [PendingOperationExecutor] can run unrelated chains concurrently. Room and project lookups
+     * are cached for the duration of one pass. Works from payload-free headers; only a property
+     * operation without an indexed parent project reads its own payload.
+     */
+    private suspend fun resolveLineages(operations: List<SyncOperationHeader>): List<OperationLineage> {
+        val roomLineages = mutableMapOf<Long, OperationLineage?>()
+
+        suspend fun roomLineage(roomId: Long): OperationLineage? = roomLineages.getOrPut(roomId) {
+            localDataService.getRoom(roomId)?.let { room ->
+                OperationLineage.of(
+                    "project:${room.projectId}",
+                    room.locationId?.let { "location:$it" },
+                    "room:${room.roomId}"
+                )
+            }
+        }
+
+        fun projectLineage(projectId: Long) = OperationLineage.of("project:$projectId")
+
+        suspend fun scopedLineage(projectId: Long, roomId: Long?): OperationLineage =
+            roomId?.let { roomLineage(it) } ?: projectLineage(projectId)
+
+        fun supportConversationLineage(conversationId: Long) =
+            OperationLineage.of("support_conversation:$conversationId")
+
+        return operations.map { operation ->
+            val uuid = operation.entityUuid
+            val lineage = when (operation.entityType) {
+                "project" -> projectLineage(operation.entityId)
+                // Properties share the project chain so locations never race their property
+                "property" -> (operation.parentProjectId ?: propertyProjectIdFromPayload(operation))
+                    ?.let { projectLineage(it) }
+                "location" -> localDataService.getLocation(operation.entityId)?.let {
+                    OperationLineage.of("project:${it.projectId}", "location:${it.locationId}")
+                }
+                "room" -> roomLineage(operation.entityId)
+                "note" -> localDataService.getNoteByUuid(uuid)?.let { scopedLineage(it.projectId, it.roomId) }
+                "equipment" -> localDataService.getEquipment(operation.entityId)?.let { scopedLineage(it.projectId, it.roomId) }
+                "moisture_log" -> localDataService.getMoistureLogByUuid(uuid)?.let { scopedLineage(it.projectId, it.roomId) }
+                "atmospheric_log" -> localDataService.getAtmosphericLogByUuid(uuid)?.let { scopedLineage(it.projectId, it.roomId) }
+                "photo" -> localDataService.getPhoto(operation.entityId)?.let { scopedLineage(it.projectId, it.roomId) }
+                "timecard" -> localDataService.getTimecardByUuid(uuid)?.let { projectLineage(it.projectId) }
+                // Messages share their conversation's chain so they never race its CREATE
+                "support_conversation" -> supportConversationLineage(operation.entityId)
+                "support_message" -> localDataService.getSupportMessageByUuid(uuid)
+                    ?.let { supportConversationLineage(it.conversationId) }
+                else -> null
+            }
+            // Unknown types and unresolvable entities stay serial within their entity type
+            lineage ?: OperationLineage.of(operation.entityType)
+        }
+    }
+
+    private suspend fun propertyProjectIdFromPayload(operation: SyncOperationHeader): Long? =
+        localDataService.getSyncOperations(listOf(operation.operationId))
+            .firstOrNull()
+            ?.let { extractProjectId(it.payload) }
+
+    private fun extractProjectId(payload: ByteArray): Long? =
+        runCatching { SyncPayloadCodec.projectId(payload) }.getOrNull()
+
     private fun HandlerOutcome.toLocal(): OperationOutcome = when (this) {
         HandlerOutcome.SUCCESS -> OperationOutcome.SUCCESS
         HandlerOutcome.SKIP -> OperationOutcome.SKIP
@@ -173,10 +250,11 @@ class SyncQueueProcessor(
             return@withContext PendingOperationResult()
         }
 
-        val operations = localDataService.getPendingSyncOperations()
+        // Scan headers only; payloads are loaded per window right before the operations run.
+        val operations = localDataService.getPendingSyncOperationHeaders()
         if (operations.isEmpty()) return@withContext PendingOperationResult()
 
-        val createdProjects = mutableListOf<PendingProjectSyncResult>()
+        val createdProjects = Collections.synchronizedList(mutableListOf<PendingProjectSyncResult>())
 
         // Start a sync session for metrics tracking
         val session = syncQueueLogger.startSession()
@@ -189,9 +267,9 @@ class SyncQueueProcessor(
         ) {
             val startTime = System.currentTimeMillis()
 
-            // Use mutex to ensure isEntityDeleted check and block execution are atomic.
+            // Use the entity's lock stripe to ensure isEntityDeleted check and block execution are atomic.
             // This prevents race conditions where entity is deleted between check and sync.
-            val outcome = operationMutex.withLock {
+            val outcome = operationLockFor(operation).withLock {
                 // Check if entity was deleted (e.g., by cascadeDeleteProject) to prevent race condition
                 // where delete clears sync queue but concurrent processor is mid-execution
                 if (operation.operationType != SyncOperationType.DELETE && isEntityDeleted(operation.entityType, operation.entityId, operation.entityUuid)) {
@@ -349,7 +427,17 @@ class SyncQueueProcessor(
                 }
         }
 
-        operations.forEach { operation ->
+        val plan = operationExecutor.plan(operations.zip(resolveLineages(operations)))
+        operationExecutor.executeWindowed(
+            planned = plan,
+            windowSize = PAYLOAD_WINDOW_SIZE,
+            load = { headers ->
+                // Operations pruned or completed since the scan come back null and are skipped
+                val rows = localDataService.getSyncOperations(headers.map { it.operationId })
+                    .associateBy { it.operationId }
+                headers.map { rows[it.operationId]?.takeIf { row -> row.status == SyncStatus.PENDING } }
+            }
+        ) { operation ->
             when (operation.entityType) {
                 "project" -> handleOperation(operation, "pending:project") {
                     when (operation.operationType) {
@@ -457,7 +545,7 @@ class SyncQueueProcessor(
         // End sync session and log summary
         syncQueueLogger.endSession()
 
-        PendingOperationResult(createdProjects = createdProjects)
+        PendingOperationResult(createdProjects = createdProjects.toList())
     }
 
     override suspend fun enqueueProjectCreation(
@@ -481,7 +569,7 @@ class SyncQueueProcessor(
             entityId = project.projectId,
             entityUuid = project.uuid,
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.HIGH
         )
         localDataService.enqueueSyncOperation(operation)
@@ -508,9 +596,9 @@ class SyncQueueProcessor(
             entityId = property.propertyId,
             entityUuid = property.uuid,
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
-        )
+        ).withParentRefs(payload)
         localDataService.enqueueSyncOperation(operation)
     }
 
@@ -546,9 +634,9 @@ class SyncQueueProcessor(
             entityId = location.locationId,
             entityUuid = location.uuid,
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
-        )
+        ).withParentRefs(payload)
         localDataService.enqueueSyncOperation(operation)
     }
 
@@ -563,14 +651,14 @@ class SyncQueueProcessor(
             // Location not yet synced; update the pending CREATE payload instead
             val updated = updateCreateOperationPayload("location", location.locationId) { payload ->
                 val existing = runCatching {
-                    gson.fromJson(String(payload, Charsets.UTF_8), PendingLocationCreationPayload::class.java)
+                    SyncPayloadCodec.decode(payload, PendingLocationCreationPayload::class.java)
                 }.getOrNull() ?: return@updateCreateOperationPayload null
                 val refreshed = existing.copy(
                     locationName = name ?: existing.locationName,
                     floorNumber = floorNumber ?: existing.floorNumber,
                     isAccessible = isAccessible ?: existing.isAccessible
                 )
-                gson.toJson(refreshed).toByteArray(Charsets.UTF_8)
+                SyncPayloadCodec.encode(refreshed)
             }
             if (!updated) {
                 Log.w(TAG, "⚠️ [enqueueLocationUpdate] No pending create for location ${location.locationId}; skipping update")
@@ -595,7 +683,7 @@ class SyncQueueProcessor(
             entityId = location.locationId,
             entityUuid = location.uuid,
             operationType = SyncOperationType.UPDATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -603,7 +691,12 @@ class SyncQueueProcessor(
     override suspend fun enqueueLocationDeletion(
         location: OfflineLocationEntity,
         lockUpdatedAt: String?
-    ) {
+    ) = localDataService.runInTransaction {
+        val pruned = localDataService.pruneLocationSubtreeSyncOperations(location.locationId)
+        if (location.serverId == null) {
+            resolveUnsyncedDeletionLocally("location", location.locationId, pruned)
+            return@runInTransaction
+        }
         val resolvedLockUpdatedAt = resolveLockUpdatedAt(
             entityType = "location",
             entityId = location.locationId,
@@ -615,9 +708,10 @@ class SyncQueueProcessor(
             entityId = location.locationId,
             entityUuid = location.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.HIGH
         )
+        logSubtreePruned("location", location.locationId, pruned)
     }
 
     override suspend fun enqueueRoomCreation(
@@ -653,9 +747,9 @@ class SyncQueueProcessor(
             entityId = room.roomId,
             entityUuid = room.uuid,
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
-        )
+        ).withParentRefs(payload)
         localDataService.enqueueSyncOperation(operation)
     }
 
@@ -667,11 +761,11 @@ class SyncQueueProcessor(
             val statusId = ProjectStatus.fromApiValue(project.status)?.backendId
             val updated = updateCreateOperationPayload("project", project.projectId) { payload ->
                 val existing = runCatching {
-                    gson.fromJson(String(payload, Charsets.UTF_8), PendingProjectCreationPayload::class.java)
+                    SyncPayloadCodec.decode(payload, PendingProjectCreationPayload::class.java)
                 }.getOrNull() ?: return@updateCreateOperationPayload null
                 val resolvedStatus = statusId ?: existing.projectStatusId
                 val refreshed = existing.copy(projectStatusId = resolvedStatus)
-                gson.toJson(refreshed).toByteArray(Charsets.UTF_8)
+                SyncPayloadCodec.encode(refreshed)
             }
             if (!updated) {
                 Log.w(TAG, "⚠️ [enqueueProjectUpdate] No pending create for project ${project.projectId}; skipping update")
@@ -689,7 +783,7 @@ class SyncQueueProcessor(
             entityId = project.projectId,
             entityUuid = project.uuid,
             operationType = SyncOperationType.UPDATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.HIGH
         )
     }
@@ -697,7 +791,12 @@ class SyncQueueProcessor(
     override suspend fun enqueueProjectDeletion(
         project: OfflineProjectEntity,
         lockUpdatedAt: String?
-    ) {
+    ) = localDataService.runInTransaction {
+        val pruned = localDataService.pruneProjectSubtreeSyncOperations(project.projectId)
+        if (project.serverId == null) {
+            resolveUnsyncedDeletionLocally("project", project.projectId, pruned)
+            return@runInTransaction
+        }
         val resolvedLockUpdatedAt = resolveLockUpdatedAt(
             entityType = "project",
             entityId = project.projectId,
@@ -709,9 +808,10 @@ class SyncQueueProcessor(
             entityId = project.projectId,
             entityUuid = project.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.HIGH
         )
+        logSubtreePruned("project", project.projectId, pruned)
     }
 
     override suspend fun enqueuePropertyUpdate(
@@ -724,13 +824,13 @@ class SyncQueueProcessor(
         if (property.serverId == null) {
             val updated = updateCreateOperationPayload("property", property.propertyId) { payload ->
                 val existing = runCatching {
-                    gson.fromJson(String(payload, Charsets.UTF_8), PendingPropertyCreationPayload::class.java)
+                    SyncPayloadCodec.decode(payload, PendingPropertyCreationPayload::class.java)
                 }.getOrNull() ?: return@updateCreateOperationPayload null
                 val refreshed = existing.copy(
                     propertyTypeId = request.propertyTypeId,
                     propertyTypeValue = propertyTypeValue
                 )
-                gson.toJson(refreshed).toByteArray(Charsets.UTF_8)
+                SyncPayloadCodec.encode(refreshed)
             }
             if (!updated) {
                 Log.w(TAG, "⚠️ [enqueuePropertyUpdate] No pending create for property ${property.propertyId}; skipping update")
@@ -754,7 +854,7 @@ class SyncQueueProcessor(
             entityId = property.propertyId,
             entityUuid = property.uuid,
             operationType = SyncOperationType.UPDATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -774,7 +874,7 @@ class SyncQueueProcessor(
             entityId = property.propertyId,
             entityUuid = property.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.HIGH
         )
     }
@@ -790,14 +890,14 @@ class SyncQueueProcessor(
             // Room not yet synced; update the pending CREATE payload instead
             val updated = updateCreateOperationPayload("room", room.roomId) { payload ->
                 val existing = runCatching {
-                    gson.fromJson(String(payload, Charsets.UTF_8), PendingRoomCreationPayload::class.java)
+                    SyncPayloadCodec.decode(payload, PendingRoomCreationPayload::class.java)
                 }.getOrNull() ?: return@updateCreateOperationPayload null
                 val refreshed = existing.copy(
                     isSource = isSource,
                     levelServerId = levelId ?: existing.levelServerId,
                     roomTypeId = roomTypeId ?: existing.roomTypeId
                 )
-                gson.toJson(refreshed).toByteArray(Charsets.UTF_8)
+                SyncPayloadCodec.encode(refreshed)
             }
             if (!updated) {
                 Log.w(TAG, "⚠️ [enqueueRoomUpdate] No pending create for room ${room.roomId}; skipping update")
@@ -824,7 +924,7 @@ class SyncQueueProcessor(
             entityId = room.roomId,
             entityUuid = room.uuid,
             operationType = SyncOperationType.UPDATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -832,7 +932,12 @@ class SyncQueueProcessor(
     override suspend fun enqueueRoomDeletion(
         room: OfflineRoomEntity,
         lockUpdatedAt: String?
-    ) {
+    ) = localDataService.runInTransaction {
+        val pruned = localDataService.pruneRoomSubtreeSyncOperations(room)
+        if (room.serverId == null) {
+            resolveUnsyncedDeletionLocally("room", room.roomId, pruned)
+            return@runInTransaction
+        }
         val resolvedLockUpdatedAt = resolveLockUpdatedAt(
             entityType = "room",
             entityId = room.roomId,
@@ -844,9 +949,10 @@ class SyncQueueProcessor(
             entityId = room.roomId,
             entityUuid = room.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
+        logSubtreePruned("room", room.roomId, pruned)
     }
 
     override suspend fun enqueueNoteUpsert(
@@ -866,7 +972,7 @@ class SyncQueueProcessor(
             entityId = entityId,
             entityUuid = note.uuid,
             operationType = opType,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -887,7 +993,7 @@ class SyncQueueProcessor(
             entityId = entityId,
             entityUuid = note.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -908,7 +1014,7 @@ class SyncQueueProcessor(
             entityId = equipment.equipmentId,
             entityUuid = equipment.uuid,
             operationType = opType,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -928,7 +1034,7 @@ class SyncQueueProcessor(
             entityId = equipment.equipmentId,
             entityUuid = equipment.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -950,7 +1056,7 @@ class SyncQueueProcessor(
             entityId = entityId,
             entityUuid = log.uuid,
             operationType = opType,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -971,7 +1077,7 @@ class SyncQueueProcessor(
             entityId = entityId,
             entityUuid = log.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -991,7 +1097,7 @@ class SyncQueueProcessor(
             entityId = photo.photoId,
             entityUuid = photo.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.LOW
         )
     }
@@ -1026,7 +1132,7 @@ class SyncQueueProcessor(
                 entityId = entityId,
                 entityUuid = log.uuid,
                 operationType = opType,
-                payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+                payload = SyncPayloadCodec.encode(payload),
                 priority = SyncPriority.MEDIUM
             )
         } else {
@@ -1037,7 +1143,7 @@ class SyncQueueProcessor(
                 entityId = entityId,
                 entityUuid = log.uuid,
                 operationType = opType,
-                payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+                payload = SyncPayloadCodec.encode(payload),
                 priority = SyncPriority.MEDIUM
             )
         }
@@ -1059,7 +1165,7 @@ class SyncQueueProcessor(
             entityId = entityId,
             entityUuid = log.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -1098,6 +1204,26 @@ class SyncQueueProcessor(
         }
     }
 
+    /**
+     * A parent that never reached the server has nothing to delete remotely: drop its own queued
+     * operations (typically the pending CREATE) instead of queueing a DELETE. Callers run this in
+     * the same transaction as the subtree prune.
+     */
+    private suspend fun resolveUnsyncedDeletionLocally(entityType: String, entityId: Long, prunedChildren: Int) {
+        localDataService.removeSyncOperationsForEntity(entityType, entityId)
+        Log.d(
+            TAG,
+            "🧹 [$entityType] $entityId was never synced; resolved delete locally " +
+                "(dropped its queued ops and $prunedChildren child ops)"
+        )
+    }
+
+    private fun logSubtreePruned(entityType: String, entityId: Long, prunedChildren: Int) {
+        if (prunedChildren > 0) {
+            Log.d(TAG, "🧹 [$entityType] Pruned $prunedChildren queued child ops made redundant by DELETE of $entityId")
+        }
+    }
+
     private fun resolveEntityId(entityId: Long, uuid: String): Long =
         if (entityId != 0L) entityId else runCatching {
             // Use a combination of both UUID halves to avoid collision from using only mostSignificantBits
@@ -1106,9 +1232,7 @@ class SyncQueueProcessor(
         }.getOrElse { uuid.hashCode().toLong() }
 
     private fun extractLockUpdatedAt(payload: ByteArray): String? =
-        runCatching {
-            gson.fromJson(String(payload, Charsets.UTF_8), PendingLockPayload::class.java).lockUpdatedAt
-        }.getOrNull()
+        runCatching { SyncPayloadCodec.lockUpdatedAt(payload) }.getOrNull()
 
     /**
      * Build a human-readable hint about what dependency might be blocking a sync operation.
@@ -1149,7 +1273,7 @@ class SyncQueueProcessor(
         val existing = localDataService.getSyncOperationForEntity(entityType, entityId) ?: return false
         if (existing.operationType != SyncOperationType.CREATE) return false
         val updatedPayload = updater(existing.payload) ?: return false
-        localDataService.enqueueSyncOperation(existing.copy(payload = updatedPayload))
+        localDataService.enqueueSyncOperation(existing.copy(payload = updatedPayload).withParentRefs())
         return true
     }
 
@@ -1192,7 +1316,7 @@ class SyncQueueProcessor(
             entityId = conversation.conversationId,
             entityUuid = conversation.uuid,
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
         localDataService.enqueueSyncOperation(operation)
@@ -1215,7 +1339,7 @@ class SyncQueueProcessor(
             entityId = message.messageId,
             entityUuid = message.uuid,
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
         localDataService.enqueueSyncOperation(operation)
@@ -1237,7 +1361,7 @@ class SyncQueueProcessor(
             entityId = timecard.timecardId,
             entityUuid = timecard.uuid,
             operationType = opType,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -1257,7 +1381,7 @@ class SyncQueueProcessor(
             entityId = timecard.timecardId,
             entityUuid = timecard.uuid,
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
     }
@@ -1277,7 +1401,7 @@ class SyncQueueProcessor(
             entityId = userServerId,
             entityUuid = "$projectServerId-$userServerId",
             operationType = SyncOperationType.CREATE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
         localDataService.enqueueSyncOperation(operation)
@@ -1298,7 +1422,7 @@ class SyncQueueProcessor(
             entityId = userServerId,
             entityUuid = "$projectServerId-$userServerId",
             operationType = SyncOperationType.DELETE,
-            payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
+            payload = SyncPayloadCodec.encode(payload),
             priority = SyncPriority.MEDIUM
         )
         localDataService.enqueueSyncOperation(operation)
@@ -1306,5 +1430,9 @@ class SyncQueueProcessor(
 
     companion object {
         private const val TAG = "API"
+        const val DEFAULT_MAX_CONCURRENT_OPERATIONS = 4
+        private const val OPERATION_LOCK_STRIPES = 32
+        /** Operations whose payloads are held in memory at once while pushing the queue. */
+        private const val PAYLOAD_WINDOW_SIZE = 64
     }
 }
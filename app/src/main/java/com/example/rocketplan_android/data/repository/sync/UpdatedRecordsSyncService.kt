@@ -2,6 +2,8 @@ package com.example.rocketplan_android.data.repository.sync
 
 import android.util.Log
 import com.example.rocketplan_android.data.api.OfflineSyncApi
+import com.example.rocketplan_android.data.model.offline.UpdatedRecord
+import com.example.rocketplan_android.data.model.offline.UpdatedRecordsResponse
 import com.example.rocketplan_android.data.storage.SyncCheckpointStore
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
@@ -14,13 +16,15 @@ import java.util.concurrent.TimeUnit
 
 /**
  * Fetches updated record IDs from the server using /api/sync/updated.
- * Used for incremental sync to identify which projects have changed since last sync.
+ * Used for incremental sync to identify which projects, and which of their records, have changed
+ * since last sync.
  */
 class UpdatedRecordsSyncService(
     private val api: OfflineSyncApi,
     private val syncCheckpointStore: SyncCheckpointStore,
     private val remoteLogger: RemoteLogger? = null,
-    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val pullPlanner: IncrementalPullPlanner? = null
 ) {
     /**
      * Fetches the IDs of projects that have been updated since the last checkpoint.
@@ -28,7 +32,39 @@ class UpdatedRecordsSyncService(
      *
      * @return Result containing the set of changed project server IDs, or failure
      */
-    suspend fun getUpdatedProjectIds(): Result<Set<Long>> = withContext(ioDispatcher) {
+    suspend fun getUpdatedProjectIds(): Result<Set<Long>> =
+        fetchUpdatedRecords(types = listOf("projects"), caller = "getUpdatedProjectIds", advanceCheckpoint = true)
+            .map { fetched -> fetched.body.projects.map { it.id }.toSet() }
+
+    /**
+     * Fetches updated record IDs for projects and their content, then plans the narrowest
+     * refreshes that cover them (see [IncrementalPullPlanner]). Does not advance the checkpoint:
+     * the caller passes the plan to [commitIncrementalPull] once its pulls succeeded, so a failed
+     * pull is planned again on the next pass.
+     */
+    suspend fun planIncrementalPull(): Result<IncrementalPullPlan> {
+        val planner = pullPlanner
+            ?: return Result.failure(IllegalStateException("No incremental pull planner configured"))
+        return fetchUpdatedRecords(types = PULL_PLAN_TYPES, caller = "planIncrementalPull", advanceCheckpoint = false)
+            .mapCatching { fetched ->
+                val truncated = fetched.body.trackedRecordLists().any { it.size >= MAX_UPDATED_RECORDS }
+                planner.plan(fetched.body, truncated).copy(serverTime = fetched.serverTime)
+            }
+    }
+
+    /** Advances the checkpoint to the server time [plan] was fetched at. */
+    suspend fun commitIncrementalPull(plan: IncrementalPullPlan) = withContext(ioDispatcher) {
+        val serverTime = plan.serverTime ?: return@withContext
+        syncCheckpointStore.updateCheckpoint(CHECKPOINT_KEY, serverTime)
+    }
+
+    private class FetchedUpdates(val body: UpdatedRecordsResponse, val serverTime: Date?)
+
+    private suspend fun fetchUpdatedRecords(
+        types: List<String>,
+        caller: String,
+        advanceCheckpoint: Boolean
+    ): Result<FetchedUpdates> = withContext(ioDispatcher) {
         val now = Date()
         val lastServerDate = syncCheckpointStore.getCheckpoint(SERVER_TIME_KEY)
         val rawSinceDate = syncCheckpointStore.getCheckpoint(CHECKPOINT_KEY)
@@ -39,7 +75,7 @@ class UpdatedRecordsSyncService(
             lastServerDate != null && rawSinceDate.after(lastServerDate) -> {
                 Log.w(
                     TAG,
-                    "⚠️ [getUpdatedProjectIds] Future checkpoint $rawSinceDate clamped to last server time $lastServerDate (device now=$now)"
+                    "⚠️ [$caller] Future checkpoint $rawSinceDate clamped to last server time $lastServerDate (device now=$now)"
                 )
                 syncCheckpointStore.updateCheckpoint(CHECKPOINT_KEY, lastServerDate)
                 lastServerDate
@@ -48,7 +84,7 @@ class UpdatedRecordsSyncService(
                 val clamped = Date(0) // Safe epoch fallback
                 Log.w(
                     TAG,
-                    "⚠️ [getUpdatedProjectIds] Future checkpoint $rawSinceDate with no server time; clamping to epoch (device now=$now)"
+                    "⚠️ [$caller] Future checkpoint $rawSinceDate with no server time; clamping to epoch (device now=$now)"
                 )
                 syncCheckpointStore.updateCheckpoint(CHECKPOINT_KEY, clamped)
                 clamped
@@ -57,21 +93,21 @@ class UpdatedRecordsSyncService(
         }
 
         val sinceParam = DateUtils.formatApiDate(sinceDate)
-        Log.d(TAG, "🔄 [getUpdatedProjectIds] Fetching updates since $sinceParam")
+        Log.d(TAG, "🔄 [$caller] Fetching updates since $sinceParam")
 
         val response = runCatching {
             api.getUpdatedRecords(
                 since = sinceParam,
-                types = listOf("projects"),
+                types = types,
                 limit = MAX_UPDATED_RECORDS
             )
         }.onFailure {
-            Log.e(TAG, "❌ [getUpdatedProjectIds] Failed to fetch updated records", it)
+            Log.e(TAG, "❌ [$caller] Failed to fetch updated records", it)
         }.getOrElse { return@withContext Result.failure(it) }
 
         if (!response.isSuccessful) {
             val errorBody = runCatching { response.errorBody()?.string() }.getOrNull()
-            Log.e(TAG, "❌ [getUpdatedProjectIds] Non-success response ${response.code()}: $errorBody")
+            Log.e(TAG, "❌ [$caller] Non-success response ${response.code()}: $errorBody")
             return@withContext Result.failure(
                 IllegalStateException("Updated records fetch failed with HTTP ${response.code()}: $errorBody")
             )
@@ -79,22 +115,21 @@ class UpdatedRecordsSyncService(
 
         val body = response.body()
         if (body == null) {
-            Log.w(TAG, "⚠️ [getUpdatedProjectIds] Empty body")
+            Log.w(TAG, "⚠️ [$caller] Empty body")
             return@withContext Result.failure(
                 IllegalStateException("Updated records response body missing")
             )
         }
 
-        // Extract project IDs from the response
-        val projectIds = body.projects.map { it.id }.toSet()
-
         // Update checkpoint using server's Date header to avoid clock skew
         val serverTimestamp = DateUtils.parseHttpDate(response.headers()["Date"])
         if (serverTimestamp != null) {
-            syncCheckpointStore.updateCheckpoint(CHECKPOINT_KEY, serverTimestamp)
+            if (advanceCheckpoint) {
+                syncCheckpointStore.updateCheckpoint(CHECKPOINT_KEY, serverTimestamp)
+            }
             syncCheckpointStore.updateCheckpoint(SERVER_TIME_KEY, serverTimestamp)
         } else {
-            Log.w(TAG, "⚠️ [getUpdatedProjectIds] Missing Date header; checkpoint not advanced")
+            Log.w(TAG, "⚠️ [$caller] Missing Date header; checkpoint not advanced")
         }
 
         // Build summary of all updated record types
@@ -109,6 +144,7 @@ class UpdatedRecordsSyncService(
             put("damageMaterials", body.damageMaterials.size)
             put("damageMaterialRoomLogs", body.damageMaterialRoomLogs.size)
             put("atmosphericLogs", body.atmosphericLogs.size)
+            put("moistureLogs", body.moistureLogs.size)
             put("workScopeActions", body.workScopeActions.size)
             put("claims", body.claims.size)
             put("timecards", body.timecards.size)
@@ -118,15 +154,15 @@ class UpdatedRecordsSyncService(
 
         Log.d(
             TAG,
-            "✅ [getUpdatedProjectIds] Updated records since $sinceParam: " +
+            "✅ [$caller] Updated records since $sinceParam: " +
                 "projects=${body.projects.size}, properties=${body.properties.size}, " +
                 "rooms=${body.rooms.size}, photos=${body.photos.size}, notes=${body.notes.size}, " +
                 "total=$totalUpdated"
         )
 
         // Log project IDs for debugging
-        if (projectIds.isNotEmpty()) {
-            Log.d(TAG, "📊 [getUpdatedProjectIds] Updated project IDs: $projectIds")
+        if (body.projects.isNotEmpty()) {
+            Log.d(TAG, "📊 [$caller] Updated project IDs: ${body.projects.map { it.id }}")
         }
 
         remoteLogger?.log(
@@ -142,7 +178,7 @@ class UpdatedRecordsSyncService(
             }
         )
 
-        Result.success(projectIds)
+        Result.success(FetchedUpdates(body, serverTimestamp))
     }
 
     /**
@@ -174,6 +210,27 @@ class UpdatedRecordsSyncService(
         const val SERVER_TIME_KEY = "updated_records_server_date"
         private val DEFAULT_LOOKBACK_MS = TimeUnit.DAYS.toMillis(30)
         private const val MAX_UPDATED_RECORDS = 1000
+
+        /** Record types [IncrementalPullPlanner] places; keys match the response fields. */
+        private val PULL_PLAN_TYPES = listOf(
+            "projects",
+            "rooms",
+            "locations",
+            "photos",
+            "notes",
+            "equipment",
+            "atmospheric_logs",
+            "moisture_logs",
+            "damage_materials",
+            "damage_material_room_logs",
+            "work_scope_actions",
+            "claims"
+        )
+
+        private fun UpdatedRecordsResponse.trackedRecordLists(): List<List<UpdatedRecord>> = listOf(
+            projects, rooms, locations, photos, notes, equipment, atmosphericLogs, moistureLogs,
+            damageMaterials, damageMaterialRoomLogs, workScopeActions, claims
+        )
         private const val TAG = "API"
     }
 }
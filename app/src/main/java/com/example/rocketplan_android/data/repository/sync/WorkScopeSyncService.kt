@@ -6,12 +6,10 @@ import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.model.offline.AddWorkScopeItemsRequest
 import com.example.rocketplan_android.data.model.offline.WorkScopeItemRequest
 import com.example.rocketplan_android.data.model.offline.WorkScopeSheetDto
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
 import com.example.rocketplan_android.data.repository.mapper.toEntity
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.async
-import kotlinx.coroutines.awaitAll
-import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.withContext
 
 /**
@@ -20,7 +18,8 @@ import kotlinx.coroutines.withContext
 class WorkScopeSyncService(
     private val api: OfflineSyncApi,
     private val localDataService: LocalDataService,
-    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter
 ) {
     suspend fun syncWorkScopesForProject(projectId: Long): Int = withContext(ioDispatcher) {
         val start = System.currentTimeMillis()
@@ -30,12 +29,10 @@ class WorkScopeSyncService(
             return@withContext 0
         }
 
-        // Fetch work scopes for all rooms in parallel (matching iOS DispatchGroup pattern)
-        val total = coroutineScope {
-            roomIds.map { roomId ->
-                async { syncRoomWorkScopes(projectId, roomId) }
-            }.awaitAll().sum()
-        }
+        // Fetch work scopes for all rooms in parallel, bounded by the shared API limiter
+        val total = concurrencyLimiter.mapConcurrently(roomIds) { roomId ->
+            syncRoomWorkScopes(projectId, roomId)
+        }.sum()
 
         val duration = System.currentTimeMillis() - start
         Log.d(
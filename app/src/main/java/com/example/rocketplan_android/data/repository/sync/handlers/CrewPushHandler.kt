@@ -3,6 +3,7 @@ package com.example.rocketplan_android.data.repository.sync.handlers
 import android.util.Log
 import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
 import com.example.rocketplan_android.data.repository.mapper.PendingProjectUserPayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.logging.LogLevel
 
 /**
@@ -70,10 +71,7 @@ class CrewPushHandler(private val ctx: PushHandlerContext) {
 
     private fun deserializePayload(operation: OfflineSyncQueueEntity): PendingProjectUserPayload? {
         return runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingProjectUserPayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingProjectUserPayload::class.java)
         }.onFailure {
             Log.e(SYNC_TAG, "⚠️ [crew] Failed to deserialize payload for op=${operation.operationId}", it)
             ctx.remoteLogger?.log(
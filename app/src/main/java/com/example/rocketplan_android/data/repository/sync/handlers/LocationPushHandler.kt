@@ -2,6 +2,7 @@ package com.example.rocketplan_android.data.repository.sync.handlers
 
 import android.util.Log
 import com.example.rocketplan_android.data.local.SyncStatus
+import com.example.rocketplan_android.data.local.cache.PhotoBlobStore
 import com.example.rocketplan_android.data.local.entity.OfflineConflictResolutionEntity
 import com.example.rocketplan_android.data.local.entity.OfflineLocationEntity
 import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
@@ -11,6 +12,7 @@ import com.example.rocketplan_android.data.model.offline.DeleteWithTimestampRequ
 import com.example.rocketplan_android.data.repository.mapper.PendingLocationCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingLocationUpdatePayload
 import com.example.rocketplan_android.data.local.DeletionTombstoneCache
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.data.repository.mapper.toApiTimestamp
 import com.example.rocketplan_android.data.repository.mapper.toEntity
 import com.example.rocketplan_android.logging.LogLevel
@@ -26,10 +28,7 @@ class LocationPushHandler(private val ctx: PushHandlerContext) {
 
     suspend fun handleCreate(operation: OfflineSyncQueueEntity): OperationOutcome {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingLocationCreationPayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingLocationCreationPayload::class.java)
         }.getOrNull() ?: return OperationOutcome.DROP
 
         // Try to find property by the stored local ID first
@@ -120,10 +119,7 @@ class LocationPushHandler(private val ctx: PushHandlerContext) {
 
     suspend fun handleUpdate(operation: OfflineSyncQueueEntity): OperationOutcome {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingLocationUpdatePayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingLocationUpdatePayload::class.java)
         }.getOrNull() ?: return OperationOutcome.DROP
 
         val location = ctx.localDataService.getLocationByUuid(payload.locationUuid)
@@ -321,10 +317,11 @@ class LocationPushHandler(private val ctx: PushHandlerContext) {
                 mapOf("photo_count" to photosToCleanup.size.toString())
             )
         }
-        // Clean up cached photo files
+        // Clean up cached photo files; shared cache blobs are collected by PhotoCacheManager.
         photosToCleanup.forEach { photo ->
-            photo.cachedOriginalPath?.let { runCatching { File(it).delete() } }
-            photo.cachedThumbnailPath?.let { runCatching { File(it).delete() } }
+            listOfNotNull(photo.cachedOriginalPath, photo.cachedThumbnailPath)
+                .filterNot { PhotoBlobStore.isBlob(it) }
+                .forEach { runCatching { File(it).delete() } }
         }
         // Mark location as deleted and synced
         val cleaned = location.copy(
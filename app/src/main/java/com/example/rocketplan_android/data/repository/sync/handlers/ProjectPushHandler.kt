@@ -12,6 +12,7 @@ import com.example.rocketplan_android.data.model.ProjectStatus
 import com.example.rocketplan_android.data.model.UpdateProjectRequest
 import com.example.rocketplan_android.data.model.offline.ProjectAddressDto
 import com.example.rocketplan_android.data.repository.mapper.PendingProjectCreationPayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.data.repository.mapper.toApiTimestamp
 import com.example.rocketplan_android.data.repository.mapper.toEntity
 import com.example.rocketplan_android.data.local.entity.OfflineConflictResolutionEntity
@@ -32,10 +33,7 @@ class ProjectPushHandler(private val ctx: PushHandlerContext) {
 
     suspend fun handleCreate(operation: OfflineSyncQueueEntity): PendingProjectSyncResult? {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingProjectCreationPayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingProjectCreationPayload::class.java)
         }.getOrNull() ?: return null
 
         val existing = ctx.localDataService.getProject(payload.localProjectId)
@@ -10,6 +10,7 @@ import com.example.rocketplan_android.data.model.PropertyMutationRequest
 import com.example.rocketplan_android.data.model.offline.DeleteWithTimestampRequest
 import com.example.rocketplan_android.data.repository.mapper.PendingPropertyCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingPropertyUpdatePayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.data.repository.mapper.toApiTimestamp
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.util.DateUtils
@@ -24,10 +25,7 @@ class PropertyPushHandler(private val ctx: PushHandlerContext) {
 
     suspend fun handleCreate(operation: OfflineSyncQueueEntity): OperationOutcome {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingPropertyCreationPayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingPropertyCreationPayload::class.java)
         }.getOrNull() ?: return OperationOutcome.DROP
 
         val project = ctx.localDataService.getProject(payload.projectId)
@@ -153,10 +151,7 @@ class PropertyPushHandler(private val ctx: PushHandlerContext) {
 
     suspend fun handleUpdate(operation: OfflineSyncQueueEntity): OperationOutcome {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingPropertyUpdatePayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingPropertyUpdatePayload::class.java)
         }.getOrNull() ?: return OperationOutcome.DROP
 
         val property = ctx.localDataService.getProperty(payload.propertyId)
@@ -15,6 +15,7 @@ import com.example.rocketplan_android.data.model.offline.RoomDto
 import com.example.rocketplan_android.data.model.offline.RoomTypeDto
 import com.example.rocketplan_android.data.repository.mapper.PendingRoomCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingRoomUpdatePayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.data.repository.mapper.toApiTimestamp
 import com.example.rocketplan_android.data.repository.mapper.toEntity
 import com.example.rocketplan_android.logging.LogLevel
@@ -33,10 +34,7 @@ class RoomPushHandler(
 
     suspend fun handleCreate(operation: OfflineSyncQueueEntity): OperationOutcome {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingRoomCreationPayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingRoomCreationPayload::class.java)
         }.getOrNull() ?: return OperationOutcome.DROP
 
         val project = ctx.localDataService.getProject(payload.projectId)
@@ -338,10 +336,7 @@ class RoomPushHandler(
 
     suspend fun handleUpdate(operation: OfflineSyncQueueEntity): OperationOutcome {
         val payload = runCatching {
-            ctx.gson.fromJson(
-                String(operation.payload, Charsets.UTF_8),
-                PendingRoomUpdatePayload::class.java
-            )
+            SyncPayloadCodec.decode(operation.payload, PendingRoomUpdatePayload::class.java)
         }.getOrNull() ?: return OperationOutcome.DROP
 
         val room = payload.roomUuid?.let { ctx.localDataService.getRoomByUuid(it) }
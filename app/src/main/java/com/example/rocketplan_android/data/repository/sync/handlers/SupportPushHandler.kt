@@ -7,6 +7,7 @@ import com.example.rocketplan_android.data.model.offline.CreateSupportConversati
 import com.example.rocketplan_android.data.model.offline.CreateSupportMessageRequest
 import com.example.rocketplan_android.data.repository.mapper.PendingSupportConversationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingSupportMessagePayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.logging.LogLevel
 import kotlinx.coroutines.CancellationException
 import java.util.Date
@@ -183,18 +184,12 @@ class SupportPushHandler(private val ctx: PushHandlerContext) {
 
     private fun extractConversationPayload(payload: ByteArray): PendingSupportConversationPayload? =
         runCatching {
-            ctx.gson.fromJson(
-                String(payload, Charsets.UTF_8),
-                PendingSupportConversationPayload::class.java
-            )
+            SyncPayloadCodec.decode(payload, PendingSupportConversationPayload::class.java)
         }.getOrNull()
 
     private fun extractMessagePayload(payload: ByteArray): PendingSupportMessagePayload? =
         runCatching {
-            ctx.gson.fromJson(
-                String(payload, Charsets.UTF_8),
-                PendingSupportMessagePayload::class.java
-            )
+            SyncPayloadCodec.decode(payload, PendingSupportMessagePayload::class.java)
         }.getOrNull()
 
     companion object {
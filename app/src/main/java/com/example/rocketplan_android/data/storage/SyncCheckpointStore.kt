@@ -1,60 +1,124 @@
 package com.example.rocketplan_android.data.storage
 
 import android.content.Context
-import android.content.SharedPreferences
 import android.util.Log
 import androidx.security.crypto.EncryptedSharedPreferences
 import androidx.security.crypto.MasterKey
+import com.example.rocketplan_android.data.local.OfflineDatabase
+import com.example.rocketplan_android.data.local.dao.SyncCursorDao
+import com.example.rocketplan_android.data.local.entity.SyncCursorEntity
 import io.sentry.Sentry
+import java.io.File
 import java.util.Date
 
-class SyncCheckpointStore(private val context: Context) {
-
-    private val prefs: SharedPreferences? by lazy { createEncryptedPrefs() }
-
-    private fun createEncryptedPrefs(): SharedPreferences? {
-        context.deleteSharedPreferences(LEGACY_PREFS_NAME)
-        return try {
-            val masterKey = MasterKey.Builder(context)
-                .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
-                .build()
-            EncryptedSharedPreferences.create(
-                context,
-                ENCRYPTED_PREFS_NAME,
-                masterKey,
-                EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
-                EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM,
-            )
-        } catch (e: Throwable) {
-            Sentry.withScope { scope ->
-                scope.setTag("event", "sync_checkpoint_store_init_failed")
-                Sentry.captureException(e)
-            }
-            Log.w(TAG, "encrypted checkpoint store unavailable; checkpoints disabled", e)
-            null
-        }
-    }
+/**
+ * Incremental sync checkpoints, stored as rows of the `sync_cursor` table.
+ *
+ * Calls are blocking; made inside `LocalDataService.runInTransaction` they commit atomically with
+ * the page they describe. Project-scoped keys are tagged with their local project so they can be
+ * read together ([getProjectCheckpoints]) and are dropped when the project is deleted.
+ */
+class SyncCheckpointStore(
+    private val context: Context,
+    private val dao: SyncCursorDao = OfflineDatabase.getInstance(context).syncCursorDao()
+) {
+
+    @Volatile
+    private var legacyImportDone = false
 
     fun getCheckpoint(key: String): Date? {
-        val millis = prefs?.getLong(key, 0L) ?: 0L
-        return if (millis == 0L) null else Date(millis)
+        importLegacyCheckpoints()
+        return dao.getCursorAt(key)
+    }
+
+    /** All checkpoints of one local project, by key, in a single query. */
+    fun getProjectCheckpoints(projectId: Long): Map<String, Date> {
+        importLegacyCheckpoints()
+        return dao.getCursorsForProject(projectId).associate { it.cursorKey to it.cursorAt }
     }
 
     fun updateCheckpoint(key: String, timestamp: Date = Date()) {
-        prefs?.edit()?.putLong(key, timestamp.time)?.apply()
+        importLegacyCheckpoints()
+        dao.upsert(SyncCursorEntity(cursorKey = key, projectId = projectIdFor(key), cursorAt = timestamp))
     }
 
     fun clearCheckpoint(key: String) {
-        prefs?.edit()?.remove(key)?.apply()
+        importLegacyCheckpoints()
+        dao.delete(key)
     }
 
     fun clearAll() {
-        prefs?.edit()?.clear()?.apply()
+        importLegacyCheckpoints()
+        dao.clear()
+    }
+
+    /**
+     * Local project a key belongs to. Keys embed their scope: `project_<kind>_<localProjectId>`,
+     * `room_photos_<serverRoomId>` and `deleted_records_project_<serverProjectId>[_server_date]`;
+     * everything else is global.
+     */
+    private fun projectIdFor(key: String): Long? {
+        PROJECT_KEY.matchEntire(key)?.let { return it.groupValues[1].toLongOrNull() }
+        ROOM_PHOTOS_KEY.matchEntire(key)?.let { match ->
+            return match.groupValues[1].toLongOrNull()?.let(dao::getProjectIdForServerRoom)
+        }
+        DELETED_RECORDS_PROJECT_KEY.matchEntire(key)?.let { match ->
+            return match.groupValues[1].toLongOrNull()?.let(dao::getProjectIdForServerProject)
+        }
+        return null
+    }
+
+    /**
+     * One-time copy of checkpoints written by the EncryptedSharedPreferences store. Existing rows
+     * win; if the old file can't be decrypted its checkpoints are dropped and the next pulls run
+     * in full, as they did when the encrypted store was unavailable.
+     */
+    private fun importLegacyCheckpoints() {
+        if (legacyImportDone) return
+        synchronized(this) {
+            if (legacyImportDone) return
+            context.deleteSharedPreferences(LEGACY_PREFS_NAME)
+            if (encryptedPrefsFile().exists()) {
+                runCatching {
+                    val masterKey = MasterKey.Builder(context)
+                        .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+                        .build()
+                    val prefs = EncryptedSharedPreferences.create(
+                        context,
+                        ENCRYPTED_PREFS_NAME,
+                        masterKey,
+                        EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                        EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM,
+                    )
+                    val cursors = prefs.all.mapNotNull { (key, value) ->
+                        val millis = (value as? Long)?.takeIf { it != 0L } ?: return@mapNotNull null
+                        SyncCursorEntity(cursorKey = key, projectId = projectIdFor(key), cursorAt = Date(millis))
+                    }
+                    dao.insertIfAbsent(cursors)
+                    Log.d(TAG, "Imported ${cursors.size} checkpoints from encrypted preferences")
+                }.onFailure { e ->
+                    Sentry.withScope { scope ->
+                        scope.setTag("event", "sync_checkpoint_import_failed")
+                        Sentry.captureException(e)
+                    }
+                    Log.w(TAG, "encrypted checkpoints unreadable; starting from empty cursors", e)
+                }
+                context.deleteSharedPreferences(ENCRYPTED_PREFS_NAME)
+            }
+            legacyImportDone = true
+        }
     }
 
+    private fun encryptedPrefsFile(): File =
+        File(File(context.applicationInfo.dataDir, "shared_prefs"), "$ENCRYPTED_PREFS_NAME.xml")
+
     private companion object {
         private const val TAG = "SyncCheckpointStore"
         private const val ENCRYPTED_PREFS_NAME = "sync_checkpoints_encrypted"
         private const val LEGACY_PREFS_NAME = "sync_checkpoints"
+
+        private val PROJECT_KEY = Regex("project_[a-z_]+_(\\d+)")
+        private val ROOM_PHOTOS_KEY = Regex("room_photos_(\\d+)")
+        private val DELETED_RECORDS_PROJECT_KEY = Regex("deleted_records_project_(\\d+)(?:_server_date)?")
     }
 }
@@ -0,0 +1,74 @@
+package com.example.rocketplan_android.data.sync
+
+import android.util.Log
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+
+/**
+ * Out-of-process wakeup used while the app is in the background (see SyncRetryScheduler).
+ */
+interface BackgroundRetryHandoff {
+    /** Arrange for pending operations to be pushed at [dueAtMs], surviving process death. */
+    fun scheduleAt(dueAtMs: Long)
+
+    fun cancel()
+}
+
+/**
+ * Wakes the sync queue exactly when each backoff-scheduled operation becomes due.
+ *
+ * [scheduledAt] emits the distinct `scheduledAt` times of pending operations (ascending, empty
+ * when none is scheduled) and re-emits whenever they change; each new list re-arms the timer, so
+ * nothing polls while no retry is pending. Past-due times fire once, then the timer moves on to
+ * the next time still ahead: a row that stays pending past its due time (processing skipped while
+ * offline, or a skip that keeps its `scheduledAt`) must not hide retries scheduled after it.
+ * While the app is in the background the timer is handed to [handoff] instead (the same rule:
+ * the next time still ahead), and taken back (cancelling the handoff) on return to foreground.
+ */
+class ScheduledRetryWakeup(
+    private val scheduledAt: Flow<List<Long>>,
+    private val isForeground: Flow<Boolean>,
+    private val handoff: BackgroundRetryHandoff?,
+    private val onDue: suspend () -> Unit,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    suspend fun run() {
+        combine(scheduledAt.distinctUntilChanged(), isForeground.distinctUntilChanged()) { times, foreground ->
+            times to foreground
+        }.collectLatest { (times, foreground) ->
+            if (!foreground && handoff != null) {
+                // The next time still ahead; a past-due time only when nothing else is scheduled
+                val now = clock()
+                val dueAt = times.firstOrNull { it > now } ?: times.firstOrNull()
+                if (dueAt != null) {
+                    Log.d(TAG, "⏰ Backgrounded: handing retry at $dueAt to WorkManager")
+                    handoff.scheduleAt(dueAt)
+                } else {
+                    handoff.cancel()
+                }
+                return@collectLatest
+            }
+            handoff?.cancel()
+
+            // Everything due up to firedThrough was covered by the last onDue pass
+            var firedThrough = Long.MIN_VALUE
+            while (true) {
+                val dueAt = times.firstOrNull { it > firedThrough } ?: break
+                val waitMs = dueAt - clock()
+                if (waitMs > 0) {
+                    delay(waitMs)
+                }
+                Log.d(TAG, "⏰ Scheduled retry due (waited ${waitMs.coerceAtLeast(0)}ms), triggering process")
+                onDue()
+                firedThrough = maxOf(dueAt, clock())
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "SyncQueueManager"
+    }
+}
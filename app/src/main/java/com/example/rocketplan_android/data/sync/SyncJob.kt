@@ -19,7 +19,8 @@ sealed class SyncJob(
         ESSENTIALS_ONLY,
         CONTENT_ONLY,
         PHOTOS_ONLY,
-        METADATA_ONLY
+        METADATA_ONLY,
+        NOTES_ONLY
     }
 
     data class SyncProjectGraph(
@@ -29,5 +30,14 @@ sealed class SyncJob(
         val mode: ProjectSyncMode = if (skipPhotos) ProjectSyncMode.ESSENTIALS_ONLY else ProjectSyncMode.FULL,
         /** If true, skip CONTENT_ONLY (photos/metadata) sync after ESSENTIALS_ONLY completes */
         val skipContentSync: Boolean = false
-    ) : SyncJob(priority = prio, key = "project_$projectId")
+    ) : SyncJob(priority = prio, key = projectKey(projectId, mode)) {
+        companion object {
+            /**
+             * Queue key for a project sync. Notes-only refreshes get their own key so they queue
+             * beside a pending essentials or photos sync instead of replacing it.
+             */
+            fun projectKey(projectId: Long, mode: ProjectSyncMode): String =
+                if (mode == ProjectSyncMode.NOTES_ONLY) "project_notes_$projectId" else "project_$projectId"
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.example.rocketplan_android.data.sync
+
+/**
+ * Scheduling lanes for [SyncJob]s. Each lane has its own queue and concurrency cap, and lanes share
+ * the manager's job slots in proportion to [weight] (see [SyncLaneScheduler]).
+ *
+ * Interactive lanes (pending pushes, the project the user has open and the account-wide syncs)
+ * always keep at least one slot available, so a background photo backfill can never hold every slot.
+ * [PUSH] additionally has a slot of its own, so local edits never wait behind a long foreground or
+ * account-wide sync either.
+ */
+enum class SyncLane(
+    val maxConcurrency: Int,
+    val weight: Int,
+    val interactive: Boolean
+) {
+    /** Pushing local edits (ProcessPendingOperations). */
+    PUSH(maxConcurrency = 1, weight = 8, interactive = true),
+
+    /** Any project graph sync for the project currently open in the UI. */
+    FOREGROUND(maxConcurrency = 1, weight = 4, interactive = true),
+
+    /**
+     * User context, the project list and deleted/updated records. Short and account-wide, so they
+     * never queue behind a long per-project sync in [ESSENTIALS].
+     */
+    GLOBAL(maxConcurrency = 1, weight = 4, interactive = true),
+
+    /** Essentials, metadata and notes syncs for background projects. */
+    ESSENTIALS(maxConcurrency = 1, weight = 2, interactive = false),
+
+    /** Photo-bearing (FULL / CONTENT_ONLY / PHOTOS_ONLY) syncs for background projects. */
+    PHOTOS(maxConcurrency = 1, weight = 1, interactive = false);
+
+    companion object {
+        /**
+         * Lane for [job]. Evaluated at dispatch time so a queued job moves to [FOREGROUND] as soon
+         * as the user opens its project.
+         */
+        fun forJob(job: SyncJob, foregroundProjectId: Long?): SyncLane = when (job) {
+            SyncJob.ProcessPendingOperations -> PUSH
+            SyncJob.EnsureUserContext,
+            SyncJob.SyncDeletedRecords,
+            SyncJob.SyncUpdatedRecords,
+            is SyncJob.SyncProjects -> GLOBAL
+            is SyncJob.SyncProjectGraph -> when {
+                job.projectId == foregroundProjectId -> FOREGROUND
+                job.mode == SyncJob.ProjectSyncMode.ESSENTIALS_ONLY ||
+                    job.mode == SyncJob.ProjectSyncMode.METADATA_ONLY ||
+                    job.mode == SyncJob.ProjectSyncMode.NOTES_ONLY -> ESSENTIALS
+                else -> PHOTOS
+            }
+        }
+    }
+}
+
+/** Point-in-time depth and wait-time metrics for one [SyncLane]. */
+data class SyncLaneStats(
+    val queued: Int = 0,
+    val running: Int = 0,
+    /** Queue wait of the most recently dispatched job. */
+    val lastWaitMs: Long = 0,
+    val averageWaitMs: Long = 0,
+    val maxWaitMs: Long = 0,
+    val dispatched: Long = 0
+)
+
+/**
+ * Weighted-fair slot allocator for [SyncLane]s (stride scheduling).
+ *
+ * Every dispatch advances the lane's pass by `STRIDE / weight`; the ready lane with the lowest pass
+ * gets the next free slot. A lane that was idle resumes at the current virtual time instead of
+ * redeeming credit it banked while idle. Not thread-safe: callers hold the manager's mutex.
+ */
+class SyncLaneScheduler(
+    private val maxConcurrentJobs: Int = DEFAULT_MAX_CONCURRENT_JOBS,
+    private val reservedInteractiveSlots: Int = DEFAULT_RESERVED_INTERACTIVE_SLOTS,
+    private val reservedPushSlots: Int = DEFAULT_RESERVED_PUSH_SLOTS
+) {
+    private val running = IntArray(SyncLane.entries.size)
+    private val pass = LongArray(SyncLane.entries.size)
+    private var virtualTime = 0L
+
+    init {
+        require(maxConcurrentJobs > 0) { "maxConcurrentJobs must be positive" }
+        require(reservedInteractiveSlots >= 0 && reservedPushSlots >= 0) { "reserved slots must not be negative" }
+        require(reservedInteractiveSlots + reservedPushSlots < maxConcurrentJobs) {
+            "reserved slots must leave at least one shared slot"
+        }
+    }
+
+    val totalRunning: Int
+        get() = running.sum()
+
+    fun runningIn(lane: SyncLane): Int = running[lane.ordinal]
+
+    fun canStart(lane: SyncLane): Boolean {
+        if (totalRunning >= maxConcurrentJobs) return false
+        if (running[lane.ordinal] >= lane.maxConcurrency) return false
+        if (lane != SyncLane.PUSH) {
+            val othersRunning = totalRunning - running[SyncLane.PUSH.ordinal]
+            if (othersRunning >= maxConcurrentJobs - reservedPushSlots) return false
+        }
+        if (!lane.interactive) {
+            val backgroundRunning = SyncLane.entries.filterNot { it.interactive }.sumOf { running[it.ordinal] }
+            if (backgroundRunning >= maxConcurrentJobs - reservedPushSlots - reservedInteractiveSlots) return false
+        }
+        return true
+    }
+
+    /** Picks the lane that should receive the next slot among lanes with queued work, or null. */
+    fun nextLane(ready: Collection<SyncLane>): SyncLane? =
+        ready.filter { canStart(it) }
+            .minWithOrNull(compareBy<SyncLane> { maxOf(pass[it.ordinal], virtualTime) }.thenBy { it.ordinal })
+
+    fun onStarted(lane: SyncLane) {
+        val effective = maxOf(pass[lane.ordinal], virtualTime)
+        virtualTime = effective
+        pass[lane.ordinal] = effective + STRIDE / lane.weight
+        running[lane.ordinal]++
+    }
+
+    fun onFinished(lane: SyncLane) {
+        if (running[lane.ordinal] > 0) {
+            running[lane.ordinal]--
+        }
+    }
+
+    companion object {
+        // One push slot, one interactive slot and two shared slots for background projects
+        const val DEFAULT_MAX_CONCURRENT_JOBS = 4
+        const val DEFAULT_RESERVED_INTERACTIVE_SLOTS = 1
+        const val DEFAULT_RESERVED_PUSH_SLOTS = 1
+        private const val STRIDE = 1_000_000L
+    }
+}
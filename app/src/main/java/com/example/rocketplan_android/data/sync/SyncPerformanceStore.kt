@@ -0,0 +1,307 @@
+package com.example.rocketplan_android.data.sync
+
+import android.util.Log
+import com.example.rocketplan_android.data.repository.SyncSegment
+import com.example.rocketplan_android.logging.LogLevel
+import com.example.rocketplan_android.logging.RemoteLogger
+import com.google.gson.Gson
+import java.io.File
+import java.io.IOException
+import java.util.Locale
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+
+/**
+ * Latency/throughput/error-rate summary for one metric key over a rolling window.
+ *
+ * Keys are `push:<entityType>:<OPERATION>` for queued operations and `pull:<SyncSegment>` for
+ * project sync segments.
+ */
+data class SyncPerformanceSummary(
+    val key: String,
+    val count: Int,
+    val errorCount: Int,
+    val items: Long,
+    val p50Ms: Long,
+    val p95Ms: Long,
+    val p99Ms: Long,
+    val maxMs: Long,
+    val throughputPerMinute: Double
+) {
+    val errorRate: Double
+        get() = if (count == 0) 0.0 else errorCount.toDouble() / count
+}
+
+/**
+ * Log-linear latency buckets (HDR-style): exact below 16ms, then 8 sub-buckets per power of two,
+ * so a reported percentile is within 12.5% of the true value. Durations above ~70 minutes are
+ * clamped into the last bucket.
+ */
+internal object LatencyBuckets {
+    private const val SUB_BUCKET_BITS = 3
+    private const val SUB_BUCKETS = 1 shl SUB_BUCKET_BITS
+    private const val LINEAR_LIMIT = 2 * SUB_BUCKETS
+    const val MAX_TRACKABLE_MS = 1L shl 22
+
+    val count: Int = indexOf(MAX_TRACKABLE_MS - 1) + 1
+
+    fun indexOf(durationMs: Long): Int {
+        val value = durationMs.coerceIn(0L, MAX_TRACKABLE_MS - 1)
+        if (value < LINEAR_LIMIT) return value.toInt()
+        val exponent = 63 - java.lang.Long.numberOfLeadingZeros(value)
+        val sub = ((value ushr (exponent - SUB_BUCKET_BITS)) and (SUB_BUCKETS - 1).toLong()).toInt()
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub
+    }
+
+    /** Largest duration that maps to [index]. */
+    fun upperBoundOf(index: Int): Long {
+        if (index < LINEAR_LIMIT) return index.toLong()
+        val exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1
+        val sub = (index - LINEAR_LIMIT) % SUB_BUCKETS
+        val width = 1L shl (exponent - SUB_BUCKET_BITS)
+        return (1L shl exponent) + (sub + 1) * width - 1
+    }
+}
+
+/**
+ * Persisted, bounded latency histograms for sync pushes and pulls.
+ *
+ * Each key keeps one sparse histogram per [SLICE_MS] time slice for the last [RETENTION_MS];
+ * rolling-window queries merge the slices that overlap the window. At most [MAX_KEYS] keys are
+ * kept (least recently recorded are evicted), so the store stays small regardless of traffic.
+ *
+ * [persist] writes the state to [file] when it changed and, at most every [REPORT_INTERVAL_MS],
+ * attaches a summary of the last hour to the remote log stream. Thread-safe.
+ */
+class SyncPerformanceStore(
+    private val file: File?,
+    private val remoteLogger: RemoteLogger? = null,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+    private class Slice(
+        val startMs: Long,
+        val buckets: MutableMap<Int, Int> = HashMap(),
+        var count: Int = 0,
+        var errors: Int = 0,
+        var items: Long = 0,
+        var maxMs: Long = 0
+    )
+
+    private class Series(val slices: ArrayDeque<Slice> = ArrayDeque(), var lastRecordedAt: Long = 0)
+
+    private data class PersistedSlice(
+        val startMs: Long,
+        val buckets: Map<Int, Int>,
+        val count: Int,
+        val errors: Int,
+        val items: Long,
+        val maxMs: Long
+    )
+
+    private data class PersistedState(
+        val version: Int,
+        val lastReportAt: Long,
+        val series: Map<String, List<PersistedSlice>>
+    )
+
+    private val lock = Any()
+    private val gson = Gson()
+    private var series: MutableMap<String, Series>? = null
+    private var lastReportAt = 0L
+    private var dirty = false
+    private val revision = MutableStateFlow(0L)
+
+    fun recordPush(entityType: String, operationType: String, durationMs: Long, failed: Boolean) {
+        record("$PUSH_PREFIX$entityType:${operationType.uppercase()}", durationMs, failed, items = 1)
+    }
+
+    fun recordSegment(segment: SyncSegment, durationMs: Long, itemsSynced: Int, failed: Boolean) {
+        record("$PULL_PREFIX${segment.name}", durationMs, failed, items = itemsSynced.toLong())
+    }
+
+    fun summaries(windowMs: Long = WINDOW_24H_MS): List<SyncPerformanceSummary> = synchronized(lock) {
+        val now = clock()
+        loadLocked().mapNotNull { (key, s) -> summarize(key, s, now, windowMs) }
+            .sortedByDescending { it.count }
+    }
+
+    /** Emits [summaries] for [windowMs] now and again after every [persist] that saved new data. */
+    fun observeSummaries(windowMs: Long = WINDOW_24H_MS): Flow<List<SyncPerformanceSummary>> =
+        revision.map { summaries(windowMs) }.flowOn(ioDispatcher)
+
+    /** Saves pending changes and emits the periodic remote summary when it is due. */
+    fun persist() {
+        val report: Map<String, String>?
+        synchronized(lock) {
+            val current = loadLocked()
+            report = takeReportLocked(current)
+            if (dirty) {
+                writeLocked(current)
+                dirty = false
+                revision.value = revision.value + 1
+            }
+        }
+        report?.let {
+            remoteLogger?.log(LogLevel.INFO, TAG, "Sync performance summary", it)
+        }
+    }
+
+    private fun record(key: String, durationMs: Long, failed: Boolean, items: Long) {
+        synchronized(lock) {
+            val now = clock()
+            val current = loadLocked()
+            val s = current.getOrPut(key) { Series() }
+            s.lastRecordedAt = now
+            val sliceStart = now - Math.floorMod(now, SLICE_MS)
+            val slice = s.slices.lastOrNull()?.takeIf { it.startMs == sliceStart }
+                ?: Slice(sliceStart).also { s.slices.addLast(it) }
+            val bucket = LatencyBuckets.indexOf(durationMs)
+            slice.buckets[bucket] = (slice.buckets[bucket] ?: 0) + 1
+            slice.count++
+            if (failed) slice.errors++
+            slice.items += items
+            slice.maxMs = maxOf(slice.maxMs, durationMs)
+            while (s.slices.size > MAX_SLICES) s.slices.removeFirst()
+            if (current.size > MAX_KEYS) {
+                current.entries.minByOrNull { it.value.lastRecordedAt }?.let { current.remove(it.key) }
+            }
+            dirty = true
+        }
+    }
+
+    private fun summarize(key: String, s: Series, now: Long, windowMs: Long): SyncPerformanceSummary? {
+        val from = now - windowMs
+        val slices = s.slices.filter { it.startMs + SLICE_MS > from }
+        val count = slices.sumOf { it.count }
+        if (count == 0) return null
+        val merged = IntArray(LatencyBuckets.count)
+        slices.forEach { slice -> slice.buckets.forEach { (bucket, n) -> merged[bucket] += n } }
+        val maxMs = slices.maxOf { it.maxMs }
+        val spanMs = (now - maxOf(from, slices.first().startMs)).coerceAtLeast(MIN_THROUGHPUT_SPAN_MS)
+        return SyncPerformanceSummary(
+            key = key,
+            count = count,
+            errorCount = slices.sumOf { it.errors },
+            items = slices.sumOf { it.items },
+            p50Ms = percentile(merged, count, 0.50, maxMs),
+            p95Ms = percentile(merged, count, 0.95, maxMs),
+            p99Ms = percentile(merged, count, 0.99, maxMs),
+            maxMs = maxMs,
+            throughputPerMinute = count * 60_000.0 / spanMs
+        )
+    }
+
+    private fun percentile(buckets: IntArray, count: Int, quantile: Double, maxMs: Long): Long {
+        val rank = Math.ceil(quantile * count).toLong().coerceAtLeast(1)
+        var seen = 0L
+        for (index in buckets.indices) {
+            seen += buckets[index]
+            if (seen >= rank) return minOf(LatencyBuckets.upperBoundOf(index), maxMs)
+        }
+        return maxMs
+    }
+
+    private fun takeReportLocked(current: Map<String, Series>): Map<String, String>? {
+        if (remoteLogger == null) return null
+        val now = clock()
+        if (now - lastReportAt < REPORT_INTERVAL_MS) return null
+        val summaries = current.mapNotNull { (key, s) -> summarize(key, s, now, REPORT_INTERVAL_MS) }
+        if (summaries.isEmpty()) return null
+        lastReportAt = now
+        dirty = true
+        return buildMap {
+            put("windowMinutes", (REPORT_INTERVAL_MS / 60_000).toString())
+            summaries.sortedByDescending { it.count }.take(MAX_REPORTED_KEYS).forEach { summary ->
+                put(
+                    summary.key,
+                    String.format(
+                        Locale.US,
+                        "n=%d p50=%d p95=%d p99=%d err=%.3f tpm=%.2f",
+                        summary.count,
+                        summary.p50Ms,
+                        summary.p95Ms,
+                        summary.p99Ms,
+                        summary.errorRate,
+                        summary.throughputPerMinute
+                    )
+                )
+            }
+        }
+    }
+
+    private fun loadLocked(): MutableMap<String, Series> {
+        series?.let { return it }
+        val loaded = mutableMapOf<String, Series>()
+        runCatching {
+            val text = file?.takeIf { it.exists() }?.readText()
+            if (!text.isNullOrBlank()) {
+                val state = gson.fromJson(text, PersistedState::class.java)
+                if (state.version == STATE_VERSION) {
+                    lastReportAt = state.lastReportAt
+                    state.series.forEach { (key, slices) ->
+                        val restored = Series()
+                        slices.forEach { p ->
+                            restored.slices.addLast(
+                                Slice(p.startMs, HashMap(p.buckets), p.count, p.errors, p.items, p.maxMs)
+                            )
+                        }
+                        restored.lastRecordedAt = slices.lastOrNull()?.startMs ?: 0L
+                        loaded[key] = restored
+                    }
+                }
+            }
+        }.onFailure {
+            Log.w(TAG, "Discarding unreadable sync performance state: ${it.localizedMessage}")
+        }
+        series = loaded
+        return loaded
+    }
+
+    private fun writeLocked(current: MutableMap<String, Series>) {
+        val target = file ?: return
+        val cutoff = clock() - RETENTION_MS
+        current.values.forEach { s -> while (s.slices.firstOrNull()?.let { it.startMs < cutoff } == true) s.slices.removeFirst() }
+        current.entries.removeAll { it.value.slices.isEmpty() }
+        val state = PersistedState(
+            version = STATE_VERSION,
+            lastReportAt = lastReportAt,
+            series = current.mapValues { (_, s) ->
+                s.slices.map { PersistedSlice(it.startMs, it.buckets.toMap(), it.count, it.errors, it.items, it.maxMs) }
+            }
+        )
+        runCatching {
+            target.parentFile?.mkdirs()
+            // Write aside and rename over the state, so a process killed mid-write keeps the old file
+            val temp = target.resolveSibling("${target.name}.tmp")
+            temp.writeText(gson.toJson(state))
+            if (!temp.renameTo(target)) {
+                temp.delete()
+                throw IOException("Unable to replace ${target.name}")
+            }
+        }.onFailure {
+            Log.w(TAG, "Failed to persist sync performance state: ${it.localizedMessage}")
+        }
+    }
+
+    companion object {
+        private const val TAG = "SyncPerformance"
+        private const val STATE_VERSION = 1
+        const val PUSH_PREFIX = "push:"
+        const val PULL_PREFIX = "pull:"
+        const val SLICE_MS = 10 * 60_000L
+        const val RETENTION_MS = 24 * 60 * 60_000L
+        const val WINDOW_1H_MS = 60 * 60_000L
+        const val WINDOW_24H_MS = RETENTION_MS
+        const val REPORT_INTERVAL_MS = WINDOW_1H_MS
+        private const val MAX_SLICES = (RETENTION_MS / SLICE_MS).toInt()
+        private const val MAX_KEYS = 64
+        private const val MAX_REPORTED_KEYS = 20
+        private const val MIN_THROUGHPUT_SPAN_MS = 60_000L
+        const val FILE_NAME = "sync_performance.json"
+    }
+}
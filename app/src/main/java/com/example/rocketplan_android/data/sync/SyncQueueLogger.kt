@@ -11,12 +11,14 @@ import java.util.concurrent.atomic.AtomicReference
  * - Session-level metrics (total ops, success/failure rates)
  * - Operation type breakdowns (create/update/delete counts per entity)
  * - Performance tracking (duration per operation and session)
+ * - Persistent latency histograms across sessions via [SyncPerformanceStore]
  *
  * Thread-safe for concurrent access during sync processing.
  */
 class SyncQueueLogger(
     private val remoteLogger: RemoteLogger? = null,
-    private val tag: String = TAG
+    private val tag: String = TAG,
+    private val performanceStore: SyncPerformanceStore? = null
 ) {
     private val currentSession = AtomicReference<SyncSessionMetrics?>(null)
 
@@ -53,6 +55,19 @@ class SyncQueueLogger(
         outcome: SyncOperationOutcome,
         durationMs: Long = 0
     ) {
+        // Skips and drops never reached the server, so they would only dilute the latency tail.
+        if (outcome == SyncOperationOutcome.SUCCESS ||
+            outcome == SyncOperationOutcome.FAILURE ||
+            outcome == SyncOperationOutcome.CONFLICT_PENDING
+        ) {
+            performanceStore?.recordPush(
+                entityType = entityType,
+                operationType = operationType,
+                durationMs = durationMs,
+                failed = outcome == SyncOperationOutcome.FAILURE
+            )
+        }
+
         val session = currentSession.get()
         if (session == null) {
             Log.w(tag, "⚠️ Recording operation outside of active session: $entityType/$operationType")
@@ -74,6 +89,7 @@ class SyncQueueLogger(
     fun endSession(): SyncSessionMetrics? {
         val session = currentSession.getAndSet(null) ?: return null
         session.endSession()
+        performanceStore?.persist()
 
         // Log summary locally
         val summary = session.formatSummary()
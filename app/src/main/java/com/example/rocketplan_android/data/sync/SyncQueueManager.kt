@@ -9,6 +9,7 @@ import com.example.rocketplan_android.data.local.SyncStatus
 import com.example.rocketplan_android.data.repository.AuthRepository
 import com.example.rocketplan_android.data.repository.OfflineSyncRepository
 import com.example.rocketplan_android.data.repository.SyncSegment
+import com.example.rocketplan_android.data.repository.sync.IncrementalPullPlan
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
 import com.example.rocketplan_android.util.DateUtils
@@ -24,6 +25,7 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.cancel
+import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharedFlow
@@ -46,7 +48,10 @@ class SyncQueueManager(
     private val localDataService: LocalDataService,
     private val photoCacheScheduler: PhotoCacheScheduler,
     private val remoteLogger: RemoteLogger,
-    private val connectivityManager: ConnectivityManager? = null
+    private val connectivityManager: ConnectivityManager? = null,
+    // Background handoff for backoff retries; null keeps the timer in-process only
+    private val retryHandoff: BackgroundRetryHandoff? = null,
+    private val appForeground: StateFlow<Boolean> = MutableStateFlow(true)
 ) {
 
     private var photoSyncRealtimeManager: PhotoSyncRealtimeManager? = null
@@ -57,11 +62,17 @@ class SyncQueueManager(
     // is reported once (instead of suppressing all fallbacks after the first).
     private val loggedConnectivityFallbacks = ConcurrentHashMap.newKeySet<String>()
     private val mutex = Mutex()
-    private val queue = PriorityQueue<QueuedTask>(
-        compareBy<QueuedTask> { it.priority }.thenBy { it.enqueuedAt }
-    )
+    private val taskOrder = compareBy<QueuedTask> { it.priority }.thenBy { it.enqueuedAt }
+    private val queue = PriorityQueue<QueuedTask>(taskOrder)
     private val taskIndex = mutableMapOf<String, QueuedTask>()
-    private val notifier = MutableSharedFlow<Unit>(extraBufferCapacity = 1)
+    // Conflated so a wake-up sent while the dispatcher is busy is never lost
+    private val notifier = Channel<Unit>(Channel.CONFLATED)
+    private val laneScheduler = SyncLaneScheduler()
+    private val runningTasks = mutableListOf<QueuedTask>()
+    private val laneDispatchCounts = LongArray(SyncLane.entries.size)
+    private val laneWaitTotals = LongArray(SyncLane.entries.size)
+    private val laneLastWaits = LongArray(SyncLane.entries.size)
+    private val laneMaxWaits = LongArray(SyncLane.entries.size)
     private val _isActive = MutableStateFlow(false)
     val isActive: StateFlow<Boolean> = _isActive
     private val _errors = MutableSharedFlow<String>(extraBufferCapacity = 8)
@@ -79,6 +90,10 @@ class SyncQueueManager(
     )
     private val _currentSyncProgress = MutableStateFlow<SyncProgress?>(null)
     val currentSyncProgress: StateFlow<SyncProgress?> = _currentSyncProgress
+
+    /** Queue depth, running count and queue wait times per scheduling lane */
+    private val _laneStats = MutableStateFlow(SyncLane.entries.associateWith { SyncLaneStats() })
+    val laneStats: StateFlow<Map<SyncLane, SyncLaneStats>> = _laneStats
     private val initialSyncStarted = AtomicBoolean(false)
     private val _initialSyncCompleted = MutableStateFlow(false)
     val initialSyncCompleted: StateFlow<Boolean> = _initialSyncCompleted
@@ -108,30 +123,38 @@ class SyncQueueManager(
 
     // Track projects with updates for incremental sync
     private val pendingUpdatedProjectIds = mutableSetOf<Long>()
+    // Set once /api/sync/updated has been planned, so SyncProjects stays incremental even when
+    // no project needs the broad resync.
+    private var incrementalPullPlanned = false
 
     init {
-        scope.launch { processLoop() }
+        scope.launch { dispatchLoop() }
         scope.launch { observePendingOperations() }
-        scope.launch { scheduledRetryTicker() }
+        scope.launch { scheduledRetryWakeups() }
     }
 
     /**
-     * Periodically checks for backoff-scheduled operations that are now due.
-     * This ensures ops with future scheduledAt don't stall indefinitely waiting
-     * for another DB change to trigger observePendingOperations.
+     * Wakes the queue when the earliest backoff-scheduled operation becomes due, so ops with a
+     * future scheduledAt don't stall waiting for another DB change to trigger
+     * observePendingOperations. Re-armed on every queue change; handed to WorkManager while
+     * the app is backgrounded.
      */
-    private suspend fun scheduledRetryTicker() {
+    private suspend fun scheduledRetryWakeups() {
+        val wakeup = ScheduledRetryWakeup(
+            scheduledAt = localDataService.observeScheduledRetryTimes(),
+            isForeground = appForeground,
+            handoff = retryHandoff,
+            onDue = { enqueue(SyncJob.ProcessPendingOperations) }
+        )
         while (true) {
-            delay(SCHEDULED_RETRY_CHECK_INTERVAL_MS)
             try {
-                if (localDataService.hasDueScheduledOperations()) {
-                    Log.d(TAG, "⏰ Scheduled retry ticker: found due operations, triggering process")
-                    enqueue(SyncJob.ProcessPendingOperations)
-                }
+                wakeup.run()
+                return
             } catch (e: CancellationException) {
                 throw e
             } catch (e: Exception) {
-                Log.w(TAG, "⚠️ Scheduled retry ticker check failed", e)
+                Log.w(TAG, "⚠️ Scheduled retry wakeup failed; re-arming", e)
+                delay(SCHEDULED_RETRY_REARM_DELAY_MS)
             }
         }
     }
@@ -274,6 +297,18 @@ class SyncQueueManager(
         }
     }
 
+    /**
+     * Queues a push of pending operations and suspends until the push lane has drained.
+     * Used by background work that must keep the process alive while the push runs.
+     */
+    suspend fun runPendingOperationsNow() {
+        enqueue(SyncJob.ProcessPendingOperations)
+        laneStats.first { stats ->
+            val push = stats[SyncLane.PUSH] ?: return@first true
+            push.queued == 0 && push.running == 0
+        }
+    }
+
     /**
      * Resets FAILED operations to PENDING for retry.
      * Called when network is restored or app comes to foreground.
@@ -307,6 +342,20 @@ class SyncQueueManager(
         }
     }
 
+    /** Like [refreshProjectMetadata] but only re-pulls the project's notes. */
+    fun refreshProjectNotes(projectId: Long) {
+        scope.launch {
+            enqueue(
+                SyncJob.SyncProjectGraph(
+                    projectId = projectId,
+                    prio = 1,
+                    skipPhotos = true,
+                    mode = SyncJob.ProjectSyncMode.NOTES_ONLY
+                )
+            )
+        }
+    }
+
     fun prioritizeProject(projectId: Long) {
         scope.launch {
             focusProjectSync(projectId)
@@ -357,10 +406,22 @@ class SyncQueueManager(
      */
     suspend fun isProjectSyncInFlight(projectId: Long): Boolean = mutex.withLock {
         activeProjectSyncJobs.containsKey(projectId) ||
-            taskIndex.containsKey("project_$projectId") ||
+            queuedProjectSyncsLocked(projectId).isNotEmpty() ||
             isPhotoBearingSyncPendingLocked(projectId)
     }
 
+    /**
+     * Returns true if a queued or deferred (not yet started) sync for [projectId] will already pull
+     * everything a [mode] refresh would. Running syncs don't count: they may have fetched before
+     * the change that triggered the refresh.
+     */
+    suspend fun hasPendingProjectRefresh(projectId: Long, mode: SyncJob.ProjectSyncMode): Boolean =
+        mutex.withLock {
+            val pendingModes = queuedProjectSyncsLocked(projectId).map { it.mode } +
+                deferredProjectSyncs.filter { it.projectId == projectId }.map { it.mode }
+            pendingModes.any { it.covers(mode) }
+        }
+
     /**
      * Cancel the ongoing project sync for a given project.
      * This cancels the active coroutine and removes the job from queue if pending.
@@ -377,11 +438,11 @@ class SyncQueueManager(
                 }
 
                 // Remove from queue if pending
-                val key = "project_$projectId"
-                taskIndex[key]?.let { task ->
-                    Log.d(TAG, "🗑️ Removing queued sync for project $projectId")
-                    queue.remove(task)
-                    taskIndex.remove(key)
+                queuedProjectSyncsLocked(projectId).forEach { queued ->
+                    taskIndex[queued.key]?.let { task ->
+                        Log.d(TAG, "🗑️ Removing queued sync for project $projectId")
+                        removeLocked(task)
+                    }
                 }
 
                 // RP-BUG-043: also drop any deferred job for this project so derived photo-syncing
@@ -390,6 +451,7 @@ class SyncQueueManager(
 
                 // Recompute derived sync/photo state from the (now updated) active/queue/deferred sources.
                 updateProjectSyncingProjectsLocked()
+                publishLaneStatsLocked()
             }
         }
     }
@@ -412,8 +474,7 @@ class SyncQueueManager(
                     val syncJob = task.job
                     if (syncJob is SyncJob.SyncProjectGraph && syncJob.mode.includesPhotos()) {
                         Log.d(TAG, "🗑️ Removing queued photo sync for project $projectId")
-                        queue.remove(task)
-                        taskIndex.remove(key)
+                        removeLocked(task)
                     }
                 }
 
@@ -421,6 +482,7 @@ class SyncQueueManager(
                 // derived photo-syncing state from active/queue/deferred.
                 deferredProjectSyncs.removeAll { it.projectId == projectId && it.mode.includesPhotos() }
                 updateProjectSyncingProjectsLocked()
+                publishLaneStatsLocked()
             }
         }
     }
@@ -461,15 +523,17 @@ class SyncQueueManager(
 
                 clearLocked()
                 updatePhotoSyncingProjectsLocked()
+                // Running non-project jobs finish on their own and release their lane slots
+                publishLaneStatsLocked()
                 initialSyncStarted.set(false)
                 _initialSyncCompleted.value = false
                 assignedProjectIds.value = emptySet()
                 _assignedProjectsLoaded.value = false
                 pendingUpdatedProjectIds.clear()
+                incrementalPullPlanned = false
                 lastForegroundSyncAt = -1L
             }
             projectRealtimeManager?.clear()
-            _isActive.value = false
         }
     }
 
@@ -489,67 +553,90 @@ class SyncQueueManager(
             }
             enqueueLocked(QueuedTask(job.key, job, job.priority, System.currentTimeMillis()))
             updateProjectSyncingProjectsLocked()
-            notifier.tryEmit(Unit)
+            publishLaneStatsLocked()
+            notifier.trySend(Unit)
         }
     }
 
-    private suspend fun processLoop() {
+    /**
+     * Hands queued jobs to lanes as slots free up. Each job runs in its own coroutine, so a long
+     * background photo sync only occupies its own lane's slot while pushes, the foreground project
+     * and essentials keep draining in theirs.
+     */
+    private suspend fun dispatchLoop() {
         while (true) {
-            val next = mutex.withLock {
-                pollLocked()?.also {
-                    updateProjectSyncingProjectsLocked()
-                }
+            mutex.withLock { dispatchReadyLocked() }
+            try {
+                notifier.receive()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.e(TAG, "Notifier error in dispatchLoop", e)
+                delay(1000)  // Back off before retrying
             }
+        }
+    }
 
-            if (next == null) {
-                _isActive.value = false
-                _currentSyncJob.value = null
-                try {
-                    notifier.first()
-                } catch (e: CancellationException) {
-                    throw e
-                } catch (e: Exception) {
-                    Log.e(TAG, "Notifier error in processLoop", e)
-                    delay(1000)  // Back off before retrying
-                }
-                continue
-            }
+    private fun dispatchReadyLocked() {
+        while (true) {
+            val foreground = foregroundProjectId
+            val readyLanes = queue.mapTo(mutableSetOf()) { SyncLane.forJob(it.job, foreground) }
+            val lane = laneScheduler.nextLane(readyLanes) ?: break
+            val task = pollLocked(lane) ?: break
+            val waitMs = (System.currentTimeMillis() - task.enqueuedAt).coerceAtLeast(0L)
+            laneScheduler.onStarted(lane)
+            recordLaneWaitLocked(lane, waitMs)
+            runningTasks.add(task)
+            _currentSyncJob.value = task.job
+            Log.d(TAG, "🚦 Dispatching ${task.key} on ${lane.name} lane (waited ${waitMs}ms)")
+            scope.launch { runTask(task, lane) }
+        }
+        updateProjectSyncingProjectsLocked()
+        publishLaneStatsLocked()
+    }
 
-            _isActive.value = true
-            _currentSyncJob.value = next.job
-            try {
-                execute(next.job)
-            } catch (ce: CancellationException) {
-                throw ce
-            } catch (t: Throwable) {
-                val message = "Sync job ${next.key} failed: ${t.message}"
-                remoteLogger.log(
-                    level = LogLevel.ERROR,
-                    tag = TAG,
-                    message = message,
-                    metadata = mapOf(
-                        "jobKey" to next.key,
-                        "priority" to next.priority.toString()
-                    )
+    private suspend fun runTask(task: QueuedTask, lane: SyncLane) {
+        try {
+            execute(task.job)
+        } catch (ce: CancellationException) {
+            throw ce
+        } catch (t: Throwable) {
+            val message = "Sync job ${task.key} failed: ${t.message}"
+            remoteLogger.log(
+                level = LogLevel.ERROR,
+                tag = TAG,
+                message = message,
+                metadata = mapOf(
+                    "jobKey" to task.key,
+                    "priority" to task.priority.toString(),
+                    "lane" to lane.name
                 )
-                _errors.tryEmit(message)
+            )
+            _errors.tryEmit(message)
 
-                // Cleanup any stuck state for project sync jobs to prevent memory leaks
-                // This is a defensive cleanup in case the finally block didn't run
-                if (next.job is SyncJob.SyncProjectGraph) {
-                    val projectId = (next.job as SyncJob.SyncProjectGraph).projectId
-                    mutex.withLock {
-                        activeProjectSyncJobs.remove(projectId)
-                        activeProjectModes.remove(projectId)
-                        deferredProjectSyncs.removeAll { it.projectId == projectId }
-                        updateProjectSyncingProjectsLocked()
-                    }
-                    Log.d(TAG, "🧹 Cleaned up stuck state for failed project sync $projectId")
+            // Cleanup any stuck state for project sync jobs to prevent memory leaks
+            // This is a defensive cleanup in case the finally block didn't run
+            if (task.job is SyncJob.SyncProjectGraph) {
+                val projectId = task.job.projectId
+                mutex.withLock {
+                    activeProjectSyncJobs.remove(projectId)
+                    activeProjectModes.remove(projectId)
+                    deferredProjectSyncs.removeAll { it.projectId == projectId }
+                    updateProjectSyncingProjectsLocked()
+                }
+                Log.d(TAG, "🧹 Cleaned up stuck state for failed project sync $projectId")
+            }
+        } finally {
+            mutex.withLock {
+                laneScheduler.onFinished(lane)
+                runningTasks.remove(task)
+                _currentSyncJob.value = runningTasks.lastOrNull()?.job
+                if (_currentSyncProgress.value?.job == task.job) {
+                    _currentSyncProgress.value = null
                 }
-            } finally {
-                _currentSyncJob.value = null
-                _currentSyncProgress.value = null
+                publishLaneStatsLocked()
             }
+            notifier.trySend(Unit)
         }
     }
 
@@ -677,12 +764,14 @@ class SyncQueueManager(
                 projectRealtimeManager?.updateProjects(projects.map { it.projectId }.toSet())
 
                 // Check if we have specific updated project IDs from SyncUpdatedRecords
-                val updatedServerIds = mutex.withLock {
-                    pendingUpdatedProjectIds.toSet().also { pendingUpdatedProjectIds.clear() }
+                val (updatedServerIds, pullPlanned) = mutex.withLock {
+                    val ids = pendingUpdatedProjectIds.toSet()
+                    pendingUpdatedProjectIds.clear()
+                    (ids to incrementalPullPlanned).also { incrementalPullPlanned = false }
                 }
 
                 // If incremental sync identified specific changed projects, only sync those
-                if (!job.force && updatedServerIds.isNotEmpty()) {
+                if (!job.force && (updatedServerIds.isNotEmpty() || pullPlanned)) {
                     val changedProjects = projects.filter { project ->
                         project.serverId?.let { updatedServerIds.contains(it) } == true
                     }
@@ -801,15 +890,23 @@ class SyncQueueManager(
                     Log.d(TAG, "⏭️ Skipping SyncUpdatedRecords (no network)")
                     return
                 }
-                syncRepository.getUpdatedProjectIds()
-                    .onSuccess { changedIds ->
-                        if (changedIds.isNotEmpty()) {
-                            mutex.withLock {
-                                pendingUpdatedProjectIds.addAll(changedIds)
-                            }
-                            Log.d(TAG, "📊 [SyncUpdatedRecords] Found ${changedIds.size} changed projects")
+                syncRepository.planIncrementalPull()
+                    .onSuccess { plan ->
+                        val changedIds = plan.broadResyncProjectServerIds
+                        mutex.withLock {
+                            pendingUpdatedProjectIds.addAll(changedIds)
+                            incrementalPullPlanned = true
+                        }
+                        Log.d(
+                            TAG,
+                            "📊 [SyncUpdatedRecords] ${plan.projects.size} targeted project refreshes, " +
+                                "${changedIds.size} changed projects need a full pass"
+                        )
+                        if (applyIncrementalPullPlan(plan)) {
+                            syncRepository.commitIncrementalPull(plan)
                         } else {
-                            Log.d(TAG, "📊 [SyncUpdatedRecords] No project changes detected")
+                            // Keep the checkpoint so the next pass plans the failed pulls again
+                            Log.w(TAG, "⚠️ [SyncUpdatedRecords] Targeted pulls failed; checkpoint not advanced")
                         }
                     }
                     .onFailure { error ->
@@ -856,6 +953,7 @@ class SyncQueueManager(
                     SyncJob.ProjectSyncMode.CONTENT_ONLY -> "contents"
                     SyncJob.ProjectSyncMode.PHOTOS_ONLY -> "photos"
                     SyncJob.ProjectSyncMode.METADATA_ONLY -> "metadata"
+                    SyncJob.ProjectSyncMode.NOTES_ONLY -> "notes"
                 }
                 val displayText = if (projectUid != null) {
                     "$projectUid - $phaseDescription"
@@ -900,6 +998,14 @@ class SyncQueueManager(
                                     }
                                 }
                             }
+                            SyncJob.ProjectSyncMode.NOTES_ONLY -> {
+                                val result = syncRepository.syncProjectNotes(job.projectId)
+                                syncSucceeded = result.success.also { success ->
+                                    if (!success) {
+                                        logSegmentFailures(job.projectId, listOf(result))
+                                    }
+                                }
+                            }
                             SyncJob.ProjectSyncMode.PHOTOS_ONLY -> {
                                 val results = syncRepository.syncProjectSegments(
                                     job.projectId,
@@ -927,9 +1033,8 @@ class SyncQueueManager(
                             }
                         }
 
-                        // Post-sync follow-up work that previously ran AFTER join().
-                        // Now runs here so processLoop() stays free to drain other jobs
-                        // while project sync is in-flight (RP-BUG-010).
+                        // Post-sync follow-up work runs inside the project job so it also
+                        // happens when the job is started from a drained deferral (RP-BUG-010).
 
                         // If fast sync succeeded, queue photo sync (unless skipContentSync or already pending)
                         if (syncSucceeded && mode == SyncJob.ProjectSyncMode.ESSENTIALS_ONLY) {
@@ -991,22 +1096,23 @@ class SyncQueueManager(
                                     _projectEssentialsFailed.value += job.projectId
                                 }
                             }
-                            // Drain one deferred project sync now that a slot opened
-                            val pending = deferredProjectSyncs.firstOrNull()
+                            // Drain one deferred project sync whose project is no longer busy
+                            val pending = deferredProjectSyncs.firstOrNull { !activeProjectSyncJobs.containsKey(it.projectId) }
                             if (pending != null) {
                                 deferredProjectSyncs.remove(pending)
                                 pending
                             } else null
                         }
-                        notifier.tryEmit(Unit)
-                        // Re-enqueue deferred job outside mutex to avoid deadlock with processLoop
+                        notifier.trySend(Unit)
+                        // Re-enqueue deferred job outside mutex to avoid deadlock with dispatchLoop
                         pendingDeferred?.let { enqueue(it) }
                     }
                 }
 
+                // Lanes bound how many projects sync at once; a project only ever has one sync running.
                 val started = mutex.withLock {
-                    if (activeProjectSyncJobs.size >= MAX_CONCURRENT_PROJECT_SYNCS) {
-                        Log.d(TAG, "⏳ Project sync for ${job.projectId} deferred (max ${MAX_CONCURRENT_PROJECT_SYNCS} concurrent)")
+                    if (activeProjectSyncJobs.containsKey(job.projectId)) {
+                        Log.d(TAG, "⏳ Project sync for ${job.projectId} deferred (another sync for this project is running)")
                         deferredProjectSyncs.add(job)
                         // RP-BUG-043: a parked photo-bearing job must still count as "photo syncing".
                         updateProjectSyncingProjectsLocked()
@@ -1019,27 +1125,98 @@ class SyncQueueManager(
                     }
                 }
                 if (started) {
+                    // Hold this lane's slot until the project sync finishes (or is cancelled);
+                    // other lanes keep dispatching meanwhile.
                     syncJob.start()
+                    syncJob.join()
                 }
             }
         }
     }
 
     private suspend fun observePendingOperations() {
-        localDataService.observeSyncOperations(SyncStatus.PENDING)
+        // EXISTS query: re-evaluated on every queue change without loading rows or payloads
+        localDataService.observeHasSyncOperations(SyncStatus.PENDING)
             .debounce(PENDING_OPS_DEBOUNCE_MS)
-            .collect { ops ->
-                if (ops.isNotEmpty()) {
+            .collect { hasPending ->
+                if (hasPending) {
                     enqueue(SyncJob.ProcessPendingOperations)
                 }
             }
     }
 
+    /**
+     * Runs the targeted refreshes from /api/sync/updated. Project-wide passes are queued as one job
+     * per project (per-key coalescing would otherwise drop half of a plan); single-room pulls are a
+     * request or two each and run inline unless the queued job already covers them. Returns false
+     * if any inline pull failed.
+     */
+    private suspend fun applyIncrementalPullPlan(plan: IncrementalPullPlan): Boolean {
+        var allSucceeded = true
+        plan.projects.forEach { projectPlan ->
+            val projectId = projectPlan.projectId
+            val needsContent = projectPlan.metadata || projectPlan.notes || projectPlan.allRoomPhotos
+            val mode = when {
+                projectPlan.rooms -> SyncJob.ProjectSyncMode.ESSENTIALS_ONLY
+                projectPlan.allRoomPhotos && needsContent -> SyncJob.ProjectSyncMode.CONTENT_ONLY
+                projectPlan.allRoomPhotos -> SyncJob.ProjectSyncMode.PHOTOS_ONLY
+                projectPlan.metadata -> SyncJob.ProjectSyncMode.METADATA_ONLY
+                projectPlan.notes -> SyncJob.ProjectSyncMode.NOTES_ONLY
+                else -> null
+            }
+            // ESSENTIALS_ONLY with content follow-up ends in CONTENT_ONLY (photos + metadata)
+            val contentQueued = mode == SyncJob.ProjectSyncMode.CONTENT_ONLY ||
+                (projectPlan.rooms && needsContent)
+            if (mode != null) {
+                enqueue(
+                    SyncJob.SyncProjectGraph(
+                        projectId = projectId,
+                        prio = 2,
+                        skipPhotos = !mode.includesPhotos(),
+                        mode = mode,
+                        skipContentSync = !needsContent
+                    )
+                )
+            }
+
+            if (!contentQueued && mode != SyncJob.ProjectSyncMode.PHOTOS_ONLY) {
+                val photoResults = projectPlan.photoRoomIds.map { roomId ->
+                    syncRepository.syncRoomPhotos(projectId, roomId, source = "SyncUpdatedRecords")
+                } + listOfNotNull(
+                    if (projectPlan.projectPhotos) syncRepository.syncProjectLevelPhotos(projectId) else null
+                )
+                logSegmentFailures(projectId, photoResults)
+                if (photoResults.any { !it.success }) allSucceeded = false
+            }
+            if (!contentQueued) {
+                projectPlan.moistureRoomIds.forEach { roomId ->
+                    runCatching { syncRepository.syncRoomMoistureLogs(projectId, roomId) }
+                        .onFailure {
+                            Log.w(TAG, "⚠️ [SyncUpdatedRecords] Moisture log pull failed for room $roomId", it)
+                            allSucceeded = false
+                        }
+                }
+            }
+        }
+        return allSucceeded
+    }
+
     private fun SyncJob.ProjectSyncMode.includesPhotos(): Boolean =
         this == SyncJob.ProjectSyncMode.CONTENT_ONLY ||
             this == SyncJob.ProjectSyncMode.PHOTOS_ONLY ||
             this == SyncJob.ProjectSyncMode.FULL
 
+    /** True if a sync in this mode pulls everything a sync in [other] mode would. */
+    private fun SyncJob.ProjectSyncMode.covers(other: SyncJob.ProjectSyncMode): Boolean = when (other) {
+        SyncJob.ProjectSyncMode.NOTES_ONLY ->
+            this == SyncJob.ProjectSyncMode.NOTES_ONLY || covers(SyncJob.ProjectSyncMode.METADATA_ONLY)
+        SyncJob.ProjectSyncMode.METADATA_ONLY ->
+            this == SyncJob.ProjectSyncMode.METADATA_ONLY ||
+                this == SyncJob.ProjectSyncMode.CONTENT_ONLY ||
+                this == SyncJob.ProjectSyncMode.FULL
+        else -> this == other || this == SyncJob.ProjectSyncMode.FULL
+    }
+
     private fun logSegmentFailures(projectId: Long, results: List<com.example.rocketplan_android.data.repository.SyncResult>) {
         results.filterNot { it.success }.forEach { result ->
             when (result) {
@@ -1077,13 +1254,11 @@ class SyncQueueManager(
         private const val FOREGROUND_PHOTO_PRIORITY = 0
         // Avoid re-queuing projects that have synced very recently when building background queues
         private const val RECENT_SYNC_THRESHOLD_MS = 5 * 60 * 1000L
-        // Interval to check for backoff-scheduled operations that are now due
-        private const val SCHEDULED_RETRY_CHECK_INTERVAL_MS = 30_000L
+        // Back-off before re-subscribing after the scheduled-retry observer fails
+        private const val SCHEDULED_RETRY_REARM_DELAY_MS = 5_000L
         // Full sync for all assigned projects + this many unassigned projects (by recency)
         // Other projects get essentials-only (fast sync) for navigation
         private const val MAX_UNASSIGNED_FULL_SYNC = 5
-        // Concurrency cap: only one project sync at a time to avoid unbounded fan-out
-        private const val MAX_CONCURRENT_PROJECT_SYNCS = 1
         // Debounce window for pending-operation observation
         private const val PENDING_OPS_DEBOUNCE_MS = 750L
     }
@@ -1094,14 +1269,52 @@ class SyncQueueManager(
         taskIndex[task.key] = task
     }
 
-    private fun pollLocked(): QueuedTask? =
-        queue.poll()?.also { taskIndex.remove(it.key) }
+    private fun pollLocked(lane: SyncLane): QueuedTask? {
+        val foreground = foregroundProjectId
+        val next = queue
+            .filter { SyncLane.forJob(it.job, foreground) == lane }
+            .minWithOrNull(taskOrder)
+            ?: return null
+        removeLocked(next)
+        return next
+    }
+
+    private fun removeLocked(task: QueuedTask) {
+        queue.remove(task)
+        taskIndex.remove(task.key)
+    }
 
     private fun clearLocked() {
         queue.clear()
         taskIndex.clear()
     }
 
+    private fun recordLaneWaitLocked(lane: SyncLane, waitMs: Long) {
+        val index = lane.ordinal
+        laneDispatchCounts[index]++
+        laneWaitTotals[index] += waitMs
+        laneLastWaits[index] = waitMs
+        laneMaxWaits[index] = maxOf(laneMaxWaits[index], waitMs)
+    }
+
+    private fun publishLaneStatsLocked() {
+        val foreground = foregroundProjectId
+        val depths = queue.groupingBy { SyncLane.forJob(it.job, foreground) }.eachCount()
+        _laneStats.value = SyncLane.entries.associateWith { lane ->
+            val index = lane.ordinal
+            val dispatched = laneDispatchCounts[index]
+            SyncLaneStats(
+                queued = depths[lane] ?: 0,
+                running = laneScheduler.runningIn(lane),
+                lastWaitMs = laneLastWaits[index],
+                averageWaitMs = if (dispatched > 0) laneWaitTotals[index] / dispatched else 0L,
+                maxWaitMs = laneMaxWaits[index],
+                dispatched = dispatched
+            )
+        }
+        _isActive.value = queue.isNotEmpty() || laneScheduler.totalRunning > 0
+    }
+
     private suspend fun focusProjectSync(projectId: Long) {
         val project = localDataService.getProject(projectId)
         if (project?.serverId == null) {
@@ -1161,6 +1374,8 @@ class SyncQueueManager(
                 }
             }
             updateProjectSyncingProjectsLocked()
+            // Queued jobs for this project now dispatch on the foreground lane
+            publishLaneStatsLocked()
             true
         }
         if (!shouldEnqueueFast) {
@@ -1178,6 +1393,13 @@ class SyncQueueManager(
      */
     private fun updatePhotoSyncingProjectsLocked() = updateProjectSyncingProjectsLocked()
 
+    /** Queued (not yet started) syncs for [projectId], under any of its queue keys. */
+    private fun queuedProjectSyncsLocked(projectId: Long): List<SyncJob.SyncProjectGraph> =
+        SyncJob.ProjectSyncMode.entries
+            .map { SyncJob.SyncProjectGraph.projectKey(projectId, it) }
+            .distinct()
+            .mapNotNull { taskIndex[it]?.job as? SyncJob.SyncProjectGraph }
+
     /**
      * RP-BUG-043: true iff the project has a photo-bearing [SyncJob.SyncProjectGraph]
      * (mode.includesPhotos()) that is currently active, queued, OR deferred. Replaces the
@@ -4,6 +4,8 @@ import android.app.Activity
 import android.app.Application
 import android.content.Context
 import android.os.Bundle
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
 import java.util.concurrent.CopyOnWriteArraySet
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
@@ -19,6 +21,8 @@ class AppVisibilityTracker private constructor(
     private val startedActivities = AtomicInteger(0)
     private val isForeground = AtomicBoolean(false)
     private val listeners = CopyOnWriteArraySet<(Boolean) -> Unit>()
+    private val _foreground = MutableStateFlow(false)
+    val foreground: StateFlow<Boolean> = _foreground
 
     init {
         application.registerActivityLifecycleCallbacks(this)
@@ -56,6 +60,7 @@ class AppVisibilityTracker private constructor(
     override fun onActivityDestroyed(activity: Activity) = Unit
 
     private fun notifyListeners(foreground: Boolean) {
+        _foreground.value = foreground
         listeners.forEach { it(foreground) }
     }
 
@@ -1,16 +1,22 @@
 package com.example.rocketplan_android.realtime
 
-import com.example.rocketplan_android.data.sync.SyncQueueManager
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
 import java.util.concurrent.ConcurrentHashMap
 
 class NotesRealtimeManager(
     private val pusherService: PusherService,
-    private val syncQueueManager: SyncQueueManager,
+    private val refreshCoalescer: RealtimeRefreshCoalescer,
+    private val deltaApplier: RealtimeDeltaApplier,
     private val remoteLogger: RemoteLogger?
 ) {
 
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
     private val projectNoteIds = mutableMapOf<Long, MutableSet<Long>>()
     private val projectChannels = ConcurrentHashMap.newKeySet<Long>()
 
@@ -52,17 +58,17 @@ class NotesRealtimeManager(
 
     private fun subscribeProjectChannel(projectId: Long) {
         if (!projectChannels.add(projectId)) return
-        pusherService.bindGenericEvent(
+        pusherService.bindRawEvent(
             channelName = PusherConfig.noteCreatedChannel(projectId),
             eventName = PusherConfig.NOTE_CREATED_EVENT
-        ) {
+        ) { raw ->
             remoteLogger?.log(
                 level = LogLevel.INFO,
                 tag = TAG,
                 message = "Note created event received",
                 metadata = mapOf("project_id" to projectId.toString())
             )
-            syncQueueManager.refreshProjectMetadata(projectId)
+            applyOrRefresh(projectId, noteId = null, event = PusherConfig.NOTE_CREATED_EVENT, raw = raw)
         }
     }
 
@@ -75,7 +81,7 @@ class NotesRealtimeManager(
         )
 
         handlers.forEach { (channel, event) ->
-            pusherService.bindGenericEvent(channelName = channel, eventName = event) {
+            pusherService.bindRawEvent(channelName = channel, eventName = event) { raw ->
                 remoteLogger?.log(
                     level = LogLevel.DEBUG,
                     tag = TAG,
@@ -86,7 +92,17 @@ class NotesRealtimeManager(
                         "event" to event
                     )
                 )
-                syncQueueManager.refreshProjectMetadata(projectId)
+                applyOrRefresh(projectId, noteId, event, raw)
+            }
+        }
+    }
+
+    /** Applies the note carried by the event, refetching the project's notes only when it can't. */
+    private fun applyOrRefresh(projectId: Long, noteId: Long?, event: String, raw: String?) {
+        scope.launch {
+            val outcome = deltaApplier.applyNoteEvent(event, noteId, raw)
+            if (outcome == RealtimeDeltaApplier.Outcome.NEEDS_FETCH) {
+                refreshCoalescer.submit(RealtimeRefresh.ProjectNotes(projectId))
             }
         }
     }
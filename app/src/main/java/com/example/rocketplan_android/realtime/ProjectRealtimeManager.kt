@@ -1,7 +1,6 @@
 package com.example.rocketplan_android.realtime
 
 import com.example.rocketplan_android.data.repository.AuthRepository
-import com.example.rocketplan_android.data.sync.SyncQueueManager
 import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
 import kotlinx.coroutines.CoroutineScope
@@ -12,7 +11,8 @@ import java.util.concurrent.ConcurrentHashMap
 
 class ProjectRealtimeManager(
     private val pusherService: PusherService,
-    private val syncQueueManager: SyncQueueManager,
+    private val refreshCoalescer: RealtimeRefreshCoalescer,
+    private val deltaApplier: RealtimeDeltaApplier,
     private val authRepository: AuthRepository,
     private val remoteLogger: RemoteLogger?
 ) {
@@ -51,14 +51,19 @@ class ProjectRealtimeManager(
         projectIds.forEach { projectId ->
             val channel = PusherConfig.projectCompletedChannelForProject(projectId)
             if (subscribedProjectChannels.add(channel)) {
-                pusherService.bindGenericEvent(channel, PusherConfig.PROJECT_COMPLETED_EVENT) {
+                pusherService.bindRawEvent(channel, PusherConfig.PROJECT_COMPLETED_EVENT) { raw ->
                     remoteLogger?.log(
                         level = LogLevel.INFO,
                         tag = TAG,
                         message = "Project completion event received",
                         metadata = mapOf("project_id" to projectId.toString())
                     )
-                    syncQueueManager.refreshProjectMetadata(projectId)
+                    scope.launch {
+                        val outcome = deltaApplier.applyProjectStatusEvent(projectId, raw)
+                        if (outcome == RealtimeDeltaApplier.Outcome.NEEDS_FETCH) {
+                            refreshCoalescer.submit(RealtimeRefresh.ProjectMetadata(projectId))
+                        }
+                    }
                 }
             }
         }
@@ -78,19 +83,19 @@ class ProjectRealtimeManager(
             channel = PusherConfig.projectCreatedChannel(userId),
             eventName = PusherConfig.PROJECT_CREATED_EVENT,
             bucket = subscribedUserChannels
-        ) { syncQueueManager.refreshProjectsIncremental() }
+        ) { refreshCoalescer.submit(RealtimeRefresh.ProjectList) }
 
         subscribe(
             channel = PusherConfig.projectCompletedChannelForUser(userId),
             eventName = PusherConfig.PROJECT_COMPLETED_EVENT,
             bucket = subscribedUserChannels
-        ) { syncQueueManager.refreshProjectsIncremental() }
+        ) { refreshCoalescer.submit(RealtimeRefresh.ProjectList) }
 
         subscribe(
             channel = PusherConfig.projectDeletedChannel(userId),
             eventName = PusherConfig.PROJECT_DELETED_EVENT,
             bucket = subscribedUserChannels
-        ) { syncQueueManager.refreshProjectsIncremental() }
+        ) { refreshCoalescer.submit(RealtimeRefresh.ProjectList) }
 
         subscribe(
             channel = PusherConfig.userRoleChangedChannel(userId),
@@ -105,7 +110,7 @@ class ProjectRealtimeManager(
                     metadata = mapOf("user_id" to userId.toString())
                 )
                 authRepository.refreshUserContext()
-                syncQueueManager.refreshProjectsIncremental()
+                refreshCoalescer.submit(RealtimeRefresh.ProjectList)
             }
         }
     }
@@ -115,7 +120,7 @@ class ProjectRealtimeManager(
             channel = PusherConfig.projectCompletedChannelForCompany(companyId),
             eventName = PusherConfig.PROJECT_COMPLETED_EVENT,
             bucket = subscribedCompanyChannels
-        ) { syncQueueManager.refreshProjectsIncremental() }
+        ) { refreshCoalescer.submit(RealtimeRefresh.ProjectList) }
     }
 
     private fun subscribe(
@@ -0,0 +1,131 @@
+package com.example.rocketplan_android.realtime
+
+import android.util.Log
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.repository.mapper.toEntity
+import com.example.rocketplan_android.logging.LogLevel
+import com.example.rocketplan_android.logging.RemoteLogger
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.util.Date
+
+/**
+ * Applies [RealtimeDelta]s to the local database so realtime events that carry their entity
+ * don't cost an HTTP round-trip.
+ *
+ * Ordering follows the server's `updated_at`: a payload older than the row's `serverUpdatedAt`
+ * is skipped, and rows with unpushed local edits are left alone (the same rule the pull sync
+ * uses). When the version can't be placed (same timestamp but different content, a delete that
+ * predates the local row) the result is [Outcome.NEEDS_FETCH] and the caller falls back to a
+ * targeted refresh.
+ */
+class RealtimeDeltaApplier(
+    private val localDataService: LocalDataService,
+    private val remoteLogger: RemoteLogger? = null
+) {
+    enum class Outcome { APPLIED, SKIPPED, NEEDS_FETCH }
+
+    // Read-compare-write per delta; serialized so two events for one row can't interleave.
+    private val mutex = Mutex()
+
+    suspend fun applyNoteEvent(eventName: String, noteId: Long?, raw: String?): Outcome =
+        apply(RealtimeDeltaDecoder.decodeNoteEvent(eventName, noteId, raw))
+
+    suspend fun applyProjectStatusEvent(projectId: Long, raw: String?): Outcome {
+        val delta = RealtimeDeltaDecoder.decodeProjectStatusEvent(raw)
+        return apply(delta, localProjectId = projectId)
+    }
+
+    suspend fun apply(delta: RealtimeDelta, localProjectId: Long? = null): Outcome {
+        val outcome = runCatching {
+            mutex.withLock {
+                when (delta) {
+                    is RealtimeDelta.NoteUpsert -> applyNoteUpsert(delta)
+                    is RealtimeDelta.NoteTombstone -> applyNoteTombstone(delta)
+                    is RealtimeDelta.ProjectStatus -> applyProjectStatus(delta, localProjectId)
+                    is RealtimeDelta.Unusable -> Outcome.NEEDS_FETCH
+                }
+            }
+        }.getOrElse { error ->
+            Log.w(TAG, "Failed to apply $delta; falling back to fetch", error)
+            Outcome.NEEDS_FETCH
+        }
+
+        Log.d(TAG, "Realtime delta ${delta.describe()} -> $outcome")
+        remoteLogger?.log(
+            level = LogLevel.DEBUG,
+            tag = TAG,
+            message = "Realtime delta handled",
+            metadata = mapOf(
+                "delta" to delta.describe(),
+                "outcome" to outcome.name
+            )
+        )
+        return outcome
+    }
+
+    private suspend fun applyNoteUpsert(delta: RealtimeDelta.NoteUpsert): Outcome {
+        val existing = localDataService.getNoteByServerId(delta.note.id)
+        if (existing != null) {
+            if (existing.isDirty || existing.isDeleted) return Outcome.SKIPPED
+            val order = compareVersions(delta.updatedAt, existing.serverUpdatedAt)
+            if (order < 0) return Outcome.SKIPPED
+            if (order == 0) {
+                return if (existing.content == delta.note.body) Outcome.SKIPPED else Outcome.NEEDS_FETCH
+            }
+        }
+        val entity = delta.note.toEntity(existing) ?: return Outcome.NEEDS_FETCH
+        localDataService.saveNotes(listOf(entity), preserveDirty = true)
+        return Outcome.APPLIED
+    }
+
+    private suspend fun applyNoteTombstone(delta: RealtimeDelta.NoteTombstone): Outcome {
+        val existing = localDataService.getNoteByServerId(delta.noteServerId) ?: return Outcome.SKIPPED
+        if (existing.isDeleted || existing.isDirty) return Outcome.SKIPPED
+        if (delta.deletedAt != null && compareVersions(delta.deletedAt, existing.serverUpdatedAt) < 0) {
+            // Deleted before the version we hold; the note may have been restored since.
+            return Outcome.NEEDS_FETCH
+        }
+        localDataService.markNotesDeleted(listOf(delta.noteServerId))
+        return Outcome.APPLIED
+    }
+
+    private suspend fun applyProjectStatus(delta: RealtimeDelta.ProjectStatus, localProjectId: Long?): Outcome {
+        val existing = localProjectId?.let { localDataService.getProject(it) } ?: return Outcome.NEEDS_FETCH
+        if (existing.serverId != delta.projectServerId) return Outcome.NEEDS_FETCH
+        if (existing.isDirty || existing.isDeleted) return Outcome.SKIPPED
+        val order = compareVersions(delta.updatedAt, existing.serverUpdatedAt)
+        if (order < 0) return Outcome.SKIPPED
+        if (order == 0) {
+            return if (existing.status == delta.status) Outcome.SKIPPED else Outcome.NEEDS_FETCH
+        }
+        // Status-only payload: keep every other column rather than rebuilding the row from a partial DTO.
+        val now = Date()
+        localDataService.saveProjects(
+            listOf(
+                existing.copy(
+                    status = delta.status,
+                    updatedAt = delta.updatedAt,
+                    serverUpdatedAt = delta.updatedAt,
+                    lastSyncedAt = now
+                )
+            )
+        )
+        return Outcome.APPLIED
+    }
+
+    /** Positive when [incoming] is newer than [current]; rows without a server version count as older. */
+    private fun compareVersions(incoming: Date, current: Date?): Int =
+        if (current == null) 1 else incoming.compareTo(current)
+
+    private fun RealtimeDelta.describe(): String = when (this) {
+        is RealtimeDelta.NoteUpsert -> "note_upsert:${note.id}"
+        is RealtimeDelta.NoteTombstone -> "note_tombstone:$noteServerId"
+        is RealtimeDelta.ProjectStatus -> "project_status:$projectServerId"
+        is RealtimeDelta.Unusable -> "unusable:$reason"
+    }
+
+    companion object {
+        private const val TAG = "RealtimeDeltaApplier"
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.rocketplan_android.realtime
+
+import com.example.rocketplan_android.data.model.offline.NoteDto
+import com.example.rocketplan_android.util.DateUtils
+import com.google.gson.Gson
+import com.google.gson.JsonElement
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import java.util.Date
+
+/** Local change carried by a Pusher payload. */
+sealed class RealtimeDelta {
+    data class NoteUpsert(val note: NoteDto, val updatedAt: Date) : RealtimeDelta()
+    data class NoteTombstone(val noteServerId: Long, val deletedAt: Date?) : RealtimeDelta()
+    data class ProjectStatus(val projectServerId: Long, val status: String, val updatedAt: Date) : RealtimeDelta()
+
+    /** Payload missing or incomplete; the caller has to refetch. */
+    data class Unusable(val reason: String) : RealtimeDelta()
+}
+
+/**
+ * Decodes Pusher payloads into [RealtimeDelta]s.
+ *
+ * Broadcast events serialize their public properties, so the entity usually sits under its own
+ * key (`{"note": {...}}`), sometimes inside `data`. A payload only becomes an upsert when every
+ * field the mapper needs is present, including `updated_at` for ordering; anything less is
+ * [RealtimeDelta.Unusable] rather than a half-populated row.
+ */
+object RealtimeDeltaDecoder {
+
+    private val gson = Gson()
+    private val NOTE_REQUIRED_FIELDS = listOf("id", "project_id", "body", "updated_at")
+
+    fun decodeNoteEvent(eventName: String, noteId: Long?, raw: String?): RealtimeDelta {
+        val note = entityObject(raw, "note")
+        if (eventName == PusherConfig.NOTE_DELETED_EVENT) {
+            val id = note?.longOrNull("id") ?: noteId
+                ?: return RealtimeDelta.Unusable("note delete without id")
+            return RealtimeDelta.NoteTombstone(id, DateUtils.parseApiDate(note?.stringOrNull("deleted_at")))
+        }
+
+        note ?: return RealtimeDelta.Unusable("no note payload")
+        val missing = NOTE_REQUIRED_FIELDS.filter { note.stringOrNull(it) == null }
+        if (missing.isNotEmpty()) {
+            return RealtimeDelta.Unusable("note payload missing $missing")
+        }
+        val updatedAt = DateUtils.parseApiDate(note.stringOrNull("updated_at"))
+            ?: return RealtimeDelta.Unusable("unparseable note updated_at")
+        val dto = runCatching { gson.fromJson(note, NoteDto::class.java) }.getOrNull()
+            ?.takeIf { noteId == null || it.id == noteId }
+            ?: return RealtimeDelta.Unusable("note payload does not match note $noteId")
+        return RealtimeDelta.NoteUpsert(dto, updatedAt)
+    }
+
+    fun decodeProjectStatusEvent(raw: String?): RealtimeDelta {
+        val project = entityObject(raw, "project") ?: return RealtimeDelta.Unusable("no project payload")
+        val id = project.longOrNull("id") ?: return RealtimeDelta.Unusable("project payload missing id")
+        val status = (project.get("project_status") as? JsonObject)?.stringOrNull("name")
+            ?: project.stringOrNull("status")
+            ?: return RealtimeDelta.Unusable("project payload missing status")
+        val updatedAt = DateUtils.parseApiDate(project.stringOrNull("updated_at"))
+            ?: return RealtimeDelta.Unusable("project payload missing updated_at")
+        return RealtimeDelta.ProjectStatus(id, status, updatedAt)
+    }
+
+    private fun entityObject(raw: String?, key: String): JsonObject? {
+        if (raw.isNullOrBlank()) return null
+        val root = runCatching { JsonParser.parseString(raw) }.getOrNull() as? JsonObject ?: return null
+        val data = root.get("data") as? JsonObject
+        return root.get(key) as? JsonObject
+            ?: data?.get(key) as? JsonObject
+            ?: data?.takeIf { it.has("id") }
+            ?: root.takeIf { it.has("id") }
+    }
+
+    private fun JsonObject.stringOrNull(name: String): String? =
+        get(name)?.takeIf(JsonElement::isJsonPrimitive)?.asString?.takeIf { it.isNotBlank() }
+
+    private fun JsonObject.longOrNull(name: String): Long? =
+        stringOrNull(name)?.toLongOrNull()
+}
@@ -0,0 +1,186 @@
+package com.example.rocketplan_android.realtime
+
+import android.util.Log
+import com.example.rocketplan_android.data.sync.SyncJob
+import com.example.rocketplan_android.data.sync.SyncQueueManager
+import com.example.rocketplan_android.logging.LogLevel
+import com.example.rocketplan_android.logging.RemoteLogger
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.flow.updateAndGet
+import kotlinx.coroutines.launch
+
+/** Refresh a realtime event asks for; the coalescer merges these per project. */
+sealed class RealtimeRefresh {
+    data object ProjectList : RealtimeRefresh()
+    data class ProjectMetadata(val projectId: Long) : RealtimeRefresh()
+    data class ProjectNotes(val projectId: Long) : RealtimeRefresh()
+}
+
+data class RealtimeCoalescerStats(
+    val eventsReceived: Long = 0,
+    val refreshesIssued: Long = 0,
+    val refreshesDropped: Long = 0,
+    val batchesFlushed: Long = 0
+)
+
+/**
+ * Collects Pusher-triggered refreshes into short per-project batches so a burst of events (a
+ * teammate bulk-editing a project) becomes one targeted sync instead of dozens of metadata passes.
+ *
+ * The quiet window adapts to the burst: the first event waits [minQuietMs], every further event
+ * in the same batch doubles the wait up to [maxQuietMs], and a batch is always flushed within
+ * [maxBatchAgeMs] of its first event so a steady stream can't postpone it forever.
+ *
+ * On flush, a project's batch issues the narrowest refresh that covers everything it saw (notes
+ * events only → notes sync; anything else → metadata sync), and is dropped when [isRedundant]
+ * reports that an already-pending sync will pull the same data.
+ */
+class RealtimeRefreshCoalescer(
+    private val issue: (RealtimeRefresh) -> Unit,
+    private val isRedundant: suspend (RealtimeRefresh) -> Boolean = { false },
+    private val remoteLogger: RemoteLogger? = null,
+    private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.Default),
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val minQuietMs: Long = DEFAULT_MIN_QUIET_MS,
+    private val maxQuietMs: Long = DEFAULT_MAX_QUIET_MS,
+    private val maxBatchAgeMs: Long = DEFAULT_MAX_BATCH_AGE_MS
+) {
+    private class Batch(val firstEventAt: Long, var refresh: RealtimeRefresh) {
+        var events = 0
+        var quietMs = 0L
+        var deadline = 0L
+        var timer: Job? = null
+    }
+
+    private val lock = Any()
+    // Keyed by project id; null is the project-list batch.
+    private val batches = HashMap<Long?, Batch>()
+
+    private val _stats = MutableStateFlow(RealtimeCoalescerStats())
+    val stats: StateFlow<RealtimeCoalescerStats> = _stats.asStateFlow()
+
+    fun submit(refresh: RealtimeRefresh) {
+        val key = refresh.batchKey
+        synchronized(lock) {
+            val now = clock()
+            val batch = batches.getOrPut(key) { Batch(now, refresh) }
+            batch.events++
+            batch.refresh = merge(batch.refresh, refresh)
+            batch.quietMs = if (batch.events == 1) minQuietMs else minOf(batch.quietMs * 2, maxQuietMs)
+            batch.deadline = minOf(now + batch.quietMs, batch.firstEventAt + maxBatchAgeMs)
+            if (batch.timer == null) {
+                batch.timer = scope.launch { awaitAndFlush(key, batch) }
+            }
+        }
+        _stats.update { it.copy(eventsReceived = it.eventsReceived + 1) }
+    }
+
+    /** Drops all pending batches without issuing them (logout). */
+    fun clear() {
+        synchronized(lock) {
+            batches.values.forEach { it.timer?.cancel() }
+            batches.clear()
+        }
+    }
+
+    private suspend fun awaitAndFlush(key: Long?, batch: Batch) {
+        while (true) {
+            val waitMs = synchronized(lock) { batch.deadline - clock() }
+            if (waitMs <= 0) break
+            delay(waitMs)
+        }
+        val (refresh, events) = synchronized(lock) {
+            if (batches[key] === batch) batches.remove(key)
+            batch.refresh to batch.events
+        }
+
+        val redundant = runCatching { isRedundant(refresh) }
+            .onFailure { Log.w(TAG, "Redundancy check failed for $refresh; issuing anyway", it) }
+            .getOrDefault(false)
+        if (!redundant) {
+            issue(refresh)
+        }
+        val totals = _stats.updateAndGet {
+            it.copy(
+                refreshesIssued = it.refreshesIssued + if (redundant) 0 else 1,
+                refreshesDropped = it.refreshesDropped + if (redundant) 1 else 0,
+                batchesFlushed = it.batchesFlushed + 1
+            )
+        }
+
+        Log.d(TAG, "${if (redundant) "⏭️ Dropped" else "🔄 Issued"} $refresh for $events event(s)")
+        remoteLogger?.log(
+            level = LogLevel.DEBUG,
+            tag = TAG,
+            message = "Realtime refresh batch flushed",
+            metadata = mapOf(
+                "refresh" to refresh.toString(),
+                "batch_events" to events.toString(),
+                "batch_window_ms" to (clock() - batch.firstEventAt).toString(),
+                "action" to if (redundant) "dropped" else "issued",
+                "total_events" to totals.eventsReceived.toString(),
+                "total_issued" to totals.refreshesIssued.toString(),
+                "total_dropped" to totals.refreshesDropped.toString()
+            )
+        )
+    }
+
+    companion object {
+        private const val TAG = "RealtimeCoalescer"
+        const val DEFAULT_MIN_QUIET_MS = 250L
+        const val DEFAULT_MAX_QUIET_MS = 2_000L
+        const val DEFAULT_MAX_BATCH_AGE_MS = 5_000L
+
+        private val RealtimeRefresh.batchKey: Long?
+            get() = when (this) {
+                RealtimeRefresh.ProjectList -> null
+                is RealtimeRefresh.ProjectMetadata -> projectId
+                is RealtimeRefresh.ProjectNotes -> projectId
+            }
+
+        /** Metadata covers notes; within a batch both refer to the same project. */
+        private fun merge(current: RealtimeRefresh, incoming: RealtimeRefresh): RealtimeRefresh =
+            if (current is RealtimeRefresh.ProjectNotes && incoming is RealtimeRefresh.ProjectMetadata) {
+                incoming
+            } else {
+                current
+            }
+
+        /** Coalescer that issues its refreshes through [syncQueueManager]. */
+        fun forSyncQueue(
+            syncQueueManager: SyncQueueManager,
+            remoteLogger: RemoteLogger?
+        ) = RealtimeRefreshCoalescer(
+            issue = { refresh ->
+                when (refresh) {
+                    RealtimeRefresh.ProjectList -> syncQueueManager.refreshProjectsIncremental()
+                    is RealtimeRefresh.ProjectMetadata -> syncQueueManager.refreshProjectMetadata(refresh.projectId)
+                    is RealtimeRefresh.ProjectNotes -> syncQueueManager.refreshProjectNotes(refresh.projectId)
+                }
+            },
+            isRedundant = { refresh ->
+                when (refresh) {
+                    // SyncProjects jobs already coalesce on their queue key.
+                    RealtimeRefresh.ProjectList -> false
+                    is RealtimeRefresh.ProjectMetadata -> syncQueueManager.hasPendingProjectRefresh(
+                        refresh.projectId,
+                        SyncJob.ProjectSyncMode.METADATA_ONLY
+                    )
+                    is RealtimeRefresh.ProjectNotes -> syncQueueManager.hasPendingProjectRefresh(
+                        refresh.projectId,
+                        SyncJob.ProjectSyncMode.NOTES_ONLY
+                    )
+                }
+            },
+            remoteLogger = remoteLogger
+        )
+    }
+}
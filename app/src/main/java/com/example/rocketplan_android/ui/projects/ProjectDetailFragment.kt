@@ -1,5 +1,6 @@
 package com.example.rocketplan_android.ui.projects
 
+import android.graphics.Rect
 import android.os.Bundle
 import android.util.Log
 import android.view.LayoutInflater
@@ -11,6 +12,7 @@ import android.widget.Toast
 import androidx.annotation.StringRes
 import androidx.core.content.ContextCompat
 import androidx.core.view.isVisible
+import androidx.core.widget.NestedScrollView
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.viewModels
 import androidx.lifecycle.Lifecycle
@@ -103,6 +105,11 @@ class ProjectDetailFragment : Fragment() {
         observeViewModel()
     }
 
+    override fun onDestroyView() {
+        viewModel.onVisibleRoomsChanged(emptyList())
+        super.onDestroyView()
+    }
+
     private fun bindViews(root: View) {
         headerTitle = root.findViewById(R.id.headerTitle)
         projectTitle = root.findViewById(R.id.projectTitle)
@@ -133,6 +140,28 @@ class ProjectDetailFragment : Fragment() {
         albumsRecyclerView.configureForAlbums(albumsAdapter)
         val spanCount = resources.getInteger(R.integer.room_grid_span_count)
         roomsRecyclerView.configureForProjectRooms(roomsAdapter, spanCount)
+        // The grid lays out every room inside the outer scroll view, so on-screen cards are found
+        // by their visible rect rather than the layout manager's visible positions.
+        requireView().findViewById<NestedScrollView>(R.id.projectDetailScroll)
+            .setOnScrollChangeListener(NestedScrollView.OnScrollChangeListener { _, _, _, _, _ ->
+                reportVisibleRooms()
+            })
+    }
+
+    private fun reportVisibleRooms() {
+        if (view == null) return
+        if (!roomsRecyclerView.isVisible) {
+            viewModel.onVisibleRoomsChanged(emptyList())
+            return
+        }
+        val rect = Rect()
+        val roomIds = (0 until roomsRecyclerView.childCount).mapNotNull { index ->
+            val child = roomsRecyclerView.getChildAt(index)
+            if (!child.getLocalVisibleRect(rect)) return@mapNotNull null
+            val position = roomsRecyclerView.getChildAdapterPosition(child)
+            (roomsAdapter.currentList.getOrNull(position) as? RoomListItem.Room)?.data?.roomId
+        }
+        viewModel.onVisibleRoomsChanged(roomIds)
     }
 
     private fun configureToggleGroup() {
@@ -286,7 +315,7 @@ class ProjectDetailFragment : Fragment() {
         }
         Log.d("ProjectDetailFrag", "🏠 Submitting ${flattenedItems.size} room items to roomsAdapter (${state.levelSections.size} sections)")
         lastSubmittedRoomCount = flattenedItems.size
-        roomsAdapter.submitList(flattenedItems)
+        roomsAdapter.submitList(flattenedItems) { roomsRecyclerView.post { reportVisibleRooms() } }
         roomsSectionIsLoading = false
         updateRoomCreationUi()
         updateRoomsSectionVisibility()
@@ -63,6 +63,12 @@ class ProjectDetailViewModel(
     val isRefreshing: StateFlow<Boolean> = _isRefreshing.asStateFlow()
 
     private val syncTimeout = MutableStateFlow(false)
+    private val visibleRoomsSource = "ProjectDetail:$projectId"
+
+    // Room cards are keyed by serverId ?: roomId; only server ids mean anything to photo sync.
+    @Volatile
+    private var serverRoomIds: Set<Long> = emptySet()
+    private var reportedVisibleRoomIds: List<Long> = emptyList()
 
     @Volatile
     private var lastIsBackgroundSyncing: Boolean? = null
@@ -242,6 +248,19 @@ class ProjectDetailViewModel(
         }
     }
 
+    /** Reports the room cards on screen so project photo backfills start those rooms first. */
+    fun onVisibleRoomsChanged(roomIds: List<Long>) {
+        val visible = roomIds.filter { it in serverRoomIds }
+        if (visible == reportedVisibleRoomIds) return
+        reportedVisibleRoomIds = visible
+        offlineSyncRepository.setVisibleRooms(visibleRoomsSource, visible)
+    }
+
+    override fun onCleared() {
+        offlineSyncRepository.setVisibleRooms(visibleRoomsSource, emptyList())
+        super.onCleared()
+    }
+
     fun selectTab(tab: ProjectDetailTab) {
         if (_selectedTab.value != tab) {
             _selectedTab.value = tab
@@ -323,6 +342,7 @@ class ProjectDetailViewModel(
                 "🧹 Filtering ${size - visibleRooms.size} phantom rooms (roomId=0)"
             )
         }
+        serverRoomIds = visibleRooms.mapNotNullTo(HashSet()) { it.serverId }
         if (visibleRooms.isEmpty()) {
             Log.d("ProjectDetailVM", "⚠️ No rooms found for project")
             return emptyList()
@@ -107,6 +107,7 @@ class RoomDetailViewModel(
     private var lastDamagesSyncedRoomId: Long? = null
     private var lastDamagesSyncAt = 0L
     private var currentPhotoLookupRoomId: Long? = null
+    private val visibilitySource = "RoomDetail:$projectId:$roomId"
     private var lastSnapshotRoomId: Long? = null
     private val _resolvedRoom = MutableStateFlow<OfflineRoomEntity?>(null)
     private val snapshotRefreshMutex = Mutex()
@@ -437,6 +438,8 @@ class RoomDetailViewModel(
                 // Photos and albums are persisted with server room ID when available
                 val photoLookupRoomId = room.serverId ?: room.roomId
                 currentPhotoLookupRoomId = photoLookupRoomId
+                // Let project-wide photo backfills serve this room ahead of the others.
+                room.serverId?.let { offlineSyncRepository.setVisibleRooms(visibilitySource, listOf(it)) }
                 pendingAssemblyIds.clear()
                 processedAssemblyIds.clear()
                 _isAwaitingRealtimePhotos.value = false
@@ -1138,7 +1141,20 @@ class RoomDetailViewModel(
 
                 inFlightAssemblyJob?.cancel()
                 inFlightAssemblyJob = viewModelScope.launch {
-                    imageProcessorRepository.observePhotosByAssemblyLocalId(active.id)
+                    val uploadedBelow = imageProcessorQueueManager.uploadedPrefix
+                        .map { it[active.assemblyId] }
+                        .distinctUntilChanged()
+                    combine(imageProcessorRepository.observePhotosByAssemblyLocalId(active.id), uploadedBelow) { rows, prefix ->
+                        // Uploads finish out of order; while they run, show only the settled prefix
+                        // as done so the grid fills from the first photo.
+                        if (prefix == null) rows else rows.map { photo ->
+                            if (photo.status == PhotoStatus.COMPLETED.value && photo.orderIndex >= prefix) {
+                                photo.copy(status = PhotoStatus.UPLOADING.value)
+                            } else {
+                                photo
+                            }
+                        }
+                    }
                         .collectLatest { photos ->
                             val processed = photos.count { it.status == PhotoStatus.COMPLETED.value }
                             _inFlightAssembly.value = InFlightAssemblyState(
@@ -1196,6 +1212,11 @@ class RoomDetailViewModel(
         }
     }
 
+    override fun onCleared() {
+        offlineSyncRepository.setVisibleRooms(visibilitySource, emptyList())
+        super.onCleared()
+    }
+
     companion object {
         private const val TAG = "RoomDetailVM"
         private const val ROOM_REFRESH_INTERVAL_MS = 10_000L
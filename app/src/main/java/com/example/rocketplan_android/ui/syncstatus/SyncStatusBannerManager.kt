@@ -3,7 +3,7 @@ package com.example.rocketplan_android.ui.syncstatus
 import android.util.Log
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.SyncStatus
-import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
+import com.example.rocketplan_android.data.local.model.SyncOperationHeader
 import com.example.rocketplan_android.data.network.SyncNetworkMonitor
 import com.example.rocketplan_android.data.repository.IncomingProjectSync
 import com.example.rocketplan_android.data.repository.OfflineSyncRepository
@@ -51,8 +51,8 @@ class SyncStatusBannerManager(
             // Combine network state, pending operations, current sync progress, and incoming sync
             combine(
                 syncNetworkMonitor.isOnline,
-                localDataService.observeSyncOperations(SyncStatus.PENDING),
-                localDataService.observeSyncOperations(SyncStatus.SYNCING),
+                localDataService.observeSyncOperationHeaders(SyncStatus.PENDING),
+                localDataService.observeSyncOperationHeaders(SyncStatus.SYNCING),
                 syncQueueManager.currentSyncProgress,
                 offlineSyncRepository.activeIncomingSync
             ) { isOnline, pendingOps, syncingOps, currentProgress, incomingSync ->
@@ -70,8 +70,8 @@ class SyncStatusBannerManager(
 
     private data class BannerInputs(
         val isOnline: Boolean,
-        val pendingOps: List<OfflineSyncQueueEntity>,
-        val syncingOps: List<OfflineSyncQueueEntity>,
+        val pendingOps: List<SyncOperationHeader>,
+        val syncingOps: List<SyncOperationHeader>,
         val currentSyncProgress: SyncQueueManager.SyncProgress?,
         val incomingSync: IncomingProjectSync?
     )
@@ -119,7 +119,7 @@ class SyncStatusBannerManager(
      * Fast aggregation by type counts - no database lookups.
      */
     private fun aggregateByTypeCounts(
-        operations: List<OfflineSyncQueueEntity>
+        operations: List<SyncOperationHeader>
     ): List<SyncProgressItem> {
         val items = mutableListOf<SyncProgressItem>()
 
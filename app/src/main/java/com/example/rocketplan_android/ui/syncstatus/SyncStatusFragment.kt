@@ -31,6 +31,7 @@ class SyncStatusFragment : Fragment() {
     private lateinit var activeSyncAdapter: SyncActivityAdapter
     private lateinit var logAdapter: SyncActivityAdapter
     private lateinit var queueAdapter: SyncQueueAdapter
+    private lateinit var performanceAdapter: SyncPerformanceAdapter
 
     override fun onCreateView(
         inflater: LayoutInflater,
@@ -52,6 +53,7 @@ class SyncStatusFragment : Fragment() {
         activeSyncAdapter = SyncActivityAdapter()
         logAdapter = SyncActivityAdapter()
         queueAdapter = SyncQueueAdapter()
+        performanceAdapter = SyncPerformanceAdapter()
 
         binding.syncStatusRecyclerView.apply {
             layoutManager = LinearLayoutManager(requireContext())
@@ -69,6 +71,10 @@ class SyncStatusFragment : Fragment() {
             layoutManager = LinearLayoutManager(requireContext())
             adapter = queueAdapter
         }
+        binding.syncPerformanceRecyclerView.apply {
+            layoutManager = LinearLayoutManager(requireContext())
+            adapter = performanceAdapter
+        }
 
         viewLifecycleOwner.lifecycleScope.launch {
             viewModel.uiState.collect { state ->
@@ -86,10 +92,12 @@ class SyncStatusFragment : Fragment() {
         binding.syncActivityRecyclerView.isVisible = false
         binding.syncLogRecyclerView.isVisible = false
         binding.syncQueueRecyclerView.isVisible = false
+        binding.syncPerformanceRecyclerView.isVisible = false
         binding.emptyPlaceholder.isVisible = false
         binding.activePlaceholder.isVisible = false
         binding.logPlaceholder.isVisible = false
         binding.queuePlaceholder.isVisible = false
+        binding.performancePlaceholder.isVisible = false
     }
 
     private fun showEmpty() {
@@ -97,10 +105,12 @@ class SyncStatusFragment : Fragment() {
         binding.syncActivityRecyclerView.isVisible = false
         binding.syncLogRecyclerView.isVisible = false
         binding.syncQueueRecyclerView.isVisible = false
+        binding.syncPerformanceRecyclerView.isVisible = false
         binding.emptyPlaceholder.isVisible = true
         binding.activePlaceholder.isVisible = true
         binding.logPlaceholder.isVisible = true
         binding.queuePlaceholder.isVisible = true
+        binding.performancePlaceholder.isVisible = true
     }
 
     private fun renderContent(state: SyncStatusUiState.Content) {
@@ -119,6 +129,10 @@ class SyncStatusFragment : Fragment() {
         queueAdapter.submitList(state.queueItems)
         binding.syncQueueRecyclerView.isVisible = state.queueItems.isNotEmpty()
         binding.queuePlaceholder.isVisible = state.queueItems.isEmpty()
+
+        performanceAdapter.submitList(state.performance)
+        binding.syncPerformanceRecyclerView.isVisible = state.performance.isNotEmpty()
+        binding.performancePlaceholder.isVisible = state.performance.isEmpty()
     }
 
     override fun onDestroyView() {
@@ -292,3 +306,66 @@ class SyncQueueViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
         private val DATE_FORMAT = SimpleDateFormat("MMM d, h:mm a", Locale.getDefault())
     }
 }
+
+class SyncPerformanceAdapter : RecyclerView.Adapter<SyncPerformanceViewHolder>() {
+
+    private var items: List<SyncPerformanceItem> = emptyList()
+
+    fun submitList(newItems: List<SyncPerformanceItem>) {
+        items = newItems
+        notifyDataSetChanged()
+    }
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): SyncPerformanceViewHolder {
+        val view = LayoutInflater.from(parent.context)
+            .inflate(R.layout.item_sync_queue, parent, false)
+        return SyncPerformanceViewHolder(view)
+    }
+
+    override fun onBindViewHolder(holder: SyncPerformanceViewHolder, position: Int) {
+        holder.bind(items[position])
+    }
+
+    override fun getItemCount(): Int = items.size
+}
+
+class SyncPerformanceViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
+
+    private val title: TextView = itemView.findViewById(R.id.queueTitle)
+    private val status: TextView = itemView.findViewById(R.id.queueStatus)
+    private val timestamp: TextView = itemView.findViewById(R.id.queueTimestamp)
+    private val detail: TextView = itemView.findViewById(R.id.queueDetail)
+
+    fun bind(item: SyncPerformanceItem) {
+        val context = itemView.context
+        val summary = item.summary
+        val action = item.action ?: context.getString(R.string.sync_performance_pull)
+        title.text = context.getString(R.string.entity_operation_format, item.subject, action)
+
+        status.text = context.getString(R.string.sync_performance_p95, formatDuration(summary.p95Ms))
+        val statusColor = if (summary.errorRate >= ERROR_RATE_WARNING) R.color.warning_red else R.color.main_purple
+        status.setTextColor(ContextCompat.getColor(context, statusColor))
+
+        timestamp.text = context.getString(
+            R.string.sync_performance_detail,
+            formatDuration(summary.p50Ms),
+            formatDuration(summary.p99Ms),
+            summary.count,
+            summary.throughputPerMinute
+        )
+
+        if (summary.errorCount == 0) {
+            detail.visibility = View.GONE
+        } else {
+            detail.visibility = View.VISIBLE
+            detail.text = context.getString(R.string.sync_performance_errors, summary.errorCount, summary.errorRate * 100)
+        }
+    }
+
+    private fun formatDuration(ms: Long): String =
+        if (ms < 1_000) "${ms}ms" else String.format(Locale.getDefault(), "%.1fs", ms / 1_000.0)
+
+    companion object {
+        private const val ERROR_RATE_WARNING = 0.05
+    }
+}
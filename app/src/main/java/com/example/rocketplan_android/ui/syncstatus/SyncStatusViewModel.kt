@@ -10,6 +10,8 @@ import com.example.rocketplan_android.data.local.entity.OfflineAlbumEntity
 import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
 import com.example.rocketplan_android.data.local.entity.OfflineProjectEntity
 import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.example.rocketplan_android.data.sync.SyncPerformanceStore
+import com.example.rocketplan_android.data.sync.SyncPerformanceSummary
 import java.util.Date
 import java.util.Locale
 import kotlinx.coroutines.flow.Flow
@@ -20,6 +22,7 @@ import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.launch
 
 @OptIn(ExperimentalCoroutinesApi::class)
@@ -28,6 +31,7 @@ class SyncStatusViewModel(application: Application) : AndroidViewModel(applicati
     private val rocketPlanApp = application as RocketPlanApplication
     private val localDataService = rocketPlanApp.localDataService
     private val syncQueueManager = rocketPlanApp.syncQueueManager
+    private val performanceStore = rocketPlanApp.syncPerformanceStore
 
     private val _uiState = MutableStateFlow<SyncStatusUiState>(SyncStatusUiState.Loading)
     val uiState: StateFlow<SyncStatusUiState> = _uiState
@@ -61,16 +65,18 @@ class SyncStatusViewModel(application: Application) : AndroidViewModel(applicati
                 projectStatsFlow(),
                 activeSyncsFlow(),
                 queueItemsFlow(),
-                recentEvents
-            ) { projects, activeSyncs, queueItems, events ->
-                if (projects.isEmpty() && activeSyncs.isEmpty() && queueItems.isEmpty() && events.isEmpty()) {
+                recentEvents,
+                performanceFlow()
+            ) { projects, activeSyncs, queueItems, events, performance ->
+                if (projects.isEmpty() && activeSyncs.isEmpty() && queueItems.isEmpty() && events.isEmpty() && performance.isEmpty()) {
                     SyncStatusUiState.Empty
                 } else {
                     SyncStatusUiState.Content(
                         projects = projects.sortedBy { it.projectTitle },
                         activeSyncs = activeSyncs,
                         queueItems = queueItems,
-                        recentEvents = events
+                        recentEvents = events,
+                        performance = performance
                     )
                 }
             }.collect { _uiState.value = it }
@@ -141,6 +147,10 @@ class SyncStatusViewModel(application: Application) : AndroidViewModel(applicati
                 .sortedByDescending { it.displayTimestamp }
         }
 
+    private fun performanceFlow(): Flow<List<SyncPerformanceItem>> =
+        performanceStore.observeSummaries(SyncPerformanceStore.WINDOW_24H_MS)
+            .map { summaries -> summaries.map { it.toPerformanceItem() } }
+
     private fun appendEvent(
         title: String,
         message: String,
@@ -183,7 +193,8 @@ sealed class SyncStatusUiState {
         val projects: List<ProjectSyncStatus>,
         val activeSyncs: List<SyncActivityItem>,
         val queueItems: List<SyncQueueItem>,
-        val recentEvents: List<SyncActivityItem>
+        val recentEvents: List<SyncActivityItem>,
+        val performance: List<SyncPerformanceItem> = emptyList()
     ) : SyncStatusUiState()
 }
 
@@ -223,6 +234,31 @@ data class SyncQueueItem(
         get() = (lastAttemptAt ?: scheduledAt ?: createdAt).time
 }
 
+/**
+ * One row of the performance section. [subject] and [action] feed `entity_operation_format`;
+ * a null [action] marks a pull segment.
+ */
+data class SyncPerformanceItem(
+    val key: String,
+    val subject: String,
+    val action: String?,
+    val summary: SyncPerformanceSummary
+)
+
+private fun String.toDisplayLabel(): String =
+    lowercase(Locale.getDefault())
+        .replace('_', ' ')
+        .replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
+
+private fun SyncPerformanceSummary.toPerformanceItem(): SyncPerformanceItem {
+    val parts = key.split(':')
+    return if (key.startsWith(SyncPerformanceStore.PUSH_PREFIX) && parts.size == 3) {
+        SyncPerformanceItem(key, parts[1].toDisplayLabel(), parts[2].toDisplayLabel(), this)
+    } else {
+        SyncPerformanceItem(key, parts.last().toDisplayLabel(), null, this)
+    }
+}
+
 private fun com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity.toQueueItem(): SyncQueueItem =
     SyncQueueItem(
         id = operationId,
@@ -0,0 +1,81 @@
+package com.example.rocketplan_android.util
+
+import kotlin.math.sqrt
+
+/**
+ * Sizing math for fitting a photo under an upload limit: how coarsely to decode it, how far to
+ * scale it, and which JPEG quality to start from, so the pixels are decoded once and only a few
+ * encodes are needed.
+ */
+object PhotoResizeUtils {
+
+    /** About 4000x3000: large enough for site documentation, fits 6 MB at JPEG quality 90. */
+    const val TARGET_PIXELS = 12_000_000L
+
+    // Aim below the limit so photos that compress a little worse than typical still fit first time.
+    private const val BUDGET_HEADROOM = 0.9
+
+    // Conservative JPEG bytes per pixel of detailed photos by quality, best quality first.
+    private val BYTES_PER_PIXEL = listOf(
+        95 to 0.60,
+        90 to 0.42,
+        85 to 0.33,
+        80 to 0.27,
+        75 to 0.23,
+        70 to 0.20,
+        60 to 0.16,
+        50 to 0.13,
+        45 to 0.12
+    )
+
+    /**
+     * Smallest power-of-two `inSampleSize` that decodes at most twice [targetPixels], so the decoded
+     * bitmap lands between half and twice the target and at most one downscale follows.
+     */
+    fun sampleSizeFor(width: Int, height: Int, targetPixels: Long = TARGET_PIXELS): Int {
+        var sampleSize = 1
+        while ((width / sampleSize).toLong() * (height / sampleSize) > targetPixels * 2) {
+            sampleSize *= 2
+        }
+        return sampleSize
+    }
+
+    /** Size to scale a decoded bitmap to so it has at most [targetPixels], keeping its aspect ratio. */
+    fun scaledSize(width: Int, height: Int, targetPixels: Long = TARGET_PIXELS): Pair<Int, Int> {
+        val pixels = width.toLong() * height
+        if (pixels <= targetPixels) return width to height
+        val scale = sqrt(targetPixels.toDouble() / pixels)
+        return (width * scale).toInt().coerceAtLeast(1) to (height * scale).toInt().coerceAtLeast(1)
+    }
+
+    /**
+     * Highest JPEG quality predicted to encode [pixels] within [maxBytes], or null if even the lowest
+     * does not. [correction] scales the prediction for a photo known to compress worse than typical.
+     */
+    fun predictJpegQuality(pixels: Long, maxBytes: Long, correction: Double = 1.0): Int? {
+        val budget = maxBytes * BUDGET_HEADROOM / pixels
+        return BYTES_PER_PIXEL.firstOrNull { (_, bytesPerPixel) -> bytesPerPixel * correction <= budget }?.first
+    }
+
+    /**
+     * Encodes at the predicted quality through [encode] (which returns the encoded size) and, when
+     * the result is too large, corrects the prediction by what was observed. Every retry lowers the
+     * quality. Returns the quality that fit, or null when none is predicted to.
+     */
+    fun encodeWithinBudget(
+        pixels: Long,
+        maxBytes: Long,
+        maxAttempts: Int = 3,
+        encode: (quality: Int) -> Int
+    ): Int? {
+        var correction = 1.0
+        repeat(maxAttempts) {
+            val quality = predictJpegQuality(pixels, maxBytes, correction) ?: return null
+            val size = encode(quality)
+            if (size <= maxBytes) return quality
+            val predicted = BYTES_PER_PIXEL.first { it.first == quality }.second
+            correction = size.toDouble() / pixels / predicted
+        }
+        return null
+    }
+}
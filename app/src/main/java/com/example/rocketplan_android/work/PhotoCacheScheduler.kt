@@ -7,8 +7,11 @@ import androidx.work.ExistingWorkPolicy
 import androidx.work.BackoffPolicy
 import androidx.work.NetworkType
 import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkInfo
 import androidx.work.WorkManager
 import java.util.concurrent.TimeUnit
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
 
 class PhotoCacheScheduler(private val context: Context) {
 
@@ -20,7 +23,7 @@ class PhotoCacheScheduler(private val context: Context) {
 
     private val workManager: WorkManager = WorkManager.getInstance(context)
 
-    fun schedulePrefetch(limit: Int = 25) {
+    fun schedulePrefetch(limit: Int = PhotoPrefetchWorker.DEFAULT_LIMIT) {
         val constraints = Constraints.Builder()
             .setRequiredNetworkType(NetworkType.CONNECTED)
             .build()
@@ -45,4 +48,11 @@ class PhotoCacheScheduler(private val context: Context) {
             workRequest
         )
     }
+
+    /** Progress of the running prefetch, or null while none is running. */
+    fun observeProgress(): Flow<PhotoPrefetchWorker.Progress?> =
+        workManager.getWorkInfosForUniqueWorkFlow(WORK_NAME).map { infos ->
+            infos.firstOrNull { it.state == WorkInfo.State.RUNNING }
+                ?.let { PhotoPrefetchWorker.Progress.from(it.progress) }
+        }
 }
@@ -2,9 +2,22 @@ package com.example.rocketplan_android.work
 
 import android.content.Context
 import androidx.work.CoroutineWorker
+import androidx.work.Data
 import androidx.work.WorkerParameters
+import androidx.work.workDataOf
 import com.example.rocketplan_android.RocketPlanApplication
+import com.example.rocketplan_android.data.local.cache.PhotoCacheManager.PrefetchProgress
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
 
+/**
+ * Caches pending photos for offline use in batches until none are left, the run limit is reached,
+ * or WorkManager stops the worker. Progress is published as [Progress] through `WorkInfo`.
+ *
+ * Nothing is lost when a run is stopped: finished photos are marked cached in the database,
+ * partially downloaded files are continued by the next run, and the cached/total counts are read
+ * from the database so progress carries on from where the previous run left off. A run that
+ * finishes also removes cached files nothing refers to any more.
+ */
 class PhotoPrefetchWorker(
     appContext: Context,
     workerParams: WorkerParameters
@@ -12,19 +25,119 @@ class PhotoPrefetchWorker(
 
     companion object {
         const val KEY_LIMIT = "limit"
+        const val DEFAULT_LIMIT = 2_000
+        private const val BATCH_SIZE = 200
+        private const val PROGRESS_INTERVAL_MS = 1_000L
+    }
+
+    /** Prefetch progress as published in `WorkInfo.progress`. */
+    data class Progress(
+        val cachedPhotos: Int,
+        val totalPhotos: Int,
+        val thumbnailsCached: Int,
+        val failedPhotos: Int,
+        val bytesDownloaded: Long,
+        val parallelism: Int
+    ) {
+        fun toData(): Data = workDataOf(
+            KEY_CACHED to cachedPhotos,
+            KEY_TOTAL to totalPhotos,
+            KEY_THUMBNAILS to thumbnailsCached,
+            KEY_FAILED to failedPhotos,
+            KEY_BYTES to bytesDownloaded,
+            KEY_PARALLELISM to parallelism
+        )
+
+        companion object {
+            private const val KEY_CACHED = "cached"
+            private const val KEY_TOTAL = "total"
+            private const val KEY_THUMBNAILS = "thumbnails"
+            private const val KEY_FAILED = "failed"
+            private const val KEY_BYTES = "bytes"
+            private const val KEY_PARALLELISM = "parallelism"
+
+            /** Null until the worker has published its first progress. */
+            fun from(data: Data): Progress? {
+                if (!data.hasKeyWithValueOfType(KEY_TOTAL, Int::class.javaObjectType)) return null
+                return Progress(
+                    cachedPhotos = data.getInt(KEY_CACHED, 0),
+                    totalPhotos = data.getInt(KEY_TOTAL, 0),
+                    thumbnailsCached = data.getInt(KEY_THUMBNAILS, 0),
+                    failedPhotos = data.getInt(KEY_FAILED, 0),
+                    bytesDownloaded = data.getLong(KEY_BYTES, 0L),
+                    parallelism = data.getInt(KEY_PARALLELISM, 0)
+                )
+            }
+        }
     }
 
     private val application = appContext.applicationContext as RocketPlanApplication
     private val localDataService = application.localDataService
     private val photoCacheManager = application.photoCacheManager
+    private var lastPublishedAt = 0L
 
     override suspend fun doWork(): Result {
-        val limit = inputData.getInt(KEY_LIMIT, 25).coerceAtLeast(1)
-        val pending = localDataService.getPhotosNeedingCache(limit)
-        if (pending.isEmpty()) {
-            return Result.success()
+        val limit = inputData.getInt(KEY_LIMIT, DEFAULT_LIMIT).coerceAtLeast(1)
+        // Failed photos stay pending in the database; remember them so a run doesn't loop on them.
+        val attempted = HashSet<Long>()
+        var finished = PrefetchProgress()
+
+        while (!isStopped && attempted.size < limit) {
+            // Batches are picked visible rooms first, so their photos don't wait behind older batches.
+            val batch = localDataService.getPhotosNeedingCache(attempted.size + BATCH_SIZE, visibleRooms())
+                .filterNot { it.photoId in attempted }
+                .take(minOf(BATCH_SIZE, limit - attempted.size))
+            if (batch.isEmpty()) break
+            batch.mapTo(attempted) { it.photoId }
+
+            val completed = finished
+            val result = photoCacheManager.prefetch(
+                photos = batch,
+                visibleRooms = { visibleRooms() },
+                shouldStop = { isStopped }
+            ) { progress -> publishProgress(completed + progress, force = false) }
+            finished = completed + result
+        }
+
+        if (attempted.isNotEmpty()) {
+            publishProgress(finished, force = true)
+        }
+        if (!isStopped) {
+            photoCacheManager.collectGarbage()
         }
-        photoCacheManager.cachePhotos(pending)
         return Result.success()
     }
+
+    private suspend fun visibleRooms(): List<OfflineRoomEntity> {
+        val serverIds = application.offlineSyncRepository.visibleRoomIds()
+        if (serverIds.isEmpty()) return emptyList()
+        val byServerId = localDataService.getRoomsByServerIds(serverIds.toList()).associateBy { it.serverId }
+        return serverIds.mapNotNull { byServerId[it] }
+    }
+
+    private suspend fun publishProgress(run: PrefetchProgress, force: Boolean) {
+        val now = System.currentTimeMillis()
+        if (!force && now - lastPublishedAt < PROGRESS_INTERVAL_MS) return
+        lastPublishedAt = now
+        val (cached, remaining) = localDataService.getPhotoCacheCounts()
+        setProgress(
+            Progress(
+                cachedPhotos = cached,
+                totalPhotos = cached + remaining,
+                thumbnailsCached = run.thumbnailsCached,
+                failedPhotos = run.failed,
+                bytesDownloaded = run.bytesDownloaded,
+                parallelism = run.parallelism
+            ).toData()
+        )
+    }
+
+    private operator fun PrefetchProgress.plus(other: PrefetchProgress) = PrefetchProgress(
+        thumbnailsCached = thumbnailsCached + other.thumbnailsCached,
+        originalsCached = originalsCached + other.originalsCached,
+        failed = failed + other.failed,
+        remaining = other.remaining,
+        bytesDownloaded = bytesDownloaded + other.bytesDownloaded,
+        parallelism = other.parallelism
+    )
 }
@@ -0,0 +1,70 @@
+package com.example.rocketplan_android.work
+
+import android.content.Context
+import android.util.Log
+import androidx.work.Constraints
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
+import com.example.rocketplan_android.data.sync.BackgroundRetryHandoff
+import java.util.concurrent.TimeUnit
+
+/**
+ * One-off WorkManager job that pushes backoff-scheduled sync operations when they become due
+ * while the app is in the background. Re-scheduling replaces the previous request, so there is
+ * at most one pending wakeup. A running [SyncRetryWorker] is never replaced, since that would
+ * cancel the push it is doing; it re-arms the next wakeup itself when it finishes.
+ */
+class SyncRetryScheduler(private val context: Context) : BackgroundRetryHandoff {
+
+    companion object {
+        private const val TAG = "SyncRetryScheduler"
+        private const val WORK_NAME = "sync_retry_work"
+    }
+
+    private val workManager: WorkManager by lazy { WorkManager.getInstance(context) }
+
+    override fun scheduleAt(dueAtMs: Long) {
+        if (isRunning()) {
+            Log.d(TAG, "⏭️ Retry worker is running; it schedules the wakeup at $dueAtMs when it finishes")
+            return
+        }
+        enqueue(dueAtMs, ExistingWorkPolicy.REPLACE)
+    }
+
+    /**
+     * Called by [SyncRetryWorker] as it finishes: queues the next wakeup behind the running
+     * worker instead of replacing it.
+     */
+    fun scheduleAfterCurrentRun(dueAtMs: Long) {
+        enqueue(dueAtMs, ExistingWorkPolicy.APPEND_OR_REPLACE)
+    }
+
+    override fun cancel() {
+        workManager.cancelUniqueWork(WORK_NAME)
+    }
+
+    private fun isRunning(): Boolean = runCatching {
+        workManager.getWorkInfosForUniqueWork(WORK_NAME).get().any { it.state == WorkInfo.State.RUNNING }
+    }.getOrDefault(false)
+
+    private fun enqueue(dueAtMs: Long, policy: ExistingWorkPolicy) {
+        val delayMs = (dueAtMs - System.currentTimeMillis()).coerceAtLeast(0L)
+        val constraints = Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build()
+
+        val workRequest = OneTimeWorkRequestBuilder<SyncRetryWorker>()
+            .setConstraints(constraints)
+            .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+            .build()
+
+        workManager.enqueueUniqueWork(
+            WORK_NAME,
+            policy,
+            workRequest
+        )
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.rocketplan_android.work
+
+import android.content.Context
+import android.util.Log
+import androidx.work.CoroutineWorker
+import androidx.work.WorkerParameters
+import com.example.rocketplan_android.RocketPlanApplication
+import com.example.rocketplan_android.realtime.AppVisibilityTracker
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.withTimeoutOrNull
+
+/**
+ * Pushes pending sync operations whose backoff expired while the app was in the background.
+ * Scheduled by [SyncRetryScheduler], which leaves a running worker alone; the worker therefore
+ * re-arms the next wakeup itself while the app is still in the background, and the in-process
+ * timer takes over once it is in the foreground.
+ */
+class SyncRetryWorker(
+    appContext: Context,
+    workerParams: WorkerParameters
+) : CoroutineWorker(appContext, workerParams) {
+
+    companion object {
+        private const val TAG = "SyncRetryWorker"
+        private const val MAX_RUN_MS = 5 * 60 * 1000L
+    }
+
+    private val application = appContext.applicationContext as RocketPlanApplication
+
+    override suspend fun doWork(): Result {
+        return try {
+            val drained = withTimeoutOrNull(MAX_RUN_MS) {
+                application.syncQueueManager.runPendingOperationsNow()
+            }
+            if (drained == null) {
+                Log.w(TAG, "⚠️ Pending operations still running after ${MAX_RUN_MS}ms")
+            }
+            rescheduleIfBackgrounded()
+            Result.success()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "❌ SyncRetryWorker failed", e)
+            Result.retry()
+        }
+    }
+
+    private suspend fun rescheduleIfBackgrounded() {
+        if (AppVisibilityTracker.getInstance(applicationContext).foreground.value) return
+        val nextDueAt = application.localDataService.getNextScheduledRetryAt() ?: return
+        Log.d(TAG, "⏰ Next retry due at $nextDueAt; re-arming the background wakeup")
+        SyncRetryScheduler(applicationContext).scheduleAfterCurrentRun(nextDueAt)
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.rocketplan_android.data.api
+
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.google.common.truth.Truth.assertThat
+import io.mockk.every
+import io.mockk.mockk
+import java.net.SocketTimeoutException
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.TimeZone
+import okhttp3.Call
+import okhttp3.Interceptor
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import org.junit.Test
+
+class ConcurrencyLimitInterceptorTest {
+
+    private var now = 1_800_000_000_000L
+    private val limiter = AdaptiveConcurrencyLimiter(initialLimit = 8, clock = { now })
+    private val interceptor = ConcurrencyLimitInterceptor(limiter, clock = { now })
+    private val request = Request.Builder().url("https://api.example.com/api/rooms/1/photos").build()
+
+    private fun response(code: Int, retryAfter: String? = null): Response =
+        Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message("status $code")
+            .apply { retryAfter?.let { header("Retry-After", it) } }
+            .build()
+
+    private fun chain(result: () -> Response): Interceptor.Chain = mockk {
+        every { request() } returns request
+        every { call() } returns mockk<Call> { every { isCanceled() } returns false }
+        every { proceed(any()) } answers { result() }
+    }
+
+    @Test
+    fun `successful responses release their permit`() {
+        val result = interceptor.intercept(chain { response(200) })
+
+        assertThat(result.code).isEqualTo(200)
+        assertThat(limiter.inFlight).isEqualTo(0)
+        assertThat(limiter.limit.value).isEqualTo(8)
+    }
+
+    @Test
+    fun `503 with retry after cuts the limit and holds new requests`() {
+        interceptor.intercept(chain { response(503, retryAfter = "5") })
+
+        assertThat(limiter.limit.value).isEqualTo(4)
+        assertThat(limiter.retryAfterRemainingMs()).isEqualTo(5_000L)
+        assertThat(limiter.inFlight).isEqualTo(0)
+    }
+
+    @Test
+    fun `429 counts as overload`() {
+        interceptor.intercept(chain { response(429) })
+
+        assertThat(limiter.limit.value).isEqualTo(4)
+        assertThat(limiter.retryAfterRemainingMs()).isEqualTo(0L)
+    }
+
+    @Test
+    fun `timeouts count as overload and are rethrown`() {
+        val error = runCatching {
+            interceptor.intercept(chain { throw SocketTimeoutException("timeout") })
+        }.exceptionOrNull()
+
+        assertThat(error).isInstanceOf(SocketTimeoutException::class.java)
+        assertThat(limiter.limit.value).isEqualTo(4)
+        assertThat(limiter.inFlight).isEqualTo(0)
+    }
+
+    @Test
+    fun `retry after accepts http dates`() {
+        val date = SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+            .apply { timeZone = TimeZone.getTimeZone("GMT") }
+            .format(Date(now + 30_000L))
+
+        assertThat(ConcurrencyLimitInterceptor.retryAfterMs(response(503, retryAfter = date), now))
+            .isEqualTo(30_000L)
+        assertThat(ConcurrencyLimitInterceptor.retryAfterMs(response(503, retryAfter = "soon"), now))
+            .isNull()
+        assertThat(ConcurrencyLimitInterceptor.retryAfterMs(response(503), now)).isNull()
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.rocketplan_android.data.api
+
+import com.example.rocketplan_android.data.network.HttpValidatorStore
+import com.google.common.truth.Truth.assertThat
+import com.google.gson.JsonObject
+import java.lang.reflect.Type
+import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import kotlinx.coroutines.test.runTest
+import okhttp3.Cache
+import okhttp3.Call
+import okhttp3.EventListener
+import okhttp3.OkHttpClient
+import okhttp3.ResponseBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Converter
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import retrofit2.http.GET
+
+class ConditionalRequestInterceptorTest {
+
+    private interface CatalogApi {
+        @Conditional
+        @GET("/api/catalog")
+        suspend fun catalog(): JsonObject
+
+        @GET("/api/catalog")
+        suspend fun catalogUnconditional(): JsonObject
+    }
+
+    private val server = MockWebServer()
+    private val store = HttpValidatorStore()
+    private val bodyBytes = AtomicLong()
+    private val parses = AtomicInteger()
+    private val cacheDir = Files.createTempDirectory("http-cache").toFile()
+    private lateinit var api: CatalogApi
+
+    // ~60 KB of JSON, so downloading and parsing it is visible next to a 304.
+    private val payload = buildString {
+        append("""{"data":[""")
+        repeat(1_000) { i ->
+            if (i > 0) append(',')
+            append("""{"id":$i,"name":"Room type $i","property_type_ids":[1,2,3]}""")
+        }
+        append("]}")
+    }
+
+    @Before
+    fun setUp() {
+        server.start()
+        api = createApi(cache = null)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        cacheDir.deleteRecursively()
+    }
+
+    private fun createApi(cache: Cache?): CatalogApi {
+        val client = OkHttpClient.Builder()
+            .apply { cache?.let { cache(it) } }
+            .addInterceptor(ConditionalRequestInterceptor(store))
+            .eventListener(object : EventListener() {
+                override fun responseBodyEnd(call: Call, byteCount: Long) {
+                    bodyBytes.addAndGet(byteCount)
+                }
+            })
+            .build()
+        return Retrofit.Builder()
+            .baseUrl(server.url("/"))
+            .client(client)
+            .addConverterFactory(CountingConverterFactory(GsonConverterFactory.create(), parses))
+            .build()
+            .create(CatalogApi::class.java)
+    }
+
+    private fun ok(etag: String? = null, lastModified: String? = null, body: String = payload) = MockResponse()
+        .setResponseCode(200)
+        .setHeader("Content-Type", "application/json")
+        .apply { etag?.let { setHeader("ETag", it) } }
+        .apply { lastModified?.let { setHeader("Last-Modified", it) } }
+        .setBody(body)
+
+    private fun notModified(etag: String? = null) = MockResponse()
+        .setResponseCode(304)
+        .apply { etag?.let { setHeader("ETag", it) } }
+
+    @Test
+    fun `unchanged resource is revalidated without downloading or parsing the body`() = runTest {
+        server.enqueue(ok(etag = "\"v1\""))
+        server.enqueue(notModified(etag = "\"v1\""))
+
+        val first = api.catalog()
+        val bytesAfterFirst = bodyBytes.get()
+        val second = runCatching { api.catalog() }.exceptionOrNull()
+
+        assertThat(first.getAsJsonArray("data").size()).isEqualTo(1_000)
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull()
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"")
+        assertThat(second).isInstanceOf(NotModifiedException::class.java)
+        // The 304 carried no payload and never reached the converter.
+        assertThat(bytesAfterFirst).isAtLeast(payload.length.toLong())
+        assertThat(bodyBytes.get()).isEqualTo(bytesAfterFirst)
+        assertThat(parses.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun `disk cache does not swallow the 304 of a conditional call`() = runTest {
+        api = createApi(cache = Cache(cacheDir, 1024L * 1024))
+        server.enqueue(ok(etag = "\"v1\""))
+        server.enqueue(notModified(etag = "\"v1\""))
+
+        api.catalog()
+        val second = runCatching { api.catalog() }.exceptionOrNull()
+
+        // Without the stored validator OkHttp would revalidate on its own and hand back (and
+        // Retrofit would parse) the cached body.
+        assertThat(second).isInstanceOf(NotModifiedException::class.java)
+        assertThat(server.requestCount).isEqualTo(2)
+        assertThat(parses.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun `changed resource is downloaded, parsed and its new validator stored`() = runTest {
+        server.enqueue(ok(etag = "\"v1\""))
+        server.enqueue(ok(etag = "\"v2\"", body = """{"data":[]}"""))
+        server.enqueue(notModified())
+
+        api.catalog()
+        val changed = api.catalog()
+        runCatching { api.catalog() }
+
+        assertThat(changed.getAsJsonArray("data").size()).isEqualTo(0)
+        assertThat(parses.get()).isEqualTo(2)
+        server.takeRequest()
+        server.takeRequest()
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v2\"")
+    }
+
+    @Test
+    fun `last modified is sent back as if modified since`() = runTest {
+        val lastModified = "Wed, 01 Oct 2025 10:00:00 GMT"
+        server.enqueue(ok(lastModified = lastModified))
+        server.enqueue(notModified())
+
+        api.catalog()
+        val second = runCatching { api.catalog() }.exceptionOrNull()
+
+        server.takeRequest()
+        assertThat(server.takeRequest().getHeader("If-Modified-Since")).isEqualTo(lastModified)
+        assertThat(second).isInstanceOf(NotModifiedException::class.java)
+    }
+
+    @Test
+    fun `forgotten endpoints and unannotated calls are fetched in full`() = runTest {
+        server.enqueue(ok(etag = "\"v1\""))
+        server.enqueue(ok(etag = "\"v1\""))
+        server.enqueue(ok(etag = "\"v1\""))
+
+        api.catalog()
+        api.catalogUnconditional()
+        store.forget("/api/catalog")
+        api.catalog()
+
+        server.takeRequest()
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull()
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull()
+        assertThat(parses.get()).isEqualTo(3)
+    }
+
+    @Test
+    fun `error responses drop the stored validator`() = runTest {
+        server.enqueue(ok(etag = "\"v1\""))
+        server.enqueue(MockResponse().setResponseCode(500))
+        server.enqueue(ok(etag = "\"v1\""))
+
+        api.catalog()
+        runCatching { api.catalog() }
+        api.catalog()
+
+        server.takeRequest()
+        server.takeRequest()
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull()
+    }
+
+    private class CountingConverterFactory(
+        private val delegate: Converter.Factory,
+        private val parses: AtomicInteger
+    ) : Converter.Factory() {
+        override fun responseBodyConverter(
+            type: Type,
+            annotations: Array<out Annotation>,
+            retrofit: Retrofit
+        ): Converter<ResponseBody, *>? {
+            val converter = delegate.responseBodyConverter(type, annotations, retrofit) ?: return null
+            return Converter<ResponseBody, Any?> { body ->
+                parses.incrementAndGet()
+                converter.convert(body)
+            }
+        }
+    }
+}
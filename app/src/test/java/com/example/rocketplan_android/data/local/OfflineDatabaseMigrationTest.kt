@@ -85,4 +85,145 @@ class OfflineDatabaseMigrationTest {
             assertThat(c.isNull(c.getColumnIndex("propertyServerId"))).isTrue()
         }
     }
+
+    @Test
+    fun `migration 30 to 31 adds indexed parent columns and backfills queued creates`() {
+        val ctx = ApplicationProvider.getApplicationContext<Context>()
+        val v30 = FrameworkSQLiteOpenHelperFactory().create(
+            SupportSQLiteOpenHelper.Configuration.builder(ctx)
+                .name(null)
+                .callback(object : SupportSQLiteOpenHelper.Callback(30) {
+                    override fun onCreate(db: SupportSQLiteDatabase) {
+                        // Minimal v30 offline_sync_queue — only what the migration touches.
+                        db.execSQL(
+                            "CREATE TABLE offline_sync_queue (" +
+                                "operationId TEXT PRIMARY KEY NOT NULL, entityType TEXT NOT NULL, " +
+                                "entityId INTEGER NOT NULL, operationType TEXT NOT NULL, " +
+                                "payload BLOB NOT NULL, status TEXT NOT NULL)"
+                        )
+                    }
+
+                    override fun onUpgrade(db: SupportSQLiteDatabase, oldVersion: Int, newVersion: Int) {}
+                })
+                .build()
+        )
+        val queue = v30.writableDatabase
+        fun insert(id: String, type: String, op: String, json: String) = queue.execSQL(
+            "INSERT INTO offline_sync_queue (operationId, entityType, entityId, operationType, payload, status) " +
+                "VALUES (?, ?, 1, ?, ?, 'PENDING')",
+            arrayOf<Any?>(id, type, op, json.toByteArray(Charsets.UTF_8))
+        )
+        insert("loc", "location", "CREATE", """{"projectId":-100,"propertyLocalId":-200}""")
+        insert("room", "room", "CREATE", """{"projectId":-100,"levelServerId":null,"locationServerId":-400,"levelUuid":"lvl","locationUuid":"loc"}""")
+        insert("note", "note", "UPDATE", """{"projectId":-100}""")
+        insert("bad", "property", "CREATE", "not json")
+
+        try {
+            OfflineDatabase.MIGRATION_30_31.migrate(queue)
+
+            val indexes = mutableListOf<String>()
+            queue.query("PRAGMA index_list(offline_sync_queue)").use { c ->
+                val nameIdx = c.getColumnIndex("name")
+                while (c.moveToNext()) indexes.add(c.getString(nameIdx))
+            }
+            assertThat(indexes).containsAtLeast(
+                "index_offline_sync_queue_parentProjectId",
+                "index_offline_sync_queue_parentPropertyId",
+                "index_offline_sync_queue_parentLevelId",
+                "index_offline_sync_queue_parentLocationId",
+                "index_offline_sync_queue_parentLevelUuid",
+                "index_offline_sync_queue_parentLocationUuid"
+            )
+
+            queue.query(
+                "SELECT operationId, parentProjectId, parentPropertyId, parentLevelId, parentLocationId, " +
+                    "parentLevelUuid, parentLocationUuid FROM offline_sync_queue ORDER BY operationId"
+            ).use { c ->
+                val rows = mutableMapOf<String, List<Any?>>()
+                while (c.moveToNext()) {
+                    rows[c.getString(0)] = (1..6).map { i ->
+                        when {
+                            c.isNull(i) -> null
+                            i >= 5 -> c.getString(i)
+                            else -> c.getLong(i)
+                        }
+                    }
+                }
+                assertThat(rows["loc"]).containsExactly(-100L, -200L, null, null, null, null).inOrder()
+                assertThat(rows["room"]).containsExactly(-100L, null, null, -400L, "lvl", "loc").inOrder()
+                assertThat(rows["note"]).containsExactly(null, null, null, null, null, null)
+                assertThat(rows["bad"]).containsExactly(null, null, null, null, null, null)
+            }
+        } finally {
+            v30.close()
+        }
+    }
+
+    @Test
+    fun `migration 31 to 32 creates the sync cursor table`() {
+        OfflineDatabase.MIGRATION_31_32.migrate(db)
+
+        val columns = mutableListOf<String>()
+        db.query("PRAGMA table_info(sync_cursor)").use { c ->
+            val nameIdx = c.getColumnIndex("name")
+            while (c.moveToNext()) columns.add(c.getString(nameIdx))
+        }
+        assertThat(columns).containsExactly("cursorKey", "projectId", "cursorAt", "updatedAt")
+
+        val indexes = mutableListOf<String>()
+        db.query("PRAGMA index_list(sync_cursor)").use { c ->
+            val nameIdx = c.getColumnIndex("name")
+            while (c.moveToNext()) indexes.add(c.getString(nameIdx))
+        }
+        assertThat(indexes).contains("index_sync_cursor_projectId")
+    }
+
+    @Test
+    fun `migration 32 to 33 keys room photo snapshots by photo`() {
+        db.execSQL(
+            "CREATE TABLE offline_room_photo_snapshots (roomId INTEGER NOT NULL, photoId INTEGER NOT NULL, " +
+                "orderIndex INTEGER NOT NULL, imageUrl TEXT NOT NULL, thumbnailUrl TEXT NOT NULL, " +
+                "capturedOn INTEGER, PRIMARY KEY(roomId, orderIndex))"
+        )
+        db.execSQL("INSERT INTO offline_room_photo_snapshots VALUES (1, 10, 0, 'a', 'a', NULL)")
+
+        OfflineDatabase.MIGRATION_32_33.migrate(db)
+
+        val primaryKey = mutableListOf<Pair<Int, String>>()
+        db.query("PRAGMA table_info(offline_room_photo_snapshots)").use { c ->
+            val nameIdx = c.getColumnIndex("name")
+            val pkIdx = c.getColumnIndex("pk")
+            while (c.moveToNext()) {
+                if (c.getInt(pkIdx) > 0) primaryKey.add(c.getInt(pkIdx) to c.getString(nameIdx))
+            }
+        }
+        assertThat(primaryKey.sortedBy { it.first }.map { it.second }).containsExactly("roomId", "photoId").inOrder()
+
+        // Derived rows are dropped; rooms rebuild them on next open.
+        db.query("SELECT COUNT(*) FROM offline_room_photo_snapshots").use { c ->
+            c.moveToFirst()
+            assertThat(c.getInt(0)).isEqualTo(0)
+        }
+    }
+
+    @Test
+    fun `migration 33 to 34 adds the resumable upload url, preserving rows`() {
+        db.execSQL(
+            "CREATE TABLE image_processor_photos (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "photoId TEXT NOT NULL, uploadTaskId TEXT, bytesUploaded INTEGER NOT NULL)"
+        )
+        db.execSQL(
+            "INSERT INTO image_processor_photos (photoId, uploadTaskId, bytesUploaded) " +
+                "VALUES ('photo-0', 'upload-1', 65536)"
+        )
+
+        OfflineDatabase.MIGRATION_33_34.migrate(db)
+
+        db.query("SELECT uploadTaskId, uploadUrl, bytesUploaded FROM image_processor_photos").use { c ->
+            assertThat(c.moveToFirst()).isTrue()
+            assertThat(c.getString(0)).isEqualTo("upload-1")
+            assertThat(c.isNull(1)).isTrue()
+            assertThat(c.getLong(2)).isEqualTo(65536L)
+        }
+    }
 }
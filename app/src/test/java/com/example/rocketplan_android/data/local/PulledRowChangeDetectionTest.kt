@@ -0,0 +1,140 @@
+package com.example.rocketplan_android.data.local
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.local.entity.OfflineNoteEntity
+import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.google.common.truth.Truth.assertThat
+import java.util.Date
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Pull sync only writes rows whose content changed. A skipped row keeps the `lastSyncedAt` of the
+ * pull that last wrote it, which is how these tests tell a skipped write from a performed one.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class PulledRowChangeDetectionTest {
+
+    private val firstPull = Date(1_000)
+    private val secondPull = Date(2_000)
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var local: LocalDataService
+
+    @Before
+    fun setUp() {
+        db = OfflineDatabase.createInMemoryForTesting(ApplicationProvider.getApplicationContext<Context>())
+        local = LocalDataService.createForTesting(db)
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    private fun note(serverId: Long, content: String = "body $serverId", pulledAt: Date = firstPull) = OfflineNoteEntity(
+        noteId = serverId,
+        serverId = serverId,
+        uuid = "note-$serverId",
+        projectId = 1L,
+        content = content,
+        syncStatus = SyncStatus.SYNCED,
+        syncVersion = 1,
+        lastSyncedAt = pulledAt,
+    )
+
+    private fun room(id: Long, title: String = "Room $id", pulledAt: Date = firstPull) = OfflineRoomEntity(
+        roomId = id,
+        serverId = id,
+        uuid = "room-$id",
+        projectId = 1L,
+        title = title,
+        syncStatus = SyncStatus.SYNCED,
+        createdAt = Date(0),
+        updatedAt = Date(0),
+        lastSyncedAt = pulledAt,
+    )
+
+    private fun photo(id: Long, url: String = "https://example.com/$id.jpg", pulledAt: Date = firstPull) = OfflinePhotoEntity(
+        photoId = id,
+        serverId = id,
+        uuid = "photo-$id",
+        projectId = 1L,
+        roomId = 10L,
+        fileName = "$id.jpg",
+        localPath = "",
+        remoteUrl = url,
+        mimeType = "image/jpeg",
+        createdAt = Date(0),
+        updatedAt = Date(0),
+        lastSyncedAt = pulledAt,
+        syncStatus = SyncStatus.SYNCED,
+    )
+
+    @Test
+    fun `rows differing only in sync bookkeeping are dropped`() {
+        val stored = listOf(note(1), note(2)).associateBy { it.serverId }
+        val incoming = listOf(
+            note(1, pulledAt = secondPull).copy(syncVersion = 2),
+            note(2, content = "edited on the web", pulledAt = secondPull),
+            note(3, pulledAt = secondPull),
+        )
+
+        val changed = dropUnchangedRows(incoming, stored, { it.serverId }, { it.pulledContent() })
+
+        assertThat(changed.map { it.serverId }).containsExactly(2L, 3L).inOrder()
+    }
+
+    @Test
+    fun `no-op note refresh writes nothing while edits still land`() = runTest {
+        local.saveNotes(listOf(note(1), note(2)), preserveDirty = true)
+
+        local.saveNotes(
+            listOf(note(1, pulledAt = secondPull), note(2, content = "edited", pulledAt = secondPull)),
+            preserveDirty = true
+        )
+
+        val rows = db.offlineDao().getNotesByServerIds(listOf(1L, 2L)).associateBy { it.serverId }
+        assertThat(rows.getValue(1L).lastSyncedAt).isEqualTo(firstPull)
+        assertThat(rows.getValue(2L).lastSyncedAt).isEqualTo(secondPull)
+        assertThat(rows.getValue(2L).content).isEqualTo("edited")
+    }
+
+    @Test
+    fun `unchanged pulled photos are skipped and the room snapshot is kept`() = runTest {
+        local.savePhotos(listOf(photo(1), photo(2)), preserveDirty = true)
+
+        local.savePhotos(
+            listOf(photo(1, pulledAt = secondPull), photo(2, url = "https://example.com/2-v2.jpg", pulledAt = secondPull)),
+            preserveDirty = true
+        )
+
+        val rows = db.offlineDao().getPhotosByServerIds(listOf(1L, 2L)).associateBy { it.serverId }
+        assertThat(rows.getValue(1L).lastSyncedAt).isEqualTo(firstPull)
+        assertThat(rows.getValue(2L).remoteUrl).isEqualTo("https://example.com/2-v2.jpg")
+        assertThat(db.offlineDao().getRoomPhotoSnapshots(10L).map { it.photoId }).containsExactly(1L, 2L)
+    }
+
+    @Test
+    fun `pulled rooms are compared against the stored row, including rows changed locally`() = runTest {
+        local.saveRooms(listOf(room(1), room(2), room(3)), skipUnchanged = true)
+        db.offlineDao().upsertRooms(listOf(room(3).copy(title = "Renamed offline")))
+
+        local.saveRooms(
+            listOf(room(1, pulledAt = secondPull), room(2, title = "Kitchen", pulledAt = secondPull), room(3, pulledAt = secondPull)),
+            skipUnchanged = true
+        )
+
+        val rows = db.offlineDao().getRoomsByServerIds(listOf(1L, 2L, 3L)).associateBy { it.roomId }
+        assertThat(rows.getValue(1L).lastSyncedAt).isEqualTo(firstPull)
+        assertThat(rows.getValue(2L).title).isEqualTo("Kitchen")
+        // The stored row diverged from what the server sends, so it is written back.
+        assertThat(rows.getValue(3L).title).isEqualTo("Room 3")
+    }
+}
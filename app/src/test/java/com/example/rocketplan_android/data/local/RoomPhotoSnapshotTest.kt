@@ -0,0 +1,107 @@
+package com.example.rocketplan_android.data.local
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomPhotoSnapshotEntity
+import com.google.common.truth.Truth.assertThat
+import java.io.File
+import java.util.Date
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * The room photo snapshot follows photo writes row by row; [LocalDataService.refreshRoomPhotoSnapshot]
+ * only repairs drift.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class RoomPhotoSnapshotTest {
+
+    private val roomId = 9070L
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var local: LocalDataService
+
+    @Before
+    fun setUp() {
+        db = OfflineDatabase.createInMemoryForTesting(ApplicationProvider.getApplicationContext<Context>())
+        local = LocalDataService.createForTesting(db)
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    private fun photo(id: Long, room: Long? = roomId) = OfflinePhotoEntity(
+        photoId = id,
+        serverId = id,
+        uuid = "photo-$id",
+        projectId = 7,
+        roomId = room,
+        fileName = "$id.jpg",
+        localPath = "",
+        remoteUrl = "https://example.com/$id.jpg",
+        mimeType = "image/jpeg",
+        capturedAt = Date(id * 1_000)
+    )
+
+    private suspend fun snapshotIds(room: Long = roomId) =
+        db.offlineDao().getRoomPhotoSnapshots(room).map { it.photoId }
+
+    @Test
+    fun `saved photos are added and updated in place`() = runTest {
+        local.savePhotos(listOf(photo(1), photo(2), photo(3, room = null)))
+        assertThat(snapshotIds()).containsExactly(1L, 2L)
+
+        local.savePhotos(listOf(photo(2).copy(remoteUrl = "https://example.com/2-v2.jpg")))
+
+        val rows = db.offlineDao().getRoomPhotoSnapshots(roomId).associateBy { it.photoId }
+        assertThat(rows.keys).containsExactly(1L, 2L)
+        assertThat(rows.getValue(2).imageUrl).isEqualTo("https://example.com/2-v2.jpg")
+        assertThat(rows.getValue(1).imageUrl).isEqualTo("https://example.com/1.jpg")
+    }
+
+    @Test
+    fun `deleted, soft deleted and moved photos update the snapshot through triggers`() = runTest {
+        local.savePhotos(listOf(photo(1), photo(2), photo(3), photo(4)))
+
+        local.markPhotosDeleted(listOf(1L))
+        local.savePhotos(listOf(photo(2).copy(isDeleted = true)))
+        db.offlineDao().migratePhotoRoomIds(roomId, 9071L)
+
+        assertThat(snapshotIds()).isEmpty()
+        assertThat(snapshotIds(9071L)).containsExactly(3L, 4L)
+
+        db.offlineDao().deletePhotosByRoomId(9071L)
+        assertThat(snapshotIds(9071L)).isEmpty()
+    }
+
+    @Test
+    fun `cached files replace remote urls in the snapshot`() = runTest {
+        local.savePhotos(listOf(photo(1)))
+        val cached = File.createTempFile("photo-1", ".jpg").apply { deleteOnExit() }
+
+        local.markPhotoCacheSuccess(1, originalPath = cached.absolutePath, thumbnailPath = null)
+
+        assertThat(db.offlineDao().getRoomPhotoSnapshots(roomId).single().imageUrl).isEqualTo(cached.absolutePath)
+    }
+
+    @Test
+    fun `refresh repairs drift in the snapshot`() = runTest {
+        local.savePhotos(listOf(photo(1), photo(2)))
+        val expected = db.offlineDao().getRoomPhotoSnapshots(roomId).toSet()
+        db.offlineDao().deleteRoomPhotoSnapshotsForPhotos(listOf(2L))
+        db.offlineDao().upsertRoomPhotoSnapshots(
+            listOf(OfflineRoomPhotoSnapshotEntity(roomId, 99, "stale", "stale", null))
+        )
+
+        local.refreshRoomPhotoSnapshot(roomId)
+
+        assertThat(db.offlineDao().getRoomPhotoSnapshots(roomId)).containsExactlyElementsIn(expected)
+    }
+}
@@ -3,21 +3,35 @@ package com.example.rocketplan_android.data.local.cache
 import android.content.Context
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
 import com.example.rocketplan_android.testing.MainDispatcherRule
+import com.google.common.truth.Truth.assertThat
 import io.mockk.coEvery
 import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
+import io.mockk.slot
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.StandardTestDispatcher
 import kotlinx.coroutines.test.runTest
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.Buffer
+import org.junit.After
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.rules.TemporaryFolder
 import java.io.File
+import java.util.Collections
 import java.util.Date
+import java.util.concurrent.TimeUnit
 
 /**
  * Unit tests for the PhotoCacheManager fixes:
@@ -26,12 +40,16 @@ import java.util.Date
  *    ConcurrentModificationException.
  *  - RP-BUG-022: cleanUpUnused evicts via LRU down to <= maxBytes, and the running
  *    byte total accounts for already-expired victims upfront (uses break, not
- *    return@forEach). Partial-delete failures must NOT mark the photo as failed.
+ *    return@forEach). Partial-delete failures must NOT clear the photo's cache paths.
  *  - RP-BUG-009: generateThumbnail returns a thumbnail File on success and null on
  *    decode/compress failure without throwing. The bitmap decode/compress path
  *    requires the real Android graphics stack (Bitmap / BitmapFactory), which is
  *    not available in plain JVM unit tests and the repo has no Robolectric setup —
  *    see the RP-BUG-009 test below for what is feasible to assert here.
+ *  - Prefetch: thumbnails are fetched before originals, photos of visible rooms come
+ *    first, and an interrupted download continues from its .part file.
+ *  - Blob store: identical content is stored once, cached URLs and captured photos are
+ *    not downloaded again, and only unreferenced blobs are collected.
  */
 @OptIn(ExperimentalCoroutinesApi::class)
 class PhotoCacheManagerTest {
@@ -44,6 +62,8 @@ class PhotoCacheManagerTest {
 
     private lateinit var context: Context
     private lateinit var localDataService: LocalDataService
+    private val server = MockWebServer()
+    private val requestedPaths: MutableList<String> = Collections.synchronizedList(mutableListOf())
 
     @Before
     fun setUp() {
@@ -52,6 +72,7 @@ class PhotoCacheManagerTest {
 
         // filesDir is read in the PhotoCacheManager constructor to build cacheRoot.
         every { context.filesDir } returns tempFolder.root
+        coEvery { localDataService.findCachedPhotoByRemoteUrl(any()) } returns null
 
         // android.util.Log is NOT mocked here: the standard flavor ships
         // slf4j-android, and mocking Log makes MockK's own internal SLF4J logger
@@ -60,6 +81,11 @@ class PhotoCacheManagerTest {
         // OfflineSyncRepositoryTest), so the production log calls are harmless.
     }
 
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
     // ---------------------------------------------------------------------
     // RP-BUG-019: snapshot iteration
     // ---------------------------------------------------------------------
@@ -125,10 +151,10 @@ class PhotoCacheManagerTest {
 
         manager.cleanUpUnused(threshold = Date(now - 60_000), maxBytes = 250)
 
-        // Only the oldest should be evicted (its files deleted + marked failed).
-        coVerify(exactly = 1) { localDataService.markPhotoCacheFailed(1) }
-        coVerify(exactly = 0) { localDataService.markPhotoCacheFailed(2) }
-        coVerify(exactly = 0) { localDataService.markPhotoCacheFailed(3) }
+        // Only the oldest should be evicted (its files deleted + cleared).
+        coVerify(exactly = 1) { localDataService.clearPhotoCache(1) }
+        coVerify(exactly = 0) { localDataService.clearPhotoCache(2) }
+        coVerify(exactly = 0) { localDataService.clearPhotoCache(3) }
         assertTrue("oldest original file should be deleted", !oldest.original.exists())
         assertTrue("mid file should remain", mid.original.exists())
         assertTrue("newest file should remain", newest.original.exists())
@@ -165,9 +191,9 @@ class PhotoCacheManagerTest {
 
             // Only the expired photo is evicted; the two fresh ones survive because
             // the running total correctly subtracts the expired victim upfront.
-            coVerify(exactly = 1) { localDataService.markPhotoCacheFailed(1) }
-            coVerify(exactly = 0) { localDataService.markPhotoCacheFailed(2) }
-            coVerify(exactly = 0) { localDataService.markPhotoCacheFailed(3) }
+            coVerify(exactly = 1) { localDataService.clearPhotoCache(1) }
+            coVerify(exactly = 0) { localDataService.clearPhotoCache(2) }
+            coVerify(exactly = 0) { localDataService.clearPhotoCache(3) }
         }
 
     // ---------------------------------------------------------------------
@@ -175,7 +201,7 @@ class PhotoCacheManagerTest {
     // ---------------------------------------------------------------------
 
     @Test
-    fun `cleanUpUnused does not mark photo failed when its file cannot be deleted`() = runTest {
+    fun `cleanUpUnused does not clear a photo whose file cannot be deleted`() = runTest {
         val manager = PhotoCacheManager(
             context = context,
             localDataService = localDataService,
@@ -190,7 +216,7 @@ class PhotoCacheManagerTest {
 
         // A victim whose original points at a *directory* — File.delete() on a
         // non-empty directory returns false, so originalDeleted == false and the
-        // entry must NOT be marked failed.
+        // entry must NOT be cleared.
         val undeletableDir = File(tempFolder.root, "undeletable_dir").apply { mkdirs() }
         // Put a child inside so delete() definitely fails (non-empty dir).
         File(undeletableDir, "child.bin").writeBytes(ByteArray(50))
@@ -209,12 +235,12 @@ class PhotoCacheManagerTest {
         // make both victims regardless of size.
         manager.cleanUpUnused(threshold = Date(now), maxBytes = 1)
 
-        // deletable file gone + marked failed.
-        coVerify(exactly = 1) { localDataService.markPhotoCacheFailed(1) }
+        // deletable file gone + cleared.
+        coVerify(exactly = 1) { localDataService.clearPhotoCache(1) }
         assertTrue("deletable original removed", !deletable.original.exists())
 
-        // stuck (directory) could not be deleted -> NOT marked failed, still present.
-        coVerify(exactly = 0) { localDataService.markPhotoCacheFailed(2) }
+        // stuck (directory) could not be deleted -> NOT cleared, still present.
+        coVerify(exactly = 0) { localDataService.clearPhotoCache(2) }
         assertTrue("undeletable dir still present", undeletableDir.exists())
     }
 
@@ -256,6 +282,279 @@ class PhotoCacheManagerTest {
             coVerify(exactly = 0) { localDataService.markPhotoCacheSuccess(any(), any(), any()) }
         }
 
+    // ---------------------------------------------------------------------
+    // Prefetch
+    // ---------------------------------------------------------------------
+
+    @Test
+    fun `prefetch downloads every thumbnail before any original`() = runTest {
+        serveContentByPath()
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val photos = (1L..4L).map { id ->
+            photo(photoId = id, remoteUrl = server.url("/original/$id").toString())
+                .copy(thumbnailUrl = server.url("/thumb/$id").toString())
+        }
+
+        val result = manager.prefetch(photos)
+
+        assertThat(result.thumbnailsCached).isEqualTo(4)
+        assertThat(result.originalsCached).isEqualTo(4)
+        assertThat(result.remaining).isEqualTo(0)
+        assertThat(result.bytesDownloaded).isEqualTo(8_000L)
+        assertThat(requestedPaths.take(4).all { it.startsWith("/thumb/") }).isTrue()
+        assertThat(requestedPaths.drop(4).all { it.startsWith("/original/") }).isTrue()
+        // Originals keep the thumbnail the server already provided.
+        val thumbnailPath = slot<String>()
+        coVerify { localDataService.markPhotoThumbnailCached(1L, capture(thumbnailPath)) }
+        coVerify(exactly = 1) { localDataService.markPhotoCacheSuccess(1L, any(), thumbnailPath.captured) }
+    }
+
+    @Test
+    fun `interrupted download continues from its partial file with a Range request`() = runTest {
+        val content = ByteArray(10_000) { it.toByte() }
+        val ranges = Collections.synchronizedList(mutableListOf<Pair<String?, String?>>())
+        server.dispatcher = rangeServer(content, etag = "\"v1\"", ranges)
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val url = server.url("/original/1").toString()
+        // A previous run was stopped after the first 4000 bytes.
+        val store = PhotoBlobStore(File(tempFolder.root, "photo_cache"))
+        val partial = store.partialFile(url)
+        partial.writeBytes(content.copyOf(4_000))
+        store.validatorFile(partial).writeText("\"v1\"")
+
+        val bytes = manager.cachePhoto(photo(photoId = 1, remoteUrl = url))
+
+        assertThat(bytes).isEqualTo(6_000L)
+        assertThat(ranges).containsExactly("bytes=4000-" to "\"v1\"")
+        assertThat(File(cachedOriginalPath(1L)).readBytes()).isEqualTo(content)
+        assertThat(partial.exists()).isFalse()
+        assertThat(store.tempFiles()).isEmpty()
+    }
+
+    @Test
+    fun `partial download of content that changed since is started over`() = runTest {
+        val content = ByteArray(10_000) { (it * 3).toByte() }
+        val ranges = Collections.synchronizedList(mutableListOf<Pair<String?, String?>>())
+        server.dispatcher = rangeServer(content, etag = "\"v2\"", ranges)
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val url = server.url("/original/1").toString()
+        // The first 4000 bytes came from an older version of the file.
+        val store = PhotoBlobStore(File(tempFolder.root, "photo_cache"))
+        val partial = store.partialFile(url)
+        partial.writeBytes(ByteArray(4_000) { 9 })
+        store.validatorFile(partial).writeText("\"v1\"")
+
+        val bytes = manager.cachePhoto(photo(photoId = 1, remoteUrl = url))
+
+        assertThat(bytes).isEqualTo(10_000L)
+        assertThat(ranges).containsExactly("bytes=4000-" to "\"v1\"")
+        assertThat(File(cachedOriginalPath(1L)).readBytes()).isEqualTo(content)
+    }
+
+    @Test
+    fun `partial download without a validator is not resumed`() = runTest {
+        val content = ByteArray(10_000) { it.toByte() }
+        val ranges = Collections.synchronizedList(mutableListOf<Pair<String?, String?>>())
+        server.dispatcher = rangeServer(content, etag = "\"v1\"", ranges)
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val url = server.url("/original/1").toString()
+        PhotoBlobStore(File(tempFolder.root, "photo_cache")).partialFile(url).writeBytes(ByteArray(4_000) { 9 })
+
+        val bytes = manager.cachePhoto(photo(photoId = 1, remoteUrl = url))
+
+        assertThat(bytes).isEqualTo(10_000L)
+        assertThat(ranges).containsExactly(null to null)
+        assertThat(File(cachedOriginalPath(1L)).readBytes()).isEqualTo(content)
+    }
+
+    /** Serves [content] with [etag], honouring a Range only when If-Range still matches. */
+    private fun rangeServer(
+        content: ByteArray,
+        etag: String,
+        ranges: MutableList<Pair<String?, String?>>
+    ) = object : Dispatcher() {
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            val range = request.getHeader("Range")
+            val ifRange = request.getHeader("If-Range")
+            ranges += range to ifRange
+            val start = range?.takeIf { ifRange == etag }
+                ?.removePrefix("bytes=")?.removeSuffix("-")?.toInt() ?: 0
+            return MockResponse()
+                .setResponseCode(if (start > 0) 206 else 200)
+                .setHeader("ETag", etag)
+                .setBody(Buffer().write(content.copyOfRange(start, content.size)))
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Content-addressed store
+    // ---------------------------------------------------------------------
+
+    @Test
+    fun `identical content from different urls is stored once`() = runTest {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) =
+                MockResponse().setBody(Buffer().write(ByteArray(2_000) { 7 }))
+        }
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+
+        manager.cachePhoto(photo(photoId = 1, remoteUrl = server.url("/project-a/1.jpg").toString()))
+        manager.cachePhoto(photo(photoId = 2, remoteUrl = server.url("/project-b/2.jpg").toString()))
+
+        assertThat(cachedOriginalPath(1L)).isEqualTo(cachedOriginalPath(2L))
+        assertThat(blobFiles()).hasSize(1)
+    }
+
+    @Test
+    fun `url already cached for another photo is not downloaded again`() = runTest {
+        serveContentByPath()
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val url = server.url("/original/shared").toString()
+        manager.cachePhoto(photo(photoId = 1, remoteUrl = url))
+        val first = cachedOriginalPath(1L)
+        coEvery { localDataService.findCachedPhotoByRemoteUrl(url) } returns
+            photo(photoId = 1, remoteUrl = url).copy(cachedOriginalPath = first)
+
+        val bytes = manager.cachePhoto(photo(photoId = 2, remoteUrl = url).copy(projectId = 7))
+
+        assertThat(bytes).isEqualTo(0L)
+        assertThat(server.requestCount).isEqualTo(1)
+        assertThat(cachedOriginalPath(2L)).isEqualTo(first)
+    }
+
+    @Test
+    fun `photos sharing a download count its bytes once`() = runTest {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) = MockResponse()
+                .setBody(Buffer().write(ByteArray(5_000) { 9 }))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS)
+        }
+        val manager = networkManager(Dispatchers.IO)
+        val url = server.url("/original/shared").toString()
+        val photos = (1L..4L).map { id -> photo(photoId = id, remoteUrl = url) }
+
+        val result = manager.prefetch(photos)
+
+        assertThat(result.originalsCached).isEqualTo(4)
+        // Photos that joined an in-flight download downloaded nothing themselves.
+        assertThat(result.bytesDownloaded).isEqualTo(server.requestCount * 5_000L)
+    }
+
+    @Test
+    fun `photo captured on this device is cached without a download`() = runTest {
+        serveContentByPath()
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val captured = tempFolder.newFile("capture.jpg").apply { writeBytes(ByteArray(3_000) { 3 }) }
+
+        val bytes = manager.cachePhoto(
+            photo(photoId = 1, remoteUrl = server.url("/original/1").toString())
+                .copy(localPath = captured.absolutePath)
+        )
+
+        assertThat(bytes).isEqualTo(0L)
+        assertThat(server.requestCount).isEqualTo(0)
+        val cached = File(cachedOriginalPath(1L))
+        assertThat(PhotoBlobStore.isBlob(cached.path)).isTrue()
+        // The cached copy outlives the capture, which the upload pipeline deletes.
+        captured.delete()
+        assertThat(cached.readBytes()).isEqualTo(ByteArray(3_000) { 3 })
+    }
+
+    @Test
+    fun `collectGarbage deletes only blobs nothing refers to`() = runTest {
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val store = PhotoBlobStore(File(tempFolder.root, "photo_cache"))
+        fun blob(seed: Byte) = store.commit(tempFolder.newFile().apply { writeBytes(ByteArray(100) { seed }) }, "jpg")
+        val referenced = blob(1)
+        val orphan = blob(2)
+        val fresh = blob(3)
+        val hourAgo = System.currentTimeMillis() - 60 * 60 * 1000L
+        referenced.setLastModified(hourAgo)
+        orphan.setLastModified(hourAgo)
+        coEvery { localDataService.getPhotoCacheReferences() } returns setOf(referenced.absolutePath)
+
+        val deleted = manager.collectGarbage()
+
+        assertThat(deleted).isEqualTo(1)
+        assertThat(orphan.exists()).isFalse()
+        assertThat(referenced.exists()).isTrue()
+        // Just written and possibly about to be recorded, so kept for now.
+        assertThat(fresh.exists()).isTrue()
+    }
+
+    @Test
+    fun `eviction leaves blobs to garbage collection, which keeps the ones still referenced`() = runTest {
+        val manager = networkManager(StandardTestDispatcher(testScheduler))
+        val store = PhotoBlobStore(File(tempFolder.root, "photo_cache"))
+        val shared = store.commit(tempFolder.newFile().apply { writeBytes(ByteArray(100) { 5 }) }, "jpg")
+        val logPhoto = store.commit(tempFolder.newFile().apply { writeBytes(ByteArray(100) { 6 }) }, "jpg")
+        val unused = store.commit(tempFolder.newFile().apply { writeBytes(ByteArray(100) { 7 }) }, "jpg")
+        val hourAgo = System.currentTimeMillis() - 60 * 60 * 1000L
+        listOf(shared, logPhoto, unused).forEach { it.setLastModified(hourAgo) }
+        val now = System.currentTimeMillis()
+        fun expired(photoId: Long, blob: File) =
+            photo(photoId = photoId, remoteUrl = "https://example.com/$photoId.jpg", lastAccessed = Date(now - 120_000))
+                .copy(cachedOriginalPath = blob.absolutePath)
+        val kept = photo(photoId = 2, remoteUrl = "https://example.com/2.jpg", lastAccessed = Date(now - 10_000))
+            .copy(cachedOriginalPath = shared.absolutePath)
+        coEvery { localDataService.getCachedPhotos() } returns
+            listOf(kept, expired(1, shared), expired(3, logPhoto), expired(4, unused))
+        // After eviction the database still refers to the shared blob through photo 2 and to
+        // logPhoto through a moisture log, neither of which the eviction snapshot counts.
+        coEvery { localDataService.getPhotoCacheReferences() } returns
+            setOf(shared.absolutePath, logPhoto.absolutePath)
+
+        manager.cleanUpUnused(threshold = Date(now - 60_000), maxBytes = 1_000)
+
+        coVerify(exactly = 1) { localDataService.clearPhotoCache(1) }
+        coVerify(exactly = 1) { localDataService.clearPhotoCache(3) }
+        coVerify(exactly = 1) { localDataService.clearPhotoCache(4) }
+        coVerify(exactly = 0) { localDataService.clearPhotoCache(2) }
+        assertTrue("shared blob stays for the photo still cached", shared.exists())
+        assertTrue("blob stays for the moisture log", logPhoto.exists())
+        assertTrue("blob nothing refers to is collected", !unused.exists())
+    }
+
+    @Test
+    fun `adopted capture is a copy that later edits of the capture do not change`() {
+        val store = PhotoBlobStore(File(tempFolder.root, "photo_cache"))
+        val captured = tempFolder.newFile("capture.jpg").apply { writeBytes(ByteArray(1_000) { 1 }) }
+        captured.setLastModified(1_000_000L)
+
+        val blob = store.adopt(captured, "jpg")
+        assertThat(captured.lastModified()).isEqualTo(1_000_000L)
+        captured.writeBytes(ByteArray(1_000) { 2 })
+
+        assertThat(blob.readBytes()).isEqualTo(ByteArray(1_000) { 1 })
+        assertThat(blob.name).startsWith(PhotoBlobStore.sha256(blob))
+        assertThat(store.tempFiles()).isEmpty()
+    }
+
+    @Test
+    fun `photos of visible rooms come first, then the rest of their project`() {
+        val otherProject = photo(photoId = 1, remoteUrl = "https://example.com/1.jpg").copy(projectId = 7)
+        val sameProject = photo(photoId = 2, remoteUrl = "https://example.com/2.jpg").copy(roomId = 11)
+        val secondRoom = photo(photoId = 3, remoteUrl = "https://example.com/3.jpg").copy(roomId = 12)
+        val firstRoom = photo(photoId = 4, remoteUrl = "https://example.com/4.jpg").copy(roomId = 10)
+        val visibleRooms = listOf(room(roomId = 10), room(roomId = 12))
+
+        val ordered = orderForPrefetch(listOf(otherProject, sameProject, secondRoom, firstRoom), visibleRooms)
+
+        assertThat(ordered.map { it.photoId }).containsExactly(4L, 3L, 2L, 1L).inOrder()
+    }
+
+    @Test
+    fun `visible room created offline matches its photos by server room id`() {
+        val otherRoom = photo(photoId = 1, remoteUrl = "https://example.com/1.jpg").copy(roomId = 11)
+        val visibleRoomPhoto = photo(photoId = 2, remoteUrl = "https://example.com/2.jpg").copy(roomId = 9_010)
+        // Local id 10 was assigned offline; the server later gave the room id 9010.
+        val visibleRooms = listOf(room(roomId = 10, serverId = 9_010))
+
+        val ordered = orderForPrefetch(listOf(otherRoom, visibleRoomPhoto), visibleRooms)
+
+        assertThat(ordered.map { it.photoId }).containsExactly(2L, 1L).inOrder()
+    }
+
     // ---------------------------------------------------------------------
     // Helpers
     // ---------------------------------------------------------------------
@@ -276,6 +575,37 @@ class PhotoCacheManagerTest {
             lastAccessedAt = lastAccessed
         )
 
+    private fun networkManager(ioDispatcher: CoroutineDispatcher) = PhotoCacheManager(
+        context = context,
+        localDataService = localDataService,
+        remoteLogger = null,
+        ioDispatcher = ioDispatcher,
+        httpClient = OkHttpClient()
+    )
+
+    /** Answers every request with 1000 bytes that differ per path, recording the paths. */
+    private fun serveContentByPath() {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path.orEmpty()
+                requestedPaths += path
+                return MockResponse().setBody(Buffer().write(path.toByteArray().copyOf(1_000)))
+            }
+        }
+    }
+
+    private fun cachedOriginalPath(photoId: Long): String {
+        val path = slot<String>()
+        coVerify { localDataService.markPhotoCacheSuccess(photoId, capture(path), any()) }
+        return path.captured
+    }
+
+    private fun blobFiles(): List<File> =
+        File(tempFolder.root, "photo_cache/blobs").walkTopDown().filter { it.isFile }.toList()
+
+    private fun room(roomId: Long, serverId: Long? = null): OfflineRoomEntity =
+        OfflineRoomEntity(roomId = roomId, serverId = serverId, uuid = "room-$roomId", projectId = 42, title = "Room $roomId")
+
     private class CachedPhotoFixture(
         val entity: OfflinePhotoEntity,
         val original: File
@@ -0,0 +1,100 @@
+package com.example.rocketplan_android.data.local.dao
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.local.OfflineDatabase
+import com.example.rocketplan_android.data.local.SyncOperationType
+import com.example.rocketplan_android.data.local.SyncPriority
+import com.example.rocketplan_android.data.local.SyncStatus
+import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.Date
+
+/**
+ * Payload-free queue scanning: headers come back in queue order without reading payloads, and
+ * full rows are loaded only for the requested window.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class SyncQueueHeaderQueryTest {
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var dao: OfflineDao
+
+    @Before
+    fun setUp() {
+        val ctx = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(ctx, OfflineDatabase::class.java)
+            .allowMainThreadQueries()
+            .build()
+        dao = db.offlineDao()
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    private fun op(
+        id: String,
+        priority: SyncPriority = SyncPriority.MEDIUM,
+        createdAt: Long = 1_000L,
+        scheduledAt: Long? = null,
+        status: SyncStatus = SyncStatus.PENDING
+    ) = OfflineSyncQueueEntity(
+        operationId = id,
+        entityType = "note",
+        entityId = id.hashCode().toLong(),
+        entityUuid = "uuid-$id",
+        operationType = SyncOperationType.UPDATE,
+        payload = ByteArray(256 * 1024) { 1 },
+        priority = priority,
+        createdAt = Date(createdAt),
+        scheduledAt = scheduledAt?.let { Date(it) },
+        status = status
+    )
+
+    @Test
+    fun `headers are due pending operations in queue order`() = runTest {
+        listOf(
+            op("later", createdAt = 2_000L),
+            op("urgent", priority = SyncPriority.HIGH, createdAt = 3_000L),
+            op("earlier", createdAt = 1_000L),
+            op("backing-off", scheduledAt = 10_000L),
+            op("failed", status = SyncStatus.FAILED)
+        ).forEach { dao.upsertSyncOperation(it) }
+
+        val headers = dao.getSyncOperationHeadersByStatus(SyncStatus.PENDING, now = 5_000L)
+
+        assertThat(headers.map { it.operationId }).containsExactly("urgent", "earlier", "later").inOrder()
+        assertThat(headers.first().entityUuid).isEqualTo("uuid-urgent")
+        assertThat(headers.first().operationType).isEqualTo(SyncOperationType.UPDATE)
+    }
+
+    @Test
+    fun `window load returns only requested rows with payloads`() = runTest {
+        listOf(op("a"), op("b"), op("c")).forEach { dao.upsertSyncOperation(it) }
+
+        val rows = dao.getSyncOperationsByIds(listOf("a", "c", "missing"))
+
+        assertThat(rows.map { it.operationId }).containsExactly("a", "c")
+        assertThat(rows.first().payload.size).isEqualTo(256 * 1024)
+    }
+
+    @Test
+    fun `exists observer tracks whether anything is pending`() = runTest {
+        assertThat(dao.observeHasSyncOperations(SyncStatus.PENDING).first()).isFalse()
+
+        dao.upsertSyncOperation(op("a"))
+
+        assertThat(dao.observeHasSyncOperations(SyncStatus.PENDING).first()).isTrue()
+        assertThat(dao.observeHasSyncOperations(SyncStatus.FAILED).first()).isFalse()
+    }
+}
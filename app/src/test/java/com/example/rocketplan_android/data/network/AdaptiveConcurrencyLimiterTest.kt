@@ -0,0 +1,128 @@
+package com.example.rocketplan_android.data.network
+
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter.Outcome
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.atomic.AtomicInteger
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class AdaptiveConcurrencyLimiterTest {
+
+    private var now = 1_000_000L
+
+    private fun limiter(initialLimit: Int = 4, minLimit: Int = 2, maxLimit: Int = 16) =
+        AdaptiveConcurrencyLimiter(
+            minLimit = minLimit,
+            maxLimit = maxLimit,
+            initialLimit = initialLimit,
+            healthyLatencyMs = 500L,
+            clock = { now }
+        )
+
+    @Test
+    fun `permits are capped at the current limit`() {
+        val limiter = limiter(initialLimit = 3)
+
+        val permits = List(3) { limiter.tryAcquire() }
+
+        assertThat(permits.all { it != null }).isTrue()
+        assertThat(limiter.tryAcquire()).isNull()
+        assertThat(limiter.inFlight).isEqualTo(3)
+
+        permits.first()!!.release(Outcome.IGNORE)
+        permits.first()!!.release(Outcome.IGNORE)
+
+        assertThat(limiter.inFlight).isEqualTo(2)
+        assertThat(limiter.tryAcquire()).isNotNull()
+    }
+
+    @Test
+    fun `healthy saturated rounds grow the limit additively`() {
+        val limiter = limiter(initialLimit = 4)
+
+        repeat(2) {
+            val round = List(limiter.limit.value) { limiter.tryAcquire()!! }
+            now += 100
+            round.forEach { it.release(Outcome.SUCCESS) }
+        }
+
+        assertThat(limiter.limit.value).isEqualTo(5)
+    }
+
+    @Test
+    fun `slow responses and idle capacity do not grow the limit`() {
+        val limiter = limiter(initialLimit = 4)
+
+        repeat(10) {
+            val permit = limiter.tryAcquire()!!
+            now += 100
+            permit.release(Outcome.SUCCESS)
+        }
+        val round = List(4) { limiter.tryAcquire()!! }
+        now += 5_000
+        round.forEach { it.release(Outcome.SUCCESS) }
+
+        assertThat(limiter.limit.value).isEqualTo(4)
+    }
+
+    @Test
+    fun `overload from one round cuts the limit once and never below the minimum`() {
+        val limiter = limiter(initialLimit = 8, minLimit = 2)
+
+        val round = List(8) { limiter.tryAcquire()!! }
+        now += 10
+        round.forEach { it.release(Outcome.OVERLOAD) }
+        assertThat(limiter.limit.value).isEqualTo(4)
+
+        repeat(3) {
+            val permit = limiter.tryAcquire()!!
+            now += 10
+            permit.release(Outcome.OVERLOAD)
+        }
+        assertThat(limiter.limit.value).isEqualTo(2)
+    }
+
+    @Test
+    fun `retry after holds back new requests until it elapses`() {
+        val limiter = limiter()
+
+        limiter.tryAcquire()!!.release(Outcome.OVERLOAD, retryAfterMs = 3_000L)
+
+        assertThat(limiter.retryAfterRemainingMs()).isEqualTo(3_000L)
+        assertThat(limiter.tryAcquire()).isNull()
+
+        now += 3_000
+        assertThat(limiter.retryAfterRemainingMs()).isEqualTo(0L)
+        assertThat(limiter.tryAcquire()).isNotNull()
+    }
+
+    @Test
+    fun `retry after is capped`() {
+        val limiter = limiter()
+
+        limiter.tryAcquire()!!.release(Outcome.OVERLOAD, retryAfterMs = 10 * 60_000L)
+
+        assertThat(limiter.retryAfterRemainingMs())
+            .isEqualTo(AdaptiveConcurrencyLimiter.DEFAULT_MAX_RETRY_AFTER_MS)
+    }
+
+    @Test
+    fun `mapConcurrently keeps order and never exceeds the limit`() = runTest {
+        val limiter = limiter(initialLimit = 3)
+        val running = AtomicInteger(0)
+        val peak = AtomicInteger(0)
+
+        val results = limiter.mapConcurrently((1..20).toList()) { item ->
+            peak.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            delay(10L * (item % 4))
+            running.decrementAndGet()
+            item * 2
+        }
+
+        assertThat(results).isEqualTo((1..20).map { it * 2 })
+        assertThat(peak.get()).isEqualTo(3)
+    }
+}
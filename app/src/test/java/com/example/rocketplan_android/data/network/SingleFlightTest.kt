@@ -0,0 +1,125 @@
+package com.example.rocketplan_android.data.network
+
+import com.google.common.truth.Truth.assertThat
+import java.io.IOException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class SingleFlightTest {
+
+    private var now = 1_000L
+    private val singleFlight = SingleFlight(clock = { now })
+
+    @Test
+    fun `concurrent callers for the same key share one execution`() = runTest {
+        val gate = CompletableDeferred<Unit>()
+        var executions = 0
+
+        val callers = List(5) {
+            async {
+                singleFlight.execute("rooms/1/photos") {
+                    executions++
+                    gate.await()
+                    "page-1"
+                }
+            }
+        }
+        runCurrent()
+        gate.complete(Unit)
+
+        assertThat(callers.awaitAll()).containsExactly("page-1", "page-1", "page-1", "page-1", "page-1")
+        assertThat(executions).isEqualTo(1)
+    }
+
+    @Test
+    fun `different keys run independently`() = runTest {
+        var executions = 0
+
+        singleFlight.execute("rooms/1/photos") { executions++ }
+        singleFlight.execute("rooms/2/photos") { executions++ }
+
+        assertThat(executions).isEqualTo(2)
+    }
+
+    @Test
+    fun `results are reused only inside the freshness window`() = runTest {
+        var executions = 0
+        suspend fun fetch() = singleFlight.execute("projects/7/metadata", freshForMs = 2_000L) { ++executions }
+
+        assertThat(fetch()).isEqualTo(1)
+        now += 1_999
+        assertThat(fetch()).isEqualTo(1)
+        now += 2
+        assertThat(fetch()).isEqualTo(2)
+    }
+
+    @Test
+    fun `results rejected by reuseResult are not served from the window`() = runTest {
+        var executions = 0
+        suspend fun fetch() = singleFlight.execute(
+            key = "rooms/1/photos",
+            freshForMs = 5_000L,
+            reuseResult = { it > 1 }
+        ) { ++executions }
+
+        assertThat(fetch()).isEqualTo(1)
+        assertThat(fetch()).isEqualTo(2)
+        assertThat(fetch()).isEqualTo(2)
+    }
+
+    @Test
+    fun `failures reach every waiter and are not remembered`() = runTest {
+        val gate = CompletableDeferred<Unit>()
+        var executions = 0
+
+        val callers = List(3) {
+            async {
+                runCatching {
+                    singleFlight.execute<String>("rooms/1/photos", freshForMs = 5_000L) {
+                        executions++
+                        gate.await()
+                        throw IOException("boom")
+                    }
+                }.exceptionOrNull()
+            }
+        }
+        runCurrent()
+        gate.complete(Unit)
+
+        callers.awaitAll().forEach { assertThat(it).isInstanceOf(IOException::class.java) }
+        assertThat(executions).isEqualTo(1)
+        assertThat(singleFlight.execute("rooms/1/photos", freshForMs = 5_000L) { "ok" }).isEqualTo("ok")
+    }
+
+    @Test
+    fun `waiters take over when the executing caller is cancelled`() = runTest {
+        val gate = CompletableDeferred<Unit>()
+        var executions = 0
+
+        val first = async {
+            singleFlight.execute("rooms/1/photos") {
+                executions++
+                gate.await()
+                "first"
+            }
+        }
+        runCurrent()
+        val second = async {
+            singleFlight.execute("rooms/1/photos") {
+                executions++
+                "second"
+            }
+        }
+        runCurrent()
+        first.cancel()
+
+        assertThat(second.await()).isEqualTo("second")
+        assertThat(executions).isEqualTo(2)
+    }
+}
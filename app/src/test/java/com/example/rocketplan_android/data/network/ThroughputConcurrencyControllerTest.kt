@@ -0,0 +1,91 @@
+package com.example.rocketplan_android.data.network
+
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.atomic.AtomicInteger
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class ThroughputConcurrencyControllerTest {
+
+    private var now = 1_000_000L
+
+    private fun controller(initialLimit: Int = 2, maxLimit: Int = 6) =
+        ThroughputConcurrencyController(
+            minLimit = 1,
+            maxLimit = maxLimit,
+            initialLimit = initialLimit,
+            windowMs = 2_000L,
+            minGain = 0.1,
+            clock = { now }
+        )
+
+    /**
+     * Streams [windows] measurement windows over a link where each connection moves at most
+     * [perConnection] bytes/second and all of them together at most [linkCapacity]. Returns the
+     * limit after every window.
+     */
+    private fun ThroughputConcurrencyController.stream(
+        windows: Int,
+        perConnection: Long,
+        linkCapacity: Long
+    ): List<Int> = List(windows) {
+        repeat(10) {
+            now += 200
+            val bytesPerSecond = minOf(limit.value * perConnection, linkCapacity)
+            onTransferred(bytesPerSecond / 5)
+        }
+        limit.value
+    }
+
+    @Test
+    fun `limit settles where a few connections already saturate the link`() {
+        val controller = controller()
+
+        val limits = controller.stream(windows = 30, perConnection = 1_000_000, linkCapacity = 3_000_000)
+
+        // Probes one step past saturation, never opens connections that only split the bandwidth.
+        assertThat(limits.drop(5).toSet()).containsAnyOf(3, 4)
+        assertThat(limits.max()).isAtMost(4)
+        assertThat(limits.drop(5).min()).isAtLeast(2)
+    }
+
+    @Test
+    fun `limit climbs to the maximum on a fast link`() {
+        val controller = controller()
+
+        val limits = controller.stream(windows = 20, perConnection = 1_000_000, linkCapacity = 100_000_000)
+
+        assertThat(limits.take(5)).contains(6)
+        assertThat(limits.drop(5).min()).isAtLeast(5)
+    }
+
+    @Test
+    fun `limit backs off when the link gets slower`() {
+        val controller = controller()
+        controller.stream(windows = 10, perConnection = 1_000_000, linkCapacity = 100_000_000)
+
+        val limits = controller.stream(windows = 20, perConnection = 1_000_000, linkCapacity = 2_000_000)
+
+        assertThat(limits.takeLast(10).max()).isAtMost(3)
+    }
+
+    @Test
+    fun `mapConcurrently runs at most the current limit at once`() = runTest {
+        val controller = controller(initialLimit = 3)
+        val running = AtomicInteger()
+        val peak = AtomicInteger()
+
+        val results = controller.mapConcurrently((1..20).toList()) { item ->
+            peak.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            delay(10)
+            running.decrementAndGet()
+            item * 2
+        }
+
+        assertThat(peak.get()).isEqualTo(3)
+        assertThat(results).isEqualTo((1..20).map { it * 2 })
+    }
+}
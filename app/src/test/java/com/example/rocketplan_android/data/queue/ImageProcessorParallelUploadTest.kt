@@ -0,0 +1,208 @@
+package com.example.rocketplan_android.data.queue
+
+import android.content.Context
+import com.example.rocketplan_android.data.local.dao.ImageProcessorDao
+import com.example.rocketplan_android.data.local.entity.AssemblyStatus
+import com.example.rocketplan_android.data.local.entity.ImageProcessorAssemblyEntity
+import com.example.rocketplan_android.data.local.entity.ImageProcessorPhotoEntity
+import com.example.rocketplan_android.data.local.entity.PhotoStatus
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.google.common.truth.Truth.assertThat
+import io.mockk.coEvery
+import io.mockk.mockk
+import java.io.File
+import java.nio.file.Files
+import java.util.Collections
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlinx.coroutines.test.runTest
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Photos of one assembly upload in parallel against a MockWebServer with simulated latency. Each
+ * photo's status is written as soon as its upload settles, while the published progress still
+ * advances in assembly order.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class ImageProcessorParallelUploadTest {
+
+    private val server = MockWebServer()
+    private val dao: ImageProcessorDao = mockk(relaxed = true)
+    private val photoDir: File = Files.createTempDirectory("assembly-photos").toFile()
+    private val statusWrites: MutableList<ImageProcessorPhotoEntity> = Collections.synchronizedList(mutableListOf())
+    // The published prefix at the moment of each status write, in the same order as statusWrites.
+    private val prefixAtWrite: MutableList<Int?> = Collections.synchronizedList(mutableListOf())
+    private val inFlight = AtomicInteger()
+    private val maxInFlight = AtomicInteger()
+
+    @Volatile
+    private var failingFile: String? = null
+
+    @Volatile
+    private var manager: ImageProcessorQueueManager? = null
+
+    private val assembly = ImageProcessorAssemblyEntity(
+        id = 1L,
+        assemblyId = "assembly-1",
+        projectId = 100L,
+        roomId = 200L,
+        groupUuid = "group-1",
+        status = AssemblyStatus.UPLOADING.value,
+        totalFiles = PHOTO_COUNT,
+        bytesReceived = 0,
+        createdAt = 0L,
+        lastUpdatedAt = 0L
+    )
+
+    private val photos = (0 until PHOTO_COUNT).map { index ->
+        val file = File(photoDir, "photo-$index.jpg").apply { writeBytes(ByteArray(16 * 1024)) }
+        ImageProcessorPhotoEntity(
+            photoId = "photo-$index",
+            assemblyLocalId = 1L,
+            assemblyUuid = assembly.assemblyId,
+            fileName = file.name,
+            localFilePath = file.absolutePath,
+            status = PhotoStatus.PENDING.value,
+            orderIndex = index,
+            fileSize = file.length(),
+            lastUpdatedAt = 0L
+        )
+    }
+
+    @Before
+    fun setUp() {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val current = inFlight.incrementAndGet()
+                maxInFlight.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+                try {
+                    val fileName = request.requestUrl?.queryParameter("filename")
+                    // The first photo is the slowest, so parallel uploads finish out of order.
+                    Thread.sleep(if (fileName == "photo-0.jpg") SLOW_UPLOAD_MS else UPLOAD_MS)
+                    return if (fileName == failingFile) MockResponse().setResponseCode(500) else MockResponse()
+                } finally {
+                    inFlight.decrementAndGet()
+                }
+            }
+        }
+        server.start()
+        coEvery { dao.getPhotoByPhotoId(any()) } answers { photos.first { it.photoId == firstArg<String>() } }
+        coEvery { dao.updatePhoto(any()) } answers {
+            synchronized(statusWrites) {
+                statusWrites += firstArg<ImageProcessorPhotoEntity>()
+                prefixAtWrite += manager?.uploadedPrefix?.value?.get(assembly.assemblyId)
+            }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        photoDir.deleteRecursively()
+    }
+
+    private fun createQueueManager(parallelUploads: Int) = ImageProcessorQueueManager(
+        context = mockk<Context>(relaxed = true),
+        dao = dao,
+        offlineDao = mockk(relaxed = true),
+        uploadStore = mockk(relaxed = true),
+        api = mockk(relaxed = true),
+        configRepository = mockk(relaxed = true),
+        secureStorage = mockk(relaxed = true),
+        remoteLogger = null,
+        uploadLimiter = AdaptiveConcurrencyLimiter(
+            minLimit = parallelUploads,
+            maxLimit = parallelUploads,
+            initialLimit = parallelUploads
+        )
+    ).also { manager = it }
+
+    private suspend fun timedUpload(manager: ImageProcessorQueueManager): Pair<Pair<Int, Int>, Long> {
+        val start = System.nanoTime()
+        val result = manager.uploadPendingPhotos(assembly, photos, server.url("/upload").toString(), "key")
+        return result to TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+    }
+
+    private fun completedInWriteOrder(): List<String> = synchronized(statusWrites) {
+        statusWrites.filter { it.status == PhotoStatus.COMPLETED.value }.map { it.photoId }
+    }
+
+    private fun settledWrites(): List<ImageProcessorPhotoEntity> = synchronized(statusWrites) {
+        statusWrites.filter { it.status != PhotoStatus.UPLOADING.value }
+    }
+
+    @Test
+    fun `large assembly uploads measurably faster than one photo at a time`() = runTest {
+        val (sequential, sequentialMs) = timedUpload(createQueueManager(parallelUploads = 1))
+        assertThat(maxInFlight.get()).isEqualTo(1)
+        maxInFlight.set(0)
+        statusWrites.clear()
+
+        val (parallel, parallelMs) = timedUpload(createQueueManager(parallelUploads = 4))
+
+        assertThat(sequential).isEqualTo(PHOTO_COUNT to 0)
+        assertThat(parallel).isEqualTo(PHOTO_COUNT to 0)
+        assertThat(maxInFlight.get()).isEqualTo(4)
+        // photo-0 takes three times as long as the others, so with four slots its neighbours
+        // finish while it is still on the wire.
+        val completed = completedInWriteOrder()
+        assertThat(completed.indexOf("photo-1")).isLessThan(completed.indexOf("photo-0"))
+        assertThat(completed.indexOf("photo-2")).isLessThan(completed.indexOf("photo-0"))
+        assertThat(parallelMs).isLessThan(sequentialMs)
+    }
+
+    @Test
+    fun `each photo is marked as soon as its own upload settles`() = runTest {
+        failingFile = "photo-3.jpg"
+
+        val (result, _) = timedUpload(createQueueManager(parallelUploads = 4))
+
+        assertThat(result).isEqualTo(PHOTO_COUNT - 1 to 1)
+        assertThat(settledWrites().map { it.photoId to it.status }).containsExactlyElementsIn(
+            photos.map { photo ->
+                photo.photoId to if (photo.fileName == failingFile) PhotoStatus.FAILED.value else PhotoStatus.COMPLETED.value
+            }
+        )
+        // A photo the server accepted is not left UPLOADING behind the slow first photo, so
+        // recovery after a process death cannot send it again.
+        assertThat(completedInWriteOrder().first()).isNotEqualTo("photo-0")
+    }
+
+    @Test
+    fun `published progress advances in assembly order`() = runTest {
+        val queueManager = createQueueManager(parallelUploads = 4)
+
+        timedUpload(queueManager)
+
+        val (writes, prefixes) = synchronized(statusWrites) { statusWrites.toList() to prefixAtWrite.toList() }
+        val settled = mutableSetOf<String>()
+        writes.forEachIndexed { index, write ->
+            val prefix = prefixes[index]
+            assertThat(prefix).isNotNull()
+            // Never ahead of the photos that have actually settled from the first one on.
+            val leadingSettled = photos.takeWhile { it.photoId in settled }.size
+            assertThat(prefix!!).isAtMost(leadingSettled)
+            if (write.status != PhotoStatus.UPLOADING.value) settled += write.photoId
+        }
+        assertThat(prefixes.filterNotNull()).isInOrder()
+        val photo0Settled = writes.indexOfFirst { it.photoId == "photo-0" && it.status == PhotoStatus.COMPLETED.value }
+        assertThat(prefixes.take(photo0Settled + 1).toSet()).containsExactly(0)
+        assertThat(queueManager.uploadedPrefix.value).isEmpty()
+    }
+
+    private companion object {
+        const val PHOTO_COUNT = 8
+        const val UPLOAD_MS = 150L
+        const val SLOW_UPLOAD_MS = 450L
+    }
+}
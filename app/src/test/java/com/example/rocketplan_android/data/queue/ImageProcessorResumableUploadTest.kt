@@ -0,0 +1,283 @@
+package com.example.rocketplan_android.data.queue
+
+import android.content.Context
+import com.example.rocketplan_android.data.local.dao.ImageProcessorDao
+import com.example.rocketplan_android.data.local.entity.AssemblyStatus
+import com.example.rocketplan_android.data.local.entity.ImageProcessorAssemblyEntity
+import com.example.rocketplan_android.data.local.entity.ImageProcessorPhotoEntity
+import com.example.rocketplan_android.data.local.entity.PhotoStatus
+import com.example.rocketplan_android.data.model.ImageProcessingConfiguration
+import com.example.rocketplan_android.data.repository.ImageProcessingConfigurationRepository
+import com.google.common.truth.Truth.assertThat
+import io.mockk.coEvery
+import io.mockk.mockk
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.file.Files
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.random.Random
+import kotlinx.coroutines.test.runTest
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Chunked uploads against a MockWebServer that implements the TUS core protocol: an interrupted
+ * photo continues from the offset the server confirmed instead of being sent again. Chunking is
+ * only used when the configuration advertises `resumable_uploads`.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class ImageProcessorResumableUploadTest {
+
+    private val server = MockWebServer()
+    private val tus = TusServer()
+    private val rows = ConcurrentHashMap<String, ImageProcessorPhotoEntity>()
+    private val dao: ImageProcessorDao = mockk(relaxed = true)
+    private val configRepository: ImageProcessingConfigurationRepository = mockk(relaxed = true)
+    private val photoDir: File = Files.createTempDirectory("resumable-photos").toFile()
+    private val photoBytes = Random(7).nextBytes(5 * CHUNK_SIZE.toInt() - 1_000)
+
+    private val assembly = ImageProcessorAssemblyEntity(
+        id = 1L,
+        assemblyId = "assembly-1",
+        projectId = 100L,
+        roomId = 200L,
+        groupUuid = "group-1",
+        status = AssemblyStatus.UPLOADING.value,
+        totalFiles = 1,
+        bytesReceived = 0,
+        createdAt = 0L,
+        lastUpdatedAt = 0L
+    )
+
+    private lateinit var photo: ImageProcessorPhotoEntity
+
+    @Before
+    fun setUp() {
+        server.dispatcher = tus
+        server.start()
+        val file = File(photoDir, "photo-0.jpg").apply { writeBytes(photoBytes) }
+        photo = ImageProcessorPhotoEntity(
+            photoId = "photo-0",
+            assemblyLocalId = 1L,
+            assemblyUuid = assembly.assemblyId,
+            fileName = file.name,
+            localFilePath = file.absolutePath,
+            status = PhotoStatus.PENDING.value,
+            orderIndex = 0,
+            fileSize = file.length(),
+            lastUpdatedAt = 0L
+        )
+        rows[photo.photoId] = photo
+        coEvery { dao.getPhotoByPhotoId(any()) } answers { rows[firstArg<String>()] }
+        coEvery { dao.updatePhoto(any()) } answers {
+            val updated = firstArg<ImageProcessorPhotoEntity>()
+            rows[updated.photoId] = updated
+        }
+        coEvery { dao.updatePhotoUploadProgress(any(), any(), any(), any(), any()) } answers {
+            val photoId = firstArg<String>()
+            rows.computeIfPresent(photoId) { _, row ->
+                row.copy(uploadTaskId = secondArg(), uploadUrl = thirdArg(), bytesUploaded = arg(3), lastUpdatedAt = arg(4))
+            }
+        }
+        configureResumableUploads(true)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        photoDir.deleteRecursively()
+    }
+
+    private fun createQueueManager() = ImageProcessorQueueManager(
+        context = mockk<Context>(relaxed = true),
+        dao = dao,
+        offlineDao = mockk(relaxed = true),
+        uploadStore = mockk(relaxed = true),
+        api = mockk(relaxed = true),
+        configRepository = configRepository,
+        secureStorage = mockk(relaxed = true),
+        remoteLogger = null,
+        uploadChunkSizeBytes = CHUNK_SIZE
+    )
+
+    private suspend fun upload(manager: ImageProcessorQueueManager, photo: ImageProcessorPhotoEntity) =
+        manager.uploadPendingPhotos(assembly, listOf(photo), server.url("/upload").toString(), "key")
+
+    private fun stored(): ImageProcessorPhotoEntity = rows.getValue("photo-0")
+
+    private fun configureResumableUploads(enabled: Boolean?) {
+        coEvery { configRepository.getCachedConfiguration() } returns ImageProcessingConfiguration(
+            service = "tus",
+            url = server.url("/upload").toString(),
+            apiKey = "key",
+            resumableUploads = enabled
+        )
+    }
+
+    @Test
+    fun `service without the resumable capability keeps the single POST`() = runTest {
+        configureResumableUploads(null)
+
+        val result = upload(createQueueManager(), photo)
+
+        assertThat(result).isEqualTo(1 to 0)
+        assertThat(tus.singlePostBytes.get()).isEqualTo(photoBytes.size)
+        assertThat(tus.creations.get()).isEqualTo(0)
+        assertThat(tus.patchOffsets).isEmpty()
+        assertThat(stored().uploadTaskId).isNull()
+    }
+
+    @Test
+    fun `upload interrupted by network loss resumes from the confirmed offset after process death`() = runTest {
+        tus.networkDownAfterPatches = 2
+
+        val interrupted = upload(createQueueManager(), photo)
+
+        assertThat(interrupted).isEqualTo(0 to 1)
+        assertThat(stored().status).isEqualTo(PhotoStatus.FAILED.value)
+        assertThat(stored().bytesUploaded).isEqualTo(2 * CHUNK_SIZE)
+        assertThat(stored().uploadTaskId).isNotNull()
+
+        // The app is killed and restarted: a fresh manager picks the photo up from the database.
+        tus.networkDownAfterPatches = Int.MAX_VALUE
+        tus.patchOffsets.clear()
+        val resumed = upload(createQueueManager(), stored().copy(status = PhotoStatus.PENDING.value))
+
+        assertThat(resumed).isEqualTo(1 to 0)
+        assertThat(tus.creations.get()).isEqualTo(1)
+        assertThat(tus.patchOffsets.first()).isEqualTo(2 * CHUNK_SIZE)
+        assertThat(tus.patchedBytes.get()).isEqualTo(photoBytes.size)
+        assertThat(tus.content(stored().uploadTaskId!!)).isEqualTo(photoBytes)
+        assertThat(stored().bytesUploaded).isEqualTo(photoBytes.size.toLong())
+        assertThat(stored().status).isEqualTo(PhotoStatus.COMPLETED.value)
+    }
+
+    @Test
+    fun `chunk whose acknowledgement was lost is not sent again`() = runTest {
+        tus.dropAckOfPatch = 2
+
+        val result = upload(createQueueManager(), photo)
+
+        assertThat(result).isEqualTo(1 to 0)
+        assertThat(tus.heads.get()).isEqualTo(1)
+        assertThat(tus.patchedBytes.get()).isEqualTo(photoBytes.size)
+        assertThat(tus.content(stored().uploadTaskId!!)).isEqualTo(photoBytes)
+    }
+
+    @Test
+    fun `upload the server no longer knows starts over`() = runTest {
+        val forgotten = photo.copy(uploadTaskId = "expired-upload", bytesUploaded = 3 * CHUNK_SIZE)
+        rows[photo.photoId] = forgotten
+
+        val result = upload(createQueueManager(), forgotten)
+
+        assertThat(result).isEqualTo(1 to 0)
+        assertThat(tus.creations.get()).isEqualTo(1)
+        assertThat(stored().uploadTaskId).isNotEqualTo("expired-upload")
+        assertThat(tus.content(stored().uploadTaskId!!)).isEqualTo(photoBytes)
+    }
+
+    @Test
+    fun `chunks and offset checks go to the Location the server returned`() = runTest {
+        tus.uploadsPath = "/files"
+        tus.dropAckOfPatch = 2
+
+        val result = upload(createQueueManager(), photo)
+
+        assertThat(result).isEqualTo(1 to 0)
+        assertThat(tus.heads.get()).isEqualTo(1)
+        assertThat(tus.unknownPaths.get()).isEqualTo(0)
+        assertThat(stored().uploadTaskId).isEqualTo("upload-1")
+        assertThat(stored().uploadUrl).isEqualTo(server.url("/files/upload-1").toString())
+        assertThat(tus.content("upload-1")).isEqualTo(photoBytes)
+    }
+
+    /** Minimal TUS 1.0.0 server: creation, HEAD offset lookup and offset-checked PATCH. */
+    private class TusServer : Dispatcher() {
+        private val uploads = ConcurrentHashMap<String, ByteArrayOutputStream>()
+        private val lengths = ConcurrentHashMap<String, Long>()
+        private val patches = AtomicInteger()
+        val creations = AtomicInteger()
+        val heads = AtomicInteger()
+        val patchedBytes = AtomicInteger()
+        val patchOffsets: MutableList<Long> = Collections.synchronizedList(mutableListOf())
+        val singlePostBytes = AtomicInteger()
+        val unknownPaths = AtomicInteger()
+
+        /** Where created uploads live; the creation endpoint is always `/upload`. */
+        @Volatile
+        var uploadsPath = "/upload"
+
+        /** Every request after this many successful PATCHes fails, as if the uplink dropped. */
+        @Volatile
+        var networkDownAfterPatches = Int.MAX_VALUE
+
+        /** The n-th PATCH (1-based) is stored, but its acknowledgement never reaches the client. */
+        @Volatile
+        var dropAckOfPatch = 0
+
+        fun content(uploadId: String): ByteArray = uploads.getValue(uploadId).toByteArray()
+
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            if (patches.get() >= networkDownAfterPatches) return MockResponse().setResponseCode(503)
+            val path = request.requestUrl?.encodedPath.orEmpty()
+            val uploadId = path.removePrefix("$uploadsPath/").takeIf { it != path }
+            return when (request.method) {
+                "POST" -> {
+                    if (request.getHeader("Upload-Length") == null) {
+                        // Single POST carrying the whole file
+                        singlePostBytes.addAndGet(request.bodySize.toInt())
+                        return MockResponse().setResponseCode(200)
+                    }
+                    val id = "upload-${creations.incrementAndGet()}"
+                    uploads[id] = ByteArrayOutputStream()
+                    lengths[id] = request.getHeader("Upload-Length")!!.toLong()
+                    MockResponse().setResponseCode(201).setHeader("Location", "$uploadsPath/$id")
+                }
+                "HEAD" -> {
+                    heads.incrementAndGet()
+                    val upload = uploads[uploadId] ?: return notFound(uploadId)
+                    MockResponse()
+                        .setHeader("Upload-Offset", upload.size())
+                        .setHeader("Upload-Length", lengths.getValue(uploadId!!))
+                }
+                "PATCH" -> {
+                    val upload = uploads[uploadId] ?: return notFound(uploadId)
+                    val offset = request.getHeader("Upload-Offset")!!.toLong()
+                    patchOffsets += offset
+                    if (offset != upload.size().toLong()) return MockResponse().setResponseCode(409)
+                    val chunk = request.body.readByteArray()
+                    upload.write(chunk)
+                    patchedBytes.addAndGet(chunk.size)
+                    val patch = patches.incrementAndGet()
+                    if (patch == dropAckOfPatch) {
+                        MockResponse().setResponseCode(503)
+                    } else {
+                        MockResponse().setResponseCode(204).setHeader("Upload-Offset", upload.size())
+                    }
+                }
+                else -> MockResponse().setResponseCode(405)
+            }
+        }
+
+        private fun notFound(uploadId: String?): MockResponse {
+            if (uploadId == null) unknownPaths.incrementAndGet()
+            return MockResponse().setResponseCode(404)
+        }
+    }
+
+    private companion object {
+        const val CHUNK_SIZE = 64L * 1024
+    }
+}
@@ -38,10 +38,12 @@ import com.example.rocketplan_android.data.model.offline.PropertyDto
 import com.example.rocketplan_android.data.model.offline.RoomDto
 import com.example.rocketplan_android.data.model.offline.UserDto
 import com.example.rocketplan_android.data.model.offline.WorkScopeDto
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
 import com.example.rocketplan_android.data.repository.IncompleteReason
 import com.example.rocketplan_android.data.repository.SyncResult.Failure
 import com.example.rocketplan_android.data.repository.SyncResult.Success
 import com.example.rocketplan_android.data.repository.SyncSegment
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
 import com.example.rocketplan_android.data.storage.SyncCheckpointStore
 import com.example.rocketplan_android.testing.MainDispatcherRule
 import com.example.rocketplan_android.util.DateUtils
@@ -232,6 +234,7 @@ class OfflineSyncRepositoryTest {
         everyLog()
 
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(any()) } returns flowOf(emptyList<OfflineDamageEntity>())
         every { localDataService.observeRooms(projectId) } returns flowOf(emptyList<com.example.rocketplan_android.data.local.entity.OfflineRoomEntity>())
         coEvery { localDataService.getProject(projectId) } returns OfflineProjectEntity(
@@ -251,13 +254,15 @@ class OfflineSyncRepositoryTest {
 
         val scheduler = mockk<PhotoCacheScheduler>(relaxed = true)
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
+        every { checkpointStore.getProjectCheckpoints(any()) } returns emptyMap()
 
         val repository = OfflineSyncRepository(
             api = api,
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncProjectGraph(projectId)
@@ -389,6 +394,7 @@ class OfflineSyncRepositoryTest {
         everyLog()
 
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(any()) } returns flowOf(emptyList<OfflineDamageEntity>())
         every {
             localDataService.observeRooms(projectId)
@@ -417,13 +423,15 @@ class OfflineSyncRepositoryTest {
         coEvery { localDataService.savePhotos(capture(savedPhotos), any()) } just runs
         val scheduler = mockk<PhotoCacheScheduler>(relaxed = true)
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
+        every { checkpointStore.getProjectCheckpoints(any()) } returns emptyMap()
 
         val repository = OfflineSyncRepository(
             api = api,
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncProjectGraph(projectId)
@@ -454,7 +462,8 @@ class OfflineSyncRepositoryTest {
                 localDataService = localDataService,
                 photoCacheScheduler = mockk(relaxed = true),
                 syncCheckpointStore = mockk(relaxed = true),
-                roomTypeRepository = mockk(relaxed = true)
+                roomTypeRepository = mockk(relaxed = true),
+                concurrencyLimiter = AdaptiveConcurrencyLimiter()
             )
         )
 
@@ -477,6 +486,7 @@ class OfflineSyncRepositoryTest {
         val timestamp = "2025-06-01T10:15:30Z"
         val api = mockk<OfflineSyncApi>()
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(any()) } returns flowOf(emptyList<OfflineDamageEntity>())
         val scheduler = mockk<PhotoCacheScheduler>(relaxed = true)
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
@@ -509,7 +519,7 @@ class OfflineSyncRepositoryTest {
         every { checkpointStore.updateCheckpoint(any(), capture(capturedDate)) } just runs
 
         coEvery { api.getRoomPhotos(roomId, any(), any(), any(), any()) } returns roomPhotosResponse(photo)
-        coEvery { localDataService.getPhotoByServerId(photo.id) } returns null
+        coEvery { localDataService.getPhotosByServerIds(listOf(photo.id)) } returns emptyList()
         coEvery { localDataService.savePhotos(any(), any()) } just runs
 
         val repository = OfflineSyncRepository(
@@ -517,7 +527,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncRoomPhotos(projectId, roomId)
@@ -544,7 +555,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncRoomPhotos(projectId, roomId)
@@ -557,6 +569,7 @@ class OfflineSyncRepositoryTest {
         val roomId = 90L
         val api = mockk<OfflineSyncApi>()
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(any()) } returns flowOf(emptyList<OfflineDamageEntity>())
         val scheduler = mockk<PhotoCacheScheduler>(relaxed = true)
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
@@ -589,7 +602,7 @@ class OfflineSyncRepositoryTest {
         coEvery {
             api.getRoomPhotos(roomId, any(), any(), any(), captureNullable(updatedSince))
         } returns roomPhotosResponse(photo)
-        coEvery { localDataService.getPhotoByServerId(photo.id) } returns null
+        coEvery { localDataService.getPhotosByServerIds(listOf(photo.id)) } returns emptyList()
         coEvery { localDataService.savePhotos(any(), any()) } just runs
 
         val repository = OfflineSyncRepository(
@@ -597,7 +610,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncRoomPhotos(projectId, roomId, ignoreCheckpoint = true)
@@ -624,7 +638,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val result = repository.syncRoomPhotos(projectId, roomId)
@@ -639,6 +654,7 @@ class OfflineSyncRepositoryTest {
         val roomId = 92L
         val api = mockk<OfflineSyncApi>()
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(any()) } returns flowOf(emptyList<OfflineDamageEntity>())
         val scheduler = mockk<PhotoCacheScheduler>(relaxed = true)
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
@@ -676,7 +692,7 @@ class OfflineSyncRepositoryTest {
             pagedRoomPhotosResponse(currentPage = 1, lastPage = 2, photos = listOf(first)),
             pagedRoomPhotosResponse(currentPage = 2, lastPage = 2, photos = listOf(second))
         )
-        coEvery { localDataService.getPhotoByServerId(any()) } returns null
+        coEvery { localDataService.getPhotosByServerIds(any()) } returns emptyList()
         val savedPhotos = mutableListOf<List<OfflinePhotoEntity>>()
         coEvery { localDataService.savePhotos(capture(savedPhotos), any()) } just runs
 
@@ -685,7 +701,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncRoomPhotos(projectId, roomId)
@@ -697,11 +714,12 @@ class OfflineSyncRepositoryTest {
     }
 
     @Test
-    fun `syncRoomPhotos normalizes mismatched ids and refreshes placeholder snapshot`() = runTest {
+    fun `syncRoomPhotos normalizes mismatched ids and replaces placeholder without a snapshot rebuild`() = runTest {
         val localProjectId = 123L
         val roomId = 93L
         val api = mockk<OfflineSyncApi>()
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(any()) } returns flowOf(emptyList<OfflineDamageEntity>())
         val scheduler = mockk<PhotoCacheScheduler>(relaxed = true)
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
@@ -730,9 +748,8 @@ class OfflineSyncRepositoryTest {
         )
 
         coEvery { api.getRoomPhotos(roomId, any(), any(), any(), any()) } returns roomPhotosResponse(photo)
-        coEvery { localDataService.getPhotoByServerId(photo.id) } returns null
-        coEvery { localDataService.deleteLocalPendingRoomPhoto(localProjectId, roomId, any()) } returns 1
-        coEvery { localDataService.refreshRoomPhotoSnapshot(roomId) } just runs
+        coEvery { localDataService.getPhotosByServerIds(listOf(photo.id)) } returns emptyList()
+        coEvery { localDataService.deleteLocalPendingRoomPhotos(localProjectId, roomId, any()) } returns 1
         val savedPhotos = mutableListOf<List<OfflinePhotoEntity>>()
         coEvery { localDataService.savePhotos(capture(savedPhotos), any()) } just runs
 
@@ -741,7 +758,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncRoomPhotos(localProjectId, roomId)
@@ -749,8 +767,9 @@ class OfflineSyncRepositoryTest {
         val saved = savedPhotos.flatten().single()
         assertThat(saved.projectId).isEqualTo(localProjectId)
         assertThat(saved.roomId).isEqualTo(roomId)
-        coVerify { localDataService.deleteLocalPendingRoomPhoto(localProjectId, roomId, "mismatch.jpg") }
-        coVerify { localDataService.refreshRoomPhotoSnapshot(roomId) }
+        coVerify { localDataService.deleteLocalPendingRoomPhotos(localProjectId, roomId, setOf("mismatch.jpg")) }
+        // Placeholder rows leave the snapshot through the database triggers; no full rebuild.
+        coVerify(exactly = 0) { localDataService.refreshRoomPhotoSnapshot(any()) }
     }
 
     @Test
@@ -785,7 +804,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val savedCount = repository.syncRoomWorkScopes(localProjectId, roomId)
@@ -812,7 +832,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val count = repository.syncRoomWorkScopes(projectId, roomId = 1L)
@@ -841,7 +862,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncDeletedRecords()
@@ -877,7 +899,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncDeletedRecords()
@@ -911,7 +934,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncDeletedRecords()
@@ -941,7 +965,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncDeletedRecords(listOf("projects", " ", "", "rooms"))
@@ -981,7 +1006,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncDeletedRecords()
@@ -1042,7 +1068,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = scheduler,
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncProjectMetadata(projectId)
@@ -1068,7 +1095,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val result = repository.syncProjectMetadata(0)
@@ -1134,7 +1162,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncProjectMetadata(projectId)
@@ -1216,6 +1245,7 @@ class OfflineSyncRepositoryTest {
         val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
         every { checkpointStore.getCheckpoint(any()) } returns null
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         every { localDataService.observeDamages(projectId) } returns flowOf(
             listOf(
                 OfflineDamageEntity(
@@ -1246,7 +1276,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = checkpointStore,
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncProjectMetadata(projectId)
@@ -1269,6 +1300,7 @@ class OfflineSyncRepositoryTest {
         val api = mockk<OfflineSyncApi>(relaxed = true)
         val operationSlot = slot<OfflineSyncQueueEntity>()
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         coEvery { localDataService.getProject(localProjectId) } returns null
         coEvery { localDataService.getAllProjects() } returns listOf(
             OfflineProjectEntity(
@@ -1299,16 +1331,14 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.deleteProject(localProjectId)
 
-        val payloadJson = Gson().fromJson(
-            String(operationSlot.captured.payload, Charsets.UTF_8),
-            JsonObject::class.java
-        )
-        assertThat(payloadJson["lockUpdatedAt"].asString).isEqualTo(DateUtils.formatApiDate(parsedUpdatedAt))
+        val lockUpdatedAt = SyncPayloadCodec.lockUpdatedAt(operationSlot.captured.payload)
+        assertThat(lockUpdatedAt).isEqualTo(DateUtils.formatApiDate(parsedUpdatedAt))
         assertThat(operationSlot.captured.entityType).isEqualTo("project")
         assertThat(operationSlot.captured.operationType).isEqualTo(SyncOperationType.DELETE)
         coVerify { localDataService.deleteProject(localProjectId) }
@@ -1322,6 +1352,7 @@ class OfflineSyncRepositoryTest {
         everyLog()
 
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         coEvery { localDataService.getProject(localProjectId) } returns OfflineProjectEntity(
             projectId = localProjectId,
             serverId = null,
@@ -1336,7 +1367,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.deleteProject(localProjectId)
@@ -1367,6 +1399,7 @@ class OfflineSyncRepositoryTest {
 
         val operationSlot = slot<OfflineSyncQueueEntity>()
         val localDataService = mockk<LocalDataService>(relaxed = true)
+        localDataService.runTransactionsInline()
         coEvery { localDataService.getAllProjects() } returns listOf(
             OfflineProjectEntity(
                 projectId = localProjectId,
@@ -1394,16 +1427,14 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.deleteProject(localProjectId)
 
-        val payloadJson = Gson().fromJson(
-            String(operationSlot.captured.payload, Charsets.UTF_8),
-            JsonObject::class.java
-        )
-        assertThat(payloadJson["lockUpdatedAt"].asString).isEqualTo(existingLock)
+        val lockUpdatedAt = SyncPayloadCodec.lockUpdatedAt(operationSlot.captured.payload)
+        assertThat(lockUpdatedAt).isEqualTo(existingLock)
         coVerify { localDataService.deleteProject(localProjectId) }
     }
 
@@ -1418,7 +1449,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val error = try {
@@ -1442,7 +1474,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val result = repository.syncProjectEssentials(projectId)
@@ -1481,7 +1514,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val result = repository.syncProjectEssentials(projectId)
@@ -1502,7 +1536,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         val result = repository.syncProjectEssentials(projectId)
@@ -1552,7 +1587,8 @@ class OfflineSyncRepositoryTest {
             localDataService = localDataService,
             photoCacheScheduler = mockk(relaxed = true),
             syncCheckpointStore = mockk(relaxed = true),
-            roomTypeRepository = mockk(relaxed = true)
+            roomTypeRepository = mockk(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
         )
 
         repository.syncProjectEssentials(projectId)
@@ -1571,6 +1607,13 @@ private fun everyLog() {
     // No-op: android.util.Log is stubbed in unit tests.
 }
 
+/** Relaxed mocks never run transaction blocks; execute them inline like the real database does. */
+private fun LocalDataService.runTransactionsInline() {
+    coEvery { runInTransaction(any<suspend () -> Any?>()) } coAnswers {
+        firstArg<suspend () -> Any?>().invoke()
+    }
+}
+
 private fun roomPhotosResponse(vararg photos: PhotoDto): JsonObject {
     val gson = Gson()
     val roomPhotos = photos.map { photo ->
@@ -0,0 +1,64 @@
+package com.example.rocketplan_android.data.repository.mapper
+
+import com.google.gson.Gson
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+/**
+ * Microbenchmark for queue payload encoding: the hand-written [SyncPayloadCodec] against the
+ * reflective Gson path it replaced. Prints per-type bytes and ns/op for encode and decode.
+ *
+ * Skipped unless opted in, since it only measures; run with
+ * `RUN_BENCHMARKS=1 ./gradlew testDebugUnitTest --tests '*SyncPayloadCodecBenchmark'`.
+ * The size comparison is asserted by [SyncPayloadCodecTest].
+ */
+class SyncPayloadCodecBenchmark {
+
+    private val gson = Gson()
+
+    @Test
+    fun `compare binary codec with gson`() {
+        assumeTrue(System.getenv("RUN_BENCHMARKS") == "1")
+        val payloads = SyncPayloadCodecTest.samplePayloads()
+        var totalBinary = 0
+        var totalJson = 0
+
+        println(String.format("%-40s %8s %8s %12s %12s %12s %12s", "payload", "json B", "bin B", "json enc", "bin enc", "json dec", "bin dec"))
+        payloads.forEach { payload ->
+            val type = payload.javaClass
+            val json = gson.toJson(payload).toByteArray(Charsets.UTF_8)
+            val binary = SyncPayloadCodec.encode(payload)
+            totalJson += json.size
+            totalBinary += binary.size
+
+            val jsonEncode = nanosPerOp { gson.toJson(payload).toByteArray(Charsets.UTF_8) }
+            val binaryEncode = nanosPerOp { SyncPayloadCodec.encode(payload) }
+            val jsonDecode = nanosPerOp { gson.fromJson(String(json, Charsets.UTF_8), type) }
+            val binaryDecode = nanosPerOp { SyncPayloadCodec.decode(binary, type) }
+
+            println(
+                String.format(
+                    "%-40s %8d %8d %10dns %10dns %10dns %10dns",
+                    type.simpleName, json.size, binary.size, jsonEncode, binaryEncode, jsonDecode, binaryDecode
+                )
+            )
+        }
+        println("total bytes: json=$totalJson binary=$totalBinary (${totalBinary * 100 / totalJson}%)")
+    }
+
+    private inline fun nanosPerOp(block: () -> Any?): Long {
+        var sink = 0
+        repeat(WARMUP_ITERATIONS) { sink += block().hashCode() }
+        val start = System.nanoTime()
+        repeat(MEASURED_ITERATIONS) { sink += block().hashCode() }
+        val elapsed = System.nanoTime() - start
+        // Keep the JIT from discarding the measured work.
+        if (sink == Int.MIN_VALUE) println(sink)
+        return elapsed / MEASURED_ITERATIONS
+    }
+
+    private companion object {
+        const val WARMUP_ITERATIONS = 20_000
+        const val MEASURED_ITERATIONS = 50_000
+    }
+}
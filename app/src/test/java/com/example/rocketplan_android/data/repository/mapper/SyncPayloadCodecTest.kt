@@ -0,0 +1,269 @@
+package com.example.rocketplan_android.data.repository.mapper
+
+import com.example.rocketplan_android.data.model.CreateAddressRequest
+import com.example.rocketplan_android.data.model.PropertyMutationRequest
+import com.google.common.truth.Truth.assertThat
+import com.google.gson.Gson
+import org.junit.Test
+
+class SyncPayloadCodecTest {
+
+    private val gson = Gson()
+
+    @Test
+    fun `every payload type round-trips through the binary format`() {
+        samplePayloads().forEach { payload ->
+            val bytes = SyncPayloadCodec.encode(payload)
+
+            assertThat(SyncPayloadCodec.isBinary(bytes)).isTrue()
+            assertThat(SyncPayloadCodec.decode(bytes, payload.javaClass)).isEqualTo(payload)
+        }
+    }
+
+    @Test
+    fun `nulls and unicode survive the round trip`() {
+        val payload = PendingRoomCreationPayload(
+            localRoomId = -42L,
+            roomUuid = null,
+            projectId = Long.MAX_VALUE,
+            roomName = "Salle de bain été 🚿",
+            roomTypeId = 0L,
+            roomTypeName = null,
+            isSource = false,
+            isExterior = true,
+            levelServerId = null,
+            locationServerId = Long.MIN_VALUE,
+            levelUuid = "",
+            locationUuid = "loc-uuid",
+            idempotencyKey = null
+        )
+
+        val decoded = SyncPayloadCodec.decode(SyncPayloadCodec.encode(payload), PendingRoomCreationPayload::class.java)
+
+        assertThat(decoded).isEqualTo(payload)
+    }
+
+    @Test
+    fun `legacy json rows decode unchanged`() {
+        samplePayloads().forEach { payload ->
+            val legacy = gson.toJson(payload).toByteArray(Charsets.UTF_8)
+
+            assertThat(SyncPayloadCodec.isBinary(legacy)).isFalse()
+            assertThat(SyncPayloadCodec.decode(legacy, payload.javaClass)).isEqualTo(payload)
+        }
+    }
+
+    @Test
+    fun `legacy row with nulls in required fields survives re-encoding`() {
+        // Queued before rooms carried level/location UUIDs: Gson leaves the non-null fields null.
+        val legacy = """
+            {"localRoomId":-7,"projectId":100,"roomName":"Kitchen","roomTypeId":4,
+             "isSource":false,"isExterior":false,"levelServerId":-3,"locationServerId":-3}
+        """.trimIndent().toByteArray(Charsets.UTF_8)
+        val payload = SyncPayloadCodec.decode(legacy, PendingRoomCreationPayload::class.java)
+        // What IdRemapService does once the level is synced.
+        val remapped = payload.copy(levelServerId = 900L, locationServerId = 900L)
+
+        val reencoded = SyncPayloadCodec.encode(remapped)
+
+        assertThat(SyncPayloadCodec.isBinary(reencoded)).isFalse()
+        assertThat(SyncPayloadCodec.decode(reencoded, PendingRoomCreationPayload::class.java)).isEqualTo(remapped)
+    }
+
+    @Test
+    fun `legacy project row without an address request survives re-encoding`() {
+        val legacy = """
+            {"localProjectId":-4,"projectUuid":"project-uuid","companyId":12,"projectStatusId":1,
+             "idempotencyKey":"project-uuid"}
+        """.trimIndent().toByteArray(Charsets.UTF_8)
+        val payload = SyncPayloadCodec.decode(legacy, PendingProjectCreationPayload::class.java)
+
+        val reencoded = SyncPayloadCodec.encode(payload)
+
+        assertThat(SyncPayloadCodec.isBinary(reencoded)).isFalse()
+        assertThat(SyncPayloadCodec.decode(reencoded, PendingProjectCreationPayload::class.java)).isEqualTo(payload)
+    }
+
+    @Test
+    fun `legacy row with every field set re-encodes to binary`() {
+        samplePayloads().forEach { payload ->
+            val legacy = gson.toJson(payload).toByteArray(Charsets.UTF_8)
+
+            val reencoded = SyncPayloadCodec.encode(SyncPayloadCodec.decode(legacy, payload.javaClass))
+
+            assertThat(SyncPayloadCodec.isBinary(reencoded)).isTrue()
+            assertThat(SyncPayloadCodec.decode(reencoded, payload.javaClass)).isEqualTo(payload)
+        }
+    }
+
+    @Test
+    fun `lock and project lookups read both formats`() {
+        val update = PendingRoomUpdatePayload(
+            roomId = 5L,
+            roomUuid = "room-uuid",
+            projectId = 100L,
+            locationId = 7L,
+            isSource = true,
+            levelId = null,
+            roomTypeId = 3L,
+            lockUpdatedAt = "2026-05-01T10:00:00.000000Z"
+        )
+        val binary = SyncPayloadCodec.encode(update)
+        val legacy = gson.toJson(update).toByteArray(Charsets.UTF_8)
+
+        assertThat(SyncPayloadCodec.lockUpdatedAt(binary)).isEqualTo(update.lockUpdatedAt)
+        assertThat(SyncPayloadCodec.lockUpdatedAt(legacy)).isEqualTo(update.lockUpdatedAt)
+        assertThat(SyncPayloadCodec.projectId(binary)).isEqualTo(100L)
+        assertThat(SyncPayloadCodec.projectId(legacy)).isEqualTo(100L)
+
+        val crew = SyncPayloadCodec.encode(PendingProjectUserPayload(projectServerId = 1L, userServerId = 2L))
+        assertThat(SyncPayloadCodec.lockUpdatedAt(crew)).isNull()
+        assertThat(SyncPayloadCodec.projectId(crew)).isNull()
+    }
+
+    @Test
+    fun `decoding as the wrong type or a newer version fails`() {
+        val bytes = SyncPayloadCodec.encode(PendingLockPayload(lockUpdatedAt = null))
+
+        assertThat(runCatching { SyncPayloadCodec.decode(bytes, PendingRoomUpdatePayload::class.java) }.exceptionOrNull())
+            .isInstanceOf(IllegalArgumentException::class.java)
+
+        val future = bytes.copyOf().also { it[1] = (SyncPayloadCodec.VERSION + 1).toByte() }
+        assertThat(runCatching { SyncPayloadCodec.decode(future, PendingLockPayload::class.java) }.exceptionOrNull())
+            .isInstanceOf(IllegalArgumentException::class.java)
+
+        val truncated = SyncPayloadCodec.encode(samplePayloads().first()).copyOf(6)
+        assertThat(runCatching { SyncPayloadCodec.decode(truncated, PendingProjectCreationPayload::class.java) }.exceptionOrNull())
+            .isInstanceOf(IllegalArgumentException::class.java)
+    }
+
+    @Test
+    fun `binary payloads are smaller than json`() {
+        var totalBinary = 0
+        var totalJson = 0
+        samplePayloads().forEach { payload ->
+            val binary = SyncPayloadCodec.encode(payload).size
+            val json = gson.toJson(payload).toByteArray(Charsets.UTF_8).size
+            totalBinary += binary
+            totalJson += json
+
+            assertThat(binary).isLessThan(json)
+        }
+        assertThat(totalBinary * 2).isLessThan(totalJson)
+    }
+
+    companion object {
+        fun samplePayloads(): List<Any> = listOf(
+            PendingProjectCreationPayload(
+                localProjectId = -1001L,
+                projectUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e90",
+                companyId = 55L,
+                projectStatusId = 2,
+                addressRequest = CreateAddressRequest(
+                    address = "123 Main St",
+                    city = "Springfield",
+                    state = "IL",
+                    zip = "62701",
+                    latitude = 39.7817,
+                    longitude = -89.6501
+                ),
+                idempotencyKey = "idem-project"
+            ),
+            PendingPropertyCreationPayload(
+                localPropertyId = -2001L,
+                propertyUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e91",
+                projectId = 1001L,
+                propertyTypeId = 1,
+                propertyTypeValue = "single_unit",
+                idempotencyKey = "idem-property"
+            ),
+            PendingPropertyUpdatePayload(
+                projectId = 1001L,
+                propertyId = 2001L,
+                request = PropertyMutationRequest(
+                    propertyTypeId = 1,
+                    isCommercial = false,
+                    yearBuilt = 1984,
+                    name = "Main building",
+                    lossDate = "2026-04-30"
+                ),
+                propertyTypeValue = "single_unit",
+                lockUpdatedAt = "2026-05-01T10:00:00.000000Z"
+            ),
+            PendingLockPayload(lockUpdatedAt = "2026-05-01T10:00:00.000000Z"),
+            PendingLocationCreationPayload(
+                localLocationId = -3001L,
+                locationUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e92",
+                projectId = 1001L,
+                propertyLocalId = 2001L,
+                locationName = "Level 1",
+                locationTypeId = 4L,
+                type = "level",
+                floorNumber = 1,
+                isCommon = false,
+                isAccessible = true,
+                isCommercial = false,
+                idempotencyKey = "idem-location"
+            ),
+            PendingRoomCreationPayload(
+                localRoomId = -4001L,
+                roomUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e93",
+                projectId = 1001L,
+                roomName = "Kitchen",
+                roomTypeId = 12L,
+                roomTypeName = "Kitchen",
+                isSource = true,
+                isExterior = false,
+                levelServerId = 3001L,
+                locationServerId = null,
+                levelUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e92",
+                locationUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e94",
+                idempotencyKey = "idem-room"
+            ),
+            PendingLocationUpdatePayload(
+                locationId = 3001L,
+                locationUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e92",
+                name = "Ground floor",
+                floorNumber = null,
+                isAccessible = false,
+                lockUpdatedAt = null
+            ),
+            PendingRoomUpdatePayload(
+                roomId = 4001L,
+                roomUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e93",
+                projectId = 1001L,
+                locationId = 3001L,
+                isSource = false,
+                levelId = 3001L,
+                roomTypeId = 12L,
+                lockUpdatedAt = "2026-05-01T10:00:00.000000Z"
+            ),
+            PendingAtmosphericLogCreationPayload(
+                localLogId = -5001L,
+                logUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e95",
+                projectId = 1001L,
+                projectUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e90",
+                roomId = null,
+                roomUuid = null,
+                idempotencyKey = "idem-atmos"
+            ),
+            PendingProjectUserPayload(projectServerId = 1001L, userServerId = 77L),
+            PendingSupportConversationPayload(
+                localConversationId = -6001L,
+                conversationUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e96",
+                categoryId = 3L,
+                subject = "Sync stuck",
+                initialMessageBody = "Photos are not uploading from the Kitchen.",
+                idempotencyKey = "idem-conversation"
+            ),
+            PendingSupportMessagePayload(
+                localMessageId = -7001L,
+                messageUuid = "018f5a2e-7c1b-7d3e-9a40-3b2f6c1d8e97",
+                conversationId = -6001L,
+                conversationServerId = null,
+                body = "Still happening after restart.",
+                idempotencyKey = "idem-message"
+            )
+        )
+    }
+}
@@ -7,6 +7,8 @@ import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
 import com.example.rocketplan_android.data.repository.mapper.PendingLocationCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingPropertyCreationPayload
 import com.example.rocketplan_android.data.repository.mapper.PendingRoomCreationPayload
+import com.example.rocketplan_android.data.repository.mapper.SyncPayloadCodec
+import com.example.rocketplan_android.data.repository.mapper.withParentRefs
 import com.example.rocketplan_android.testing.MainDispatcherRule
 import com.google.common.truth.Truth.assertThat
 import com.google.gson.Gson
@@ -30,7 +32,13 @@ class IdRemapServiceTest {
     private val localDataService: LocalDataService = mockk(relaxed = true)
     private val gson = Gson()
     private val testDispatcher = UnconfinedTestDispatcher()
-    private val service = IdRemapService(localDataService, gson, testDispatcher)
+    private val service = IdRemapService(localDataService, testDispatcher)
+
+    init {
+        coEvery { localDataService.runInTransaction(any<suspend () -> Any?>()) } coAnswers {
+            firstArg<suspend () -> Any?>().invoke()
+        }
+    }
 
     // ========================================================================
     // Helper methods
@@ -48,7 +56,7 @@ class IdRemapServiceTest {
         payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
         priority = SyncPriority.MEDIUM,
         createdAt = Date()
-    )
+    ).withParentRefs(payload)
 
     private fun makeLocationOp(
         operationId: String = "op-loc-1",
@@ -62,7 +70,7 @@ class IdRemapServiceTest {
         payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
         priority = SyncPriority.MEDIUM,
         createdAt = Date()
-    )
+    ).withParentRefs(payload)
 
     private fun makeRoomOp(
         operationId: String = "op-room-1",
@@ -76,7 +84,7 @@ class IdRemapServiceTest {
         payload = gson.toJson(payload).toByteArray(Charsets.UTF_8),
         priority = SyncPriority.MEDIUM,
         createdAt = Date()
-    )
+    ).withParentRefs(payload)
 
     private fun defaultPropertyPayload(
         localPropertyId: Long = 1L,
@@ -161,7 +169,7 @@ class IdRemapServiceTest {
         val result = service.remapProjectId(localProjectId = 100L, serverId = 100L)
 
         assertThat(result).isEqualTo(0)
-        coVerify(exactly = 0) { localDataService.getPendingOperationsForEntityType(any()) }
+        coVerify(exactly = 0) { localDataService.getPendingOperationsByParentProject(any()) }
         coVerify(exactly = 0) { localDataService.enqueueSyncOperation(any()) }
     }
 
@@ -170,9 +178,7 @@ class IdRemapServiceTest {
         val payload = defaultPropertyPayload(projectId = -100L)
         val op = makePropertyOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("property") } returns listOf(op)
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns emptyList()
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns emptyList()
+        coEvery { localDataService.getPendingOperationsByParentProject(-100L) } returns listOf(op)
 
         val result = service.remapProjectId(localProjectId = -100L, serverId = 1000L)
 
@@ -181,11 +187,9 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingPropertyCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingPropertyCreationPayload::class.java)
         assertThat(updatedPayload.projectId).isEqualTo(1000L)
+        assertThat(capturedOp.captured.parentProjectId).isEqualTo(1000L)
         // Other fields should remain unchanged
         assertThat(updatedPayload.localPropertyId).isEqualTo(payload.localPropertyId)
         assertThat(updatedPayload.propertyUuid).isEqualTo(payload.propertyUuid)
@@ -197,9 +201,7 @@ class IdRemapServiceTest {
         val payload = defaultLocationPayload(projectId = -100L)
         val op = makeLocationOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("property") } returns emptyList()
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns listOf(op)
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns emptyList()
+        coEvery { localDataService.getPendingOperationsByParentProject(-100L) } returns listOf(op)
 
         val result = service.remapProjectId(localProjectId = -100L, serverId = 2000L)
 
@@ -208,10 +210,7 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingLocationCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingLocationCreationPayload::class.java)
         assertThat(updatedPayload.projectId).isEqualTo(2000L)
         // Other fields should remain unchanged
         assertThat(updatedPayload.localLocationId).isEqualTo(payload.localLocationId)
@@ -224,9 +223,7 @@ class IdRemapServiceTest {
         val payload = defaultRoomPayload(projectId = -100L)
         val op = makeRoomOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("property") } returns emptyList()
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns emptyList()
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns listOf(op)
+        coEvery { localDataService.getPendingOperationsByParentProject(-100L) } returns listOf(op)
 
         val result = service.remapProjectId(localProjectId = -100L, serverId = 3000L)
 
@@ -235,10 +232,7 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingRoomCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingRoomCreationPayload::class.java)
         assertThat(updatedPayload.projectId).isEqualTo(3000L)
         // Other fields should remain unchanged
         assertThat(updatedPayload.localRoomId).isEqualTo(payload.localRoomId)
@@ -258,10 +252,9 @@ class IdRemapServiceTest {
         val matchingOp = makePropertyOp(operationId = "op-1", payload = matchingPayload)
         val nonMatchingOp = makePropertyOp(operationId = "op-2", payload = nonMatchingPayload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("property") } returns
+        // A stale parent column must not rewrite an operation whose payload references another project
+        coEvery { localDataService.getPendingOperationsByParentProject(-100L) } returns
                 listOf(matchingOp, nonMatchingOp)
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns emptyList()
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns emptyList()
 
         val result = service.remapProjectId(localProjectId = -100L, serverId = 1000L)
 
@@ -272,25 +265,34 @@ class IdRemapServiceTest {
 
         // Only the matching operation should have been updated
         assertThat(capturedOp.captured.operationId).isEqualTo("op-1")
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingPropertyCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingPropertyCreationPayload::class.java)
         assertThat(updatedPayload.projectId).isEqualTo(1000L)
     }
 
+    @Test
+    fun `remapProjectId - rewrites every matching operation in one transaction`() = runTest {
+        coEvery { localDataService.getPendingOperationsByParentProject(-100L) } returns listOf(
+            makePropertyOp(payload = defaultPropertyPayload()),
+            makeLocationOp(payload = defaultLocationPayload())
+        )
+
+        service.remapProjectId(localProjectId = -100L, serverId = 1000L)
+
+        coVerify(exactly = 1) { localDataService.runInTransaction(any<suspend () -> Any?>()) }
+        coVerify(exactly = 0) { localDataService.getPendingOperationsForEntityType(any()) }
+    }
+
     @Test
     fun `remapProjectId - updates all entity types and returns total count`() = runTest {
         val propPayload = defaultPropertyPayload(projectId = -50L)
         val locPayload = defaultLocationPayload(projectId = -50L)
         val roomPayload = defaultRoomPayload(projectId = -50L)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("property") } returns
-                listOf(makePropertyOp(operationId = "op-p1", payload = propPayload))
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns
-                listOf(makeLocationOp(operationId = "op-l1", payload = locPayload))
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns
-                listOf(makeRoomOp(operationId = "op-r1", payload = roomPayload))
+        coEvery { localDataService.getPendingOperationsByParentProject(-50L) } returns listOf(
+            makePropertyOp(operationId = "op-p1", payload = propPayload),
+            makeLocationOp(operationId = "op-l1", payload = locPayload),
+            makeRoomOp(operationId = "op-r1", payload = roomPayload)
+        )
 
         val result = service.remapProjectId(localProjectId = -50L, serverId = 500L)
 
@@ -307,7 +309,7 @@ class IdRemapServiceTest {
         val payload = defaultLocationPayload(propertyLocalId = -200L)
         val op = makeLocationOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns listOf(op)
+        coEvery { localDataService.getPendingOperationsByParentProperty(-200L) } returns listOf(op)
 
         val result = service.remapPropertyId(localPropertyId = -200L, serverId = 5000L)
 
@@ -316,10 +318,7 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingLocationCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingLocationCreationPayload::class.java)
         assertThat(updatedPayload.propertyLocalId).isEqualTo(5000L)
         // Other fields should remain unchanged
         assertThat(updatedPayload.projectId).isEqualTo(payload.projectId)
@@ -336,7 +335,7 @@ class IdRemapServiceTest {
             localLocationId = 11L, locationUuid = "loc-2", propertyLocalId = -777L
         )
 
-        coEvery { localDataService.getPendingOperationsForEntityType("location") } returns listOf(
+        coEvery { localDataService.getPendingOperationsByParentProperty(-200L) } returns listOf(
             makeLocationOp(operationId = "op-1", payload = matchingPayload),
             makeLocationOp(operationId = "op-2", payload = nonMatchingPayload)
         )
@@ -355,7 +354,7 @@ class IdRemapServiceTest {
         val result = service.remapPropertyId(localPropertyId = 42L, serverId = 42L)
 
         assertThat(result).isEqualTo(0)
-        coVerify(exactly = 0) { localDataService.getPendingOperationsForEntityType(any()) }
+        coVerify(exactly = 0) { localDataService.getPendingOperationsByParentProperty(any()) }
     }
 
     // ========================================================================
@@ -372,7 +371,7 @@ class IdRemapServiceTest {
         )
         val op = makeRoomOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns listOf(op)
+        coEvery { localDataService.getPendingOperationsByParentLocation(any(), any()) } returns listOf(op)
 
         val result = service.remapLocationId(
             localLocationId = -300L,
@@ -385,10 +384,7 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingRoomCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingRoomCreationPayload::class.java)
         assertThat(updatedPayload.levelServerId).isEqualTo(7000L)
         assertThat(updatedPayload.locationServerId).isEqualTo(7000L)
         // Other fields should remain unchanged
@@ -406,7 +402,7 @@ class IdRemapServiceTest {
         )
         val op = makeRoomOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns listOf(op)
+        coEvery { localDataService.getPendingOperationsByParentLocation(any(), any()) } returns listOf(op)
 
         val result = service.remapLocationId(
             localLocationId = -300L,     // Does NOT match the server IDs in payload
@@ -419,10 +415,7 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingRoomCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingRoomCreationPayload::class.java)
         assertThat(updatedPayload.levelServerId).isEqualTo(7000L)
         assertThat(updatedPayload.locationServerId).isEqualTo(7000L)
     }
@@ -437,7 +430,7 @@ class IdRemapServiceTest {
         )
         val op = makeRoomOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns listOf(op)
+        coEvery { localDataService.getPendingOperationsByParentLocation(any(), any()) } returns listOf(op)
 
         val result = service.remapLocationId(
             localLocationId = -300L,
@@ -450,12 +443,11 @@ class IdRemapServiceTest {
         val capturedOp = slot<OfflineSyncQueueEntity>()
         coVerify(exactly = 1) { localDataService.enqueueSyncOperation(capture(capturedOp)) }
 
-        val updatedPayload = gson.fromJson(
-            String(capturedOp.captured.payload, Charsets.UTF_8),
-            PendingRoomCreationPayload::class.java
-        )
+        val updatedPayload = SyncPayloadCodec.decode(capturedOp.captured.payload, PendingRoomCreationPayload::class.java)
         assertThat(updatedPayload.levelServerId).isEqualTo(7000L)
         assertThat(updatedPayload.locationServerId).isEqualTo(-500L) // Unchanged
+        assertThat(capturedOp.captured.parentLevelId).isEqualTo(7000L)
+        assertThat(capturedOp.captured.parentLocationId).isEqualTo(-500L)
     }
 
     @Test
@@ -463,7 +455,7 @@ class IdRemapServiceTest {
         val result = service.remapLocationId(localLocationId = 42L, serverId = 42L, uuid = "uuid")
 
         assertThat(result).isEqualTo(0)
-        coVerify(exactly = 0) { localDataService.getPendingOperationsForEntityType(any()) }
+        coVerify(exactly = 0) { localDataService.getPendingOperationsByParentLocation(any(), any()) }
     }
 
     @Test
@@ -476,7 +468,7 @@ class IdRemapServiceTest {
         )
         val op = makeRoomOp(payload = payload)
 
-        coEvery { localDataService.getPendingOperationsForEntityType("room") } returns listOf(op)
+        coEvery { localDataService.getPendingOperationsByParentLocation(any(), any()) } returns listOf(op)
 
         val result = service.remapLocationId(
             localLocationId = -300L,
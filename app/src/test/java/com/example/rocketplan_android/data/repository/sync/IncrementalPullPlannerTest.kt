@@ -0,0 +1,117 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.local.entity.OfflineMoistureLogEntity
+import com.example.rocketplan_android.data.local.entity.OfflineNoteEntity
+import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.local.entity.OfflineProjectEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.example.rocketplan_android.data.model.offline.UpdatedRecord
+import com.example.rocketplan_android.data.model.offline.UpdatedRecordsResponse
+import com.google.common.truth.Truth.assertThat
+import io.mockk.coEvery
+import io.mockk.mockk
+import java.util.Date
+import kotlinx.coroutines.test.runTest
+import org.junit.Before
+import org.junit.Test
+
+class IncrementalPullPlannerTest {
+
+    private val localDataService = mockk<LocalDataService>(relaxed = true)
+    private val planner = IncrementalPullPlanner(localDataService)
+
+    private fun updated(vararg ids: Long) = ids.map { UpdatedRecord(it, "2025-03-25T10:00:00.000000Z") }
+
+    @Before
+    fun setUp() {
+        coEvery { localDataService.getAllProjects() } returns listOf(
+            OfflineProjectEntity(projectId = 1, serverId = 501, uuid = "project-1", title = "12 Main St", status = "active")
+        )
+        coEvery { localDataService.getRoom(any()) } answers {
+            val roomId = firstArg<Long>()
+            OfflineRoomEntity(roomId = roomId, serverId = 9000 + roomId, uuid = "room-$roomId", projectId = 1, title = "Room $roomId")
+        }
+    }
+
+    @Test
+    fun `single edited note plans a notes-only pull`() = runTest {
+        coEvery { localDataService.getNotesByServerIds(listOf(42L)) } returns listOf(
+            OfflineNoteEntity(noteId = 100, serverId = 42, uuid = "note-42", projectId = 1, content = "Edited")
+        )
+
+        val plan = planner.plan(UpdatedRecordsResponse(projects = updated(501), notes = updated(42)))
+
+        assertThat(plan.broadResyncProjectServerIds).isEmpty()
+        assertThat(plan.unresolvedRecords).isEqualTo(0)
+        assertThat(plan.projects).containsExactly(ProjectPullPlan(projectId = 1, notes = true))
+    }
+
+    @Test
+    fun `records without a local parent fall back to the broad resync`() = runTest {
+        coEvery { localDataService.getNotesByServerIds(any()) } returns emptyList()
+
+        val plan = planner.plan(UpdatedRecordsResponse(projects = updated(501, 777), notes = updated(42)))
+
+        assertThat(plan.unresolvedRecords).isEqualTo(1)
+        assertThat(plan.broadResyncProjectServerIds).containsExactly(501L, 777L)
+        assertThat(plan.projects).isEmpty()
+    }
+
+    @Test
+    fun `truncated responses fall back to the broad resync`() = runTest {
+        val plan = planner.plan(UpdatedRecordsResponse(projects = updated(501)), truncated = true)
+
+        assertThat(plan.broadResyncProjectServerIds).containsExactly(501L)
+        assertThat(plan.projects).isEmpty()
+    }
+
+    @Test
+    fun `photos use server room ids and widen to all rooms past the limit`() = runTest {
+        fun photo(serverId: Long, roomId: Long?) = OfflinePhotoEntity(
+            photoId = serverId,
+            serverId = serverId,
+            uuid = "photo-$serverId",
+            projectId = 1,
+            roomId = roomId,
+            fileName = "photo.jpg",
+            localPath = "",
+            mimeType = "image/jpeg"
+        )
+        coEvery { localDataService.getPhotosByServerIds(listOf(1L, 2L)) } returns listOf(photo(1, 10), photo(2, null))
+        coEvery { localDataService.getPhotosByServerIds((1L..7L).toList()) } returns (1L..7L).map { photo(it, it) }
+
+        val targeted = planner.plan(UpdatedRecordsResponse(photos = updated(1, 2)))
+        val widened = planner.plan(UpdatedRecordsResponse(photos = updated(1, 2, 3, 4, 5, 6, 7)))
+
+        assertThat(targeted.projects).containsExactly(
+            ProjectPullPlan(projectId = 1, photoRoomIds = setOf(9010L), projectPhotos = true)
+        )
+        assertThat(widened.projects).containsExactly(ProjectPullPlan(projectId = 1, allRoomPhotos = true))
+    }
+
+    @Test
+    fun `moisture room keys resolve through the room table and skip rooms not on the server`() = runTest {
+        fun log(serverId: Long, roomId: Long) = OfflineMoistureLogEntity(
+            serverId = serverId,
+            uuid = "log-$serverId",
+            projectId = 1,
+            roomId = roomId,
+            materialId = 1,
+            date = Date(0),
+            moistureContent = 12.0
+        )
+        // 20 is a local room created offline and not pushed yet; 8030 is a server id stored as is.
+        coEvery { localDataService.getRoom(20) } returns
+            OfflineRoomEntity(roomId = 20, serverId = null, uuid = "room-20", projectId = 1, title = "New room")
+        coEvery { localDataService.getRoom(8030) } returns null
+        coEvery { localDataService.getRoomByServerId(8030) } returns
+            OfflineRoomEntity(roomId = 30, serverId = 8030, uuid = "room-30", projectId = 1, title = "Kitchen")
+        coEvery { localDataService.getMoistureLogsByServerIds(listOf(1L, 2L, 3L)) } returns
+            listOf(log(1, 10), log(2, 20), log(3, 8030))
+
+        val plan = planner.plan(UpdatedRecordsResponse(moistureLogs = updated(1, 2, 3)))
+
+        assertThat(plan.projects).containsExactly(ProjectPullPlan(projectId = 1, moistureRoomIds = setOf(9010L, 8030L)))
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import com.example.rocketplan_android.data.model.offline.PaginatedResponse
+import com.example.rocketplan_android.data.model.offline.PaginationMeta
+import com.google.common.truth.Truth.assertThat
+import java.io.IOException
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class PagePipelineTest {
+
+    private fun page(page: Int, lastPage: Int?, vararg items: String) = PaginatedResponse(
+        data = items.toList(),
+        meta = lastPage?.let { PaginationMeta(currentPage = page, lastPage = it, perPage = items.size, total = null) }
+    )
+
+    @Test
+    fun `pages are consumed in order while later pages download within the window`() = runTest {
+        var inFlight = 0
+        var maxInFlight = 0
+        val consumed = mutableListOf<Int>()
+
+        pipelinePages(
+            prefetch = 2,
+            fetch = { p ->
+                inFlight++
+                maxInFlight = maxOf(maxInFlight, inFlight)
+                // Later pages answer faster, so completion order differs from page order.
+                delay(100L / p)
+                inFlight--
+                page(p, lastPage = 5, "item-$p")
+            },
+            lastPage = { it.meta?.lastPage ?: 1 },
+            isEmpty = { it.data.isEmpty() }
+        ) { p, _ ->
+            delay(40)
+            consumed += p
+        }
+
+        assertThat(consumed).containsExactly(1, 2, 3, 4, 5).inOrder()
+        assertThat(maxInFlight).isEqualTo(2)
+        // Sequential fetch + persist of the same pages takes 228ms + 200ms.
+        assertThat(currentTime).isLessThan(428L)
+    }
+
+    @Test
+    fun `slow consumer holds back fetching beyond the prefetch window`() = runTest {
+        var started = 0
+        val startedWhenConsumed = mutableMapOf<Int, Int>()
+
+        pipelinePages(
+            prefetch = 3,
+            fetch = { p ->
+                started++
+                page(p, lastPage = 10, "item-$p")
+            },
+            lastPage = { it.meta?.lastPage ?: 1 },
+            isEmpty = { it.data.isEmpty() }
+        ) { p, _ ->
+            startedWhenConsumed[p] = started
+            delay(1_000)
+        }
+
+        assertThat(started).isEqualTo(10)
+        startedWhenConsumed.forEach { (p, fetched) -> assertThat(fetched).isAtMost(p + 3) }
+    }
+
+    @Test
+    fun `fetchAllPages returns items in page order`() = runTest {
+        val items = fetchAllPages(prefetch = 4) { p ->
+            delay(10L * (6 - p))
+            page(p, lastPage = 5, "a$p", "b$p")
+        }
+
+        assertThat(items).containsExactly("a1", "b1", "a2", "b2", "a3", "b3", "a4", "b4", "a5", "b5").inOrder()
+    }
+
+    @Test
+    fun `listing without meta is a single page`() = runTest {
+        val requested = mutableListOf<Int>()
+
+        val items = fetchAllPages { p ->
+            requested += p
+            page(p, lastPage = null, "only")
+        }
+
+        assertThat(items).containsExactly("only")
+        assertThat(requested).containsExactly(1)
+    }
+
+    @Test
+    fun `empty page ends the walk early`() = runTest {
+        val requested = mutableListOf<Int>()
+
+        val items = fetchAllPages(prefetch = 2) { p ->
+            requested += p
+            if (p == 3) page(p, lastPage = 6) else page(p, lastPage = 6, "item-$p")
+        }
+
+        assertThat(items).containsExactly("item-1", "item-2").inOrder()
+        assertThat(requested).containsNoneOf(5, 6)
+    }
+
+    @Test
+    fun `failed page fetch propagates`() = runTest {
+        val failure = runCatching {
+            fetchAllPages(prefetch = 2) { p ->
+                if (p == 3) throw IOException("page 3 timed out")
+                page(p, lastPage = 4, "item-$p")
+            }
+        }.exceptionOrNull()
+
+        assertThat(failure).isInstanceOf(IOException::class.java)
+    }
+}
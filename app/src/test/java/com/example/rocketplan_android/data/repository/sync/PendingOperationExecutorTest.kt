@@ -0,0 +1,139 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import com.example.rocketplan_android.data.local.SyncOperationType
+import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.atomic.AtomicInteger
+
+class PendingOperationExecutorTest {
+
+    private fun op(id: String, entityType: String = "note") = OfflineSyncQueueEntity(
+        operationId = id,
+        entityType = entityType,
+        entityId = id.hashCode().toLong(),
+        entityUuid = id,
+        operationType = SyncOperationType.UPDATE,
+        payload = ByteArray(0)
+    )
+
+    private val projectA = OperationLineage.of("project:1")
+    private val roomA1 = OperationLineage.of("project:1", "location:10", "room:100")
+    private val roomA2 = OperationLineage.of("project:1", "location:10", "room:200")
+    private val projectB = OperationLineage.of("project:2")
+
+    @Test
+    fun `lineage relation follows path prefixes`() {
+        assertThat(projectA.isRelatedTo(roomA1)).isTrue()
+        assertThat(roomA1.isRelatedTo(projectA)).isTrue()
+        assertThat(roomA1.isRelatedTo(roomA2)).isFalse()
+        assertThat(projectA.isRelatedTo(projectB)).isFalse()
+    }
+
+    @Test
+    fun `plan chains children behind their parents and leaves unrelated chains independent`() {
+        val executor = PendingOperationExecutor(maxConcurrency = 4)
+
+        val plan = executor.plan(
+            listOf(
+                op("project-a", "project") to projectA,
+                op("project-b", "project") to projectB,
+                op("room-a1", "room") to roomA1,
+                op("room-a2", "room") to roomA2,
+                op("note-a1") to roomA1
+            )
+        )
+
+        assertThat(plan[0].dependsOn).isEmpty()
+        assertThat(plan[1].dependsOn).isEmpty()
+        assertThat(plan[2].dependsOn).containsExactly(0)
+        assertThat(plan[3].dependsOn).containsExactly(0)
+        assertThat(plan[4].dependsOn).containsExactly(0, 2)
+    }
+
+    @Test
+    fun `plan makes a later parent operation wait for queued descendants`() {
+        val executor = PendingOperationExecutor(maxConcurrency = 4)
+
+        val plan = executor.plan(
+            listOf(
+                op("note-a1") to roomA1,
+                op("note-a2") to roomA2,
+                op("project-a", "project") to projectA
+            )
+        )
+
+        assertThat(plan[2].dependsOn).containsExactly(0, 1)
+    }
+
+    @Test
+    fun `execute respects dependencies and concurrency limit`() = runTest {
+        val executor = PendingOperationExecutor(maxConcurrency = 2)
+        val plan = executor.plan(
+            listOf(
+                op("project-a", "project") to projectA,
+                op("project-b", "project") to projectB,
+                op("room-a1", "room") to roomA1,
+                op("room-a2", "room") to roomA2,
+                op("note-a1") to roomA1,
+                op("note-a2") to roomA2
+            )
+        )
+        val completed = Collections.synchronizedList(mutableListOf<String>())
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+
+        executor.execute(plan) { operation ->
+            val current = inFlight.incrementAndGet()
+            maxInFlight.updateAndGet { maxOf(it, current) }
+            delay(10)
+            inFlight.decrementAndGet()
+            completed += operation.operationId
+        }
+
+        assertThat(completed).hasSize(6)
+        assertThat(maxInFlight.get()).isEqualTo(2)
+        assertThat(completed.indexOf("project-a")).isLessThan(completed.indexOf("room-a1"))
+        assertThat(completed.indexOf("room-a1")).isLessThan(completed.indexOf("note-a1"))
+        assertThat(completed.indexOf("room-a2")).isLessThan(completed.indexOf("note-a2"))
+    }
+
+    @Test
+    fun `executeWindowed loads one window at a time and keeps cross-window ordering`() = runTest {
+        val executor = PendingOperationExecutor(maxConcurrency = 4)
+        val plan = executor.plan(
+            listOf(
+                "project-a" to projectA,
+                "room-a1" to roomA1,
+                "project-b" to projectB,
+                "note-a1" to roomA1,
+                "gone" to roomA2
+            )
+        )
+        val windows = mutableListOf<List<String>>()
+        val completed = Collections.synchronizedList(mutableListOf<String>())
+
+        executor.executeWindowed(
+            planned = plan,
+            windowSize = 2,
+            load = { ids ->
+                windows.add(ids)
+                // "gone" was removed from the queue after the scan
+                ids.map { id -> if (id == "gone") null else op(id) }
+            }
+        ) { operation ->
+            delay(if (operation.operationId == "room-a1") 20 else 1)
+            completed += operation.operationId
+        }
+
+        assertThat(windows).containsExactly(
+            listOf("project-a", "room-a1"),
+            listOf("project-b", "note-a1"),
+            listOf("gone")
+        ).inOrder()
+        assertThat(completed).containsExactly("project-a", "room-a1", "project-b", "note-a1").inOrder()
+    }
+}
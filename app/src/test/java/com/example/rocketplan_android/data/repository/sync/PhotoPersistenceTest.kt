@@ -0,0 +1,152 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.local.OfflineDatabase
+import com.example.rocketplan_android.data.local.entity.OfflinePhotoEntity
+import com.example.rocketplan_android.data.model.offline.PhotoDto
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.storage.SyncCheckpointStore
+import com.example.rocketplan_android.work.PhotoCacheScheduler
+import com.google.common.truth.Truth.assertThat
+import io.mockk.mockk
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * `persistPhotos` against a real (in-memory) database: placeholder cleanup and dirty-row
+ * preservation through the set-based page path, plus a timing harness for large pages.
+ *
+ * The timing harness only measures, so it is skipped unless opted in; run with
+ * `RUN_BENCHMARKS=1 ./gradlew testDebugUnitTest --tests '*PhotoPersistenceTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class PhotoPersistenceTest {
+
+    private val projectId = 7L
+    private val roomId = 9070L
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var local: LocalDataService
+    private lateinit var service: PhotoSyncService
+
+    @Before
+    fun setUp() {
+        val ctx = ApplicationProvider.getApplicationContext<Context>()
+        db = OfflineDatabase.createInMemoryForTesting(ctx)
+        local = LocalDataService.createForTesting(db)
+        service = PhotoSyncService(
+            api = mockk(relaxed = true),
+            localDataService = local,
+            syncCheckpointStore = mockk<SyncCheckpointStore>(relaxed = true),
+            photoCacheScheduler = mockk<PhotoCacheScheduler>(relaxed = true),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
+        )
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    private fun photoDto(id: Long, fileName: String = "photo-$id.jpg") = PhotoDto(
+        id = id,
+        uuid = "photo-$id",
+        projectId = projectId,
+        roomId = roomId,
+        logId = null,
+        moistureLogId = null,
+        fileName = fileName,
+        localPath = null,
+        remoteUrl = "https://example.com/$id.jpg",
+        thumbnailUrl = null,
+        assemblyId = null,
+        tusUploadId = null,
+        fileSize = 1024,
+        width = 800,
+        height = 600,
+        mimeType = "image/jpeg",
+        capturedAt = "2025-06-01T10:15:30Z",
+        createdAt = "2025-06-01T10:15:30Z",
+        updatedAt = "2025-06-01T10:15:30Z",
+        albums = null
+    )
+
+    @Test
+    fun `page replaces matching placeholders and keeps dirty rows`() = runTest {
+        local.savePhotos(
+            listOf(
+                OfflinePhotoEntity(
+                    photoId = -1, uuid = "pending-1", projectId = projectId, roomId = roomId,
+                    fileName = "IMG_0001.JPG", localPath = "/tmp/IMG_0001.JPG",
+                    uploadStatus = "local_pending", mimeType = "image/jpeg"
+                ),
+                OfflinePhotoEntity(
+                    photoId = -2, uuid = "pending-2", projectId = projectId, roomId = roomId,
+                    fileName = "IMG_0002.JPG", localPath = "/tmp/IMG_0002.JPG",
+                    uploadStatus = "local_pending", mimeType = "image/jpeg"
+                ),
+                OfflinePhotoEntity(
+                    photoId = 3, serverId = 3, uuid = "photo-3", projectId = projectId, roomId = roomId,
+                    fileName = "edited.jpg", localPath = "", remoteUrl = "https://example.com/3-edited.jpg",
+                    mimeType = "image/jpeg", isDirty = true
+                )
+            )
+        )
+
+        val saved = service.persistPhotos(
+            listOf(photoDto(1, fileName = "img_0001.jpg"), photoDto(3), photoDto(4), photoDto(5)),
+            defaultRoomId = roomId,
+            defaultProjectId = projectId,
+            excludedPhotoServerIds = setOf(5L),
+            preserveDirty = true
+        )
+
+        assertThat(saved).isTrue()
+        val rows = db.offlineDao().getPhotosForRoomSnapshot(roomId).associateBy { it.uuid }
+        assertThat(rows.keys).containsExactly("pending-2", "photo-1", "photo-3", "photo-4")
+        assertThat(rows.getValue("photo-3").fileName).isEqualTo("edited.jpg")
+        assertThat(rows.getValue("photo-3").isDirty).isTrue()
+        // The replaced placeholder left the room's snapshot along with its row; the dirty row
+        // kept its local rendering.
+        assertThat(db.offlineDao().getRoomPhotoSnapshots(roomId).map { it.photoId })
+            .containsExactly(-2L, 1L, 3L, 4L)
+        assertThat(db.offlineDao().getRoomPhotoSnapshotsForPhotos(listOf(3L)).single().imageUrl)
+            .isEqualTo("https://example.com/3-edited.jpg")
+    }
+
+    @Test
+    fun `timing harness - per page cost at 100, 1k and 10k photos`() = runTest {
+        assumeTrue(System.getenv("RUN_BENCHMARKS") == "1")
+        var nextId = 1L
+        for (pageSize in listOf(100, 1_000, 10_000)) {
+            val page = List(pageSize) { photoDto(nextId++) }
+
+            val insertMs = measureMs {
+                service.persistPhotos(page, defaultRoomId = roomId, defaultProjectId = projectId, preserveDirty = true)
+            }
+            // Second pass hits the "existing row" path for every photo.
+            val updateMs = measureMs {
+                service.persistPhotos(page, defaultRoomId = roomId, defaultProjectId = projectId, preserveDirty = true)
+            }
+
+            println(
+                "persistPhotos page=$pageSize insert=${insertMs}ms update=${updateMs}ms " +
+                    "(${"%.3f".format(updateMs.toDouble() / pageSize)}ms/photo)"
+            )
+            assertThat(local.getPhotosByServerIds(page.map { it.id })).hasSize(pageSize)
+        }
+    }
+
+    private inline fun measureMs(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return (System.nanoTime() - start) / 1_000_000
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.rocketplan_android.data.repository.sync
 
+import com.example.rocketplan_android.data.api.NotModifiedException
 import com.example.rocketplan_android.data.api.OfflineSyncApi
 import com.example.rocketplan_android.data.local.LocalDataService
 import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.network.HttpValidatorStore
+import com.example.rocketplan_android.data.network.SingleFlight
 import com.example.rocketplan_android.data.repository.SyncResult
 import com.example.rocketplan_android.data.repository.SyncSegment
 import com.example.rocketplan_android.data.storage.SyncCheckpointStore
@@ -10,12 +14,15 @@ import com.example.rocketplan_android.logging.LogLevel
 import com.example.rocketplan_android.logging.RemoteLogger
 import com.example.rocketplan_android.work.PhotoCacheScheduler
 import com.google.common.truth.Truth.assertThat
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
 import io.mockk.coEvery
 import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.spyk
 import io.mockk.verify
+import java.util.Date
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.test.UnconfinedTestDispatcher
@@ -50,6 +57,7 @@ class PhotoSyncServiceTest {
             photoCacheScheduler = scheduler,
             remoteLogger = remoteLogger,
             ioDispatcher = dispatcher,
+            concurrencyLimiter = AdaptiveConcurrencyLimiter(),
         )
     )
 
@@ -150,4 +158,103 @@ class PhotoSyncServiceTest {
         assertThat(result.itemsSynced).isEqualTo(0)
         coVerify(exactly = 1) { service.syncRoomPhotos(projectId, 1L, any(), any(), any()) }
     }
+
+    @Test
+    fun `room photo pages answered 304 are not parsed or persisted`() = runTest(dispatcher) {
+        var now = 0L
+        val service = PhotoSyncService(
+            api = api,
+            localDataService = local,
+            syncCheckpointStore = checkpoint,
+            photoCacheScheduler = scheduler,
+            ioDispatcher = dispatcher,
+            singleFlight = SingleFlight(clock = { now }),
+            httpValidators = HttpValidatorStore(),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
+        )
+        coEvery { local.runInTransaction(any<suspend () -> Any?>()) } coAnswers {
+            firstArg<suspend () -> Any?>().invoke()
+        }
+        // A fixed cursor keeps both syncs on the same URLs, as when nothing changed server-side.
+        every { checkpoint.getCheckpoint(any()) } returns Date(0)
+        coEvery { api.getRoomPhotos(1L, 1, any(), any(), any()) } returns
+            roomPhotoPage(page = 1, lastPage = 2) andThenThrows NotModifiedException("rooms/1/photos?page=1")
+        coEvery { api.getRoomPhotos(1L, 2, any(), any(), any()) } returns
+            roomPhotoPage(page = 2, lastPage = 2) andThenThrows NotModifiedException("rooms/1/photos?page=2")
+
+        val first = service.syncRoomPhotos(projectId, 1L)
+        now += 60_000
+        val second = service.syncRoomPhotos(projectId, 1L)
+
+        assertThat(first.itemsSynced).isEqualTo(2)
+        assertThat(second.success).isTrue()
+        assertThat(second.itemsSynced).isEqualTo(0)
+        // Page 2 is still revalidated: the page count was remembered from the first walk.
+        coVerify(exactly = 2) { api.getRoomPhotos(1L, 2, any(), any(), any()) }
+        coVerify(exactly = 2) { local.savePhotos(any(), any()) }
+    }
+
+    @Test
+    fun `304 without a known page count refetches the first page in full`() = runTest(dispatcher) {
+        val validators = HttpValidatorStore()
+        validators.put("https://api/api/rooms/1/photos?page=1", "/api/rooms/1/photos", HttpValidatorStore.Validators("\"v1\"", null))
+        val service = PhotoSyncService(
+            api = api,
+            localDataService = local,
+            syncCheckpointStore = checkpoint,
+            photoCacheScheduler = scheduler,
+            ioDispatcher = dispatcher,
+            httpValidators = validators,
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
+        )
+        coEvery { local.runInTransaction(any<suspend () -> Any?>()) } coAnswers {
+            firstArg<suspend () -> Any?>().invoke()
+        }
+        every { checkpoint.getCheckpoint(any()) } returns Date(0)
+        coEvery { api.getRoomPhotos(1L, 1, any(), any(), any()) } throws
+            NotModifiedException("rooms/1/photos?page=1") andThen roomPhotoPage(page = 1, lastPage = 1)
+
+        val result = service.syncRoomPhotos(projectId, 1L)
+
+        assertThat(result.itemsSynced).isEqualTo(1)
+        assertThat(validators.get("https://api/api/rooms/1/photos?page=1")).isNull()
+        coVerify(exactly = 2) { api.getRoomPhotos(1L, 1, any(), any(), any()) }
+    }
+
+    @Test
+    fun `clearing the validators forgets remembered page counts`() = runTest(dispatcher) {
+        var now = 0L
+        val validators = HttpValidatorStore()
+        val service = PhotoSyncService(
+            api = api,
+            localDataService = local,
+            syncCheckpointStore = checkpoint,
+            photoCacheScheduler = scheduler,
+            ioDispatcher = dispatcher,
+            singleFlight = SingleFlight(clock = { now }),
+            httpValidators = validators,
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
+        )
+        coEvery { local.runInTransaction(any<suspend () -> Any?>()) } coAnswers {
+            firstArg<suspend () -> Any?>().invoke()
+        }
+        every { checkpoint.getCheckpoint(any()) } returns Date(0)
+        coEvery { api.getRoomPhotos(1L, 1, any(), any(), any()) } returns
+            roomPhotoPage(page = 1, lastPage = 1) andThenThrows
+            NotModifiedException("rooms/1/photos?page=1") andThen roomPhotoPage(page = 1, lastPage = 1)
+
+        service.syncRoomPhotos(projectId, 1L)
+        // Signing in as another user or company clears the validators
+        validators.clear()
+        now += 60_000
+        val result = service.syncRoomPhotos(projectId, 1L)
+
+        // The page count went with the validators, so the 304 is answered with a full fetch
+        assertThat(result.itemsSynced).isEqualTo(1)
+        coVerify(exactly = 3) { api.getRoomPhotos(1L, 1, any(), any(), any()) }
+    }
+
+    private fun roomPhotoPage(page: Int, lastPage: Int): JsonObject = JsonParser.parseString(
+        """{"data":[{"id":$page,"uuid":"photo-$page"}],"meta":{"current_page":$page,"last_page":$lastPage}}"""
+    ).asJsonObject
 }
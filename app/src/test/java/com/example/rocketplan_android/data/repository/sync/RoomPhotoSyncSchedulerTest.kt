@@ -0,0 +1,157 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import com.example.rocketplan_android.data.api.OfflineSyncApi
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
+import com.example.rocketplan_android.data.repository.SyncResult
+import com.example.rocketplan_android.data.repository.SyncSegment
+import com.example.rocketplan_android.data.storage.SyncCheckpointStore
+import com.example.rocketplan_android.work.PhotoCacheScheduler
+import com.google.common.truth.Truth.assertThat
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import io.mockk.coEvery
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.spyk
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class RoomPhotoSyncSchedulerTest {
+
+    private val projectId = 5233L
+
+    private val api = mockk<OfflineSyncApi>(relaxed = true)
+    private val local = mockk<LocalDataService>(relaxed = true)
+
+    init {
+        coEvery { local.runInTransaction(any<suspend () -> Any?>()) } coAnswers {
+            firstArg<suspend () -> Any?>().invoke()
+        }
+    }
+
+    private fun page(roomId: Long, page: Int, lastPage: Int): JsonObject = JsonParser.parseString(
+        """{"data":[{"id":${roomId * 100 + page},"uuid":"photo-$roomId-$page"}],""" +
+            """"meta":{"current_page":$page,"last_page":$lastPage}}"""
+    ).asJsonObject
+
+    @Test
+    fun `visible rooms are picked first, most recent screen first`() {
+        val scheduler = RoomPhotoSyncScheduler()
+        val pending = linkedSetOf(1L, 2L, 3L, 4L)
+
+        assertThat(scheduler.nextRoom(pending)).isEqualTo(1L)
+
+        scheduler.setVisibleRooms("room-list", listOf(3L, 4L))
+        assertThat(scheduler.nextRoom(pending)).isEqualTo(3L)
+
+        scheduler.setVisibleRooms("room-detail", listOf(4L))
+        assertThat(scheduler.nextRoom(pending)).isEqualTo(4L)
+
+        scheduler.clearVisibleRooms("room-detail")
+        scheduler.clearVisibleRooms("room-list")
+        assertThat(scheduler.nextRoom(pending)).isEqualTo(1L)
+        assertThat(scheduler.nextRoom(emptySet())).isNull()
+    }
+
+    @Test
+    fun `syncAllRoomPhotos starts the visible room before earlier background rooms`() = runTest {
+        val scheduler = RoomPhotoSyncScheduler()
+        val service = spyk(
+            PhotoSyncService(
+                api = api,
+                localDataService = local,
+                syncCheckpointStore = mockk<SyncCheckpointStore>(relaxed = true),
+                photoCacheScheduler = mockk<PhotoCacheScheduler>(relaxed = true),
+                ioDispatcher = StandardTestDispatcher(testScheduler),
+                concurrencyLimiter = AdaptiveConcurrencyLimiter(minLimit = 1, maxLimit = 1, initialLimit = 1),
+                roomScheduler = scheduler
+            )
+        )
+        val rooms = listOf(1L, 2L, 3L).map { id ->
+            mockk<OfflineRoomEntity>(relaxed = true) { every { serverId } returns id }
+        }
+        every { local.observeRooms(projectId) } returns flowOf(rooms)
+        val started = mutableListOf<Long>()
+        coEvery { service.syncRoomPhotos(projectId, any(), any(), any(), any()) } coAnswers {
+            started += secondArg<Long>()
+            SyncResult.success(SyncSegment.ROOM_PHOTOS, 1, 0)
+        }
+        scheduler.setVisibleRooms("room-detail", listOf(3L))
+
+        val result = service.syncAllRoomPhotos(projectId, retryDelayMs = 0)
+
+        assertThat(result.success).isTrue()
+        assertThat(started).containsExactly(3L, 1L, 2L).inOrder()
+    }
+
+    @Test
+    fun `background room walk holds between pages while a foreground room syncs`() = runTest {
+        val scheduler = RoomPhotoSyncScheduler()
+        val service = PhotoSyncService(
+            api = api,
+            localDataService = local,
+            syncCheckpointStore = mockk<SyncCheckpointStore>(relaxed = true),
+            photoCacheScheduler = mockk<PhotoCacheScheduler>(relaxed = true),
+            ioDispatcher = StandardTestDispatcher(testScheduler),
+            roomScheduler = scheduler,
+            concurrencyLimiter = AdaptiveConcurrencyLimiter()
+        )
+        val requested = mutableListOf<Pair<Long, Int>>()
+        val foregroundResponse = CompletableDeferred<JsonObject>()
+        coEvery { api.getRoomPhotos(any(), any(), any(), any(), any()) } coAnswers {
+            val roomId = firstArg<Long>()
+            val pageNumber = secondArg<Int?>() ?: 1
+            requested += roomId to pageNumber
+            if (roomId == 1L) foregroundResponse.await() else page(roomId, pageNumber, lastPage = 3)
+        }
+
+        val foreground = launch { service.syncRoomPhotos(projectId, 1L) }
+        val background = launch { service.backfillRoom(2L) { service.syncRoomPhotos(projectId, 2L) } }
+        advanceUntilIdle()
+
+        // The backfill got its first page, then yielded to the foreground room.
+        assertThat(requested).containsExactly(1L to 1, 2L to 1)
+
+        foregroundResponse.complete(page(1L, 1, lastPage = 1))
+        advanceUntilIdle()
+
+        assertThat(foreground.isCompleted).isTrue()
+        assertThat(background.isCompleted).isTrue()
+        assertThat(requested).containsAtLeast(2L to 2, 2L to 3)
+    }
+
+    @Test
+    fun `opening a held background room lets its walk continue`() = runTest {
+        val scheduler = RoomPhotoSyncScheduler()
+        val release = CompletableDeferred<Unit>()
+        val passed = mutableListOf<Long>()
+
+        val busy = launch { scheduler.foreground(1L) { release.await() } }
+        val held = launch {
+            scheduler.backfill(2L) {
+                scheduler.awaitPageTurn(2L)
+                passed += 2L
+            }
+        }
+        advanceUntilIdle()
+        assertThat(passed).isEmpty()
+
+        scheduler.setVisibleRooms("room-detail", listOf(2L))
+        advanceUntilIdle()
+        assertThat(passed).containsExactly(2L)
+        assertThat(held.isCompleted).isTrue()
+
+        release.complete(Unit)
+        advanceUntilIdle()
+        assertThat(busy.isCompleted).isTrue()
+    }
+}
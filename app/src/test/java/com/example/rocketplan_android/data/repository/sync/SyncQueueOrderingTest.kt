@@ -0,0 +1,122 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.api.OfflineSyncApi
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.local.OfflineDatabase
+import com.example.rocketplan_android.data.local.entity.OfflineSupportConversationEntity
+import com.example.rocketplan_android.data.local.entity.OfflineSupportMessageEntity
+import com.example.rocketplan_android.data.model.offline.SupportConversationDto
+import com.example.rocketplan_android.data.model.offline.SupportMessageDto
+import com.google.common.truth.Truth.assertThat
+import io.mockk.coEvery
+import io.mockk.coVerifyOrder
+import io.mockk.mockk
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Ordering guarantees of [SyncQueueProcessor.processPendingOperations] for operations whose
+ * parent is not part of the project → location → room hierarchy.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class SyncQueueOrderingTest {
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var localDataService: LocalDataService
+    private lateinit var api: OfflineSyncApi
+    private lateinit var processor: SyncQueueProcessor
+
+    @Before
+    fun setUp() {
+        db = OfflineDatabase.createInMemoryForTesting(ApplicationProvider.getApplicationContext<Context>())
+        localDataService = LocalDataService.createForTesting(db)
+        api = mockk()
+        processor = SyncQueueProcessor(
+            api = api,
+            localDataService = localDataService,
+            syncProjectEssentials = { mockk(relaxed = true) },
+            persistProperty = { _, _, _, _, _ -> mockk(relaxed = true) },
+            imageProcessorQueueManagerProvider = { null },
+            imageProcessorRepositoryProvider = { null },
+            isNetworkAvailable = { true }
+        )
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    @Test
+    fun `support message is pushed after its conversation on the first pass`() = runTest {
+        val conversation = OfflineSupportConversationEntity(
+            conversationId = 1,
+            uuid = "conversation-1",
+            userId = 1,
+            categoryId = 2,
+            subject = "Moisture meter"
+        )
+        val message = OfflineSupportMessageEntity(
+            messageId = 10,
+            uuid = "message-10",
+            conversationId = 1,
+            senderId = 1,
+            senderType = "user",
+            body = "It stopped reading"
+        )
+        localDataService.saveSupportConversation(conversation)
+        localDataService.saveSupportMessage(message)
+        processor.enqueueSupportConversationCreation(conversation, initialMessageBody = "Hello")
+        processor.enqueueSupportMessageCreation(message)
+
+        coEvery { api.createSupportConversation(any()) } coAnswers {
+            // Slow enough that a message running alongside would find no conversation server id
+            delay(100)
+            supportConversationDto(id = 500)
+        }
+        coEvery { api.createSupportMessage(500, any()) } returns supportMessageDto(id = 900)
+
+        processor.processPendingOperations()
+
+        coVerifyOrder {
+            api.createSupportConversation(any())
+            api.createSupportMessage(500, any())
+        }
+        assertThat(localDataService.getSupportMessageByUuid("message-10")?.serverId).isEqualTo(900L)
+        assertThat(localDataService.getPendingSyncOperationHeaders()).isEmpty()
+    }
+
+    private fun supportConversationDto(id: Long) = SupportConversationDto(
+        id = id,
+        uuid = null,
+        userId = null,
+        categoryId = null,
+        subject = null,
+        status = null,
+        unreadCount = null,
+        lastMessageAt = null,
+        category = null,
+        createdAt = null,
+        updatedAt = null
+    )
+
+    private fun supportMessageDto(id: Long) = SupportMessageDto(
+        id = id,
+        uuid = null,
+        conversationId = null,
+        senderId = null,
+        senderType = null,
+        body = null,
+        isRead = null,
+        attachments = null,
+        createdAt = null,
+        updatedAt = null
+    )
+}
@@ -0,0 +1,247 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.api.OfflineSyncApi
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.local.OfflineDatabase
+import com.example.rocketplan_android.data.local.SyncOperationType
+import com.example.rocketplan_android.data.local.SyncStatus
+import com.example.rocketplan_android.data.local.dao.OfflineDao
+import com.example.rocketplan_android.data.local.entity.OfflineEquipmentEntity
+import com.example.rocketplan_android.data.local.entity.OfflineLocationEntity
+import com.example.rocketplan_android.data.local.entity.OfflineMoistureLogEntity
+import com.example.rocketplan_android.data.local.entity.OfflineNoteEntity
+import com.example.rocketplan_android.data.local.entity.OfflineProjectEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.example.rocketplan_android.data.local.entity.OfflineSyncQueueEntity
+import com.example.rocketplan_android.data.local.entity.OfflineTimecardEntity
+import com.google.common.truth.Truth.assertThat
+import io.mockk.Runs
+import io.mockk.coEvery
+import io.mockk.coVerify
+import io.mockk.confirmVerified
+import io.mockk.just
+import io.mockk.mockk
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.Date
+
+/**
+ * Delete-after-offline-edit scenarios for subtree-aware queue pruning. Each test queues offline
+ * edits, deletes the parent through [SyncQueueProcessor], then checks the operations that are
+ * still waiting to be pushed or, driving [SyncQueueProcessor.processPendingOperations], the
+ * requests that reach the API.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class SyncQueueSubtreePruneTest {
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var dao: OfflineDao
+    private lateinit var api: OfflineSyncApi
+    private lateinit var processor: SyncQueueProcessor
+
+    @Before
+    fun setUp() {
+        db = OfflineDatabase.createInMemoryForTesting(ApplicationProvider.getApplicationContext<Context>())
+        dao = db.offlineDao()
+        // Not relaxed: any request the pushes make that a test did not stub fails loudly.
+        api = mockk()
+        processor = SyncQueueProcessor(
+            api = api,
+            localDataService = LocalDataService.createForTesting(db),
+            syncProjectEssentials = { mockk(relaxed = true) },
+            persistProperty = { _, _, _, _, _ -> mockk(relaxed = true) },
+            imageProcessorQueueManagerProvider = { null },
+            imageProcessorRepositoryProvider = { null },
+            isNetworkAvailable = { true }
+        )
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    private fun op(entityType: String, entityId: Long, type: SyncOperationType) = OfflineSyncQueueEntity(
+        operationId = "$entityType-$entityId-${type.name}",
+        entityType = entityType,
+        entityId = entityId,
+        entityUuid = "$entityType-$entityId",
+        operationType = type,
+        payload = ByteArray(0)
+    )
+
+    private fun room(localId: Long, serverId: Long?, locationId: Long = LOCATION_ID) = OfflineRoomEntity(
+        roomId = localId,
+        serverId = serverId,
+        uuid = "room-$localId",
+        projectId = PROJECT_ID,
+        locationId = locationId,
+        title = "Room $localId",
+        isDirty = serverId == null,
+        syncStatus = if (serverId == null) SyncStatus.PENDING else SyncStatus.SYNCED,
+    )
+
+    private fun location(serverId: Long?) = OfflineLocationEntity(
+        locationId = LOCATION_ID,
+        serverId = serverId,
+        uuid = "loc-$LOCATION_ID",
+        projectId = PROJECT_ID,
+        title = "Level 1",
+        type = "level",
+    )
+
+    private fun note(id: Long, roomId: Long) = OfflineNoteEntity(
+        noteId = id,
+        uuid = "note-$id",
+        projectId = PROJECT_ID,
+        roomId = roomId,
+        content = "note $id",
+    )
+
+    private suspend fun queue(vararg ops: OfflineSyncQueueEntity) = ops.forEach { dao.upsertSyncOperation(it) }
+
+    private suspend fun remainingOperations(): List<OfflineSyncQueueEntity> =
+        dao.getSyncOperationsByStatus(SyncStatus.PENDING)
+
+    @Test
+    fun `deleting a synced room after offline edits leaves only the room delete queued`() = runTest {
+        val synced = room(2001, serverId = 6001)
+        val other = room(2002, serverId = 6002)
+        dao.upsertRooms(listOf(synced, other))
+        dao.upsertNotes(listOf(note(1, roomId = 2001), note(2, roomId = 2002)))
+        dao.upsertEquipment(
+            listOf(
+                // Children can reference the room by server ID as well as local ID.
+                OfflineEquipmentEntity(equipmentId = 10, uuid = "eq-10", projectId = PROJECT_ID, roomId = 6001, type = "fan", status = "active")
+            )
+        )
+        dao.upsertMoistureLogs(
+            listOf(
+                OfflineMoistureLogEntity(logId = 20, uuid = "ml-20", projectId = PROJECT_ID, roomId = 2001, materialId = 1, date = Date(), moistureContent = 12.0)
+            )
+        )
+        queue(
+            op("room", 2001, SyncOperationType.UPDATE),
+            op("note", 1, SyncOperationType.UPDATE),
+            op("equipment", 10, SyncOperationType.CREATE),
+            op("moisture_log", 20, SyncOperationType.CREATE),
+            op("note", 2, SyncOperationType.UPDATE),
+        )
+        assertThat(remainingOperations()).hasSize(5)
+
+        processor.enqueueRoomDeletion(synced, lockUpdatedAt = null)
+
+        val remaining = remainingOperations()
+        assertThat(remaining.map { it.entityType to it.operationType }).containsExactly(
+            "room" to SyncOperationType.DELETE,
+            "note" to SyncOperationType.UPDATE,
+        )
+        assertThat(remaining.first { it.entityType == "room" }.entityId).isEqualTo(2001L)
+        assertThat(remaining.first { it.entityType == "note" }.entityId).isEqualTo(2L)
+    }
+
+    @Test
+    fun `deleting a synced room after offline edits pushes only the room delete`() = runTest {
+        val synced = room(2001, serverId = 6001)
+        dao.upsertRooms(listOf(synced))
+        dao.upsertNotes(listOf(note(1, roomId = 2001)))
+        dao.upsertEquipment(
+            listOf(
+                OfflineEquipmentEntity(equipmentId = 10, uuid = "eq-10", projectId = PROJECT_ID, roomId = 2001, type = "fan", status = "active")
+            )
+        )
+        queue(
+            op("room", 2001, SyncOperationType.UPDATE),
+            op("note", 1, SyncOperationType.UPDATE),
+            op("equipment", 10, SyncOperationType.CREATE),
+        )
+        coEvery { api.deleteRoom(6001, any()) } just Runs
+
+        processor.enqueueRoomDeletion(synced, lockUpdatedAt = null)
+        processor.processPendingOperations()
+
+        coVerify(exactly = 1) { api.deleteRoom(6001, any()) }
+        // No room update, note or equipment request reached the API
+        confirmVerified(api)
+        assertThat(remainingOperations()).isEmpty()
+    }
+
+    @Test
+    fun `deleting a never-synced room resolves its whole subtree locally`() = runTest {
+        val local = room(3001, serverId = null)
+        dao.upsertRooms(listOf(local))
+        dao.upsertNotes(listOf(note(3, roomId = 3001)))
+        queue(
+            op("room", 3001, SyncOperationType.CREATE),
+            op("note", 3, SyncOperationType.CREATE),
+        )
+
+        processor.enqueueRoomDeletion(local, lockUpdatedAt = null)
+        processor.processPendingOperations()
+
+        assertThat(remainingOperations()).isEmpty()
+        // Nothing of the subtree ever reached the server, so nothing is pushed
+        confirmVerified(api)
+    }
+
+    @Test
+    fun `deleting a synced location prunes its rooms and their children`() = runTest {
+        val level = location(serverId = 7001)
+        dao.upsertLocations(listOf(level))
+        dao.upsertRooms(listOf(room(5001, serverId = null), room(5002, serverId = 6502, locationId = 1002)))
+        dao.upsertNotes(listOf(note(5, roomId = 5001), note(6, roomId = 5002)))
+        queue(
+            op("location", LOCATION_ID, SyncOperationType.UPDATE),
+            op("room", 5001, SyncOperationType.CREATE),
+            op("note", 5, SyncOperationType.CREATE),
+            op("note", 6, SyncOperationType.UPDATE),
+        )
+
+        processor.enqueueLocationDeletion(level, lockUpdatedAt = null)
+
+        val remaining = remainingOperations()
+        assertThat(remaining.map { it.entityType to it.operationType }).containsExactly(
+            "location" to SyncOperationType.DELETE,
+            "note" to SyncOperationType.UPDATE,
+        )
+        assertThat(remaining.first { it.entityType == "note" }.entityId).isEqualTo(6L)
+    }
+
+    @Test
+    fun `deleting a synced project prunes locations, rooms, children and timecards`() = runTest {
+        val project = OfflineProjectEntity(projectId = PROJECT_ID, serverId = 9100, uuid = "project-1", title = "12 Main St", status = "active")
+        dao.upsertLocations(listOf(location(serverId = null)))
+        dao.upsertRooms(listOf(room(4001, serverId = null)))
+        dao.upsertNotes(listOf(note(4, roomId = 4001)))
+        dao.upsertTimecards(
+            listOf(
+                OfflineTimecardEntity(timecardId = 30, uuid = "tc-30", projectId = PROJECT_ID, userId = 1, timeIn = Date(), companyId = 1)
+            )
+        )
+        queue(
+            op("project", PROJECT_ID, SyncOperationType.UPDATE),
+            op("location", LOCATION_ID, SyncOperationType.CREATE),
+            op("room", 4001, SyncOperationType.CREATE),
+            op("note", 4, SyncOperationType.CREATE),
+            op("timecard", 30, SyncOperationType.CREATE),
+        )
+
+        processor.enqueueProjectDeletion(project, lockUpdatedAt = null)
+
+        val remaining = remainingOperations()
+        assertThat(remaining.map { it.entityType to it.operationType }).containsExactly(
+            "project" to SyncOperationType.DELETE,
+        )
+    }
+
+    private companion object {
+        const val PROJECT_ID = 100L
+        const val LOCATION_ID = 1001L
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.rocketplan_android.data.repository.sync
+
+import com.example.rocketplan_android.data.api.OfflineSyncApi
+import com.example.rocketplan_android.data.model.offline.UpdatedRecordsResponse
+import com.example.rocketplan_android.data.storage.SyncCheckpointStore
+import com.example.rocketplan_android.util.DateUtils
+import com.google.common.truth.Truth.assertThat
+import io.mockk.coEvery
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import kotlinx.coroutines.test.runTest
+import okhttp3.Headers.Companion.headersOf
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import retrofit2.Response
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class UpdatedRecordsSyncServiceTest {
+
+    private val api = mockk<OfflineSyncApi>()
+    private val checkpointStore = mockk<SyncCheckpointStore>(relaxed = true)
+    private val service = UpdatedRecordsSyncService(
+        api = api,
+        syncCheckpointStore = checkpointStore,
+        pullPlanner = IncrementalPullPlanner(mockk(relaxed = true))
+    )
+    private val serverDate = "Tue, 25 Mar 2025 10:00:00 GMT"
+
+    @Before
+    fun setUp() {
+        every { checkpointStore.getCheckpoint(any()) } returns null
+        coEvery { api.getUpdatedRecords(any(), any(), any(), any()) } returns
+            Response.success(UpdatedRecordsResponse(), headersOf("Date", serverDate))
+    }
+
+    @Test
+    fun `planning leaves the checkpoint until the pulls are committed`() = runTest {
+        val plan = service.planIncrementalPull().getOrThrow()
+
+        verify(exactly = 0) { checkpointStore.updateCheckpoint(UpdatedRecordsSyncService.CHECKPOINT_KEY, any()) }
+        assertThat(plan.serverTime).isEqualTo(DateUtils.parseHttpDate(serverDate))
+
+        service.commitIncrementalPull(plan)
+
+        verify(exactly = 1) { checkpointStore.updateCheckpoint(UpdatedRecordsSyncService.CHECKPOINT_KEY, plan.serverTime!!) }
+    }
+
+    @Test
+    fun `project id lookup advances the checkpoint right away`() = runTest {
+        service.getUpdatedProjectIds().getOrThrow()
+
+        verify(exactly = 1) { checkpointStore.updateCheckpoint(UpdatedRecordsSyncService.CHECKPOINT_KEY, DateUtils.parseHttpDate(serverDate)!!) }
+    }
+}
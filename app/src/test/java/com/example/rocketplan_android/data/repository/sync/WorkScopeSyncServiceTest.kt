@@ -6,6 +6,7 @@ import com.example.rocketplan_android.data.local.SyncStatus
 import com.example.rocketplan_android.data.local.entity.OfflineWorkScopeEntity
 import com.example.rocketplan_android.data.model.offline.PaginatedResponse
 import com.example.rocketplan_android.data.model.offline.WorkScopeDto
+import com.example.rocketplan_android.data.network.AdaptiveConcurrencyLimiter
 import com.example.rocketplan_android.testing.MainDispatcherRule
 import com.google.common.truth.Truth.assertThat
 import io.mockk.coEvery
@@ -34,7 +35,7 @@ class WorkScopeSyncServiceTest {
     private val localDataService: LocalDataService = mockk(relaxed = true)
     private val dispatcher = UnconfinedTestDispatcher()
 
-    private fun service() = WorkScopeSyncService(api, localDataService, dispatcher)
+    private fun service() = WorkScopeSyncService(api, localDataService, dispatcher, AdaptiveConcurrencyLimiter())
 
     private fun workScopeDto(id: Long) = WorkScopeDto(
         id = id,
@@ -0,0 +1,92 @@
+package com.example.rocketplan_android.data.storage
+
+import android.content.Context
+import androidx.room.Room
+import androidx.room.withTransaction
+import androidx.test.core.app.ApplicationProvider
+import com.example.rocketplan_android.data.local.OfflineDatabase
+import com.example.rocketplan_android.data.local.entity.OfflineProjectEntity
+import com.example.rocketplan_android.data.local.entity.OfflineRoomEntity
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.Date
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34], application = android.app.Application::class)
+class SyncCheckpointStoreTest {
+
+    private lateinit var db: OfflineDatabase
+    private lateinit var store: SyncCheckpointStore
+
+    @Before
+    fun setUp() {
+        val ctx = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(ctx, OfflineDatabase::class.java)
+            .allowMainThreadQueries()
+            .build()
+        store = SyncCheckpointStore(ctx, db.syncCursorDao())
+    }
+
+    @After
+    fun tearDown() = db.close()
+
+    @Test
+    fun `checkpoints round trip and clear`() {
+        assertThat(store.getCheckpoint("updated_records_global")).isNull()
+
+        store.updateCheckpoint("updated_records_global", Date(1_000))
+        store.updateCheckpoint("updated_records_global", Date(2_000))
+        assertThat(store.getCheckpoint("updated_records_global")).isEqualTo(Date(2_000))
+
+        store.clearCheckpoint("updated_records_global")
+        assertThat(store.getCheckpoint("updated_records_global")).isNull()
+    }
+
+    @Test
+    fun `project scoped keys are read together and pruned with the project`() = runTest {
+        db.offlineDao().upsertProject(
+            OfflineProjectEntity(projectId = 7, serverId = 507, uuid = "project-7", title = "12 Main St", status = "wip")
+        )
+        db.offlineDao().insertRoom(
+            OfflineRoomEntity(roomId = 70, serverId = 9070, uuid = "room-70", projectId = 7, title = "Kitchen")
+        )
+
+        store.updateCheckpoint("project_notes_7", Date(1_000))
+        store.updateCheckpoint("room_photos_9070", Date(2_000))
+        store.updateCheckpoint("deleted_records_project_507_server_date", Date(3_000))
+        store.updateCheckpoint("project_notes_8", Date(4_000))
+        store.updateCheckpoint("deleted_records_global", Date(5_000))
+
+        assertThat(store.getProjectCheckpoints(7)).containsExactly(
+            "project_notes_7", Date(1_000),
+            "room_photos_9070", Date(2_000),
+            "deleted_records_project_507_server_date", Date(3_000)
+        )
+
+        assertThat(db.syncCursorDao().deleteForProjects(listOf(7L))).isEqualTo(3)
+        assertThat(store.getCheckpoint("room_photos_9070")).isNull()
+        assertThat(store.getCheckpoint("project_notes_8")).isEqualTo(Date(4_000))
+        assertThat(store.getCheckpoint("deleted_records_global")).isEqualTo(Date(5_000))
+    }
+
+    @Test
+    fun `checkpoint written in a rolled back transaction is discarded`() = runTest {
+        store.updateCheckpoint("project_notes_7", Date(1_000))
+
+        val failure = runCatching {
+            db.withTransaction {
+                store.updateCheckpoint("project_notes_7", Date(2_000))
+                error("page upsert failed")
+            }
+        }.exceptionOrNull()
+
+        assertThat(failure).isInstanceOf(IllegalStateException::class.java)
+        assertThat(store.getCheckpoint("project_notes_7")).isEqualTo(Date(1_000))
+    }
+}
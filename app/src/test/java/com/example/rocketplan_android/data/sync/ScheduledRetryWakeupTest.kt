@@ -0,0 +1,141 @@
+package com.example.rocketplan_android.data.sync
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class ScheduledRetryWakeupTest {
+
+    private class RecordingHandoff : BackgroundRetryHandoff {
+        val scheduled = mutableListOf<Long>()
+        var cancels = 0
+
+        override fun scheduleAt(dueAtMs: Long) {
+            scheduled += dueAtMs
+        }
+
+        override fun cancel() {
+            cancels++
+        }
+    }
+
+    private fun TestScope.wakeup(
+        scheduledAt: MutableStateFlow<List<Long>>,
+        foreground: MutableStateFlow<Boolean> = MutableStateFlow(true),
+        handoff: BackgroundRetryHandoff? = null,
+        onDue: () -> Unit
+    ) = ScheduledRetryWakeup(
+        scheduledAt = scheduledAt,
+        isForeground = foreground,
+        handoff = handoff,
+        onDue = { onDue() },
+        clock = { testScheduler.currentTime }
+    )
+
+    @Test
+    fun `fires exactly when the earliest retry is due and not before`() = runTest {
+        val scheduledAt = MutableStateFlow(listOf(10_000L))
+        var fired = 0
+        val job = launch { wakeup(scheduledAt) { fired++ }.run() }
+
+        advanceTimeBy(9_999L)
+        assertThat(fired).isEqualTo(0)
+        advanceTimeBy(2L)
+        assertThat(fired).isEqualTo(1)
+
+        // Nothing else scheduled: no further wakeups however long we wait
+        advanceTimeBy(10 * 60_000L)
+        assertThat(fired).isEqualTo(1)
+        job.cancel()
+    }
+
+    @Test
+    fun `re-arms when the queue changes`() = runTest {
+        val scheduledAt = MutableStateFlow(listOf(60_000L))
+        val firedAt = mutableListOf<Long>()
+        val job = launch { wakeup(scheduledAt) { firedAt += testScheduler.currentTime }.run() }
+        runCurrent()
+
+        // An earlier retry is queued: the pending 60s timer is replaced
+        scheduledAt.value = listOf(5_000L, 60_000L)
+        advanceTimeBy(5_001L)
+        assertThat(firedAt).containsExactly(5_000L)
+
+        // The queue empties: nothing fires at the old 60s deadline
+        scheduledAt.value = emptyList()
+        advanceTimeBy(120_000L)
+        assertThat(firedAt).containsExactly(5_000L)
+        job.cancel()
+    }
+
+    @Test
+    fun `a past-due row left pending does not hide a retry scheduled after it`() = runTest {
+        val scheduledAt = MutableStateFlow(listOf(5_000L))
+        val firedAt = mutableListOf<Long>()
+        val job = launch { wakeup(scheduledAt) { firedAt += testScheduler.currentTime }.run() }
+
+        // Processing is skipped (offline), so the 5s row stays pending with the same scheduledAt
+        advanceTimeBy(10_000L)
+        assertThat(firedAt).containsExactly(5_000L)
+
+        // A second row backs off to 30s; the past-due row still holds the earliest time
+        scheduledAt.value = listOf(5_000L, 30_000L)
+        advanceTimeBy(20_001L)
+        assertThat(firedAt).containsExactly(5_000L, 10_000L, 30_000L).inOrder()
+
+        // Nothing after 30s: the past-due row does not keep re-firing
+        advanceTimeBy(10 * 60_000L)
+        assertThat(firedAt).hasSize(3)
+        job.cancel()
+    }
+
+    @Test
+    fun `backgrounding hands the timer to the handoff and foreground takes it back`() = runTest {
+        val scheduledAt = MutableStateFlow(listOf(30_000L))
+        val foreground = MutableStateFlow(true)
+        val handoff = RecordingHandoff()
+        var fired = 0
+        val job = launch { wakeup(scheduledAt, foreground, handoff) { fired++ }.run() }
+        runCurrent()
+
+        foreground.value = false
+        runCurrent()
+        assertThat(handoff.scheduled).containsExactly(30_000L)
+
+        advanceTimeBy(40_000L)
+        assertThat(fired).isEqualTo(0)
+
+        val cancelsBefore = handoff.cancels
+        foreground.value = true
+        runCurrent()
+        assertThat(handoff.cancels).isEqualTo(cancelsBefore + 1)
+        // Already overdue on return to foreground: fires immediately
+        assertThat(fired).isEqualTo(1)
+        job.cancel()
+    }
+
+    @Test
+    fun `backgrounded handoff skips a past-due row for the next retry still ahead`() = runTest {
+        val scheduledAt = MutableStateFlow(listOf(5_000L))
+        val foreground = MutableStateFlow(false)
+        val handoff = RecordingHandoff()
+        val job = launch { wakeup(scheduledAt, foreground, handoff) {}.run() }
+        runCurrent()
+        assertThat(handoff.scheduled).containsExactly(5_000L)
+
+        // The 5s row is still pending at 10s when a second row backs off to 30s
+        advanceTimeBy(10_000L)
+        scheduledAt.value = listOf(5_000L, 30_000L)
+        runCurrent()
+
+        assertThat(handoff.scheduled).containsExactly(5_000L, 30_000L).inOrder()
+        job.cancel()
+    }
+}
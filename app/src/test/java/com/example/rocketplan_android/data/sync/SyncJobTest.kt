@@ -0,0 +1,21 @@
+package com.example.rocketplan_android.data.sync
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class SyncJobTest {
+
+    @Test
+    fun `notes-only refresh does not share a queue key with the project's main sync`() {
+        val notes = SyncJob.SyncProjectGraph(projectId = 7L, prio = 1, skipPhotos = true, mode = SyncJob.ProjectSyncMode.NOTES_ONLY)
+        val photos = SyncJob.SyncProjectGraph(projectId = 7L, prio = 2, mode = SyncJob.ProjectSyncMode.PHOTOS_ONLY)
+        val essentials = SyncJob.SyncProjectGraph(projectId = 7L, skipPhotos = true)
+
+        assertThat(notes.key).isNotEqualTo(photos.key)
+        assertThat(notes.key).isNotEqualTo(essentials.key)
+        // Every other mode still coalesces into one pending sync per project.
+        assertThat(photos.key).isEqualTo(essentials.key)
+        assertThat(SyncJob.SyncProjectGraph(projectId = 8L, mode = SyncJob.ProjectSyncMode.NOTES_ONLY).key)
+            .isNotEqualTo(notes.key)
+    }
+}
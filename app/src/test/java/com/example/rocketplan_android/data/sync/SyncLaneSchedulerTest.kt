@@ -0,0 +1,108 @@
+package com.example.rocketplan_android.data.sync
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class SyncLaneSchedulerTest {
+
+    @Test
+    fun `jobs map to lanes by type, mode and foreground project`() {
+        val foreground = 7L
+
+        assertThat(SyncLane.forJob(SyncJob.ProcessPendingOperations, foreground)).isEqualTo(SyncLane.PUSH)
+        assertThat(SyncLane.forJob(SyncJob.SyncDeletedRecords, foreground)).isEqualTo(SyncLane.GLOBAL)
+        assertThat(SyncLane.forJob(SyncJob.SyncProjects(force = true), null)).isEqualTo(SyncLane.GLOBAL)
+        assertThat(SyncLane.forJob(SyncJob.EnsureUserContext, foreground)).isEqualTo(SyncLane.GLOBAL)
+        assertThat(
+            SyncLane.forJob(SyncJob.SyncProjectGraph(projectId = 7L, mode = SyncJob.ProjectSyncMode.PHOTOS_ONLY), foreground)
+        ).isEqualTo(SyncLane.FOREGROUND)
+        assertThat(
+            SyncLane.forJob(SyncJob.SyncProjectGraph(projectId = 8L, skipPhotos = true), foreground)
+        ).isEqualTo(SyncLane.ESSENTIALS)
+        assertThat(
+            SyncLane.forJob(SyncJob.SyncProjectGraph(projectId = 8L, mode = SyncJob.ProjectSyncMode.CONTENT_ONLY), foreground)
+        ).isEqualTo(SyncLane.PHOTOS)
+    }
+
+    @Test
+    fun `background lanes never take the reserved interactive slot`() {
+        val scheduler = SyncLaneScheduler(maxConcurrentJobs = 4, reservedInteractiveSlots = 1, reservedPushSlots = 1)
+
+        scheduler.onStarted(SyncLane.PHOTOS)
+        scheduler.onStarted(SyncLane.ESSENTIALS)
+
+        assertThat(scheduler.nextLane(listOf(SyncLane.PHOTOS, SyncLane.ESSENTIALS))).isNull()
+        assertThat(scheduler.nextLane(listOf(SyncLane.PHOTOS, SyncLane.PUSH))).isEqualTo(SyncLane.PUSH)
+    }
+
+    @Test
+    fun `account-wide syncs start while background project syncs hold their slots`() {
+        val scheduler = SyncLaneScheduler(maxConcurrentJobs = 4, reservedInteractiveSlots = 1, reservedPushSlots = 1)
+
+        scheduler.onStarted(SyncLane.ESSENTIALS)
+        scheduler.onStarted(SyncLane.PHOTOS)
+
+        assertThat(scheduler.nextLane(listOf(SyncLane.ESSENTIALS, SyncLane.GLOBAL))).isEqualTo(SyncLane.GLOBAL)
+    }
+
+    @Test
+    fun `push is admitted while account-wide and background project syncs hold every other slot`() {
+        val scheduler = SyncLaneScheduler()
+
+        scheduler.onStarted(SyncLane.GLOBAL)
+        scheduler.onStarted(SyncLane.ESSENTIALS)
+        scheduler.onStarted(SyncLane.PHOTOS)
+
+        assertThat(scheduler.nextLane(listOf(SyncLane.FOREGROUND, SyncLane.PHOTOS))).isNull()
+        assertThat(scheduler.nextLane(listOf(SyncLane.FOREGROUND, SyncLane.PUSH))).isEqualTo(SyncLane.PUSH)
+    }
+
+    @Test
+    fun `lane concurrency caps are respected`() {
+        val scheduler = SyncLaneScheduler(maxConcurrentJobs = 4, reservedInteractiveSlots = 1, reservedPushSlots = 1)
+
+        scheduler.onStarted(SyncLane.PUSH)
+
+        assertThat(scheduler.canStart(SyncLane.PUSH)).isFalse()
+        assertThat(scheduler.nextLane(listOf(SyncLane.PUSH, SyncLane.FOREGROUND))).isEqualTo(SyncLane.FOREGROUND)
+
+        scheduler.onFinished(SyncLane.PUSH)
+        assertThat(scheduler.canStart(SyncLane.PUSH)).isTrue()
+    }
+
+    @Test
+    fun `slots are shared in proportion to lane weight`() {
+        val scheduler = SyncLaneScheduler(maxConcurrentJobs = 1, reservedInteractiveSlots = 0, reservedPushSlots = 0)
+        val dispatched = mutableMapOf<SyncLane, Int>()
+        val contenders = listOf(SyncLane.ESSENTIALS, SyncLane.PHOTOS)
+
+        repeat(30) {
+            val lane = scheduler.nextLane(contenders)!!
+            scheduler.onStarted(lane)
+            scheduler.onFinished(lane)
+            dispatched[lane] = (dispatched[lane] ?: 0) + 1
+        }
+
+        assertThat(dispatched[SyncLane.ESSENTIALS]).isEqualTo(20)
+        assertThat(dispatched[SyncLane.PHOTOS]).isEqualTo(10)
+    }
+
+    @Test
+    fun `an idle lane does not bank credit while it has no work`() {
+        val scheduler = SyncLaneScheduler(maxConcurrentJobs = 1, reservedInteractiveSlots = 0, reservedPushSlots = 0)
+
+        repeat(10) {
+            scheduler.onStarted(SyncLane.PHOTOS)
+            scheduler.onFinished(SyncLane.PHOTOS)
+        }
+
+        // ESSENTIALS was idle for 10 photo dispatches; it should interleave, not monopolise 10+ slots.
+        val next = (1..4).map {
+            val lane = scheduler.nextLane(listOf(SyncLane.ESSENTIALS, SyncLane.PHOTOS))!!
+            scheduler.onStarted(lane)
+            scheduler.onFinished(lane)
+            lane
+        }
+        assertThat(next).contains(SyncLane.PHOTOS)
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.rocketplan_android.data.sync
+
+import com.example.rocketplan_android.data.repository.SyncSegment
+import com.example.rocketplan_android.logging.LogLevel
+import com.example.rocketplan_android.logging.RemoteLogger
+import com.google.common.truth.Truth.assertThat
+import io.mockk.mockk
+import io.mockk.slot
+import io.mockk.verify
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class SyncPerformanceStoreTest {
+
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private var now = START_MS
+
+    private fun store(remoteLogger: RemoteLogger? = null) = SyncPerformanceStore(
+        file = tempFolder.root.resolve(SyncPerformanceStore.FILE_NAME),
+        remoteLogger = remoteLogger,
+        clock = { now }
+    )
+
+    @Test
+    fun `bucket upper bounds stay within the advertised precision`() {
+        listOf(0L, 1L, 15L, 16L, 17L, 31L, 32L, 100L, 999L, 1_000L, 12_345L, 3_600_000L).forEach { value ->
+            val upper = LatencyBuckets.upperBoundOf(LatencyBuckets.indexOf(value))
+
+            assertThat(upper).isAtLeast(value)
+            assertThat(upper - value).isAtMost(value / 8)
+        }
+        assertThat(LatencyBuckets.indexOf(Long.MAX_VALUE)).isEqualTo(LatencyBuckets.count - 1)
+    }
+
+    @Test
+    fun `summaries report percentiles, throughput and error rate per key`() {
+        val store = store()
+        (1..100).forEach { ms ->
+            store.recordPush("room", "create", durationMs = ms * 10L, failed = ms % 20 == 0)
+        }
+        store.recordSegment(SyncSegment.PROJECT_ESSENTIALS, durationMs = 4_000, itemsSynced = 12, failed = false)
+        now += 10 * 60_000L
+
+        val summaries = store.summaries().associateBy { it.key }
+        val rooms = summaries.getValue("push:room:CREATE")
+
+        assertThat(rooms.count).isEqualTo(100)
+        assertThat(rooms.errorCount).isEqualTo(5)
+        assertThat(rooms.errorRate).isWithin(1e-9).of(0.05)
+        assertThat(rooms.p50Ms).isIn(500L..562L)
+        assertThat(rooms.p95Ms).isIn(950L..1_000L)
+        assertThat(rooms.p99Ms).isIn(990L..1_000L)
+        assertThat(rooms.maxMs).isEqualTo(1_000L)
+        assertThat(rooms.throughputPerMinute).isWithin(1e-9).of(10.0)
+
+        val essentials = summaries.getValue("pull:PROJECT_ESSENTIALS")
+        assertThat(essentials.items).isEqualTo(12)
+        assertThat(essentials.p99Ms).isEqualTo(4_000L)
+    }
+
+    @Test
+    fun `rolling windows drop slices that fell out of the window`() {
+        val store = store()
+        store.recordPush("note", "UPDATE", durationMs = 50, failed = false)
+        now += 2 * 60 * 60_000L
+        store.recordPush("note", "UPDATE", durationMs = 70, failed = true)
+
+        assertThat(store.summaries(SyncPerformanceStore.WINDOW_1H_MS).single().count).isEqualTo(1)
+        assertThat(store.summaries(SyncPerformanceStore.WINDOW_24H_MS).single().count).isEqualTo(2)
+
+        now += 23 * 60 * 60_000L
+        assertThat(store.summaries(SyncPerformanceStore.WINDOW_24H_MS).single().errorCount).isEqualTo(1)
+    }
+
+    @Test
+    fun `persisted histograms survive a restart`() {
+        val first = store()
+        listOf(20L, 40L, 80L).forEach { first.recordPush("equipment", "DELETE", it, failed = false) }
+        first.persist()
+
+        val restored = store().summaries()
+
+        assertThat(restored).isEqualTo(first.summaries())
+        assertThat(restored.single().count).isEqualTo(3)
+    }
+
+    @Test
+    fun `persisting again replaces the state file through a temp file`() {
+        val first = store()
+        first.recordPush("equipment", "DELETE", 20L, failed = false)
+        first.persist()
+        first.recordPush("equipment", "DELETE", 40L, failed = false)
+        first.persist()
+
+        assertThat(tempFolder.root.list()!!.toList()).containsExactly(SyncPerformanceStore.FILE_NAME)
+        assertThat(store().summaries().single().count).isEqualTo(2)
+    }
+
+    @Test
+    fun `periodic remote summary is logged at most once per interval`() {
+        val remoteLogger = mockk<RemoteLogger>(relaxed = true)
+        val store = store(remoteLogger)
+        store.recordPush("room", "UPDATE", durationMs = 120, failed = false)
+
+        store.persist()
+        store.persist()
+
+        val metadata = slot<Map<String, String>>()
+        verify(exactly = 1) {
+            remoteLogger.log(LogLevel.INFO, any(), "Sync performance summary", capture(metadata))
+        }
+        assertThat(metadata.captured["push:room:UPDATE"]).startsWith("n=1 p50=120")
+
+        now += SyncPerformanceStore.REPORT_INTERVAL_MS
+        store.recordPush("room", "UPDATE", durationMs = 90, failed = false)
+        store.persist()
+
+        verify(exactly = 2) { remoteLogger.log(LogLevel.INFO, any(), "Sync performance summary", any()) }
+    }
+
+    private companion object {
+        // Aligned to a slice boundary so throughput spans are exact.
+        const val START_MS = 1_790_000_400_000L
+    }
+}
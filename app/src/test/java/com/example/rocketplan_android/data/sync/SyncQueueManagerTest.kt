@@ -49,8 +49,8 @@ class SyncQueueManagerTest {
     ): SyncQueueManager {
         val authRepository = mockk<AuthRepository>(relaxed = true)
         val syncRepository = mockk<OfflineSyncRepository>(relaxed = true)
-        // observeSyncOperations / hasDueScheduledOperations / resetFailedOperationsForRetry
-        // are all covered by the relaxed mock (empty flow, false, 0 respectively),
+        // observeHasSyncOperations / observeScheduledRetryTimes / resetFailedOperationsForRetry
+        // are all covered by the relaxed mock (no-op flows and 0 respectively),
         // so the internal init coroutines complete harmlessly.
         val localDataService = mockk<LocalDataService>(relaxed = true)
         val photoCacheScheduler = mockk<PhotoCacheScheduler>(relaxed = true)
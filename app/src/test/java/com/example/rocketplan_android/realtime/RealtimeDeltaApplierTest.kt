@@ -0,0 +1,170 @@
+package com.example.rocketplan_android.realtime
+
+import com.example.rocketplan_android.data.local.LocalDataService
+import com.example.rocketplan_android.data.local.entity.OfflineNoteEntity
+import com.example.rocketplan_android.data.local.entity.OfflineProjectEntity
+import com.example.rocketplan_android.realtime.RealtimeDeltaApplier.Outcome
+import com.example.rocketplan_android.util.DateUtils
+import com.google.common.truth.Truth.assertThat
+import io.mockk.coEvery
+import io.mockk.coVerify
+import io.mockk.mockk
+import io.mockk.slot
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+class RealtimeDeltaApplierTest {
+
+    private val localDataService = mockk<LocalDataService>(relaxed = true)
+    private val applier = RealtimeDeltaApplier(localDataService)
+
+    private fun notePayload(
+        id: Long = 42,
+        body: String? = "Moisture readings updated",
+        updatedAt: String? = "2025-03-25T10:00:00.000000Z"
+    ): String {
+        val fields = buildList {
+            add("\"id\": $id")
+            add("\"uuid\": \"note-$id\"")
+            add("\"project_id\": 7")
+            add("\"room_id\": null")
+            add("\"user_id\": 3")
+            body?.let { add("\"body\": \"$it\"") }
+            add("\"created_at\": \"2025-03-20T08:00:00.000000Z\"")
+            updatedAt?.let { add("\"updated_at\": \"$it\"") }
+        }
+        return "{\"note\": {${fields.joinToString()}}}"
+    }
+
+    private fun localNote(
+        serverUpdatedAt: String = "2025-03-25T10:00:00.000000Z",
+        content: String = "Moisture readings updated",
+        isDirty: Boolean = false
+    ) = OfflineNoteEntity(
+        noteId = 100,
+        serverId = 42,
+        uuid = "local-uuid",
+        projectId = 7,
+        content = content,
+        serverUpdatedAt = DateUtils.parseApiDate(serverUpdatedAt),
+        isDirty = isDirty
+    )
+
+    @Test
+    fun `complete note payload is upserted without a fetch`() = runTest {
+        coEvery { localDataService.getNoteByServerId(42) } returns null
+        val saved = slot<List<OfflineNoteEntity>>()
+        coEvery { localDataService.saveNotes(capture(saved), true) } returns Unit
+
+        val outcome = applier.applyNoteEvent(PusherConfig.NOTE_CREATED_EVENT, null, notePayload())
+
+        assertThat(outcome).isEqualTo(Outcome.APPLIED)
+        assertThat(saved.captured.single().serverId).isEqualTo(42)
+        assertThat(saved.captured.single().content).isEqualTo("Moisture readings updated")
+    }
+
+    @Test
+    fun `newer payload updates the existing row in place`() = runTest {
+        coEvery { localDataService.getNoteByServerId(42) } returns localNote()
+        val saved = slot<List<OfflineNoteEntity>>()
+        coEvery { localDataService.saveNotes(capture(saved), true) } returns Unit
+
+        val outcome = applier.applyNoteEvent(
+            PusherConfig.NOTE_UPDATED_EVENT,
+            42,
+            notePayload(body = "Edited", updatedAt = "2025-03-25T11:00:00.000000Z")
+        )
+
+        assertThat(outcome).isEqualTo(Outcome.APPLIED)
+        assertThat(saved.captured.single().noteId).isEqualTo(100)
+        assertThat(saved.captured.single().content).isEqualTo("Edited")
+    }
+
+    @Test
+    fun `stale payloads and dirty rows are skipped`() = runTest {
+        coEvery { localDataService.getNoteByServerId(42) } returns localNote()
+        val stale = applier.applyNoteEvent(
+            PusherConfig.NOTE_UPDATED_EVENT,
+            42,
+            notePayload(body = "Old", updatedAt = "2025-03-25T09:00:00.000000Z")
+        )
+
+        coEvery { localDataService.getNoteByServerId(42) } returns localNote(isDirty = true)
+        val dirty = applier.applyNoteEvent(
+            PusherConfig.NOTE_UPDATED_EVENT,
+            42,
+            notePayload(body = "Remote", updatedAt = "2025-03-25T11:00:00.000000Z")
+        )
+
+        assertThat(stale).isEqualTo(Outcome.SKIPPED)
+        assertThat(dirty).isEqualTo(Outcome.SKIPPED)
+        coVerify(exactly = 0) { localDataService.saveNotes(any(), any()) }
+    }
+
+    @Test
+    fun `partial or ambiguous payloads fall back to a fetch`() = runTest {
+        coEvery { localDataService.getNoteByServerId(42) } returns localNote()
+
+        val missingBody = applier.applyNoteEvent(PusherConfig.NOTE_UPDATED_EVENT, 42, notePayload(body = null))
+        val missingVersion = applier.applyNoteEvent(PusherConfig.NOTE_UPDATED_EVENT, 42, notePayload(updatedAt = null))
+        val sameVersionDifferentBody = applier.applyNoteEvent(
+            PusherConfig.NOTE_FLAGGED_EVENT,
+            42,
+            notePayload(body = "Different")
+        )
+        val empty = applier.applyNoteEvent(PusherConfig.NOTE_FLAGGED_EVENT, 42, "[]")
+
+        assertThat(listOf(missingBody, missingVersion, sameVersionDifferentBody, empty))
+            .containsExactly(Outcome.NEEDS_FETCH, Outcome.NEEDS_FETCH, Outcome.NEEDS_FETCH, Outcome.NEEDS_FETCH)
+        coVerify(exactly = 0) { localDataService.saveNotes(any(), any()) }
+    }
+
+    @Test
+    fun `delete events tombstone the note from the channel id`() = runTest {
+        coEvery { localDataService.getNoteByServerId(42) } returns localNote()
+
+        val outcome = applier.applyNoteEvent(PusherConfig.NOTE_DELETED_EVENT, 42, null)
+
+        assertThat(outcome).isEqualTo(Outcome.APPLIED)
+        coVerify { localDataService.markNotesDeleted(listOf(42L)) }
+    }
+
+    @Test
+    fun `delete older than the local version is refetched instead of applied`() = runTest {
+        coEvery { localDataService.getNoteByServerId(42) } returns localNote()
+
+        val outcome = applier.applyNoteEvent(
+            PusherConfig.NOTE_DELETED_EVENT,
+            42,
+            "{\"note\": {\"id\": 42, \"deleted_at\": \"2025-03-25T09:00:00.000000Z\"}}"
+        )
+
+        assertThat(outcome).isEqualTo(Outcome.NEEDS_FETCH)
+        coVerify(exactly = 0) { localDataService.markNotesDeleted(any()) }
+    }
+
+    @Test
+    fun `project status payload updates only the status`() = runTest {
+        coEvery { localDataService.getProject(7) } returns OfflineProjectEntity(
+            projectId = 7,
+            serverId = 7,
+            uuid = "project-7",
+            title = "12 Main St",
+            addressLine1 = "12 Main St",
+            status = "active",
+            serverUpdatedAt = DateUtils.parseApiDate("2025-03-25T10:00:00.000000Z")
+        )
+        val saved = slot<List<OfflineProjectEntity>>()
+        coEvery { localDataService.saveProjects(capture(saved), any()) } returns Unit
+
+        val outcome = applier.applyProjectStatusEvent(
+            7,
+            "{\"project\": {\"id\": 7, \"project_status\": {\"name\": \"completed\"}, \"updated_at\": \"2025-03-25T12:00:00.000000Z\"}}"
+        )
+
+        assertThat(outcome).isEqualTo(Outcome.APPLIED)
+        val project = saved.captured.single()
+        assertThat(project.status).isEqualTo("completed")
+        assertThat(project.addressLine1).isEqualTo("12 Main St")
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.rocketplan_android.realtime
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class RealtimeRefreshCoalescerTest {
+
+    private val issued = mutableListOf<RealtimeRefresh>()
+
+    private fun TestScope.coalescer(
+        isRedundant: suspend (RealtimeRefresh) -> Boolean = { false }
+    ) = RealtimeRefreshCoalescer(
+        issue = { issued += it },
+        isRedundant = isRedundant,
+        scope = backgroundScope,
+        clock = { testScheduler.currentTime }
+    )
+
+    @Test
+    fun `single event flushes after the minimum quiet window`() = runTest {
+        val coalescer = coalescer()
+
+        coalescer.submit(RealtimeRefresh.ProjectNotes(1))
+        advanceTimeBy(RealtimeRefreshCoalescer.DEFAULT_MIN_QUIET_MS - 1)
+        runCurrent()
+        assertThat(issued).isEmpty()
+
+        advanceTimeBy(1)
+        runCurrent()
+        assertThat(issued).containsExactly(RealtimeRefresh.ProjectNotes(1))
+    }
+
+    @Test
+    fun `a burst of note events becomes one notes refresh`() = runTest {
+        val coalescer = coalescer()
+
+        repeat(20) {
+            coalescer.submit(RealtimeRefresh.ProjectNotes(1))
+            advanceTimeBy(50)
+        }
+        advanceUntilIdle()
+
+        assertThat(issued).containsExactly(RealtimeRefresh.ProjectNotes(1))
+        assertThat(coalescer.stats.value).isEqualTo(
+            RealtimeCoalescerStats(eventsReceived = 20, refreshesIssued = 1, refreshesDropped = 0, batchesFlushed = 1)
+        )
+    }
+
+    @Test
+    fun `metadata events absorb notes events for the same project only`() = runTest {
+        val coalescer = coalescer()
+
+        coalescer.submit(RealtimeRefresh.ProjectNotes(1))
+        coalescer.submit(RealtimeRefresh.ProjectMetadata(1))
+        coalescer.submit(RealtimeRefresh.ProjectNotes(1))
+        coalescer.submit(RealtimeRefresh.ProjectNotes(2))
+        coalescer.submit(RealtimeRefresh.ProjectList)
+        coalescer.submit(RealtimeRefresh.ProjectList)
+        advanceUntilIdle()
+
+        assertThat(issued).containsExactly(
+            RealtimeRefresh.ProjectMetadata(1),
+            RealtimeRefresh.ProjectNotes(2),
+            RealtimeRefresh.ProjectList
+        )
+    }
+
+    @Test
+    fun `a steady stream is still flushed within the maximum batch age`() = runTest {
+        val coalescer = coalescer()
+
+        repeat(25) {
+            coalescer.submit(RealtimeRefresh.ProjectMetadata(1))
+            advanceTimeBy(200)
+        }
+        runCurrent()
+
+        assertThat(testScheduler.currentTime).isEqualTo(RealtimeRefreshCoalescer.DEFAULT_MAX_BATCH_AGE_MS)
+        assertThat(issued).containsExactly(RealtimeRefresh.ProjectMetadata(1))
+    }
+
+    @Test
+    fun `refreshes covered by a pending sync are dropped`() = runTest {
+        val coalescer = coalescer(isRedundant = { it is RealtimeRefresh.ProjectNotes })
+
+        repeat(3) { coalescer.submit(RealtimeRefresh.ProjectNotes(1)) }
+        coalescer.submit(RealtimeRefresh.ProjectMetadata(2))
+        advanceUntilIdle()
+
+        assertThat(issued).containsExactly(RealtimeRefresh.ProjectMetadata(2))
+        assertThat(coalescer.stats.value).isEqualTo(
+            RealtimeCoalescerStats(eventsReceived = 4, refreshesIssued = 1, refreshesDropped = 1, batchesFlushed = 2)
+        )
+    }
+
+    @Test
+    fun `clear discards pending batches`() = runTest {
+        val coalescer = coalescer()
+
+        coalescer.submit(RealtimeRefresh.ProjectNotes(1))
+        coalescer.clear()
+        advanceUntilIdle()
+
+        assertThat(issued).isEmpty()
+    }
+}
@@ -195,6 +195,7 @@ class RoomDetailViewModelTest {
         coEvery { offlineSyncRepository.syncRoomPhotos(any(), any(), any(), any(), any()) } returns
             SyncResult.success(SyncSegment.ROOM_PHOTOS, 0, 0)
         coEvery { offlineSyncRepository.syncRoomWorkScopes(any(), any()) } returns 0
+        every { offlineSyncRepository.setVisibleRooms(any(), any()) } just runs
         coEvery { offlineSyncRepository.syncRoomDamages(any(), any()) } returns 0
         every { imageProcessorRepository.observeAssembliesByRoom(any()) } returns flowOf(emptyList())
         every { imageProcessorRepository.observePhotosByAssemblyLocalId(any()) } returns flowOf(emptyList())
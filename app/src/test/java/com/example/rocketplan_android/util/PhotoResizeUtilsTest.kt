@@ -0,0 +1,100 @@
+package com.example.rocketplan_android.util
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class PhotoResizeUtilsTest {
+
+    private val maxBytes = 6L * 1024L * 1024L
+
+    @Test
+    fun `48MP capture is decoded at a quarter of its pixels`() {
+        val sampleSize = PhotoResizeUtils.sampleSizeFor(8000, 6000)
+
+        assertThat(sampleSize).isEqualTo(2)
+        // 4000x3000 already meets the target, so no extra downscale and ~48MB instead of ~190MB.
+        assertThat(PhotoResizeUtils.scaledSize(8000 / sampleSize, 6000 / sampleSize)).isEqualTo(4000 to 3000)
+    }
+
+    @Test
+    fun `decoded bitmap never exceeds twice the target before its single downscale`() {
+        listOf(5472 to 3648, 7000 to 5000, 9248 to 6936, 4000 to 3000, 12000 to 9000).forEach { (width, height) ->
+            val sampleSize = PhotoResizeUtils.sampleSizeFor(width, height)
+            val decodedPixels = (width / sampleSize).toLong() * (height / sampleSize)
+
+            assertThat(decodedPixels).isAtMost(PhotoResizeUtils.TARGET_PIXELS * 2)
+            assertThat(Integer.bitCount(sampleSize)).isEqualTo(1)
+        }
+    }
+
+    @Test
+    fun `downscale keeps the aspect ratio and lands just under the target`() {
+        val (width, height) = PhotoResizeUtils.scaledSize(5472, 3648)
+
+        assertThat(width.toLong() * height).isAtMost(PhotoResizeUtils.TARGET_PIXELS)
+        assertThat(width.toLong() * height).isAtLeast(PhotoResizeUtils.TARGET_PIXELS * 99 / 100)
+        assertThat(width.toDouble() / height).isWithin(0.01).of(5472.0 / 3648)
+    }
+
+    @Test
+    fun `starting quality follows the pixel count`() {
+        assertThat(PhotoResizeUtils.predictJpegQuality(3_000_000, maxBytes)).isEqualTo(95)
+        assertThat(PhotoResizeUtils.predictJpegQuality(12_000_000, maxBytes)).isEqualTo(90)
+        assertThat(PhotoResizeUtils.predictJpegQuality(24_000_000, maxBytes)).isEqualTo(75)
+        assertThat(PhotoResizeUtils.predictJpegQuality(60_000_000, maxBytes)).isNull()
+    }
+
+    @Test
+    fun `typical photo fits on the first encode`() {
+        val attempts = mutableListOf<Int>()
+
+        val quality = PhotoResizeUtils.encodeWithinBudget(12_000_000, maxBytes) { jpegQuality ->
+            attempts += jpegQuality
+            encodedSize(12_000_000, jpegQuality, detail = 1.0)
+        }
+
+        assertThat(quality).isEqualTo(90)
+        assertThat(attempts).containsExactly(90)
+    }
+
+    @Test
+    fun `photo that compresses worse than predicted is corrected in one step`() {
+        val attempts = mutableListOf<Int>()
+
+        val quality = PhotoResizeUtils.encodeWithinBudget(12_000_000, maxBytes) { jpegQuality ->
+            attempts += jpegQuality
+            encodedSize(12_000_000, jpegQuality, detail = 1.6)
+        }
+
+        assertThat(attempts).hasSize(2)
+        assertThat(encodedSize(12_000_000, quality!!, detail = 1.6)).isAtMost(maxBytes.toInt())
+    }
+
+    @Test
+    fun `hopeless photo gives up instead of walking every quality`() {
+        val attempts = mutableListOf<Int>()
+
+        val quality = PhotoResizeUtils.encodeWithinBudget(12_000_000, maxBytes) { jpegQuality ->
+            attempts += jpegQuality
+            encodedSize(12_000_000, jpegQuality, detail = 10.0)
+        }
+
+        assertThat(quality).isNull()
+        assertThat(attempts).hasSize(1)
+    }
+
+    // Roughly how JPEG size scales with quality; [detail] models scenes that compress worse.
+    private fun encodedSize(pixels: Long, quality: Int, detail: Double): Int {
+        val bytesPerPixel = when {
+            quality >= 95 -> 0.55
+            quality >= 90 -> 0.38
+            quality >= 85 -> 0.30
+            quality >= 80 -> 0.25
+            quality >= 75 -> 0.21
+            quality >= 70 -> 0.18
+            quality >= 60 -> 0.15
+            else -> 0.12
+        }
+        return (pixels * bytesPerPixel * detail).toInt()
+    }
+}